@@ -29,6 +29,7 @@ import bluej.pkgmgr.Project;
 import bluej.prefmgr.PrefMgr;
 import bluej.utility.Debug;
 import bluej.utility.DialogManager;
+import bluej.utility.SavePipeline;
 import bluej.utility.Utility;
 import bluej.utility.javafx.FXPlatformRunnable;
 import bluej.utility.javafx.JavaFXUtil;
@@ -469,6 +470,9 @@ public class Main
     private static void exit()
     {
         DataCollector.bluejClosed();
+        // Finish writing any saved files (also done on shutdown, but better done before
+        // anything else is torn down):
+        SavePipeline.getInstance().awaitAllWrites();
         
         // save configuration properties
         Config.handleExit();
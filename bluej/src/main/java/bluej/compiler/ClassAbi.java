@@ -0,0 +1,385 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Computes a hash of the application binary interface (ABI) of a compiled class: the parts of
+ * its class files which other classes can depend on when they are compiled.  This is the class's
+ * access flags, name, superclass, interfaces, generic signature and annotations, plus the fields
+ * and methods which are not private (with their types, generic signatures, declared exceptions,
+ * the values of any constants, which the compiler copies into the classes which use them, and the
+ * default values of annotation elements).  The class's annotations matter for annotation types
+ * (for instance @Target and @Retention) and for @FunctionalInterface.
+ *
+ * <p>Method bodies, private members and anonymous or local classes do not affect the hash, so a
+ * class which has been recompiled after a change to one of these still has the same hash, and
+ * the classes which use it do not need to be recompiled.  Package-private members are part of
+ * the hash, since BlueJ's dependent classes are typically in the same package.
+ */
+@OnThread(Tag.Any)
+public class ClassAbi
+{
+    private static final int ACC_PRIVATE = 0x0002;
+    // ACC_SUPER for classes, ACC_SYNCHRONIZED for methods; neither affects users of the class:
+    private static final int ACC_SUPER_OR_SYNCHRONIZED = 0x0020;
+
+    private static final int CONSTANT_Utf8 = 1;
+    private static final int CONSTANT_Integer = 3;
+    private static final int CONSTANT_Float = 4;
+    private static final int CONSTANT_Long = 5;
+    private static final int CONSTANT_Double = 6;
+    private static final int CONSTANT_Class = 7;
+    private static final int CONSTANT_String = 8;
+    private static final int CONSTANT_MethodHandle = 15;
+    private static final int CONSTANT_MethodType = 16;
+    private static final int CONSTANT_Module = 19;
+    private static final int CONSTANT_Package = 20;
+
+    /**
+     * Compute the ABI hash of a class from its class files (the top-level class file, plus those
+     * of its nested classes).  Class files of anonymous and local classes are ignored.
+     *
+     * @param classFiles  The class files; entries which do not exist are ignored
+     * @return  The hash, or null if none of the files exist
+     * @throws IOException  if a class file cannot be read, or is not a valid class file
+     */
+    public static byte[] hash(List<File> classFiles) throws IOException
+    {
+        List<File> sorted = new ArrayList<>();
+        for (File file : classFiles)
+        {
+            if (file.isFile() && !isAnonymousOrLocal(file.getName()))
+            {
+                sorted.add(file);
+            }
+        }
+        if (sorted.isEmpty())
+        {
+            return null;
+        }
+        sorted.sort(Comparator.comparing(File::getName));
+
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new RuntimeException(e);
+        }
+        DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+        for (File file : sorted)
+        {
+            writeAbi(Files.readAllBytes(file.toPath()), out);
+        }
+        out.flush();
+        return digest.digest();
+    }
+
+    /**
+     * Check whether a class file name is that of an anonymous or local class, which other
+     * classes cannot refer to (e.g. "A$1.class" or "A$1Local.class").
+     */
+    private static boolean isAnonymousOrLocal(String fileName)
+    {
+        for (int i = fileName.indexOf('$'); i != -1; i = fileName.indexOf('$', i + 1))
+        {
+            if (i + 1 < fileName.length() && Character.isDigit(fileName.charAt(i + 1)))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse a class file, and write the parts of it which form the ABI to the given stream.
+     * Members are written in a canonical order, so that reordering them does not change the ABI.
+     */
+    private static void writeAbi(byte[] classFile, DataOutputStream out) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        if (in.readInt() != 0xCAFEBABE)
+        {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+
+        // The constant pool. We keep the strings (and the text of constant values), which is all
+        // that the rest of the class file refers to for our purposes:
+        int poolSize = in.readUnsignedShort();
+        String[] pool = new String[poolSize];
+        int[] classNames = new int[poolSize];
+        for (int i = 1; i < poolSize; i++)
+        {
+            int tag = in.readUnsignedByte();
+            switch (tag)
+            {
+                case CONSTANT_Utf8:
+                    pool[i] = in.readUTF();
+                    break;
+                case CONSTANT_Integer:
+                    pool[i] = "I" + in.readInt();
+                    break;
+                case CONSTANT_Float:
+                    pool[i] = "F" + Float.floatToRawIntBits(in.readFloat());
+                    break;
+                case CONSTANT_Long:
+                    pool[i] = "J" + in.readLong();
+                    i++; // takes two entries
+                    break;
+                case CONSTANT_Double:
+                    pool[i] = "D" + Double.doubleToRawLongBits(in.readDouble());
+                    i++; // takes two entries
+                    break;
+                case CONSTANT_Class:
+                case CONSTANT_String:
+                    // Resolved once the whole pool has been read:
+                    classNames[i] = in.readUnsignedShort();
+                    break;
+                case CONSTANT_MethodType:
+                case CONSTANT_Module:
+                case CONSTANT_Package:
+                    in.readUnsignedShort();
+                    break;
+                case CONSTANT_MethodHandle:
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                    break;
+                default:
+                    // The remaining kinds (references, name-and-type, dynamic) are two indexes:
+                    if (tag < 9 || tag > 18)
+                    {
+                        throw new IOException("Unknown constant pool tag " + tag);
+                    }
+                    in.readInt();
+                    break;
+            }
+        }
+        for (int i = 1; i < poolSize; i++)
+        {
+            if (classNames[i] != 0)
+            {
+                pool[i] = pool[classNames[i]];
+            }
+        }
+
+        out.writeUTF("class");
+        out.writeInt(in.readUnsignedShort() & ~ACC_SUPER_OR_SYNCHRONIZED);
+        writeString(out, pool, in.readUnsignedShort()); // this class
+        writeString(out, pool, in.readUnsignedShort()); // superclass (absent for Object)
+        int interfaceCount = in.readUnsignedShort();
+        String[] interfaces = new String[interfaceCount];
+        for (int i = 0; i < interfaceCount; i++)
+        {
+            interfaces[i] = pool[in.readUnsignedShort()];
+        }
+        Arrays.sort(interfaces);
+        for (String iface : interfaces)
+        {
+            out.writeUTF(iface);
+        }
+
+        List<String> fields = readMembers(in, pool);
+        List<String> methods = readMembers(in, pool);
+        out.writeUTF("fields");
+        for (String field : fields)
+        {
+            writeText(out, field);
+        }
+        out.writeUTF("methods");
+        for (String method : methods)
+        {
+            writeText(out, method);
+        }
+        out.writeUTF("attributes");
+        writeText(out, readAttributes(in, pool, true));
+    }
+
+    /**
+     * Read the fields or methods of a class, returning a description of each one which is not
+     * private, sorted into a canonical order.
+     */
+    private static List<String> readMembers(DataInputStream in, String[] pool) throws IOException
+    {
+        int count = in.readUnsignedShort();
+        List<String> members = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+        {
+            int access = in.readUnsignedShort();
+            String name = pool[in.readUnsignedShort()];
+            String descriptor = pool[in.readUnsignedShort()];
+            String attributes = readAttributes(in, pool, false);
+            if ((access & ACC_PRIVATE) == 0)
+            {
+                members.add(name + " " + descriptor + " " + (access & ~ACC_SUPER_OR_SYNCHRONIZED) + attributes);
+            }
+        }
+        members.sort(null);
+        return members;
+    }
+
+    /**
+     * Read a set of attributes, returning a description of those which form part of the ABI:
+     * generic signatures, constant values, declared exceptions, permitted subclasses and the
+     * default values of annotation elements, plus annotations if these are the attributes of
+     * the class itself. Other attributes (such as method code) are skipped.
+     */
+    private static String readAttributes(DataInputStream in, String[] pool, boolean classAttributes) throws IOException
+    {
+        int count = in.readUnsignedShort();
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < count; i++)
+        {
+            String name = pool[in.readUnsignedShort()];
+            int length = in.readInt();
+            switch (name)
+            {
+                case "Signature":
+                case "ConstantValue":
+                    description.append(' ').append(name).append('=').append(pool[in.readUnsignedShort()]);
+                    break;
+                case "Exceptions":
+                case "PermittedSubclasses":
+                    int entries = in.readUnsignedShort();
+                    String[] classes = new String[entries];
+                    for (int j = 0; j < entries; j++)
+                    {
+                        classes[j] = pool[in.readUnsignedShort()];
+                    }
+                    Arrays.sort(classes);
+                    description.append(' ').append(name).append('=').append(String.join(",", classes));
+                    break;
+                case "AnnotationDefault":
+                    description.append(' ').append(name).append('=');
+                    readElementValue(in, pool, description);
+                    break;
+                case "RuntimeVisibleAnnotations":
+                case "RuntimeInvisibleAnnotations":
+                    if (!classAttributes)
+                    {
+                        in.skipNBytes(length);
+                        break;
+                    }
+                    int annotationCount = in.readUnsignedShort();
+                    String[] annotations = new String[annotationCount];
+                    for (int j = 0; j < annotationCount; j++)
+                    {
+                        StringBuilder annotation = new StringBuilder();
+                        readAnnotation(in, pool, annotation);
+                        annotations[j] = annotation.toString();
+                    }
+                    Arrays.sort(annotations);
+                    description.append(' ').append(name).append('=').append(String.join(",", annotations));
+                    break;
+                default:
+                    in.skipNBytes(length);
+                    break;
+            }
+        }
+        return description.toString();
+    }
+
+    /**
+     * Read an annotation (its type and element values), appending a description of it.
+     */
+    private static void readAnnotation(DataInputStream in, String[] pool, StringBuilder description) throws IOException
+    {
+        description.append('@').append(pool[in.readUnsignedShort()]).append('(');
+        int pairs = in.readUnsignedShort();
+        for (int i = 0; i < pairs; i++)
+        {
+            description.append(i == 0 ? "" : ",").append(pool[in.readUnsignedShort()]).append('=');
+            readElementValue(in, pool, description);
+        }
+        description.append(')');
+    }
+
+    /**
+     * Read the value of an annotation element, appending a description of it.
+     */
+    private static void readElementValue(DataInputStream in, String[] pool, StringBuilder description) throws IOException
+    {
+        char tag = (char) in.readUnsignedByte();
+        description.append(tag);
+        switch (tag)
+        {
+            case 'e':
+                // Enum constant: the enum type, and the constant's name
+                description.append(pool[in.readUnsignedShort()]).append('.').append(pool[in.readUnsignedShort()]);
+                break;
+            case '@':
+                readAnnotation(in, pool, description);
+                break;
+            case '[':
+                int count = in.readUnsignedShort();
+                description.append('{');
+                for (int i = 0; i < count; i++)
+                {
+                    description.append(i == 0 ? "" : ",");
+                    readElementValue(in, pool, description);
+                }
+                description.append('}');
+                break;
+            default:
+                // A constant (primitive or String), or a class literal ('c'):
+                description.append(pool[in.readUnsignedShort()]);
+                break;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String[] pool, int index) throws IOException
+    {
+        out.writeUTF(index == 0 ? "" : pool[index]);
+    }
+
+    /**
+     * Write text which may be too long for writeUTF (e.g. including a long string constant).
+     */
+    private static void writeText(DataOutputStream out, String text) throws IOException
+    {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,532 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import bluej.Config;
+import bluej.compiler.Diagnostic.DiagnosticOrigin;
+import bluej.utility.Debug;
+import bluej.utility.SavePipeline;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A cache of compiled class files, shared between projects and sessions, kept in the user
+ * configuration directory.  Each entry holds the class files output by one compilation, and is
+ * keyed by a hash of everything which determines them: the source files (their content and their
+ * paths within the project), the ABI of the classes they depend on (see ClassAbi), the class path
+ * and the compiler version and options.  So when the same sources are compiled again, even in a
+ * different copy of the project, the class files can be copied from the cache rather than
+ * running the compiler.  The entry also holds the compiler's messages (warnings, since only
+ * successful compilations are stored), so that they can be shown again.
+ *
+ * <p>The size of the cache is bounded; when it grows too big, the least recently used entries
+ * are removed.
+ */
+@OnThread(Tag.Any)
+public class ClassOutputCache
+{
+    /** The property which sets the maximum size of the cache, in megabytes (0 disables the cache) */
+    public static final String CACHE_SIZE_PROPERTY = "bluej.compiler.outputCacheSize";
+    private static final int DEFAULT_CACHE_SIZE_MB = 100;
+    // Changing this invalidates existing entries, if the key or entry format changes:
+    private static final String FORMAT_VERSION = "2";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // The file in an entry holding the compiler messages (a name which no class file or package can have):
+    private static final String MESSAGES_FILE = "compiler.messages";
+
+    private static ClassOutputCache instance;
+
+    private final File cacheDir;
+    private final long maxSize;
+    // The total size of the entries, or -1 if not yet known:
+    private long size = -1;
+    // Hashes of class path entries, keyed by path, with the length and modification time
+    // at which they were hashed:
+    private final Map<File, String> classPathHashes = new HashMap<>();
+
+    private int hits;
+    private int misses;
+    private int evictions;
+
+    /**
+     * Get the cache instance, in the user configuration directory.
+     */
+    public static synchronized ClassOutputCache getInstance()
+    {
+        if (instance == null)
+        {
+            long maxSize = Config.getPropInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE_MB) * 1024L * 1024L;
+            instance = new ClassOutputCache(Config.getUserConfigFile("classcache"), maxSize);
+        }
+        return instance;
+    }
+
+    /**
+     * Create a cache in the given directory (which is created when needed).
+     *
+     * @param cacheDir  The directory in which to keep the entries
+     * @param maxSize   The maximum total size of the entries, in bytes
+     */
+    ClassOutputCache(File cacheDir, long maxSize)
+    {
+        this.cacheDir = cacheDir;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Check whether the cache is enabled (its maximum size is not zero).
+     */
+    public boolean isEnabled()
+    {
+        return maxSize > 0;
+    }
+
+    /**
+     * Compute the key for a compilation.
+     *
+     * @param destDir         The project directory, which is where the class files are written,
+     *                        and which the source file paths are relative to
+     * @param sources         The source files to compile (using the content of any that have been
+     *                        saved but not yet written)
+     * @param dependencyAbis  The ABI hashes of the classes which the sources depend on, by name
+     * @param classPath       The class path
+     * @param options         Any other settings which affect the output, such as compiler options
+     * @return  The key, or null if a source file is not in the project directory
+     * @throws IOException  if a file cannot be read
+     */
+    public String makeKey(File destDir, File[] sources, Map<String, byte[]> dependencyAbis,
+            List<File> classPath, List<String> options) throws IOException
+    {
+        MessageDigest digest = newDigest();
+        update(digest, FORMAT_VERSION);
+        update(digest, System.getProperty("java.version"));
+        for (String option : options)
+        {
+            update(digest, "option " + option);
+        }
+
+        Path base = destDir.toPath().toAbsolutePath();
+        File[] sorted = sources.clone();
+        Arrays.sort(sorted);
+        for (File source : sorted)
+        {
+            Path path = source.toPath().toAbsolutePath();
+            if (!path.startsWith(base))
+            {
+                return null;
+            }
+            update(digest, "source " + base.relativize(path).toString().replace(File.separatorChar, '/'));
+            byte[] content = SavePipeline.getInstance().getPendingContent(source);
+            digest.update(hash(content != null ? content : Files.readAllBytes(path)));
+        }
+
+        // Sorted, so that the order of the map doesn't matter:
+        for (String name : dependencyAbis.keySet().stream().sorted().toList())
+        {
+            update(digest, "dependency " + name);
+            digest.update(dependencyAbis.get(name));
+        }
+
+        for (File entry : classPath)
+        {
+            Path path = entry.toPath().toAbsolutePath();
+            if (path.startsWith(base))
+            {
+                // Libraries in the project are identified by their content, since the project may
+                // be anywhere. (Classes in the project itself are covered by the dependencies.)
+                String relative = base.relativize(path).toString().replace(File.separatorChar, '/');
+                update(digest, "project classpath " + relative + " " + (entry.isFile() ? hashClassPathFile(entry) : ""));
+            }
+            else
+            {
+                update(digest, "classpath " + path + " " + entry.length() + " " + entry.lastModified());
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Hash the content of a class path file (a library jar), reusing the hash if the file
+     * has not changed since it was last hashed.
+     */
+    private String hashClassPathFile(File file) throws IOException
+    {
+        String stamp = file.length() + " " + file.lastModified() + " ";
+        synchronized (classPathHashes)
+        {
+            String known = classPathHashes.get(file);
+            if (known != null && known.startsWith(stamp))
+            {
+                return known.substring(stamp.length());
+            }
+        }
+        String hash = toHex(hash(Files.readAllBytes(file.toPath())));
+        synchronized (classPathHashes)
+        {
+            classPathHashes.put(file, stamp + hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Look for an entry in the cache, and if found, copy its class files into the project
+     * directory (with the current time as their modification time).
+     *
+     * @param key      The key, from makeKey()
+     * @param destDir  The project directory
+     * @return  The compiler messages from the compilation, if the entry was found and the class
+     *          files were copied; otherwise null
+     */
+    public synchronized List<Diagnostic> restore(String key, File destDir)
+    {
+        File entry = new File(cacheDir, key);
+        if (entry.isDirectory())
+        {
+            Path entryPath = entry.toPath();
+            Path messagesPath = entryPath.resolve(MESSAGES_FILE);
+            try (Stream<Path> files = Files.walk(entryPath))
+            {
+                List<Diagnostic> messages = readMessages(messagesPath, destDir);
+                for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator)
+                {
+                    if (file.equals(messagesPath))
+                    {
+                        continue;
+                    }
+                    Path target = destDir.toPath().resolve(entryPath.relativize(file).toString());
+                    Files.createDirectories(target.getParent());
+                    Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                entry.setLastModified(System.currentTimeMillis());
+                hits += 1;
+                Debug.message("Class files copied from output cache (" + getStatistics() + ")");
+                return messages;
+            }
+            catch (IOException e)
+            {
+                Debug.reportError("Could not copy class files from output cache", e);
+            }
+        }
+        misses += 1;
+        return null;
+    }
+
+    /**
+     * Store the class files output by a compilation in the cache, unless there is already an
+     * entry with the same key.  Then, if the cache is too big, remove the least recently used
+     * entries.
+     *
+     * @param key          The key, from makeKey()
+     * @param destDir      The project directory
+     * @param outputFiles  The class files which the compiler wrote (all in the project directory)
+     * @param messages     The messages which the compiler reported
+     */
+    public synchronized void store(String key, File destDir, List<File> outputFiles, List<Diagnostic> messages)
+    {
+        File entry = new File(cacheDir, key);
+        if (outputFiles.isEmpty() || entry.exists())
+        {
+            return;
+        }
+        Path base = destDir.toPath().toAbsolutePath();
+        // Written under a temporary name first, so that the entry is complete once it exists:
+        File temp = new File(cacheDir, key + "." + System.nanoTime() + TEMP_SUFFIX);
+        try
+        {
+            long entrySize = 0;
+            for (File output : outputFiles)
+            {
+                Path path = output.toPath().toAbsolutePath();
+                if (!path.startsWith(base))
+                {
+                    deleteRecursively(temp);
+                    return;
+                }
+                Path target = temp.toPath().resolve(base.relativize(path).toString());
+                Files.createDirectories(target.getParent());
+                Files.copy(path, target);
+                entrySize += output.length();
+            }
+            File messagesFile = new File(temp, MESSAGES_FILE);
+            writeMessages(messagesFile, messages, base);
+            entrySize += messagesFile.length();
+            try
+            {
+                Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(temp.toPath(), entry.toPath());
+            }
+            if (size != -1)
+            {
+                size += entrySize;
+            }
+        }
+        catch (IOException e)
+        {
+            deleteRecursively(temp);
+            // (The entry may have been stored by another instance of BlueJ in the meantime)
+            if (!entry.exists())
+            {
+                Debug.reportError("Could not store class files in output cache", e);
+            }
+            return;
+        }
+        evict();
+    }
+
+    /**
+     * Write compiler messages to a file in an entry, with the paths of the files they refer to
+     * made relative to the project directory (as the entry may be used by another copy of the
+     * project).
+     */
+    private static void writeMessages(File file, List<Diagnostic> messages, Path base) throws IOException
+    {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath()))))
+        {
+            out.writeInt(messages.size());
+            for (Diagnostic message : messages)
+            {
+                out.writeInt(message.getType());
+                writeString(out, message.getMessage());
+                String fileName = message.getFileName();
+                if (fileName != null)
+                {
+                    Path path = new File(fileName).toPath().toAbsolutePath();
+                    fileName = path.startsWith(base) ? base.relativize(path).toString() : path.toString();
+                }
+                writeString(out, fileName);
+                out.writeLong(message.getStartLine());
+                out.writeLong(message.getStartColumn());
+                out.writeLong(message.getEndLine());
+                out.writeLong(message.getEndColumn());
+            }
+        }
+    }
+
+    /**
+     * Read the compiler messages stored in an entry, with their file paths in the given project
+     * directory.  Each is given a new identifier.
+     */
+    private static List<Diagnostic> readMessages(Path file, File destDir) throws IOException
+    {
+        List<Diagnostic> messages = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++)
+            {
+                int type = in.readInt();
+                String message = readString(in);
+                String fileName = readString(in);
+                long startLine = in.readLong();
+                long startColumn = in.readLong();
+                long endLine = in.readLong();
+                long endColumn = in.readLong();
+                if (fileName == null)
+                {
+                    messages.add(new Diagnostic(type, message));
+                }
+                else
+                {
+                    // Only javac's messages are cached (and it is the only one to give positions):
+                    messages.add(new Diagnostic(type, message, destDir.toPath().resolve(fileName).toString(),
+                            startLine, startColumn, endLine, endColumn, DiagnosticOrigin.JAVAC,
+                            CompilerAPICompiler.getNewErrorIdentifer()));
+                }
+            }
+        }
+        return messages;
+    }
+
+    private static void writeString(DataOutputStream out, String text) throws IOException
+    {
+        out.writeBoolean(text != null);
+        if (text != null)
+        {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        if (!in.readBoolean())
+        {
+            return null;
+        }
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Remove the least recently used entries until the cache is within its maximum size.
+     */
+    private void evict()
+    {
+        File[] entries = cacheDir.listFiles(f -> f.isDirectory() && !f.getName().endsWith(TEMP_SUFFIX));
+        if (entries == null)
+        {
+            return;
+        }
+        if (size == -1)
+        {
+            size = 0;
+            for (File entry : entries)
+            {
+                size += sizeOf(entry);
+            }
+        }
+        if (size <= maxSize)
+        {
+            return;
+        }
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+        for (File entry : entries)
+        {
+            if (size <= maxSize)
+            {
+                break;
+            }
+            size -= sizeOf(entry);
+            deleteRecursively(entry);
+            evictions += 1;
+        }
+    }
+
+    /**
+     * Get the number of compilations whose output was found in the cache.
+     */
+    public synchronized int getHits()
+    {
+        return hits;
+    }
+
+    /**
+     * Get the number of compilations whose output was looked for in the cache but not found.
+     */
+    public synchronized int getMisses()
+    {
+        return misses;
+    }
+
+    /**
+     * Get the number of entries which have been removed to keep the cache within its size.
+     */
+    public synchronized int getEvictions()
+    {
+        return evictions;
+    }
+
+    /**
+     * Get a description of the cache statistics, for logging.
+     */
+    public synchronized String getStatistics()
+    {
+        return hits + " hits, " + misses + " misses, " + evictions + " evictions";
+    }
+
+    private static long sizeOf(File entry)
+    {
+        try (Stream<Path> files = Files.walk(entry.toPath()))
+        {
+            return files.mapToLong(p -> p.toFile().length()).sum();
+        }
+        catch (IOException e)
+        {
+            return 0;
+        }
+    }
+
+    private static void deleteRecursively(File file)
+    {
+        File[] children = file.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] hash(byte[] content)
+    {
+        return newDigest().digest(content);
+    }
+
+    private static void update(MessageDigest digest, String text)
+    {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        // Length first, so that the boundaries between strings are unambiguous:
+        digest.update(new byte[] {(byte)(bytes.length >>> 24), (byte)(bytes.length >>> 16),
+                (byte)(bytes.length >>> 8), (byte)bytes.length});
+        digest.update(bytes);
+    }
+
+    private static String toHex(byte[] bytes)
+    {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes)
+        {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
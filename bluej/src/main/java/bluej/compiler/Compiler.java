@@ -24,6 +24,7 @@ package bluej.compiler;
 
 import java.io.File;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -44,6 +45,8 @@ abstract class Compiler
     private File[] bootClassPath;
     private boolean debug;
     private boolean deprecation;
+    /** The class files written by the last compilation */
+    private List<File> outputFiles = Collections.emptyList();
     
     /**
      * Set the destination directory - the base directory for where the compiled class files
@@ -107,6 +110,19 @@ abstract class Compiler
         return bootClassPath;
     }
 
+    protected void setOutputFiles(List<File> outputFiles)
+    {
+        this.outputFiles = outputFiles;
+    }
+
+    /**
+     * Get the class files written by the last compilation (if it kept its class files).
+     */
+    public List<File> getOutputFiles()
+    {
+        return outputFiles;
+    }
+
     /**
      * Compile some source files.
      * 
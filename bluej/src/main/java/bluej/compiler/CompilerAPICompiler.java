@@ -21,8 +21,12 @@
  */
 package bluej.compiler;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
@@ -34,7 +38,11 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.tools.Diagnostic;
 import javax.tools.DiagnosticListener;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.ForwardingJavaFileObject;
 import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
 import javax.tools.StandardLocation;
@@ -42,6 +50,7 @@ import javax.tools.ToolProvider;
 
 import bluej.Config;
 import bluej.compiler.Diagnostic.DiagnosticOrigin;
+import bluej.utility.SavePipeline;
 
 /**
  * A compiler implementation using the Compiler API introduced in Java 6.
@@ -208,9 +217,43 @@ public class CompilerAPICompiler extends Compiler
                 sjfm.setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(tempDir));
             }
             
-            //get the source files for compilation  
-            Iterable<? extends JavaFileObject> compilationUnits1 =
-                sjfm.getJavaFileObjectsFromFiles(Arrays.asList(sources));
+            //get the source files for compilation, using the saved content of any
+            //which are still being written (see SavePipeline). Any other source files
+            //the compiler reads must have been written first:
+            SavePipeline savePipeline = SavePipeline.getInstance();
+            try {
+                savePipeline.awaitWrites(Arrays.asList(sources));
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            List<JavaFileObject> compilationUnits1 = new ArrayList<JavaFileObject>();
+            for (JavaFileObject fileObject : sjfm.getJavaFileObjectsFromFiles(Arrays.asList(sources))) {
+                byte[] pending = savePipeline.getPendingContent(new File(fileObject.toUri()));
+                if (pending != null) {
+                    String content = new String(pending, fileCharset != null ? fileCharset : Charset.defaultCharset());
+                    fileObject = new ForwardingJavaFileObject<JavaFileObject>(fileObject) {
+                        @Override
+                        public CharSequence getCharContent(boolean ignoreEncodingErrors)
+                        {
+                            return content;
+                        }
+
+                        @Override
+                        public InputStream openInputStream()
+                        {
+                            return new ByteArrayInputStream(pending);
+                        }
+
+                        @Override
+                        public Reader openReader(boolean ignoreEncodingErrors)
+                        {
+                            return new StringReader(content);
+                        }
+                    };
+                }
+                compilationUnits1.add(fileObject);
+            }
             //add any options
             if(isDebug()) {
                 optionsList.add("-g");
@@ -227,7 +270,22 @@ public class CompilerAPICompiler extends Compiler
             optionsList.addAll(userOptions);
             
             //compile
-            result = jc.getTask(null, sjfm, diagListener, optionsList, null, compilationUnits1).call();
+            //record the class files written, which may be put in the output cache (see Job):
+            List<File> outputFiles = new ArrayList<File>();
+            JavaFileManager fileManager = new ForwardingJavaFileManager<StandardJavaFileManager>(sjfm) {
+                @Override
+                public JavaFileObject getJavaFileForOutput(Location location, String className,
+                        JavaFileObject.Kind kind, FileObject sibling) throws IOException
+                {
+                    JavaFileObject output = super.getJavaFileForOutput(location, className, kind, sibling);
+                    if (kind == JavaFileObject.Kind.CLASS) {
+                        outputFiles.add(new File(output.toUri()));
+                    }
+                    return output;
+                }
+            };
+            setOutputFiles(tempDir == null ? outputFiles : Collections.emptyList());
+            result = jc.getTask(null, fileManager, diagListener, optionsList, null, compilationUnits1).call();
             sjfm.close();
             if (tempDir != null)
                 tempDir.delete();
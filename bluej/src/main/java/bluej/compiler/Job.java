@@ -22,10 +22,15 @@
 package bluej.compiler;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import bluej.Config;
 import bluej.classmgr.BPClassLoader;
@@ -41,7 +46,9 @@ record Job(CompileInputFile[] sources, Compiler compiler, CompileObserver observ
            boolean internal, // true for compiling shell files,
                              // or user files if we want to suppress
                              // "unchecked" warnings, false otherwise
-           List<String> userCompileOptions, Charset fileCharset, CompileType type, CompileReason reason)
+           List<String> userCompileOptions, Charset fileCharset, CompileType type, CompileReason reason,
+           Map<String, Supplier<byte[]>> dependencyAbis) // ABI hashes of the classes the sources depend on,
+                                                         // or null if the output cache should not be used
 {
     /**
      * Generator for unique ascending compilation identifiers.  It doesn't matter if it's shared between
@@ -76,7 +83,64 @@ record Job(CompileInputFile[] sources, Compiler compiler, CompileObserver observ
                 actualSourceFiles[i] = sources[i].getJavaCompileInputFile();
             }
 
-            boolean successful = compiler.compile(actualSourceFiles, observer, internal, userCompileOptions, fileCharset, type);
+            // If the same sources have been compiled before, the class files may be in the cache:
+            ClassOutputCache cache = ClassOutputCache.getInstance();
+            String cacheKey = null;
+            Map<String, byte[]> abis = null;
+            if (dependencyAbis != null && destDir != null && type.keepClasses() && cache.isEnabled()) {
+                abis = getAbis();
+            }
+            if (abis != null) {
+                cacheKey = getCacheKey(cache, actualSourceFiles, abis);
+                List<Diagnostic> messages = cacheKey == null ? null : cache.restore(cacheKey, destDir);
+                if (messages != null) {
+                    if(observer != null) {
+                        // Show the warnings from when the sources were compiled:
+                        for (Diagnostic message : messages) {
+                            observer.compilerMessage(message, type);
+                        }
+                        observer.endCompile(sources, true, type, compilationSequence);
+                    }
+                    return;
+                }
+            }
+
+            // Keep the messages, to store with the output:
+            List<Diagnostic> messages = new ArrayList<>();
+            CompileObserver recordingObserver = cacheKey == null ? observer : new CompileObserver()
+            {
+                @Override
+                public void startCompile(CompileInputFile[] sources, CompileReason reason, CompileType type, int compilationSequence)
+                {
+                    if (observer != null) {
+                        observer.startCompile(sources, reason, type, compilationSequence);
+                    }
+                }
+
+                @Override
+                public void compilerMessage(Diagnostic diagnostic, CompileType type)
+                {
+                    messages.add(diagnostic);
+                    if (observer != null) {
+                        observer.compilerMessage(diagnostic, type);
+                    }
+                }
+
+                @Override
+                public void endCompile(CompileInputFile[] sources, boolean succesful, CompileType type, int compilationSequence)
+                {
+                    if (observer != null) {
+                        observer.endCompile(sources, succesful, type, compilationSequence);
+                    }
+                }
+            };
+
+            boolean successful = compiler.compile(actualSourceFiles, recordingObserver, internal, userCompileOptions, fileCharset, type);
+
+            // Only store the output if the sources weren't saved again during the compilation:
+            if (successful && cacheKey != null && cacheKey.equals(getCacheKey(cache, actualSourceFiles, abis))) {
+                cache.store(cacheKey, destDir, compiler.getOutputFiles(), messages);
+            }
 
             if(observer != null) {
                 observer.endCompile(sources, successful, type, compilationSequence);
@@ -89,4 +153,35 @@ record Job(CompileInputFile[] sources, Compiler compiler, CompileObserver observ
             }
         }
     }
+
+    /**
+     * Get the ABI hashes of the classes which the sources depend on (reading the class files of
+     * those which are not already known), or null if any of them has no class files.
+     */
+    private Map<String, byte[]> getAbis()
+    {
+        Map<String, byte[]> abis = new HashMap<>();
+        for (Map.Entry<String, Supplier<byte[]>> entry : dependencyAbis.entrySet()) {
+            byte[] abi = entry.getValue().get();
+            if (abi == null) {
+                return null;
+            }
+            abis.put(entry.getKey(), abi);
+        }
+        return abis;
+    }
+
+    /**
+     * Get the key for this job in the class output cache.
+     */
+    private String getCacheKey(ClassOutputCache cache, File[] actualSourceFiles, Map<String, byte[]> abis) throws IOException
+    {
+        List<String> settings = new ArrayList<>(userCompileOptions);
+        settings.add("compiler=" + compiler.getClass().getName());
+        settings.add("debug=" + compiler.isDebug());
+        settings.add("deprecation=" + compiler.isDeprecation());
+        settings.add("internal=" + internal);
+        settings.add("charset=" + fileCharset);
+        return cache.makeKey(destDir, actualSourceFiles, abis, bpClassLoader.getClassPathAsFiles(), settings);
+    }
 }
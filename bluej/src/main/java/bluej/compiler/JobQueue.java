@@ -25,6 +25,8 @@ import java.io.File;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 import bluej.Config;
 import bluej.classmgr.BPClassLoader;
@@ -81,13 +83,27 @@ public class JobQueue
      */
     public void addJob(CompileInputFile[] sources, CompileObserver observer, BPClassLoader bpClassLoader, File destDir,
             boolean suppressUnchecked, Charset fileCharset, CompileReason reason, CompileType type)
+    {
+        addJob(sources, observer, bpClassLoader, destDir, suppressUnchecked, fileCharset, reason, type, null);
+    }
+
+    /**
+     * Adds a job to the compile queue, which may use the class output cache (see ClassOutputCache).
+     * 
+     * @param dependencyAbis  The ABI hashes of the classes which the sources depend on, directly
+     *                        or indirectly, by name; or null if the cache should not be used. They
+     *                        are only obtained (which may read the class files) on the compiler thread.
+     */
+    public void addJob(CompileInputFile[] sources, CompileObserver observer, BPClassLoader bpClassLoader, File destDir,
+            boolean suppressUnchecked, Charset fileCharset, CompileReason reason, CompileType type,
+            Map<String, Supplier<byte[]>> dependencyAbis)
     {
         List<String> options = new ArrayList<String>();
         String optionString = Config.getPropString(Compiler.COMPILER_OPTIONS, "");
         options.addAll(Utility.dequoteCommandLine(optionString));
         
         thread.addJob(new Job(sources, compiler, observer, bpClassLoader,
-                destDir, suppressUnchecked, options, fileCharset, type, reason));
+                destDir, suppressUnchecked, options, fileCharset, type, reason, dependencyAbis));
     }
 
     /**
@@ -26,6 +26,7 @@ import java.net.URL;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import bluej.classmgr.BPClassLoader;
 import bluej.debugger.jdi.JdiDebugger;
@@ -69,8 +70,22 @@ public abstract class Debugger
     // Set this key with a non-null value on any breakpoints that you want to
     // persist through calls to removeBreakpointsForClass, and through the clear-all breakpoint
     // removal that happens, for example, when a new class loader is added to the VM
-    public static final String PERSIST_BREAKPOINT_PROPERTY = "VMReference.PERSIST_BREAKPOINT";    
-    
+    public static final String PERSIST_BREAKPOINT_PROPERTY = "VMReference.PERSIST_BREAKPOINT";
+
+    // Set this key to a Java boolean expression to make a conditional breakpoint, which only
+    // stops when the expression is true. The expression may refer to the local variables and
+    // parameters in scope at the breakpoint, and is evaluated in the debug VM.
+    public static final String BREAKPOINT_CONDITION_PROPERTY = "Debugger.BREAKPOINT_CONDITION";
+    // Set this key to a number N greater than one to make a breakpoint stop only on every Nth
+    // hit (of those for which the condition, if any, is true).
+    public static final String BREAKPOINT_HIT_COUNT_PROPERTY = "Debugger.BREAKPOINT_HIT_COUNT";
+    // Available from the breakpoint properties of a breakpoint event: the number (an Integer) of
+    // hits that did not stop, because of the condition or hit count, since the breakpoint was set.
+    public static final String BREAKPOINT_IGNORED_HITS_PROPERTY = "Debugger.BREAKPOINT_IGNORED_HITS";
+    // Available from the breakpoint properties of a breakpoint event: if the condition could not
+    // be compiled or evaluated (in which case the breakpoint stops), a description of the problem.
+    public static final String BREAKPOINT_CONDITION_ERROR_PROPERTY = "Debugger.BREAKPOINT_CONDITION_ERROR";
+
     public static final int NORMAL_EXIT = 0;
     public static final int EXCEPTION = 2;
     public static final int TERMINATED_BY_USER_SYSTEM_EXIT = 3;
@@ -219,6 +234,20 @@ public abstract class Debugger
      */
     @OnThread(Tag.Any)
     public abstract TestResultsWithRunTime runTestMethod(String className, String methodName);
+
+    /**
+     * Run all test methods in a set of test classes as a single test run. Each result is
+     * passed to the listener as soon as the test has finished.
+     *
+     * @param classNames  the fully qualified names of the test classes
+     * @param parallel    whether the test classes may be run concurrently (JUnit 5 tests only)
+     * @param resultListener  receives each result as it becomes available; may be called
+     *                        on any thread
+     * @return a TestResultsWithRunTime object that wraps all the test results and the total runtime
+     */
+    @OnThread(Tag.Any)
+    public abstract TestResultsWithRunTime runTestClasses(List<String> classNames, boolean parallel,
+            Consumer<DebuggerTestResult> resultListener);
     
     /**
      * Dispose all top level windows in the remote machine.
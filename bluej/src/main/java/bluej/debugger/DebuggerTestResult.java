@@ -121,4 +121,13 @@ public abstract class DebuggerTestResult
      * @return  a SourceLocation with the details of the failure point
      */
     abstract public SourceLocation getExceptionLocation();
+
+    /**
+     * Return whether this result is from an earlier run, shown again because the test
+     * was not re-run (nothing it depends on having changed).
+     */
+    public boolean isFromPreviousRun()
+    {
+        return false;
+    }
 }
@@ -61,6 +61,14 @@ public abstract class DebuggerThread
     @OnThread(Tag.VMEventHandler)
     public abstract List<SourceLocation> getStack();
 
+    /**
+     * Get a snapshot of the stack, with the details of the top frames. The snapshot is
+     * captured once each time the thread halts, and is then shared by every caller until
+     * the thread is resumed. If the thread is not halted, the snapshot has an empty stack.
+     */
+    @OnThread(Tag.VMEventHandler)
+    public abstract ThreadSnapshot getSnapshot();
+
     @OnThread(Tag.VMEventHandler)
     public abstract List<FXPlatformSupplier<VarDisplayInfo>> getLocalVariables(int frameNo);
     @OnThread(Tag.VMEventHandler)
@@ -0,0 +1,116 @@
+/*
+ This file is part of the BlueJ program. 
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugger;
+
+import java.util.Collections;
+import java.util.List;
+
+import bluej.utility.javafx.FXPlatformSupplier;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * An immutable snapshot of a halted thread: its complete stack, and the details (current
+ * object and class, and local variables) of the frames at the top of the stack, all captured
+ * together when the thread halted.
+ *
+ * <p>Only a limited number of frames have their details captured; the details of deeper
+ * frames must be fetched from the thread if they are needed.
+ *
+ * @see DebuggerThread#getSnapshot()
+ */
+@OnThread(Tag.Any)
+public final class ThreadSnapshot
+{
+    private final List<SourceLocation> stack;
+    private final List<Frame> frames;
+
+    /**
+     * The details of a single stack frame.
+     */
+    @OnThread(Tag.Any)
+    public static final class Frame
+    {
+        private final DebuggerObject currentObject;
+        private final DebuggerClass currentClass;
+        private final List<FXPlatformSupplier<VarDisplayInfo>> localVariables;
+
+        public Frame(DebuggerObject currentObject, DebuggerClass currentClass,
+                List<FXPlatformSupplier<VarDisplayInfo>> localVariables)
+        {
+            this.currentObject = currentObject;
+            this.currentClass = currentClass;
+            this.localVariables = Collections.unmodifiableList(localVariables);
+        }
+
+        /**
+         * Get the current instance object of the frame (which represents the null reference
+         * if the frame is for a static method).
+         */
+        public DebuggerObject getCurrentObject()
+        {
+            return currentObject;
+        }
+
+        /**
+         * Get the class of the frame (may be null if it could not be determined).
+         */
+        public DebuggerClass getCurrentClass()
+        {
+            return currentClass;
+        }
+
+        public List<FXPlatformSupplier<VarDisplayInfo>> getLocalVariables()
+        {
+            return localVariables;
+        }
+    }
+
+    /**
+     * Construct a ThreadSnapshot.
+     * @param stack   The complete stack, top frame first
+     * @param frames  The details of the top frames of the stack (at most as many as in the stack)
+     */
+    public ThreadSnapshot(List<SourceLocation> stack, List<Frame> frames)
+    {
+        this.stack = Collections.unmodifiableList(stack);
+        this.frames = Collections.unmodifiableList(frames);
+    }
+
+    /**
+     * Get the complete stack of the thread, top frame first.  This is empty if the thread
+     * was not halted.
+     */
+    public List<SourceLocation> getStack()
+    {
+        return stack;
+    }
+
+    /**
+     * Get the details of the given stack frame, or null if they were not captured in this
+     * snapshot.
+     */
+    public Frame getFrame(int frameNo)
+    {
+        return frameNo >= 0 && frameNo < frames.size() ? frames.get(frameNo) : null;
+    }
+}
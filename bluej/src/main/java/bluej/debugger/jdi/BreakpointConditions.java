@@ -0,0 +1,745 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugger.jdi;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import bluej.debugger.Debugger;
+import bluej.utility.Debug;
+import bluej.utility.JavaNames;
+import com.sun.jdi.AbsentInformationException;
+import com.sun.jdi.BooleanValue;
+import com.sun.jdi.ClassNotLoadedException;
+import com.sun.jdi.ClassObjectReference;
+import com.sun.jdi.ClassType;
+import com.sun.jdi.Field;
+import com.sun.jdi.IncompatibleThreadStateException;
+import com.sun.jdi.InvalidTypeException;
+import com.sun.jdi.InvocationException;
+import com.sun.jdi.LocalVariable;
+import com.sun.jdi.Location;
+import com.sun.jdi.Method;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.StackFrame;
+import com.sun.jdi.StringReference;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.VMDisconnectedException;
+import com.sun.jdi.Value;
+import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.event.BreakpointEvent;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.event.EventSet;
+import com.sun.jdi.event.LocatableEvent;
+import com.sun.jdi.request.BreakpointRequest;
+import com.sun.jdi.request.EventRequest;
+import com.sun.jdi.request.EventRequestManager;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Support for conditional and hit-count breakpoints (see Debugger.BREAKPOINT_CONDITION_PROPERTY
+ * and Debugger.BREAKPOINT_HIT_COUNT_PROPERTY).
+ *
+ * <p>A breakpoint with a hit count but no condition is given a count filter, so the debug VM
+ * itself passes over the hits in between without reporting them. Once it has been reported,
+ * the breakpoint is re-armed with a new count filter.
+ *
+ * <p>A condition is compiled into a small predicate class, with a static "test" method that
+ * takes the local variables and fields which the condition uses (and "this", if it uses it) as
+ * parameters; see ConditionSource. ExecServer defines this class in the package of the class
+ * containing the breakpoint, and it is then invoked on the thread which hit the breakpoint.
+ * The breakpoint is only reported if the test returns true (and the hit count, if any, is
+ * reached); otherwise the thread is resumed straight away and the hit is counted as ignored.
+ *
+ * <p>Each hit on a conditional breakpoint still suspends the thread and takes several round
+ * trips to the debug VM: to fetch the frame, the values of the variables the condition uses,
+ * and to invoke the predicate. Conditions are evaluated on a separate thread, so that the VM
+ * event handler thread can carry on meanwhile. It resumes any events from a thread that is
+ * evaluating a condition (for example, a breakpoint in a method that the condition calls)
+ * without reporting them; other event sets which arrive during an evaluation are handled once
+ * it is done, so that event sets are still handled in the order they arrived.
+ */
+@OnThread(Tag.Any)
+class BreakpointConditions
+{
+    // The request property holding the BreakpointState of a conditional or hit-count breakpoint
+    private static final String STATE_PROPERTY = "BreakpointConditions.state";
+    private static final String PREDICATE_CLASS_PREFIX = "__BlueJCondition";
+    private static final String PREDICATE_METHOD = "test";
+    private static final String DEFINE_METHOD = "defineBreakpointCondition";
+
+    private final VirtualMachine machine;
+    private final ClassType serverClass;
+    private final ExecutorService evaluator;
+    private final Set<ThreadReference> evaluatingThreads = ConcurrentHashMap.newKeySet();
+    // The number of event sets passed to the evaluator which have not yet been handled or resumed:
+    private final AtomicInteger pendingEventSets = new AtomicInteger();
+    private volatile List<File> classPath = Collections.emptyList();
+    // Accessed only from the evaluator thread:
+    private File outputDir;
+    private int nextPredicateNumber = 1;
+
+    /**
+     * The state of a conditional or hit-count breakpoint. This is shared by the successive
+     * requests of a re-armed breakpoint.
+     */
+    private static class BreakpointState
+    {
+        final Map<String, String> properties;
+        final String condition; // null if none
+        final int hitCount; // 1 if the breakpoint should stop every time
+        int matchingHits;
+        int ignoredHits;
+        // The compiled condition (null until the breakpoint is first hit); a breakpoint
+        // has a single location, so this takes the same variables each time:
+        Predicate predicate;
+
+        BreakpointState(Map<String, String> properties, String condition, int hitCount)
+        {
+            this.properties = properties;
+            this.condition = condition;
+            this.hitCount = hitCount;
+        }
+    }
+
+    /**
+     * A compiled condition, or the reason that it could not be compiled.
+     */
+    private static class Predicate
+    {
+        final ClassType type;
+        final Method method;
+        final String error;
+        // The values to pass, in this order:
+        final List<LocalVariable> locals;
+        final List<Field> instanceFields;
+        final List<Field> staticFields;
+        final boolean passThis;
+
+        Predicate(ClassType type, Method method, List<LocalVariable> locals, List<Field> instanceFields,
+                List<Field> staticFields, boolean passThis)
+        {
+            this.type = type;
+            this.method = method;
+            this.error = null;
+            this.locals = locals;
+            this.instanceFields = instanceFields;
+            this.staticFields = staticFields;
+            this.passThis = passThis;
+        }
+
+        Predicate(String error)
+        {
+            this.type = null;
+            this.method = null;
+            this.error = error;
+            this.locals = Collections.emptyList();
+            this.instanceFields = Collections.emptyList();
+            this.staticFields = Collections.emptyList();
+            this.passThis = false;
+        }
+    }
+
+    BreakpointConditions(VirtualMachine machine, ClassType serverClass)
+    {
+        this.machine = machine;
+        this.serverClass = serverClass;
+        this.evaluator = new ThreadPoolExecutor(0, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "breakpoint-conditions");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Set the class path of the user code in the debug VM, which conditions are compiled against.
+     */
+    void setClassPath(URL[] urls)
+    {
+        List<File> files = new ArrayList<>();
+        for (URL url : urls)
+        {
+            try
+            {
+                if (url.getProtocol().equals("file"))
+                {
+                    files.add(new File(url.toURI()));
+                }
+            }
+            catch (URISyntaxException | IllegalArgumentException e)
+            {
+                Debug.reportError("Bad class path entry for breakpoint conditions: " + url);
+            }
+        }
+        classPath = files;
+    }
+
+    /**
+     * Set up a newly created (and not yet enabled) breakpoint request according to the
+     * condition and hit count (if any) in the given breakpoint properties.
+     */
+    static void prepareRequest(BreakpointRequest request, Map<String, String> properties)
+    {
+        if (properties == null)
+        {
+            return;
+        }
+        String condition = properties.get(Debugger.BREAKPOINT_CONDITION_PROPERTY);
+        if (condition != null && condition.isBlank())
+        {
+            condition = null;
+        }
+        int hitCount = 1;
+        try
+        {
+            String hitCountProperty = properties.get(Debugger.BREAKPOINT_HIT_COUNT_PROPERTY);
+            if (hitCountProperty != null)
+            {
+                hitCount = Math.max(1, Integer.parseInt(hitCountProperty.trim()));
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            // Stop every time
+        }
+        if (condition == null && hitCount == 1)
+        {
+            return;
+        }
+
+        request.putProperty(STATE_PROPERTY, new BreakpointState(new HashMap<>(properties), condition, hitCount));
+        if (condition == null)
+        {
+            request.addCountFilter(hitCount);
+        }
+    }
+
+    /**
+     * Check whether the given request is a breakpoint with a condition, which must be evaluated
+     * before the breakpoint can be reported.
+     */
+    private static boolean hasCondition(EventRequest request)
+    {
+        BreakpointState state = request == null ? null : (BreakpointState) request.getProperty(STATE_PROPERTY);
+        return state != null && state.condition != null;
+    }
+
+    /**
+     * Screen an incoming event set before it is handled. If it consists of hits on conditional
+     * breakpoints, their conditions are evaluated in the background, and the event set is either
+     * resumed (if none holds) or passed to the given handler to be handled as normal. Event sets
+     * from a thread which is evaluating a condition are resumed at once.
+     *
+     * @return  true if the event set has been dealt with, false if it should be handled as normal.
+     */
+    @OnThread(Tag.VMEventHandler)
+    boolean screen(EventSet eventSet, EventSetHandler handler)
+    {
+        ThreadReference thread = null;
+        boolean allConditional = !eventSet.isEmpty();
+        for (Event event : eventSet)
+        {
+            if (event instanceof LocatableEvent)
+            {
+                thread = ((LocatableEvent) event).thread();
+                if (evaluatingThreads.contains(thread))
+                {
+                    eventSet.resume();
+                    return true;
+                }
+            }
+            allConditional &= event instanceof BreakpointEvent && hasCondition(event.request());
+        }
+        if (!allConditional)
+        {
+            if (pendingEventSets.get() == 0)
+            {
+                return false;
+            }
+            // Handle it after the event sets which are already being evaluated:
+            pendingEventSets.incrementAndGet();
+            evaluator.execute(() -> handler.handleEventSet(eventSet, pendingEventSets::decrementAndGet));
+            return true;
+        }
+
+        ThreadReference evaluatingThread = thread;
+        evaluatingThreads.add(evaluatingThread);
+        pendingEventSets.incrementAndGet();
+        evaluator.execute(() -> {
+            boolean handling = false;
+            try
+            {
+                boolean stop = false;
+                for (Event event : eventSet)
+                {
+                    // Evaluate every condition, so that each breakpoint counts its hits:
+                    stop |= shouldStop((BreakpointEvent) event);
+                }
+                // The thread must no longer count as evaluating once it has been resumed:
+                evaluatingThreads.remove(evaluatingThread);
+                if (stop)
+                {
+                    handling = true;
+                    handler.handleEventSet(eventSet, pendingEventSets::decrementAndGet);
+                }
+                else
+                {
+                    eventSet.resume();
+                }
+            }
+            catch (VMDisconnectedException e)
+            {
+                // Nothing more to do
+            }
+            finally
+            {
+                evaluatingThreads.remove(evaluatingThread);
+                if (!handling)
+                {
+                    pendingEventSets.decrementAndGet();
+                }
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Evaluate the condition of a conditional breakpoint which has been hit, and apply its hit
+     * count. If it should stop, the ignored hits (and any error in the condition) are recorded
+     * in the request properties, to be passed on with the breakpoint event.
+     */
+    private boolean shouldStop(BreakpointEvent event)
+    {
+        EventRequest request = event.request();
+        BreakpointState state = (BreakpointState) request.getProperty(STATE_PROPERTY);
+        String error = null;
+        boolean matches;
+        try
+        {
+            matches = test(state, event);
+        }
+        catch (ConditionException e)
+        {
+            error = e.getMessage();
+            matches = true;
+        }
+
+        if (error == null && (!matches || ++state.matchingHits % state.hitCount != 0))
+        {
+            state.ignoredHits += 1;
+            return false;
+        }
+        request.putProperty(Debugger.BREAKPOINT_IGNORED_HITS_PROPERTY, state.ignoredHits);
+        request.putProperty(Debugger.BREAKPOINT_CONDITION_ERROR_PROPERTY, error);
+        return true;
+    }
+
+    /**
+     * Evaluate a condition in the debug VM, in the (suspended) thread which hit the breakpoint.
+     */
+    private boolean test(BreakpointState state, BreakpointEvent event) throws ConditionException
+    {
+        ThreadReference thread = event.thread();
+        try
+        {
+            if (state.predicate == null)
+            {
+                state.predicate = compile(state.condition, event.location(), thread);
+            }
+            Predicate predicate = state.predicate;
+            if (predicate.error != null)
+            {
+                throw new ConditionException(predicate.error);
+            }
+
+            // Only fetch what the condition uses, as each fetch is a round trip to the debug VM:
+            List<Value> arguments = new ArrayList<>();
+            StackFrame frame = thread.frame(0);
+            if (!predicate.locals.isEmpty())
+            {
+                Map<LocalVariable, Value> values = frame.getValues(predicate.locals);
+                for (LocalVariable variable : predicate.locals)
+                {
+                    arguments.add(values.get(variable));
+                }
+            }
+            ObjectReference thisObject = null;
+            if (predicate.passThis || !predicate.instanceFields.isEmpty())
+            {
+                thisObject = frame.thisObject();
+            }
+            if (!predicate.instanceFields.isEmpty())
+            {
+                Map<Field, Value> values = thisObject.getValues(predicate.instanceFields);
+                for (Field field : predicate.instanceFields)
+                {
+                    arguments.add(values.get(field));
+                }
+            }
+            if (!predicate.staticFields.isEmpty())
+            {
+                Map<Field, Value> values = event.location().declaringType().getValues(predicate.staticFields);
+                for (Field field : predicate.staticFields)
+                {
+                    arguments.add(values.get(field));
+                }
+            }
+            if (predicate.passThis)
+            {
+                arguments.add(thisObject);
+            }
+
+            Value result = predicate.type.invokeMethod(thread, predicate.method, arguments, ObjectReference.INVOKE_SINGLE_THREADED);
+            return ((BooleanValue) result).value();
+        }
+        catch (AbsentInformationException e)
+        {
+            throw new ConditionException("no local variable information");
+        }
+        catch (InvocationException e)
+        {
+            throw new ConditionException(e.exception().referenceType().name());
+        }
+        catch (VMDisconnectedException e)
+        {
+            throw e;
+        }
+        catch (IncompatibleThreadStateException | InvalidTypeException | ClassNotLoadedException | RuntimeException e)
+        {
+            throw new ConditionException(e.toString());
+        }
+    }
+
+    /**
+     * Compile a condition for a breakpoint at the given location, and define it in the debug VM
+     * (using the given suspended thread).
+     */
+    private Predicate compile(String condition, Location location, ThreadReference thread)
+        throws AbsentInformationException, IncompatibleThreadStateException, InvalidTypeException,
+            ClassNotLoadedException, InvocationException
+    {
+        ReferenceType host = location.declaringType();
+        boolean staticContext = location.method().isStatic();
+        ConditionSource source = new ConditionSource(condition);
+        String hostName = host.isPrivate() ? "java.lang.Object" : sourceTypeName(host.name());
+        String body = source.rewrite(staticContext, hostName, name -> !host.methodsByName(name).isEmpty());
+        if (staticContext && source.usesThis())
+        {
+            return new Predicate("\"this\" cannot be used in a static method");
+        }
+
+        // Pass the locals and fields that the condition uses. Locals hide fields of the same name:
+        Map<String, Field> fields = new HashMap<>();
+        for (Field field : host.visibleFields())
+        {
+            fields.put(field.name(), field);
+        }
+        List<LocalVariable> locals = new ArrayList<>();
+        List<String> parameters = new ArrayList<>();
+        Set<String> localNames = new HashSet<>();
+        for (LocalVariable variable : thread.frame(0).visibleVariables())
+        {
+            localNames.add(variable.name());
+            if (source.getNames().contains(variable.name()))
+            {
+                locals.add(variable);
+                parameters.add(sourceTypeName(variable.typeName()) + " " + variable.name());
+            }
+        }
+        List<Field> instanceFields = new ArrayList<>();
+        List<Field> staticFields = new ArrayList<>();
+        List<String> staticParameters = new ArrayList<>();
+        for (String name : source.getNames())
+        {
+            Field field = fields.get(name);
+            if (field != null && !localNames.contains(name))
+            {
+                addField(field, name, staticContext, instanceFields, parameters, staticFields, staticParameters);
+            }
+        }
+        for (String name : source.getThisFields())
+        {
+            Field field = fields.get(name);
+            if (field != null)
+            {
+                addField(field, ConditionSource.FIELD_PARAMETER_PREFIX + name, staticContext,
+                        instanceFields, parameters, staticFields, staticParameters);
+            }
+        }
+        parameters.addAll(staticParameters);
+        if (source.usesThis())
+        {
+            parameters.add(hostName + " " + ConditionSource.THIS_PARAMETER);
+        }
+
+        String packageName = JavaNames.getPrefix(host.name());
+        String className = PREDICATE_CLASS_PREFIX + nextPredicateNumber++;
+        String predicateSource = makeSource(packageName, className, parameters, body);
+
+        File classFile;
+        try
+        {
+            classFile = compileSource(packageName, className, predicateSource);
+        }
+        catch (ConditionException e)
+        {
+            return new Predicate(e.getMessage());
+        }
+
+        StringReference path = machine.mirrorOf(classFile.getAbsolutePath());
+        path.disableCollection();
+        try
+        {
+            Method define = serverClass.methodsByName(DEFINE_METHOD).get(0);
+            List<Value> arguments = Arrays.asList(host.classObject(), path);
+            ClassObjectReference defined = (ClassObjectReference) serverClass.invokeMethod(thread, define,
+                    arguments, ObjectReference.INVOKE_SINGLE_THREADED);
+            ClassType type = (ClassType) defined.reflectedType();
+            return new Predicate(type, type.methodsByName(PREDICATE_METHOD).get(0), locals, instanceFields,
+                    staticFields, source.usesThis());
+        }
+        finally
+        {
+            path.enableCollection();
+            // The debug VM has read the class file by now (or failed to):
+            classFile.delete();
+        }
+    }
+
+    /**
+     * Add a field used by a condition to the appropriate list of fields and parameters. An
+     * instance field is left out in a static method, so that using it is a compile error.
+     */
+    private static void addField(Field field, String parameterName, boolean staticContext,
+            List<Field> instanceFields, List<String> instanceParameters,
+            List<Field> staticFields, List<String> staticParameters)
+    {
+        String parameter = sourceTypeName(field.typeName()) + " " + parameterName;
+        if (field.isStatic())
+        {
+            staticFields.add(field);
+            staticParameters.add(parameter);
+        }
+        else if (!staticContext)
+        {
+            instanceFields.add(field);
+            instanceParameters.add(parameter);
+        }
+    }
+
+    /**
+     * Make the source of a predicate class, whose test method takes the given parameters and
+     * returns the given (rewritten) condition.
+     */
+    static String makeSource(String packageName, String className, List<String> parameters, String condition)
+    {
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty())
+        {
+            source.append("package ").append(packageName).append(";\n");
+        }
+        source.append("public class ").append(className).append("\n{\n");
+        source.append("    public static boolean ").append(PREDICATE_METHOD).append("(");
+        source.append(String.join(", ", parameters));
+        source.append(")\n    {\n        return (").append(condition).append("\n        );\n    }\n}\n");
+        return source.toString();
+    }
+
+    /**
+     * Compile the source of a predicate class, returning the class file.
+     */
+    private File compileSource(String packageName, String className, String source) throws ConditionException
+    {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+        {
+            throw new ConditionException("The compiler does not appear to be available.");
+        }
+        try
+        {
+            if (outputDir == null)
+            {
+                outputDir = Files.createTempDirectory("bluej-conditions").toFile();
+                outputDir.deleteOnExit();
+            }
+
+            JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///" + className + ".java"),
+                    JavaFileObject.Kind.SOURCE) {
+                @Override
+                public CharSequence getCharContent(boolean ignoreEncodingErrors)
+                {
+                    return source;
+                }
+            };
+            List<String> options = new ArrayList<>(Arrays.asList("-d", outputDir.getAbsolutePath(),
+                    "-proc:none", "-g:none", "-nowarn"));
+            if (!classPath.isEmpty())
+            {
+                options.add("-classpath");
+                options.add(classPath.stream().map(File::getAbsolutePath).collect(Collectors.joining(File.pathSeparator)));
+            }
+            DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            boolean success = compiler.getTask(null, null, diagnostics, options, null,
+                    Collections.singletonList(sourceFile)).call();
+            if (!success)
+            {
+                throw new ConditionException(diagnostics.getDiagnostics().stream()
+                        .filter(d -> d.getKind() == javax.tools.Diagnostic.Kind.ERROR)
+                        .map(d -> describeError(d.getMessage(null)))
+                        .findFirst().orElse("The condition could not be compiled."));
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            throw new ConditionException(e.toString());
+        }
+
+        // Files registered for deletion on exit are deleted in the reverse order, so the
+        // package directories must be registered parent first for them to be empty by then:
+        File packageDir = outputDir;
+        for (String component : packageName.isEmpty() ? new String[0] : packageName.split("\\."))
+        {
+            packageDir = new File(packageDir, component);
+            packageDir.deleteOnExit();
+        }
+        File classFile = new File(packageDir, className + ".class");
+        classFile.deleteOnExit();
+        return classFile;
+    }
+
+    /**
+     * Shorten a compiler error message to one line, leaving out the location (which is in
+     * the generated class rather than the user's code).
+     */
+    static String describeError(String message)
+    {
+        String[] lines = message.split("\n");
+        StringBuilder description = new StringBuilder(lines[0].trim());
+        for (int i = 1; i < lines.length; i++)
+        {
+            String line = lines[i].trim();
+            if (line.startsWith("symbol:"))
+            {
+                description.append(" (").append(line.substring("symbol:".length()).trim()).append(")");
+            }
+        }
+        return description.toString();
+    }
+
+    /**
+     * Get the name to use in source code for a type, given its name as reported by JDI.
+     */
+    static String sourceTypeName(String typeName)
+    {
+        // Anonymous and local classes can't be named:
+        for (int i = typeName.indexOf('$'); i != -1; i = typeName.indexOf('$', i + 1))
+        {
+            if (i + 1 < typeName.length() && Character.isDigit(typeName.charAt(i + 1)))
+            {
+                return "java.lang.Object" + typeName.substring(typeName.indexOf('[') == -1 ? typeName.length() : typeName.indexOf('['));
+            }
+        }
+        return typeName.replace('$', '.');
+    }
+
+    /**
+     * Called when a breakpoint has been reported (that is, the thread is stopping there). A
+     * breakpoint with a hit count but no condition has its count filter used up by now, so it
+     * is replaced with a new request, and the hits that the old one passed over are counted.
+     */
+    @OnThread(Tag.VMEventHandler)
+    void breakpointReported(EventRequest request)
+    {
+        BreakpointState state = request == null ? null : (BreakpointState) request.getProperty(STATE_PROPERTY);
+        if (state == null || state.condition != null || !(request instanceof BreakpointRequest))
+        {
+            return;
+        }
+
+        state.ignoredHits += state.hitCount - 1;
+        request.putProperty(Debugger.BREAKPOINT_IGNORED_HITS_PROPERTY, state.ignoredHits);
+
+        BreakpointRequest old = (BreakpointRequest) request;
+        EventRequestManager erm = machine.eventRequestManager();
+        BreakpointRequest renewed = erm.createBreakpointRequest(old.location());
+        renewed.setSuspendPolicy(old.suspendPolicy());
+        renewed.putProperty(VMEventHandler.DONT_RESUME, "yes");
+        for (Map.Entry<String, String> property : state.properties.entrySet())
+        {
+            renewed.putProperty(property.getKey(), property.getValue());
+        }
+        renewed.putProperty(STATE_PROPERTY, state);
+        renewed.addCountFilter(state.hitCount);
+        renewed.enable();
+        erm.deleteEventRequest(old);
+    }
+
+    /**
+     * Handles an event set once it has been screened.
+     */
+    interface EventSetHandler
+    {
+        /**
+         * Handle the event set, and then run the given action.
+         */
+        @OnThread(Tag.Any)
+        void handleEventSet(EventSet eventSet, Runnable afterwards);
+    }
+
+    /**
+     * A condition which could not be compiled or evaluated.
+     */
+    private static class ConditionException extends Exception
+    {
+        ConditionException(String message)
+        {
+            super(message);
+        }
+    }
+}
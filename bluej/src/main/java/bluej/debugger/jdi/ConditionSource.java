@@ -0,0 +1,274 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugger.jdi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * The source of a breakpoint condition, as written by the user. The condition is compiled
+ * into a method of a separate class, which cannot see the locals, fields or "this" of the
+ * code containing the breakpoint; instead, those which the condition uses are passed in as
+ * parameters. This class finds the names that the condition uses, and rewrites it to refer
+ * to the parameters:
+ *
+ * <ul>
+ * <li>"this" on its own becomes {@link #THIS_PARAMETER}.
+ * <li>"this.name" becomes {@link #FIELD_PARAMETER_PREFIX} + "name", for a field (so that it
+ *     refers to the field even when a local variable has the same name).
+ * <li>"this.name(...)" and unqualified calls to methods of the class become calls on
+ *     {@link #THIS_PARAMETER} (or on the class, in a static method).
+ * <li>Other names are left alone; those which are locals or fields are passed as parameters
+ *     with the same name.
+ * </ul>
+ *
+ * Private methods, and qualified "this" (as in "Outer.this"), can't be used.
+ */
+@OnThread(Tag.Any)
+class ConditionSource
+{
+    static final String THIS_PARAMETER = "__this";
+    static final String FIELD_PARAMETER_PREFIX = "__field_";
+
+    private final String condition;
+    private final List<Token> tokens = new ArrayList<>();
+    private final Set<String> names = new LinkedHashSet<>();
+    private final Set<String> thisFields = new LinkedHashSet<>();
+    private boolean usesThis;
+
+    /**
+     * An identifier, or a single character of punctuation, in the condition. Literals,
+     * comments and white space are skipped.
+     */
+    private static class Token
+    {
+        final int start;
+        final int end;
+        final boolean identifier;
+
+        Token(int start, int end, boolean identifier)
+        {
+            this.start = start;
+            this.end = end;
+            this.identifier = identifier;
+        }
+    }
+
+    ConditionSource(String condition)
+    {
+        this.condition = condition;
+        tokenize();
+
+        for (int i = 0; i < tokens.size(); i++)
+        {
+            if (!isIdentifier(i) || isPunctuation(i - 1, '.'))
+            {
+                continue;
+            }
+            String name = text(i);
+            if (name.equals("this"))
+            {
+                if (isPunctuation(i + 1, '.') && isIdentifier(i + 2) && !isPunctuation(i + 3, '('))
+                {
+                    thisFields.add(text(i + 2));
+                }
+            }
+            else if (!isPunctuation(i + 1, '('))
+            {
+                names.add(name);
+            }
+        }
+    }
+
+    /**
+     * Get the simple names used in the condition (other than method names and "this"); those
+     * which are local variables or fields should be passed to the condition as parameters with
+     * the same name. (Some may be the names of classes or keywords.)
+     */
+    Set<String> getNames()
+    {
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Get the names used after "this.", other than method names. These should be passed to the
+     * condition as parameters named {@link #FIELD_PARAMETER_PREFIX} followed by the field name.
+     */
+    Set<String> getThisFields()
+    {
+        return Collections.unmodifiableSet(thisFields);
+    }
+
+    /**
+     * Rewrite the condition to use its parameters.
+     *
+     * @param staticContext  Whether the breakpoint is in a static method, so that calls to
+     *                       methods of the class are made on the class instead of "this".
+     * @param className      The name of the class, as it should appear in source code.
+     * @param isMethod       Whether the class has (or inherits) a method with a given name.
+     * @return  The rewritten condition
+     */
+    String rewrite(boolean staticContext, String className, Predicate<String> isMethod)
+    {
+        StringBuilder result = new StringBuilder();
+        usesThis = false;
+        int copied = 0;
+        for (int i = 0; i < tokens.size(); i++)
+        {
+            if (!isIdentifier(i) || isPunctuation(i - 1, '.'))
+            {
+                continue;
+            }
+            String name = text(i);
+            String replacement = null;
+            int end = tokens.get(i).end;
+            if (name.equals("this"))
+            {
+                if (isPunctuation(i + 1, '.') && isIdentifier(i + 2) && !isPunctuation(i + 3, '('))
+                {
+                    replacement = FIELD_PARAMETER_PREFIX + text(i + 2);
+                    end = tokens.get(i + 2).end;
+                }
+                else
+                {
+                    replacement = THIS_PARAMETER;
+                }
+            }
+            else if (isPunctuation(i + 1, '(') && isMethod.test(name))
+            {
+                replacement = (staticContext ? className : THIS_PARAMETER) + "." + name;
+            }
+
+            if (replacement != null)
+            {
+                usesThis |= replacement.startsWith(THIS_PARAMETER);
+                result.append(condition, copied, tokens.get(i).start).append(replacement);
+                copied = end;
+            }
+        }
+        result.append(condition, copied, condition.length());
+        return result.toString();
+    }
+
+    /**
+     * Check whether the condition, as rewritten by the last call to {@link #rewrite}, uses
+     * {@link #THIS_PARAMETER}.
+     */
+    boolean usesThis()
+    {
+        return usesThis;
+    }
+
+    private boolean isIdentifier(int index)
+    {
+        return index >= 0 && index < tokens.size() && tokens.get(index).identifier;
+    }
+
+    private boolean isPunctuation(int index, char c)
+    {
+        return index >= 0 && index < tokens.size() && !tokens.get(index).identifier
+                && condition.charAt(tokens.get(index).start) == c;
+    }
+
+    private String text(int index)
+    {
+        return condition.substring(tokens.get(index).start, tokens.get(index).end);
+    }
+
+    private void tokenize()
+    {
+        int pos = 0;
+        int length = condition.length();
+        while (pos < length)
+        {
+            char c = condition.charAt(pos);
+            if (Character.isWhitespace(c))
+            {
+                pos++;
+            }
+            else if (c == '"' || c == '\'')
+            {
+                // A string or character literal:
+                pos++;
+                while (pos < length && condition.charAt(pos) != c)
+                {
+                    pos += condition.charAt(pos) == '\\' ? 2 : 1;
+                }
+                pos++;
+            }
+            else if (condition.startsWith("//", pos))
+            {
+                int lineEnd = condition.indexOf('\n', pos);
+                pos = lineEnd == -1 ? length : lineEnd;
+            }
+            else if (condition.startsWith("/*", pos))
+            {
+                int commentEnd = condition.indexOf("*/", pos + 2);
+                pos = commentEnd == -1 ? length : commentEnd + 2;
+            }
+            else if (Character.isJavaIdentifierStart(c))
+            {
+                int start = pos;
+                while (pos < length && Character.isJavaIdentifierPart(condition.charAt(pos)))
+                {
+                    pos++;
+                }
+                tokens.add(new Token(start, pos, true));
+            }
+            else if (Character.isDigit(c) || (c == '.' && pos + 1 < length && Character.isDigit(condition.charAt(pos + 1))))
+            {
+                // A number, including any suffix or exponent (such as 1.5e-3f):
+                boolean hex = condition.startsWith("0x", pos) || condition.startsWith("0X", pos);
+                pos++;
+                while (pos < length)
+                {
+                    char n = condition.charAt(pos);
+                    if (Character.isLetterOrDigit(n) || n == '.' || n == '_')
+                    {
+                        pos++;
+                    }
+                    else if ((n == '+' || n == '-') && !hex
+                            && (condition.charAt(pos - 1) == 'e' || condition.charAt(pos - 1) == 'E'))
+                    {
+                        pos++;
+                    }
+                    else
+                    {
+                        break;
+                    }
+                }
+            }
+            else
+            {
+                tokens.add(new Token(pos, pos + 1, false));
+                pos++;
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import bluej.BlueJEvent;
 import bluej.BlueJEventListener;
@@ -616,39 +617,13 @@ public class JdiDebugger extends Debugger
                 int i = 1;
                 while (i < arrayRef.length())
                 {
-                    
-                    String actualMethodName = ((StringReference) arrayRef.getValue(i)).value();
-                    String displayTestName = ((StringReference) arrayRef.getValue(i + 1)).value();
-                    String failureType = ((StringReference) arrayRef.getValue(i + 8)).value();
-                    
-                    if (failureType.equals("success"))
+                    String[] details = new String[9];
+                    for (int j = 0; j < details.length; j++)
                     {
-                        results.add(new JdiTestResult(className, actualMethodName, displayTestName, 0));
-                        
+                        StringReference value = (StringReference) arrayRef.getValue(i + j);
+                        details[j] = (value != null) ? value.value() : "";
                     }
-                    else
-                    {
-                        String exMsg = ((StringReference) arrayRef.getValue(i + 2)).value();
-                        String traceMsg = ((StringReference) arrayRef.getValue(i + 3)).value();
-                        String failureClass = ((StringReference) arrayRef.getValue(i + 4)).value();
-                        String failureSource = ((StringReference) arrayRef.getValue(i + 5)).value();
-                        String failureMethod = ((StringReference) arrayRef.getValue(i + 6)).value();
-                        int lineNo = Integer.parseInt(((StringReference) arrayRef.getValue(i + 7)).value());
-                        SourceLocation failPoint = new SourceLocation(failureClass, failureSource,
-                                failureMethod, lineNo);
-
-                        if (failureType.equals("failure"))
-                        {
-                            results.add(new JdiTestResultFailure(className, actualMethodName, displayTestName, exMsg, traceMsg,
-                                    failPoint, 0));
-                        }
-                        else
-                        {
-                            results.add(new JdiTestResultError(className, actualMethodName, displayTestName, exMsg, traceMsg,
-                                    failPoint, 0));
-                        }
-                    }
-
+                    results.add(makeTestResult(className, details, 0));
                     i = i + 9;
                 }
                 testResultsWithRunTime.setTotalRunTime(runTimeMs);
@@ -675,6 +650,103 @@ public class JdiDebugger extends Debugger
         }
     }
     
+    /**
+     * Run all test methods in a set of test classes as a single test run, passing each result
+     * to the listener as soon as the test has finished.
+     *
+     * @param classNames  the fully qualified names of the test classes
+     * @param parallel    whether the test classes may be run concurrently
+     * @param resultListener  receives each result as it becomes available (on an arbitrary thread)
+     * @return a TestResultsWithRunTime object that wraps all the test results and the total runtime
+     */
+    @Override
+    @OnThread(Tag.Any)
+    public TestResultsWithRunTime runTestClasses(List<String> classNames, boolean parallel,
+            Consumer<DebuggerTestResult> resultListener)
+    {
+        List<DebuggerTestResult> results = Collections.synchronizedList(new ArrayList<>());
+        TestResultsWithRunTime testResultsWithRunTime = new TestResultsWithRunTime();
+        testResultsWithRunTime.setResults(results);
+        Consumer<DebuggerTestResult> addResult = result -> {
+            results.add(result);
+            resultListener.accept(result);
+        };
+        try
+        {
+            VMReference vmr = getVM();
+            synchronized (serverThreadLock)
+            {
+                ArrayReference arrayRef = null;
+                if (vmr != null)
+                {
+                    arrayRef = (ArrayReference) vmr.invokeRunTests(classNames, parallel,
+                            details -> addResult.accept(makeTestResult(details[0], details, 1)));
+                }
+
+                if (arrayRef == null || arrayRef.length() == 0)
+                {
+                    addResult.accept(new JdiTestResultError(String.join(", ", classNames), null, null,
+                            "VM returned unknown result", "", null, 0));
+                    return testResultsWithRunTime;
+                }
+
+                testResultsWithRunTime.setTotalRunTime(Integer.parseInt(((StringReference) arrayRef.getValue(0)).value()));
+                return testResultsWithRunTime;
+            }
+        }
+        catch (InvocationException ie)
+        {
+            addResult.accept(new JdiTestResultError(String.join(", ", classNames), null, null,
+                    "Internal invocation error", "", null, 0));
+            return testResultsWithRunTime;
+        }
+        catch (VMDisconnectedException vmde)
+        {
+            addResult.accept(new JdiTestResultError(String.join(", ", classNames), "", "", "VM restarted", "",
+                    null, 0));
+            return testResultsWithRunTime;
+        }
+    }
+
+    /**
+     * Make a test result from the details reported by the debug VM.
+     *
+     * @param className  the name of the test class
+     * @param details    the result details, in the format described in ExecServer.runTestMethod
+     * @param offset     the position in details of the first item
+     */
+    private static DebuggerTestResult makeTestResult(String className, String[] details, int offset)
+    {
+        String actualMethodName = details[offset];
+        String displayTestName = details[offset + 1];
+        String failureType = details[offset + 8];
+
+        if (failureType.equals("success"))
+        {
+            return new JdiTestResult(className, actualMethodName, displayTestName, 0);
+        }
+
+        String exMsg = details[offset + 2];
+        String traceMsg = details[offset + 3];
+        String failureClass = details[offset + 4];
+        String failureSource = details[offset + 5];
+        String failureMethod = details[offset + 6];
+        int lineNo = details[offset + 7].isEmpty() ? 0 : Integer.parseInt(details[offset + 7]);
+        SourceLocation failPoint = new SourceLocation(failureClass, failureSource,
+                failureMethod, lineNo);
+
+        if (failureType.equals("failure"))
+        {
+            return new JdiTestResultFailure(className, actualMethodName, displayTestName, exMsg, traceMsg,
+                    failPoint, 0);
+        }
+        else
+        {
+            return new JdiTestResultError(className, actualMethodName, displayTestName, exMsg, traceMsg,
+                    failPoint, 0);
+        }
+    }
+
     /**
      * Dispose all top level windows in the remote machine.
      */
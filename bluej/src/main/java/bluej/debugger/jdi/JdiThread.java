@@ -96,6 +96,10 @@ class JdiThread extends DebuggerThread
     @OnThread(Tag.VMEventHandler)
     private boolean isSuspended;
     
+    /** The snapshot taken since the thread last halted, if any */
+    @OnThread(Tag.VMEventHandler)
+    private ThreadSnapshot snapshot;
+
     /** Any active step request */
     @OnThread(Tag.VMEventHandler)
     StepRequest stepRequest;
@@ -255,6 +259,9 @@ class JdiThread extends DebuggerThread
         }
     }
 
+    // the number of frames (from the top of the stack) whose details are captured in a snapshot
+    static final int SNAPSHOT_FRAMES = 10;
+
     // name of the threadgroup that contains user threads
     static final String MAIN_THREADGROUP = "main";
 
@@ -341,20 +348,7 @@ class JdiThread extends DebuggerThread
                 List<StackFrame> frames = thr.frames();
 
                 for(int i = 0; i < frames.size(); i++) {
-                    StackFrame f = (StackFrame)frames.get(i);
-                    Location loc = f.location();
-                    String className = loc.declaringType().name();
-                    
-                    String fileName = null;
-                    try {
-                        fileName = loc.sourceName();
-                    }
-                    catch(AbsentInformationException e) { }
-                    String methodName = loc.method().name();
-                    int lineNumber = loc.lineNumber();
-
-                    stack.add(new SourceLocation(className, fileName,
-                                                 methodName, lineNumber));
+                    stack.add(getSourceLocation(frames.get(i).location()));
                 }
                 return stack;
             }
@@ -373,6 +367,69 @@ class JdiThread extends DebuggerThread
         return new ArrayList<SourceLocation>();
     }
 
+    @OnThread(Tag.VMEventHandler)
+    private static SourceLocation getSourceLocation(Location loc)
+    {
+        String className = loc.declaringType().name();
+
+        String fileName = null;
+        try {
+            fileName = loc.sourceName();
+        }
+        catch(AbsentInformationException e) { }
+        String methodName = loc.method().name();
+        int lineNumber = loc.lineNumber();
+
+        return new SourceLocation(className, fileName, methodName, lineNumber);
+    }
+
+    /**
+     * Get a snapshot of the stack and of the top SNAPSHOT_FRAMES frames. The frames are
+     * fetched with a single request, and the values of each frame's local variables with
+     * a single request per frame. The snapshot is kept until the thread is resumed.
+     */
+    @OnThread(Tag.VMEventHandler)
+    @Override
+    public synchronized ThreadSnapshot getSnapshot()
+    {
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        try {
+            if(rt.isSuspended()) {
+                List<StackFrame> frames = rt.frames();
+                List<SourceLocation> stack = new ArrayList<SourceLocation>(frames.size());
+                List<ThreadSnapshot.Frame> captured = new ArrayList<>();
+                for(int i = 0; i < frames.size(); i++) {
+                    StackFrame frame = frames.get(i);
+                    Location loc = frame.location();
+                    stack.add(getSourceLocation(loc));
+                    if (i < SNAPSHOT_FRAMES) {
+                        List<FXPlatformSupplier<VarDisplayInfo>> localVars;
+                        try {
+                            localVars = getLocalVariables(frame);
+                        }
+                        catch (AbsentInformationException aie) {
+                            localVars = Collections.emptyList();
+                        }
+                        captured.add(new ThreadSnapshot.Frame(
+                                JdiObject.getDebuggerObject(frame.thisObject()),
+                                new JdiClass(loc.declaringType()), localVars));
+                    }
+                }
+                snapshot = new ThreadSnapshot(stack, captured);
+                return snapshot;
+            }
+        }
+        catch (VMDisconnectedException vmde) { }
+        catch (IncompatibleThreadStateException itse) { }
+        catch (InvalidStackFrameException isfe) {
+            // thread was resumed elsewhere; return an empty snapshot (but don't keep it)
+        }
+        return new ThreadSnapshot(Collections.emptyList(), Collections.emptyList());
+    }
+
 
     /**
      * Return strings listing the local variables.
@@ -386,53 +443,7 @@ class JdiThread extends DebuggerThread
     {
         try {
             if(rt.isSuspended()) {
-                StackFrame frame = rt.frame(frameNo);
-                List<LocalVariable> vars = frame.visibleVariables();
-                List<FXPlatformSupplier<VarDisplayInfo>> localVars = new ArrayList<>();
-                
-                // To work around a JDI bug (probably related to the other one described
-                // below) we collect information we need about the variables on the
-                // stack frame before we do anything which might cause types to be
-                // loaded:
-                
-                List<String> localVals = new ArrayList<String>();
-                List<Type> localTypes = new ArrayList<Type>();
-                List<String> genericSigs = new ArrayList<String>();
-                List<String> typeNames = new ArrayList<String>();
-                ReferenceType declaringType = frame.location().declaringType();
-                
-                for(int i = 0; i < vars.size(); i++) {
-                    LocalVariable var = vars.get(i);
-                    String val = JdiUtils.getJdiUtils().getValueString(frame.getValue(var));
-                    localVals.add(val);
-                    
-                    try {
-                        localTypes.add(var.type());
-                    }
-                    catch (ClassNotLoadedException cnle) {
-                        localTypes.add(null);
-                    }
-                    
-                    genericSigs.add(var.genericSignature());
-                    typeNames.add(var.typeName());
-                }
-                
-                for(int i = 0; i < vars.size(); i++) {
-                    LocalVariable var = vars.get(i);
-
-                    // Add "type name = value" to the list
-
-                    final int iFinal = i;
-                    FXPlatformSupplier<DebuggerObject> getObjectToInspect = varIsObject(frameNo, i) ?
-                            getStackObject(frameNo, iFinal)
-                            : null;
-                    localVars.add(() -> {
-                        JavaType vartype = JdiReflective.fromLocalVar(localTypes.get(iFinal), genericSigs.get(iFinal),
-                            typeNames.get(iFinal), declaringType);
-                        return new VarDisplayInfo(vartype, var, localVals.get(iFinal), getObjectToInspect);
-                    });
-                }
-                return localVars;
+                return getLocalVariables(rt.frame(frameNo));
             }
         }
         catch (IncompatibleThreadStateException itse) { }
@@ -452,6 +463,52 @@ class JdiThread extends DebuggerThread
         return new ArrayList<>();
     }
 
+    /**
+     * Get the local variables of a stack frame. The values of all the variables are
+     * fetched with a single request.
+     */
+    @OnThread(Tag.VMEventHandler)
+    private static List<FXPlatformSupplier<VarDisplayInfo>> getLocalVariables(StackFrame frame)
+        throws AbsentInformationException
+    {
+        List<LocalVariable> vars = frame.visibleVariables();
+        List<FXPlatformSupplier<VarDisplayInfo>> localVars = new ArrayList<>();
+
+        // To work around a JDI bug (probably related to the other one described
+        // in getLocalVariables(int)) we collect information we need about the
+        // variables on the stack frame before we do anything which might cause
+        // types to be loaded:
+
+        Map<LocalVariable, Value> values = frame.getValues(vars);
+        ReferenceType declaringType = frame.location().declaringType();
+
+        for(LocalVariable var : vars) {
+            Value val = values.get(var);
+            String valString = JdiUtils.getJdiUtils().getValueString(val);
+
+            Type type;
+            try {
+                type = var.type();
+            }
+            catch (ClassNotLoadedException cnle) {
+                type = null;
+            }
+            Type localType = type;
+            String genericSig = var.genericSignature();
+            String typeName = var.typeName();
+
+            // Add "type name = value" to the list
+            ObjectReference obj = (val instanceof ObjectReference) ? (ObjectReference) val : null;
+            localVars.add(() -> {
+                JavaType vartype = JdiReflective.fromLocalVar(localType, genericSig, typeName, declaringType);
+                FXPlatformSupplier<DebuggerObject> getObjectToInspect = obj == null ? null
+                        : () -> JdiObject.getDebuggerObject(obj, vartype);
+                return new VarDisplayInfo(vartype, var, valString, getObjectToInspect);
+            });
+        }
+        return localVars;
+    }
+
     /**
      * Return true if the identified slot on the stack contains an object.
      */
@@ -601,6 +658,7 @@ class JdiThread extends DebuggerThread
         try {
             if (! isSuspended) {
                 rt.suspend();
+                snapshot = null;
                 debugger.emitThreadHaltEvent(this);
                 isSuspended = true;
             }
@@ -619,6 +677,7 @@ class JdiThread extends DebuggerThread
                 debugger.emitThreadResumedEvent(this);
                 rt.resume();
                 isSuspended = false;
+                snapshot = null;
             }
         }
         catch (VMDisconnectedException vmde) {}
@@ -634,6 +693,7 @@ class JdiThread extends DebuggerThread
         synchronized (this)
         {
             isSuspended = true;
+            snapshot = null;
         }
         clearPreviousStep(rt);
     }
@@ -682,6 +742,7 @@ class JdiThread extends DebuggerThread
                 debugger.emitThreadResumedEvent(this);
                 rt.resume();
                 isSuspended = false;
+                snapshot = null;
             }
         }
     }
@@ -753,5 +814,6 @@ class JdiThread extends DebuggerThread
     {
         rt.resume();
         isSuspended = false;
+        snapshot = null;
     }
 }
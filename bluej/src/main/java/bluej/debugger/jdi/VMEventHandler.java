@@ -137,85 +137,12 @@ class VMEventHandler extends Thread
                 if (event instanceof EventSet)
                 {
                     EventSet eventSet = (EventSet) event;
-                    // From the JDK documentation
-                    // The events that are grouped in an EventSet are restricted in the following ways:
-                    //   * Always singleton sets:
-                    //     o VMStartEvent
-                    //     o VMDisconnectEvent 
-                    //   * Only with other VMDeathEvents:
-                    //     o VMDeathEvent 
-                    //   * Only with other ThreadStartEvents for the same thread:
-                    //     o ThreadStartEvent 
-                    //   * Only with other ThreadDeathEvents for the same thread:
-                    //     o ThreadDeathEvent 
-                    //   * Only with other ClassPrepareEvents for the same class:
-                    //     o ClassPrepareEvent 
-                    //   * Only with other ClassUnloadEvents for the same class:
-                    //     o ClassUnloadEvent 
-                    //   * Only with other AccessWatchpointEvents for the same field access:
-                    //     o AccessWatchpointEvent 
-                    //   * Only with other ModificationWatchpointEvents for the same field modification:
-                    //     o ModificationWatchpointEvent 
-                    //   * Only with other ExceptionEvents for the same exception occurrence:
-                    //     o ExceptionEvent 
-                    //   * Only with other MethodExitEvents for the same method exit:
-                    //     o MethodExitEvent 
-                    //   * Only with other members of this group, at the same location and in the same thread:
-                    //     o BreakpointEvent
-                    //     o StepEvent
-                    //     o MethodEntryEvent 
-
-                    boolean addToSuspendCount = true;
-
-                    // iterate through all events in the set
-                    EventIterator it = eventSet.eventIterator();
-
-                    boolean examineSaidSkipUpdates = false;
-                    boolean gotBPEvent = false;
-
-                    while (it.hasNext())
+                    // Hits on conditional breakpoints are only handled if the condition holds
+                    // (the event set is queued again, via queueEventSet, if so):
+                    if (!vm.screenBreakpointConditions(eventSet))
                     {
-                        Event ev = it.nextEvent();
-
-                        examineSaidSkipUpdates |= screenEvent(ev);
-
-                        // for breakpoint and step events, we may want
-                        // to leave the relevant thread suspended. If the dontResume
-                        // property for the event is set, then lets do this.
-                        if (ev.request() != null)
-                        {
-                            if (addToSuspendCount && ev.request().getProperty(DONT_RESUME) != null)
-                            {
-                                if (ev instanceof LocatableEvent)
-                                {
-                                    LocatableEvent le = (LocatableEvent) ev;
-                                    le.thread().suspend();
-                                    addToSuspendCount = false;
-                                    // a step and breakpoint can be hit at the same
-                                    // time - make sure to only suspend once
-                                    gotBPEvent |= (ev instanceof BreakpointEvent);
-                                }
-                            }
-                        }
+                        handleEventSet(eventSet);
                     }
-
-                    // Now go through again to do proper processing:
-                    it = eventSet.eventIterator();
-                    while (it.hasNext())
-                    {
-                        Event ev = it.nextEvent();
-
-                        // do some processing with this event
-                        // this calls back into VMReference
-                        handleEvent(ev, examineSaidSkipUpdates, gotBPEvent);
-                        if (ev instanceof VMDisconnectEvent)
-                        {
-                            exiting.set(true);
-                        }
-                    }
-
-                    // resume the VM
-                    eventSet.resume();
                 }
                 else if (event instanceof ThreadEvent)
                 {
@@ -244,6 +171,112 @@ class VMEventHandler extends Thread
         }
     }
     
+    /**
+     * Handle a set of events from the remote VM, and then resume it (except for threads
+     * which have stopped at a breakpoint or step).
+     */
+    private void handleEventSet(EventSet eventSet)
+    {
+        // From the JDK documentation
+        // The events that are grouped in an EventSet are restricted in the following ways:
+        //   * Always singleton sets:
+        //     o VMStartEvent
+        //     o VMDisconnectEvent 
+        //   * Only with other VMDeathEvents:
+        //     o VMDeathEvent 
+        //   * Only with other ThreadStartEvents for the same thread:
+        //     o ThreadStartEvent 
+        //   * Only with other ThreadDeathEvents for the same thread:
+        //     o ThreadDeathEvent 
+        //   * Only with other ClassPrepareEvents for the same class:
+        //     o ClassPrepareEvent 
+        //   * Only with other ClassUnloadEvents for the same class:
+        //     o ClassUnloadEvent 
+        //   * Only with other AccessWatchpointEvents for the same field access:
+        //     o AccessWatchpointEvent 
+        //   * Only with other ModificationWatchpointEvents for the same field modification:
+        //     o ModificationWatchpointEvent 
+        //   * Only with other ExceptionEvents for the same exception occurrence:
+        //     o ExceptionEvent 
+        //   * Only with other MethodExitEvents for the same method exit:
+        //     o MethodExitEvent 
+        //   * Only with other members of this group, at the same location and in the same thread:
+        //     o BreakpointEvent
+        //     o StepEvent
+        //     o MethodEntryEvent 
+
+        boolean addToSuspendCount = true;
+
+        // iterate through all events in the set
+        EventIterator it = eventSet.eventIterator();
+
+        boolean examineSaidSkipUpdates = false;
+        boolean gotBPEvent = false;
+
+        while (it.hasNext())
+        {
+            Event ev = it.nextEvent();
+
+            examineSaidSkipUpdates |= screenEvent(ev);
+
+            // for breakpoint and step events, we may want
+            // to leave the relevant thread suspended. If the dontResume
+            // property for the event is set, then lets do this.
+            if (ev.request() != null)
+            {
+                if (addToSuspendCount && ev.request().getProperty(DONT_RESUME) != null)
+                {
+                    if (ev instanceof LocatableEvent)
+                    {
+                        LocatableEvent le = (LocatableEvent) ev;
+                        le.thread().suspend();
+                        addToSuspendCount = false;
+                        // a step and breakpoint can be hit at the same
+                        // time - make sure to only suspend once
+                        gotBPEvent |= (ev instanceof BreakpointEvent);
+                    }
+                }
+            }
+        }
+
+        // Now go through again to do proper processing:
+        it = eventSet.eventIterator();
+        while (it.hasNext())
+        {
+            Event ev = it.nextEvent();
+
+            // do some processing with this event
+            // this calls back into VMReference
+            handleEvent(ev, examineSaidSkipUpdates, gotBPEvent);
+            if (ev instanceof VMDisconnectEvent)
+            {
+                exiting.set(true);
+            }
+        }
+
+        // resume the VM
+        eventSet.resume();
+    }
+
+    /**
+     * Queue a set of events which has already been screened for breakpoint conditions,
+     * to be handled on our thread, after which the given action is run (also on our thread).
+     */
+    @OnThread(Tag.Any)
+    void queueEventSet(EventSet eventSet, Runnable afterwards)
+    {
+        queueRunnable(() -> {
+            try
+            {
+                handleEventSet(eventSet);
+            }
+            finally
+            {
+                afterwards.run();
+            }
+        });
+    }
+
     /**
      * Emit a thread halted/resumed event.
      * 
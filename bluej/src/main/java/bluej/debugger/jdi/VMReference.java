@@ -39,6 +39,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import bluej.debugger.Debugger.EventHandlerRunnable;
 import bluej.debugger.RunOnThread;
@@ -88,6 +89,7 @@ import com.sun.jdi.VirtualMachineManager;
 import com.sun.jdi.connect.Connector;
 import com.sun.jdi.connect.Connector.Argument;
 import com.sun.jdi.connect.ListeningConnector;
+import com.sun.jdi.event.EventSet;
 import com.sun.jdi.event.ExceptionEvent;
 import com.sun.jdi.event.LocatableEvent;
 import com.sun.jdi.event.ThreadDeathEvent;
@@ -148,6 +150,9 @@ public class VMReference
     // the name of the method used to show  the terminal on input
     public static final String SERVER_SHOW_TERMINAL_ON_INPUT_NAME = "showTerminalOnInput";
 
+    // the name of the method used to report each test result as it completes
+    static final String SERVER_TEST_RESULT_METHOD_NAME = "testResultReported";
+
     // A map which can be used to map instances of VirtualMachine to VMReference 
     private static Map<VirtualMachine, VMReference> vmToReferenceMap = new HashMap<VirtualMachine, VMReference>();
     
@@ -187,6 +192,13 @@ public class VMReference
     // the current class loader in the ExecServer
     private ClassLoaderReference currentLoader = null;
 
+    // evaluates breakpoint conditions (created once the ExecServer class is available)
+    @OnThread(Tag.Any)
+    private volatile BreakpointConditions breakpointConditions = null;
+
+    // receives test results reported during invokeRunTests (null when no tests are running)
+    private volatile Consumer<String[]> testResultListener = null;
+
     private int exitStatus;
     @OnThread(Tag.Any)
     private ExceptionDescription lastException;
@@ -634,6 +646,7 @@ public class VMReference
         catch (ClassNotFoundException cnfe) {
             throw new IllegalStateException("can't find class " + SERVER_CLASSNAME + " in debug virtual machine");
         }
+        breakpointConditions = new BreakpointConditions(machine, serverClass);
 
         // add the breakpoints (these may be cleared later on and so will
         // need to be readded)
@@ -696,6 +709,16 @@ public class VMReference
             serverBreakpoint.enable();
         }
 
+        // set a breakpoint in the testResultReported method. Only the reporting thread is
+        // suspended, and it is resumed as soon as we have read the result.
+        {
+            BreakpointRequest testResultBreakpoint = erm.createBreakpointRequest(findMethodLocation(serverClass, SERVER_TEST_RESULT_METHOD_NAME));
+            testResultBreakpoint.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+            testResultBreakpoint.putProperty(SERVER_TEST_RESULT_METHOD_NAME, "yes");
+            testResultBreakpoint.putProperty(Debugger.PERSIST_BREAKPOINT_PROPERTY, "yes");
+            testResultBreakpoint.enable();
+        }
+
     }
 
     /**
@@ -751,6 +774,7 @@ public class VMReference
             }
             
             setStaticFieldObject(serverClass, ExecServer.CLASSPATH_NAME, newcpath.toString());
+            breakpointConditions.setClassPath(urls);
             
             workerThreadReady = false;
             workerThread.resume();
@@ -1245,6 +1269,26 @@ public class VMReference
         else if (event.request().getProperty(SERVER_SHOW_TERMINAL_ON_INPUT_NAME) != null) {
             this.term.showOnInput();
         }
+        // if the breakpoint is marked with the SERVER_TEST_RESULT_METHOD_NAME
+        // then a test has finished; pass its result on while the thread is suspended
+        // (the result array may be collected once the thread resumes).
+        else if (event.request().getProperty(SERVER_TEST_RESULT_METHOD_NAME) != null) {
+            Consumer<String[]> listener = testResultListener;
+            if (listener != null) {
+                try {
+                    ArrayReference details = (ArrayReference) event.thread().frame(0).getArgumentValues().get(0);
+                    String[] values = new String[details.length()];
+                    for (int i = 0; i < values.length; i++) {
+                        StringReference value = (StringReference) details.getValue(i);
+                        values[i] = (value != null) ? value.value() : "";
+                    }
+                    listener.accept(values);
+                }
+                catch (IncompatibleThreadStateException | ObjectCollectedException e) {
+                    Debug.reportError("Could not read test result", e);
+                }
+            }
+        }
         else {
             // breakpoint set by user in user code
             if (serverThread.sameThread(event.thread())) {
@@ -1269,6 +1313,9 @@ public class VMReference
                 return;
             }
 
+            // a conditional or hit-count breakpoint may need re-arming
+            breakpointConditions.breakpointReported(event.request());
+
             // signal the breakpoint/step to the user
             owner.breakpoint(event.thread(), debuggerEventType, skipUpdate, makeBreakpointProperties(event.request()));
         }
@@ -1288,6 +1335,19 @@ public class VMReference
             };
     }
 
+    /**
+     * Screen an event set for hits on conditional breakpoints, which are only handled (by
+     * the event handler) if their condition holds.
+     * 
+     * @return true if the event set will be dealt with here, false if it should be handled as normal
+     */
+    @OnThread(Tag.VMEventHandler)
+    boolean screenBreakpointConditions(EventSet eventSet)
+    {
+        BreakpointConditions conditions = breakpointConditions;
+        return conditions != null && conditions.screen(eventSet, eventHandler::queueEventSet);
+    }
+
     @OnThread(Tag.VMEventHandler)
     public boolean screenBreakpointEvent(LocatableEvent event, int debuggerEventType)
     {
@@ -1295,7 +1355,8 @@ public class VMReference
         for (String special : Arrays.asList(
                 SERVER_STARTED_METHOD_NAME, 
                 SERVER_SUSPEND_METHOD_NAME, 
-                SERVER_SHOW_TERMINAL_ON_INPUT_NAME))
+                SERVER_SHOW_TERMINAL_ON_INPUT_NAME,
+                SERVER_TEST_RESULT_METHOD_NAME))
         {
             if (props.get(special) != null)
             {
@@ -1409,6 +1470,7 @@ public class VMReference
                 bpreq.putProperty(property.getKey(), property.getValue());
             }
         }
+        BreakpointConditions.prepareRequest(bpreq, properties);
         bpreq.enable();
 
         return true;
@@ -1441,6 +1503,7 @@ public class VMReference
                 bpreq.putProperty(property.getKey(), property.getValue());
             }
         }
+        BreakpointConditions.prepareRequest(bpreq, properties);
         bpreq.enable();
     }
     
@@ -1899,6 +1962,51 @@ public class VMReference
         return rval;
     }
 
+    /**
+     * Run all the tests in a set of test classes in the remote VM, as a single test run.
+     * Each result is passed to the listener (on the VM event handler thread) as soon as the
+     * test has finished; the method returns once all tests have run.
+     *
+     * @param classNames  the fully qualified names of the test classes
+     * @param parallel    whether the test classes may run concurrently
+     * @param resultListener  receives the details of each test result, in the format described
+     *                        by ExecServer.testResultReported
+     * @return  the value returned by ExecServer (an array containing the total run time)
+     */
+    public Value invokeRunTests(List<String> classNames, boolean parallel, Consumer<String[]> resultListener)
+        throws InvocationException
+    {
+        // Calls to this method are serialized via serverThreadLock in JdiDebugger
+
+        serverThreadStartWait();
+
+        // Store the classes to run
+        setStaticFieldObject(serverClass, ExecServer.CLASS_TO_RUN_NAME, String.join("\n", classNames));
+        setStaticFieldValue(serverClass, ExecServer.RUN_TESTS_IN_PARALLEL_NAME, machine.mirrorOf(parallel));
+        setStaticFieldValue(serverClass, ExecServer.EXEC_ACTION_NAME, machine.mirrorOf(ExecServer.TEST_RUN_CLASSES));
+
+        // Resume the thread, wait for it to finish and the new thread to start
+        testResultListener = resultListener;
+        try {
+            serverThreadStarted = false;
+            resumeServerThread();
+            serverThreadStartWait();
+        }
+        finally {
+            testResultListener = null;
+        }
+
+        Value rval = getStaticFieldObject(serverClass, ExecServer.METHOD_RETURN_NAME);
+        if (rval == null) {
+            ObjectReference e = getStaticFieldObject(serverClass, ExecServer.EXCEPTION_NAME);
+            if (e != null) {
+                exceptionEvent(new InvocationException(e));
+                throw new InvocationException(e);
+            }
+        }
+        return rval;
+    }
+
     /**
      * Dispose of all gui windows opened from the debug vm.
      */
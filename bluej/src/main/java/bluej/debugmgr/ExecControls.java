@@ -30,6 +30,7 @@ import bluej.debugger.DebuggerField;
 import bluej.debugger.DebuggerObject;
 import bluej.debugger.DebuggerThread;
 import bluej.debugger.SourceLocation;
+import bluej.debugger.ThreadSnapshot;
 import bluej.debugger.VarDisplayInfo;
 import bluej.pkgmgr.Project;
 import bluej.pkgmgr.Project.DebuggerThreadDetails;
@@ -367,7 +368,7 @@ public class ExecControls
     private void setThreadDetails(DebuggerThreadDetails dt)
     {
         //Copy the list because we may alter it:
-        List<SourceLocation> stack = new ArrayList<>(dt.getThread().getStack());
+        List<SourceLocation> stack = new ArrayList<>(dt.getThread().getSnapshot().getStack());
         List<SourceLocation> filtered = Arrays.asList(getFilteredStack(stack));
 
         boolean isSuspended = dt.isSuspended();
@@ -468,10 +469,15 @@ public class ExecControls
             thread.setSelectedFrame(index);
                 
             if (showSource) {
-                String aClass = thread.getClass(index);
-                String classSourceName = thread.getClassSourceName(index);
-                int lineNumber = thread.getLineNumber(index);
-                DebuggerObject currentObject = thread.getCurrentObject(index);
+                ThreadSnapshot snapshot = thread.getSnapshot();
+                List<SourceLocation> stack = snapshot.getStack();
+                ThreadSnapshot.Frame frame = snapshot.getFrame(index);
+                SourceLocation location = index < stack.size() ? stack.get(index) : null;
+                boolean haveLocation = location != null && location.getFileName() != null;
+                String aClass = haveLocation ? location.getClassName() : thread.getClass(index);
+                String classSourceName = haveLocation ? location.getFileName() : thread.getClassSourceName(index);
+                int lineNumber = haveLocation ? location.getLineNumber() : thread.getLineNumber(index);
+                DebuggerObject currentObject = frame != null ? frame.getCurrentObject() : thread.getCurrentObject(index);
                 Platform.runLater(() -> {
                     project.removeStepMarks();
                     project.showSource(thread,
@@ -492,8 +498,10 @@ public class ExecControls
     private void setStackFrameDetails(DebuggerThread thread, int frameNo)
     {
         try {
-            DebuggerClass currentClass = thread.getCurrentClass(frameNo);
-            DebuggerObject currentObject = thread.getCurrentObject(frameNo);
+            // The top frames are in the snapshot; deeper frames are fetched when they are selected:
+            ThreadSnapshot.Frame frame = thread.getSnapshot().getFrame(frameNo);
+            DebuggerClass currentClass = frame != null ? frame.getCurrentClass() : thread.getCurrentClass(frameNo);
+            DebuggerObject currentObject = frame != null ? frame.getCurrentObject() : thread.getCurrentObject(frameNo);
             List<FXPlatformSupplier<VarDisplayInfo>> staticVars = new ArrayList<>();
             if(currentClass != null) {
                 List<DebuggerField> fields = currentClass.getStaticFields();
@@ -525,7 +533,8 @@ public class ExecControls
                 
             }
             
-            List<FXPlatformSupplier<VarDisplayInfo>> localVariables = thread.getLocalVariables(frameNo);
+            List<FXPlatformSupplier<VarDisplayInfo>> localVariables = frame != null
+                    ? frame.getLocalVariables() : thread.getLocalVariables(frameNo);
             
             Platform.runLater(() -> {
                 staticList.getItems().setAll(Utility.mapList(staticVars, v -> v.get()));
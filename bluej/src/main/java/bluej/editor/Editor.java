@@ -82,6 +82,16 @@ public interface Editor
      */
     void save() throws IOException;
 
+    /**
+     * Save the buffer, if it has been modified, without waiting for the file to be
+     * written to disk. Errors during the write are reported by the editor itself.
+     * The compiler sees the saved content even if the write has not yet finished.
+     */
+    default void saveInBackground() throws IOException
+    {
+        save();
+    }
+
     default void saveJavaWithoutWarning() throws IOException
     {
         save();
@@ -203,6 +213,17 @@ public interface Editor
      */
     boolean isModified();
 
+    /**
+     * Determine whether this editor has been modified since it was last saved.  Unlike
+     * isModified(), this does not count a save which is still being written in the
+     * background (see saveInBackground()) as a modification, since readers such as the
+     * compiler already see the saved content.
+     */
+    default boolean isModifiedSinceLastSave()
+    {
+        return isModified();
+    }
+
     void removeErrorHighlights();
 
     /**
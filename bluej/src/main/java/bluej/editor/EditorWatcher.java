@@ -23,6 +23,7 @@ package bluej.editor;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import bluej.collect.DiagnosticWithShown;
 import bluej.collect.StrideEditReason;
@@ -67,6 +68,19 @@ public interface EditorWatcher
      */
     boolean breakpointToggleEvent(int lineNo, boolean set);
 
+    /**
+     * Called by Editor to set/clear a breakpoint which may have a condition or hit count
+     * @param lineNo     the line number of the breakpoint
+     * @param set        whether the breakpoint is set (true) or cleared
+     * @param properties the breakpoint properties (Debugger.BREAKPOINT_CONDITION_PROPERTY and
+     *                   Debugger.BREAKPOINT_HIT_COUNT_PROPERTY), or null for an ordinary breakpoint
+     * @return           True if there is now a breakpoint on the line, false if not
+     */
+    default boolean breakpointToggleEvent(int lineNo, boolean set, Map<String, String> properties)
+    {
+        return breakpointToggleEvent(lineNo, set);
+    }
+
     /**
      * Called by Editor when documentation is to be compiled
      */
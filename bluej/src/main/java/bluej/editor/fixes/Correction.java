@@ -29,7 +29,7 @@ import java.util.stream.Stream;
 
 import bluej.Config;
 import bluej.parser.AssistContentThreadSafe;
-import bluej.utility.Utility;
+import bluej.utility.FuzzyMatchIndex;
 import bluej.utility.javafx.FXPlatformConsumer;
 import threadchecker.OnThread;
 import threadchecker.Tag;
@@ -192,10 +192,13 @@ public class Correction extends FixSuggestion
     //List in order, best correction first (case sensitivity can be chosen, if true, the correction with the same value and same case isn't returned)
     public static List<Correction> winnowAndCreateCorrections(String cur, Stream<CorrectionInfo> possibleCorrections, FXPlatformConsumer<CorrectionElements> replacer, boolean caseSensitive)
     {
-        return possibleCorrections
-            .map(n -> new StringAndDist(n, Utility.editDistance(cur.toLowerCase(), n.getCorrectionToCompareWith().toLowerCase())))
+        List<CorrectionInfo> candidates = possibleCorrections.collect(Collectors.toList());
+        // The index is shared between all corrections with the same candidates:
+        FuzzyMatchIndex index = FuzzyMatchIndex.forKeys(candidates.stream().map(CorrectionInfo::getCorrectionToCompareWith).collect(Collectors.toList()));
+        return index.search(cur, MAX_EDIT_DISTANCE).stream()
+            .map(m -> new StringAndDist(candidates.get(m.index()), m.distance()))
             //if case sensitive search is asked for, we don't keep exact match between the type to correct and the suggestion EXCEPT for inner classes
-            .filter(sd -> sd.distance <= MAX_EDIT_DISTANCE && (!caseSensitive || (caseSensitive && (!sd.value.getCorrectionToCompareWith().equals(cur) || (sd.value.getCorrectionElements().getPrimaryElement().contains(".") && sd.value.getCorrectionToCompareWith().equals(cur))))))
+            .filter(sd -> !caseSensitive || (caseSensitive && (!sd.value.getCorrectionToCompareWith().equals(cur) || (sd.value.getCorrectionElements().getPrimaryElement().contains(".") && sd.value.getCorrectionToCompareWith().equals(cur)))))
             .sorted(Comparator.comparingInt(a -> a.distance))
             .limit(3)
             .map(sd -> new Correction(sd.value.getCorrectionElements(), replacer, sd.value.getDisplay()))
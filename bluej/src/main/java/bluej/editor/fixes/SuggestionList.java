@@ -23,6 +23,7 @@ package bluej.editor.fixes;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map.Entry;
@@ -35,6 +36,7 @@ import bluej.debugger.gentype.GenTypeClass;
 import bluej.parser.*;
 import bluej.pkgmgr.JavadocResolver;
 import bluej.pkgmgr.Package;
+import bluej.utility.FuzzyMatchIndex;
 import bluej.utility.JavaReflective;
 import javafx.beans.binding.DoubleExpression;
 import javafx.beans.binding.StringExpression;
@@ -76,7 +78,6 @@ import bluej.utility.javafx.FXPlatformRunnable;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 import bluej.Config;
-import bluej.utility.Utility;
 import bluej.utility.javafx.FXSupplier;
 import bluej.utility.javafx.JavaFXUtil;
 import bluej.utility.javafx.ScalableHeightLabel;
@@ -210,6 +211,22 @@ public class SuggestionList
     private String lastPrefix;
     /** Used when "replaying" last calculateEligible call */
     private boolean lastAllowSimilar;
+    /**
+     * The choices in lower case, computed once (or null for a choice where converting to
+     * lower case changes the length, so that offsets into the original would not match)
+     */
+    private final String[] choicesLower;
+    /** The word start positions in each choice (see splitIdentLower), computed on first use */
+    private final List<List<Integer>> choiceWordStarts;
+    /**
+     * For each choice, a lower bound on the edit distance between boundsPrefix and the
+     * closest part of the choice, as used for similar suggestions.  When the user types
+     * further characters, choices which were far from the shorter prefix can be skipped,
+     * as adding a character to the prefix can only bring it closer by a limited amount.
+     */
+    private final int[] similarLowerBounds;
+    /** The (lower case) prefix which similarLowerBounds relates to; null if none */
+    private String boundsPrefix;
 
     private boolean expectingToLoseFocus = false;
 
@@ -445,6 +462,15 @@ public class SuggestionList
 
         this.suggestionListId = nextSuggListId.getAndIncrement();
         this.choices = FXCollections.observableArrayList(choices);
+        this.choicesLower = new String[choices.size()];
+        for (int i = 0; i < choicesLower.length; i++)
+        {
+            String choice = choices.get(i).choice;
+            String lower = choice.toLowerCase();
+            choicesLower[i] = lower.length() == choice.length() ? lower : null;
+        }
+        this.choiceWordStarts = new ArrayList<>(Collections.nCopies(choices.size(), null));
+        this.similarLowerBounds = new int[choices.size()];
         this.shownState.set(startShown);
         this.listener = listener;
         this.highlightListener = highlightListener;
@@ -841,18 +867,30 @@ public class SuggestionList
         lastPrefix = prefix;
         lastAllowSimilar = allowSimilar;
         eligible.clear();
+        String prefixLower = prefix.toLowerCase();
+        // Each character added to the prefix can reduce the distance to a choice by at most two
+        // (one for the extra character in the prefix, one for the longer part of the choice it
+        // is compared with), so we can carry the bounds over if the prefix has just been extended:
+        int boundsReduction = boundsPrefix != null && prefixLower.startsWith(boundsPrefix)
+                ? 2 * (prefixLower.length() - boundsPrefix.length()) : -1;
+        boundsPrefix = prefixLower;
+        int maxDistance = maxSimilarDistance(prefix.length());
         for (int i = 0; i < choices.size(); i++)
         {
             String sugg = choices.get(i).choice;
+            String suggLower = choicesLower[i] != null ? choicesLower[i] : sugg.toLowerCase();
+            int lowerBound = boundsReduction == -1 ? 0 : Math.max(0, similarLowerBounds[i] - boundsReduction);
+            similarLowerBounds[i] = 0;
             if (choices.get(i).shown.compareTo(shown) > 0)
             {
                 // Cannot put in eligible because it is rare and we are only showing common
+                similarLowerBounds[i] = lowerBound;
             }
-            else if (sugg.toLowerCase().startsWith(prefix.toLowerCase()))
+            else if (suggLower.startsWith(prefixLower))
             {
                 eligible.put(i, new EligibleDetail(0, 0, prefix.length()));
             }
-            else if (sugg.toLowerCase().startsWith("this." + prefix.toLowerCase()))
+            else if (suggLower.startsWith("this." + prefixLower))
             {
                 // If there is a completion like "this.foodList" (which appears because the field is shadowed by a local variable named foodList)
                 // then we show it as directly relevant if the user types "foo".
@@ -860,9 +898,26 @@ public class SuggestionList
             }
             else if (allowSimilar)
             {
+                if (lowerBound > maxDistance)
+                {
+                    // Too far away to be close; no need to look in detail:
+                    similarLowerBounds[i] = lowerBound;
+                    continue;
+                }
                 // Look if this text starts a word in the identifier:
-                List<Integer> wordStarts = splitIdentLower(sugg);
-                Optional<EligibleDetail> me = wordStarts.stream().map(j -> new EligibleDetail(j, distanceTo(prefix, sugg, j), prefix.length()))
+                List<Integer> wordStarts = choiceWordStarts.get(i);
+                if (wordStarts == null)
+                {
+                    wordStarts = splitIdentLower(sugg);
+                    choiceWordStarts.set(i, wordStarts);
+                }
+                List<EligibleDetail> details = new ArrayList<>();
+                for (int j : wordStarts)
+                {
+                    details.add(new EligibleDetail(j, distanceTo(prefixLower, sugg, choicesLower[i], j, maxDistance), prefix.length()));
+                }
+                similarLowerBounds[i] = details.stream().mapToInt(d -> d.distance).min().orElse(0);
+                Optional<EligibleDetail> me = details.stream()
                     .filter(EligibleDetail::close)
                     .sorted() // Will put smallest distance first
                     .findFirst();
@@ -880,24 +935,51 @@ public class SuggestionList
             calculateEligible(prefix, allowSimilar, SuggestionShown.RARE, false);
         }
     }
-    
-    private static int distanceTo(String prefix, String candidate, int offset)
+
+    /**
+     * Get the largest edit distance for which a similar suggestion can be shown, given the
+     * length of what the user has typed (see EligibleDetail.close), or -1 if none can.
+     */
+    private static int maxSimilarDistance(int prefixLength)
+    {
+        if (prefixLength >= 10)
+            return 2;
+        else if (prefixLength >= 3)
+            return 1;
+        else if (prefixLength >= 2)
+            return 0;
+        else
+            return -1;
+    }
+
+    /**
+     * Gets the edit distance between the (lower case) prefix and the part of the candidate at
+     * the given offset, if it is at most maxDistance.  If it is further, some larger value which
+     * is not more than the distance is returned.
+     *
+     * @param candidateLower The candidate in lower case, or null to convert as needed.
+     */
+    private static int distanceTo(String prefixLower, String candidate, String candidateLower, int offset, int maxDistance)
     {
         // We check, given a prefix (e.g. "abc"), whether the substring of the same length (e.g. 3)
         // at the given point in the candidate is a closen enough match by edit distance
         // An exact match is edit distance 0
-        prefix = prefix.toLowerCase();
-        String partialLower = candidate.substring(offset, Math.min(candidate.length(), offset + prefix.length())).toLowerCase();
+        String partialLower = lowerSubstring(candidate, candidateLower, offset, Math.min(candidate.length(), offset + prefixLower.length()));
         
         // We also check for the strings one longer and one shorter, as they might have better edit distance:
-        String partialLowerShort = candidate.substring(offset, Math.min(candidate.length(), offset + Math.max(1, prefix.length() - 1))).toLowerCase();
-        String partialLowerLong = candidate.substring(offset, Math.min(candidate.length(), offset + 1 + prefix.length())).toLowerCase();
+        String partialLowerShort = lowerSubstring(candidate, candidateLower, offset, Math.min(candidate.length(), offset + Math.max(1, prefixLower.length() - 1)));
+        String partialLowerLong = lowerSubstring(candidate, candidateLower, offset, Math.min(candidate.length(), offset + 1 + prefixLower.length()));
         
         return Math.min(
-                Utility.editDistance(partialLower, prefix),
-                Math.min(Utility.editDistance(partialLowerShort, prefix), Utility.editDistance(partialLowerLong, prefix))
+                FuzzyMatchIndex.distanceAtMost(partialLower, prefixLower, maxDistance),
+                Math.min(FuzzyMatchIndex.distanceAtMost(partialLowerShort, prefixLower, maxDistance), FuzzyMatchIndex.distanceAtMost(partialLowerLong, prefixLower, maxDistance))
                );
     }
+
+    private static String lowerSubstring(String s, String sLower, int start, int end)
+    {
+        return sLower != null ? sLower.substring(start, end) : s.substring(start, end).toLowerCase();
+    }
     
     private static boolean hasCase(char c)
     {
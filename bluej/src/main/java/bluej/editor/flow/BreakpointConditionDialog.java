@@ -0,0 +1,109 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Modality;
+import javafx.stage.Window;
+
+import bluej.Config;
+import bluej.debugger.Debugger;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A dialog to set the condition and hit count of a breakpoint. The result is the breakpoint
+ * properties (see Debugger.BREAKPOINT_CONDITION_PROPERTY and BREAKPOINT_HIT_COUNT_PROPERTY),
+ * which are empty for a breakpoint that should stop every time.
+ */
+@OnThread(Tag.FXPlatform)
+public class BreakpointConditionDialog extends Dialog<Map<String, String>>
+{
+    /**
+     * Create a dialog showing the given current properties of the breakpoint.
+     */
+    public BreakpointConditionDialog(Window owner, Map<String, String> current)
+    {
+        setTitle(Config.getString("editor.breakpointCondition.title"));
+        setHeaderText(Config.getString("editor.breakpointCondition.header"));
+        initOwner(owner);
+        initModality(Modality.WINDOW_MODAL);
+        getDialogPane().getButtonTypes().setAll(ButtonType.CANCEL, ButtonType.OK);
+
+        TextField conditionField = new TextField(current.getOrDefault(Debugger.BREAKPOINT_CONDITION_PROPERTY, ""));
+        conditionField.setPrefColumnCount(30);
+        conditionField.setPromptText(Config.getString("editor.breakpointCondition.example"));
+
+        Spinner<Integer> hitCountSpinner = new Spinner<>(1, Integer.MAX_VALUE, parseHitCount(current.get(Debugger.BREAKPOINT_HIT_COUNT_PROPERTY)));
+        hitCountSpinner.setEditable(true);
+        hitCountSpinner.setPrefWidth(100);
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(8);
+        grid.addRow(0, new Label(Config.getString("editor.breakpointCondition.condition")), conditionField);
+        grid.addRow(1, new Label(Config.getString("editor.breakpointCondition.hitCount")), hitCountSpinner);
+        grid.add(new Label(Config.getString("editor.breakpointCondition.limitations")), 0, 2, 2, 1);
+        getDialogPane().setContent(grid);
+        setOnShown(e -> conditionField.requestFocus());
+
+        setResultConverter(bt -> {
+            if (bt != ButtonType.OK)
+            {
+                return null;
+            }
+            Map<String, String> properties = new HashMap<>();
+            String condition = conditionField.getText().trim();
+            if (!condition.isEmpty())
+            {
+                properties.put(Debugger.BREAKPOINT_CONDITION_PROPERTY, condition);
+            }
+            // Commit any text typed into the spinner:
+            int hitCount = parseHitCount(hitCountSpinner.getEditor().getText());
+            if (hitCount > 1)
+            {
+                properties.put(Debugger.BREAKPOINT_HIT_COUNT_PROPERTY, Integer.toString(hitCount));
+            }
+            return properties;
+        });
+    }
+
+    private static int parseHitCount(String hitCount)
+    {
+        try
+        {
+            return hitCount == null ? 1 : Math.max(1, Integer.parseInt(hitCount.trim()));
+        }
+        catch (NumberFormatException e)
+        {
+            return 1;
+        }
+    }
+}
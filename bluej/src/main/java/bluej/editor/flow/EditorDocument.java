@@ -0,0 +1,64 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import bluej.extensions2.editor.DocumentListener;
+
+/**
+ * A Document which can be displayed and edited in a FlowEditorPane.  As well as the
+ * operations of Document, this supports removing listeners, attaching attributes to
+ * lines (which move with the line as the document is edited), and finding the longest
+ * line (to size the horizontal scroll bar).
+ *
+ * The implementation used by editors is HoleDocument, unless the "bluej.editor.pieceTable"
+ * property is set, in which case it is PieceTableDocument.
+ */
+public interface EditorDocument extends Document
+{
+    /**
+     * Remove a listener previously added with addListener.  Listeners are compared by
+     * reference, not with equals().
+     */
+    public void removeListener(DocumentListener listener);
+
+    /**
+     * Checks whether the given line has an attribute with the given key.  Returns false
+     * if the line index is out of range.
+     */
+    public boolean hasLineAttribute(int lineIndex, Object attributeKey);
+
+    /**
+     * Sets an attribute of the given line, replacing any previous value for that key.
+     * Does nothing if the line index is out of range.
+     */
+    public void addLineAttribute(int lineIndex, Object key, Object value);
+
+    /**
+     * Removes the attribute with the given key from all lines.
+     */
+    public void removeLineAttributeThroughout(Object key);
+
+    /**
+     * Gets the content of the longest line in the document, as measured by number of chars.
+     */
+    public String getLongestLine();
+}
@@ -925,6 +925,7 @@ public final class FlowActions
                 goToLineAction(),
                 toggleInterfaceAction(),
                 toggleBreakPointAction(),
+                setBreakpointConditionAction(),
                 keyBindingsAction(),
                 preferencesAction(),
 
@@ -2140,6 +2141,11 @@ public final class FlowActions
         return action("toggle-breakpoint", Category.MISC, () -> getClearedEditor().toggleBreakpoint());
     }
     
+    private FlowAbstractAction setBreakpointConditionAction()
+    {
+        return action("set-breakpoint-condition", Category.MISC, () -> getClearedEditor().setBreakpointCondition());
+    }
+    
     private FlowAbstractAction keyBindingsAction()
     {
         return action("key-bindings", Category.MISC, () -> getClearedEditor().showPreferences(1)); // 1 is the index of the key bindings pane in the pref dialog
@@ -150,6 +150,8 @@ import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
@@ -167,7 +169,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
     final static String ActionSuffix = "Action";
 
     private final FlowEditorPane flowEditorPane;
-    private final HoleDocument document;
+    private final EditorDocument document;
     private final JavaSyntaxView javaSyntaxView;
     private final FetchTabbedEditor fetchTabbedEditor;
     private final FlowFXTab fxTab;
@@ -196,6 +198,8 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
     private final BooleanProperty viewingHTML = new SimpleBooleanProperty(false); // changing this alters the interface accordingly
     private ErrorDisplay errorDisplay;
     private final BitSet breakpoints = new BitSet();
+    // The condition and hit count properties of breakpoints which have them, by line index:
+    private final Map<Integer, Map<String, String>> breakpointProperties = new HashMap<>();
     private int currentStepLineIndex = -1;
     private ComboBox<String> interfaceToggle;
     private final WebView htmlPane;
@@ -230,6 +234,12 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
     // Blackbox data recording:
     private int oldCaretLineNumber = -1;
     private long lastModified;
+    // The most recent write started by saving, until it has finished.  The buffer is only
+    // marked as saved once its content has been written:
+    private CompletableFuture<Long> pendingSave;
+    // The number of edits made, and the number that had been made when pendingSave was started:
+    private int changeCount;
+    private int pendingSaveChangeCount;
     private boolean respondingToChange = false;
     private boolean ignoreChanges = false;
     private boolean showingChangedOnDiskDialog = false;
@@ -265,8 +275,12 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
     // Returns state of breakpoint afterwards: true if present, false if not
     private boolean toggleBreakpointForLine(int lineIndex)
     {
-        boolean hasBreakpoint = watcher.breakpointToggleEvent(lineIndex + 1, !breakpoints.get(lineIndex));
+        boolean hasBreakpoint = watcher.breakpointToggleEvent(lineIndex + 1, !breakpoints.get(lineIndex), breakpointProperties.get(lineIndex));
         breakpoints.set(lineIndex, hasBreakpoint);
+        if (!hasBreakpoint)
+        {
+            breakpointProperties.remove(lineIndex);
+        }
         if (hasBreakpoint)
         {
             mayHaveBreakpoints = true;
@@ -282,6 +296,29 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
         toggleBreakpointForLine(flowEditorPane.getDocument().getLineFromPosition(flowEditorPane.getCaretPosition()));
     }
 
+    /**
+     * Ask for a condition and hit count for a breakpoint in the current line, and set the
+     * breakpoint (replacing any existing breakpoint in the line).
+     */
+    public void setBreakpointCondition()
+    {
+        int lineIndex = flowEditorPane.getDocument().getLineFromPosition(flowEditorPane.getCaretPosition());
+        Map<String, String> current = breakpointProperties.getOrDefault(lineIndex, Collections.emptyMap());
+
+        Optional<Map<String, String>> properties = new BreakpointConditionDialog(getWindow(), current).showAndWait();
+        if (!properties.isPresent())
+        {
+            return;
+        }
+
+        if (breakpoints.get(lineIndex))
+        {
+            toggleBreakpointForLine(lineIndex);
+        }
+        breakpointProperties.put(lineIndex, properties.get());
+        toggleBreakpointForLine(lineIndex);
+    }
+
     @Override
     public Set<Integer> getBreakpointLines()
     {
@@ -711,7 +748,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
         return List.of(
                 createMenu("class", "save - print - close"),
                 createMenu("edit", "undo redo - cut-to-clipboard copy-to-clipboard paste-from-clipboard - indent-block deindent-block comment-block uncomment-block autoindent - insert-method add-javadoc"),
-                createMenu("tools", "find find-next find-next-backward replace go-to-line - compile toggle-breakpoint - toggle-interface-view"),
+                createMenu("tools", "find find-next find-next-backward replace go-to-line - compile toggle-breakpoint set-breakpoint-condition - toggle-interface-view"),
                 createMenu("option", "increase-font decrease-font reset-font - key-bindings preferences")
         );
     }
@@ -1005,7 +1042,8 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
      */
     private void checkForChangeOnDisk()
     {
-        if (filename == null)
+        // (While a save is being written, the file will change on disk)
+        if (filename == null || pendingSave != null)
         {
             return;
         }
@@ -1532,7 +1570,44 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
     @Override
     public void save() throws IOException
     {
-        IOException failureException = null;
+        CompletableFuture<Long> write = startSave();
+        if (write != null)
+        {
+            try
+            {
+                saveFinished(write, write.get(), null);
+            }
+            catch (InterruptedException | ExecutionException e)
+            {
+                IOException failureException = e.getCause() instanceof IOException ?
+                        (IOException) e.getCause() : new IOException(e);
+                // Shows the error:
+                saveFinished(write, null, failureException);
+                throw failureException;
+            }
+        }
+    }
+
+    @Override
+    public void saveInBackground()
+    {
+        // Any error will be reported in the editor when the write finishes:
+        startSave();
+    }
+
+    /**
+     * Save the buffer, if it has changed, by passing its content to the save pipeline
+     * (which writes the file in the background).  If the buffer has not changed since
+     * a save which is still being written, that write is returned instead.
+     *
+     * @return  The pending write, or null if there was nothing to save.
+     */
+    private CompletableFuture<Long> startSave()
+    {
+        if (saveState.isChanged() && !isModifiedSinceLastSave())
+        {
+            return pendingSave;
+        }
         if (saveState.isChanged() && filename != null)
         {
             // Record any edits with the data collection system:
@@ -1544,57 +1619,54 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
                 checkForChangeOnDisk();
             if (!saveState.isChanged())
             {
-                return;
+                return null;
             }
 
-            Writer writer = null;
-            try
-            {
-                // The crash file is used during writing and will remain in
-                // case of a crash during the write operation.
-                String crashFilename = filename + FlowEditor.CRASHFILE_SUFFIX;
-
-                // make a backup to the crash file
-                FileUtility.copyFile(filename, crashFilename);
+            // The pipeline writes to a temporary file and then replaces the original,
+            // so a crash during the write leaves the original intact:
+            byte[] content = flowEditorPane.getDocument().getFullContent().getBytes(characterSet);
+            CompletableFuture<Long> write = SavePipeline.getInstance().write(new File(filename), content);
+            pendingSave = write;
+            pendingSaveChangeCount = changeCount;
+            write.whenComplete((modified, ex) -> JavaFXUtil.runPlatformLater(() -> saveFinished(write, modified, ex)));
 
-                OutputStream ostream = new BufferedOutputStream(new FileOutputStream(filename));
-                writer = new OutputStreamWriter(ostream, characterSet);
-                getSourcePane().write(writer);
-                writer.close();
-                writer = null;
-                setLastModified(new File(filename).lastModified());
-                File crashFile = new File(crashFilename);
-                crashFile.delete();
-
-                // Do this last, as it may trigger further actions in the watcher:
-                setSaved();
-            }
-            catch (IOException ex)
+            // The saved content is visible to readers (via the pipeline) straight away, so tell
+            // the watcher now, but don't show the buffer as saved until it has been written.
+            // Do this last, as it may trigger further actions in the watcher:
+            if (watcher != null)
             {
-                failureException = ex;
-                info.message (Config.getString("editor.info.errorSaving") + " - " + ex.getLocalizedMessage());
-            }
-            finally
-            {
-                try
-                {
-                    if (writer != null)
-                        writer.close();
-                }
-                catch (IOException ex)
-                {
-                    failureException = ex;
-                }
+                watcher.saveEvent(this);
             }
+            return write;
         }
+        return null;
+    }
 
-        // If an error occurred, set a message in the editor status bar, and
-        // re-throw the exception.
-        if (failureException != null)
+    /**
+     * Called when a write started by startSave() has finished.  May be called more than
+     * once for the same write.
+     */
+    private void saveFinished(CompletableFuture<Long> write, Long modified, Throwable exception)
+    {
+        if (pendingSave != write)
         {
-            info.message(Config.getString("editor.info.errorSaving")
-                    + " - " + failureException.getLocalizedMessage());
-            throw failureException;
+            // Already dealt with, or superseded by a later save:
+            return;
+        }
+        pendingSave = null;
+        if (exception != null)
+        {
+            Throwable cause = exception instanceof CompletionException ? exception.getCause() : exception;
+            info.message(Config.getString("editor.info.errorSaving") + " - " + cause.getLocalizedMessage());
+            // The buffer is still marked as changed, so it will be saved again.
+        }
+        else
+        {
+            setLastModified(modified);
+            if (changeCount == pendingSaveChangeCount && saveState.isChanged())
+            {
+                saveState.setState(Status.SAVED);
+            }
         }
     }
 
@@ -2012,6 +2084,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
     private void setCompileStatus(boolean compiled)
     {
         actions.getActionByName("toggle-breakpoint").setEnabled(compiled && viewingCode());
+        actions.getActionByName("set-breakpoint-condition").setEnabled(compiled && viewingCode());
         compiledProperty.set(compiled);
     }
 
@@ -2096,6 +2169,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
         if (mayHaveBreakpoints)
         {
             breakpoints.clear();
+            breakpointProperties.clear();
             for (int lineIndex = 0; lineIndex < document.getLineCount(); lineIndex++)
             {
                 flowEditorPane.setLineMarginGraphics(lineIndex, calculateMarginDisplay(lineIndex));
@@ -2118,7 +2192,7 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
                 {
                     if (watcher != null)
                     {
-                        boolean wasSet = watcher.breakpointToggleEvent(i + 1, true);
+                        boolean wasSet = watcher.breakpointToggleEvent(i + 1, true, breakpointProperties.get(i));
                         breakpoints.set(i, wasSet);
                         if (wasSet)
                         {
@@ -2146,10 +2220,13 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
         }
         respondingToChange = true;
 
-        if (!ignoreChanges && !saveState.isChanged()) {
+        if (!ignoreChanges && !isModifiedSinceLastSave()) {
             saveState.setState(Status.CHANGED);
             setChanged();
         }
+        if (!ignoreChanges) {
+            changeCount++;
+        }
 
         if (!ignoreChanges && (linesRemoved > 0 || linesAdded > 0)) // For a multi-line change, always compile:
         {
@@ -2213,6 +2290,12 @@ public class FlowEditor extends ScopeColorsBorderPane implements TextEditor, Flo
         return saveState.isChanged();
     }
 
+    @Override
+    public boolean isModifiedSinceLastSave()
+    {
+        return saveState.isChanged() && (pendingSave == null || changeCount != pendingSaveChangeCount);
+    }
+
     /**
      * Returns if this editor is read-only. Accessor for the setReadOnly
      * property.
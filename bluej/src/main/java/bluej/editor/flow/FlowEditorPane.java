@@ -80,7 +80,7 @@ public class FlowEditorPane extends BaseEditorPane implements JavaSyntaxView.Dis
 {
     private final FlowEditorPaneListener listener;
 
-    private final HoleDocument document;
+    private final EditorDocument document;
     
     private final TrackedPosition anchor;
     private final TrackedPosition caret;
@@ -121,7 +121,8 @@ public class FlowEditorPane extends BaseEditorPane implements JavaSyntaxView.Dis
         super(true, listener);
         this.listener = listener;
         setSnapToPixel(true);
-        document = new HoleDocument();
+        // PieceTableDocument copes better with very large files, but HoleDocument is the default:
+        document = Config.getPropBoolean("bluej.editor.pieceTable", false) ? new PieceTableDocument() : new HoleDocument();
         document.replaceText(0, 0, content);
         caret = document.trackPosition(0, Bias.FORWARD);
         // Important that the anchor is a different object to the caret, as they will move independently:
@@ -621,7 +622,7 @@ public class FlowEditorPane extends BaseEditorPane implements JavaSyntaxView.Dis
         lineDisplay.hideAllErrorUnderlines();
     }
 
-    public HoleDocument getDocument()
+    public EditorDocument getDocument()
     {
         return document;
     }
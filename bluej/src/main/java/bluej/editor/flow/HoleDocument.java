@@ -34,7 +34,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 
-public class HoleDocument implements Document
+public class HoleDocument implements EditorDocument
 {
     // How much extra should we grow the array by when needed?
     private static final int GROWTH_MARGIN = 256;
@@ -371,6 +371,7 @@ public class HoleDocument implements Document
             listeners.add(listener);
     }
     
+    @Override
     public void removeListener(DocumentListener listener)
     {
         // Remove all by reference equality:
@@ -379,6 +380,7 @@ public class HoleDocument implements Document
         listeners.removeIf(l -> l == listener);
     }
 
+    @Override
     public boolean hasLineAttribute(int lineIndex, Object attributeKey)
     {
         if (lineIndex >= 0 && lineIndex < lineInformation.size())
@@ -391,6 +393,7 @@ public class HoleDocument implements Document
         }
     }
     
+    @Override
     public void addLineAttribute(int lineIndex, Object key, Object value)
     {
         if (lineIndex >= 0 && lineIndex < lineInformation.size())
@@ -399,6 +402,7 @@ public class HoleDocument implements Document
         }
     }
     
+    @Override
     public void removeLineAttributeThroughout(Object key)
     {
         for (LineInformation information : lineInformation)
@@ -416,6 +420,7 @@ public class HoleDocument implements Document
     /**
      * Gets the content of the longest line in the document, as measured by number of chars.
      */
+    @Override
     public String getLongestLine()
     {
         List<Integer> lineStarts = getLineStartPositions();
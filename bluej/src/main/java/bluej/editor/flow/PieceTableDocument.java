@@ -0,0 +1,685 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import bluej.extensions2.editor.DocumentListener;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.Reader;
+import java.lang.ref.WeakReference;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A Document implementation which is suited to very large documents.
+ *
+ * The text is stored as a piece table: all text ever inserted is appended to a single
+ * buffer, and the document content is a sequence of pieces, each of which refers to a range
+ * of that buffer.  The pieces are kept in a balanced tree (a treap) in document order,
+ * where each node also records the total length and the total number of newlines
+ * in its subtree.  The positions of the newlines within the buffer are recorded once, when
+ * the text is appended.  This means that replacing text, finding the line of a position and
+ * finding the start of a line all take O(log n) time in the number of pieces, regardless of
+ * how many lines are inserted or removed.  In contrast, HoleDocument must shift its list of
+ * line starts and update a tracked position per line on every edit.
+ *
+ * When the buffer has grown to be much larger than the document (after many replacements),
+ * the buffer is compacted to just the current content.
+ *
+ * Tracked positions are kept as weak references, as in HoleDocument, but since lines are
+ * not tracked using positions here, there are usually only a handful (caret, anchor, etc).
+ *
+ * Line attributes are kept in a list, each with a tracked position at the start of its
+ * line.  Editors only set a few (for lines with errors), so the list is searched linearly.
+ */
+public class PieceTableDocument implements EditorDocument
+{
+    // Initial size of the buffer:
+    private static final int INITIAL_CAPACITY = 256;
+    // Don't bother compacting buffers smaller than this:
+    private static final int MIN_COMPACT_SIZE = 64 * 1024;
+    // Compact when the buffer is more than this many times the document length:
+    private static final int COMPACT_RATIO = 3;
+
+    // The append-only buffer of all text which the pieces refer to:
+    private char[] buffer = new char[INITIAL_CAPACITY];
+    private int bufferLength = 0;
+    // The indexes within buffer of all the newline characters, in ascending order:
+    private int[] newlines = new int[16];
+    private int newlineCount = 0;
+
+    // The root of the tree of pieces; null if the document is empty
+    private Node root;
+    // State of the pseudo-random generator for tree node priorities:
+    private int seed = 0x2545F491;
+
+    /**
+     * See HoleDocument: weak references to all the tracked positions, so that we can
+     * update them without keeping them in memory.
+     */
+    private final ArrayList<WeakReference<TrackedPosition>> trackedPositions = new ArrayList<>();
+    private final List<DocumentListener> listeners = new ArrayList<>();
+    private final List<LineAttribute> lineAttributes = new ArrayList<>();
+
+    /**
+     * A piece of the document: the range of the buffer [start, start + length), which
+     * contains the given number of newlines.  Also a node in the tree of pieces.
+     */
+    private static final class Node
+    {
+        private final int start;
+        private int length;
+        private int lines;
+        private final int priority;
+        private Node left;
+        private Node right;
+        // The total length and newlines of this node and its subtrees:
+        private int totalLength;
+        private int totalLines;
+
+        private Node(int start, int length, int lines, int priority)
+        {
+            this.start = start;
+            this.length = length;
+            this.lines = lines;
+            this.priority = priority;
+            update();
+        }
+
+        private void update()
+        {
+            totalLength = length + totalLength(left) + totalLength(right);
+            totalLines = lines + totalLines(left) + totalLines(right);
+        }
+    }
+
+    /**
+     * An attribute of a line.  The position of the start of the line is tracked so that
+     * the attribute moves with the line.
+     */
+    private record LineAttribute(TrackedPosition lineStart, Object key, Object value) { }
+
+    /**
+     * The two trees which result from splitting a tree at a position.
+     */
+    private record Split(Node before, Node after) { }
+
+    private static int totalLength(Node n)
+    {
+        return n == null ? 0 : n.totalLength;
+    }
+
+    private static int totalLines(Node n)
+    {
+        return n == null ? 0 : n.totalLines;
+    }
+
+    @Override
+    public void replaceText(int startCharIncl, int endCharExcl, String text)
+    {
+        if (startCharIncl < 0 || endCharExcl < startCharIncl || endCharExcl > getLength())
+            throw new IndexOutOfBoundsException("Replacing " + startCharIncl + " to " + endCharExcl + " in document of length " + getLength());
+
+        Split first = split(root, startCharIncl);
+        Split second = split(first.after(), endCharExcl - startCharIncl);
+        Node removed = second.before();
+        String replaced = removed == null ? "" : new String(copy(removed, 0, removed.totalLength));
+        int linesRemoved = totalLines(removed);
+
+        Node before = first.before();
+        int linesAdded = 0;
+        if (!text.isEmpty())
+        {
+            int pieceStart = bufferLength;
+            linesAdded = append(text);
+            Node last = rightmost(before);
+            if (last != null && last.start + last.length == pieceStart)
+            {
+                // Common case when typing: the text follows straight on in the buffer
+                // from the preceding piece, so we can just extend that piece:
+                extendRightmost(before, text.length(), linesAdded);
+            }
+            else
+            {
+                before = merge(before, new Node(pieceStart, text.length(), linesAdded, nextPriority()));
+            }
+        }
+        root = merge(before, second.after());
+
+        if (bufferLength >= MIN_COMPACT_SIZE && bufferLength > COMPACT_RATIO * getLength())
+        {
+            compact();
+        }
+
+        for (Iterator<WeakReference<TrackedPosition>> iterator = trackedPositions.iterator(); iterator.hasNext(); )
+        {
+            TrackedPosition trackedPosition = iterator.next().get();
+            if (trackedPosition == null)
+            {
+                iterator.remove();
+            }
+            else
+            {
+                trackedPosition.updateTrackedPosition(startCharIncl, endCharExcl, text.length());
+            }
+        }
+
+        // Take a copy in case one of the listeners removes themselves:
+        List<DocumentListener> listenersCopy = new ArrayList<>(this.listeners);
+        for (DocumentListener listener : listenersCopy)
+        {
+            listener.textReplaced(startCharIncl, replaced, text, linesRemoved, linesAdded);
+        }
+    }
+
+    /**
+     * Appends the text to the buffer, recording its newlines.
+     * @return The number of newlines in the text.
+     */
+    private int append(String text)
+    {
+        if (bufferLength + text.length() > buffer.length)
+        {
+            buffer = Arrays.copyOf(buffer, Math.max(bufferLength + text.length(), buffer.length * 2));
+        }
+        text.getChars(0, text.length(), buffer, bufferLength);
+        int lines = 0;
+        for (int i = 0; i < text.length(); i++)
+        {
+            if (text.charAt(i) == '\n')
+            {
+                if (newlineCount == newlines.length)
+                {
+                    newlines = Arrays.copyOf(newlines, newlines.length * 2);
+                }
+                newlines[newlineCount++] = bufferLength + i;
+                lines += 1;
+            }
+        }
+        bufferLength += text.length();
+        return lines;
+    }
+
+    /**
+     * Replaces the buffer with one containing only the current content, as a single piece.
+     */
+    private void compact()
+    {
+        String content = getFullContent();
+        buffer = new char[Math.max(INITIAL_CAPACITY, content.length() * 2)];
+        bufferLength = 0;
+        newlineCount = 0;
+        int lines = append(content);
+        root = content.isEmpty() ? null : new Node(0, content.length(), lines, nextPriority());
+    }
+
+    private int nextPriority()
+    {
+        // Xorshift; quality is not important, we just want a balanced tree:
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    /**
+     * Gets the index in the newlines array of the first newline at or after the given buffer index.
+     */
+    private int newlineIndexAtOrAfter(int bufferIndex)
+    {
+        int index = Arrays.binarySearch(newlines, 0, newlineCount, bufferIndex);
+        return index >= 0 ? index : -1 - index;
+    }
+
+    /**
+     * Counts the newlines in the buffer between the given indexes (start inclusive, end exclusive).
+     */
+    private int countNewlines(int bufferStart, int bufferEnd)
+    {
+        return newlineIndexAtOrAfter(bufferEnd) - newlineIndexAtOrAfter(bufferStart);
+    }
+
+    /**
+     * Splits the tree into those characters before the given position, and those at or after it.
+     * Splits a piece in two if necessary.  The given tree should not be used afterwards.
+     */
+    private Split split(Node n, int position)
+    {
+        if (n == null)
+        {
+            return new Split(null, null);
+        }
+        int leftLength = totalLength(n.left);
+        if (position <= leftLength)
+        {
+            Split s = split(n.left, position);
+            n.left = s.after();
+            n.update();
+            return new Split(s.before(), n);
+        }
+        else if (position >= leftLength + n.length)
+        {
+            Split s = split(n.right, position - leftLength - n.length);
+            n.right = s.before();
+            n.update();
+            return new Split(n, s.after());
+        }
+        else
+        {
+            // Position is inside this piece, so split the piece:
+            int offset = position - leftLength;
+            int splitAt = n.start + offset;
+            int linesBefore = countNewlines(n.start, splitAt);
+            Node pieceBefore = new Node(n.start, offset, linesBefore, nextPriority());
+            Node pieceAfter = new Node(splitAt, n.length - offset, n.lines - linesBefore, nextPriority());
+            return new Split(merge(n.left, pieceBefore), merge(pieceAfter, n.right));
+        }
+    }
+
+    /**
+     * Joins two trees, with all of the first tree's content before all of the second's.
+     */
+    private static Node merge(Node a, Node b)
+    {
+        if (a == null)
+        {
+            return b;
+        }
+        else if (b == null)
+        {
+            return a;
+        }
+        else if (a.priority > b.priority)
+        {
+            a.right = merge(a.right, b);
+            a.update();
+            return a;
+        }
+        else
+        {
+            b.left = merge(a, b.left);
+            b.update();
+            return b;
+        }
+    }
+
+    private static Node rightmost(Node n)
+    {
+        while (n != null && n.right != null)
+        {
+            n = n.right;
+        }
+        return n;
+    }
+
+    private static void extendRightmost(Node n, int extraLength, int extraLines)
+    {
+        if (n.right == null)
+        {
+            n.length += extraLength;
+            n.lines += extraLines;
+        }
+        else
+        {
+            extendRightmost(n.right, extraLength, extraLines);
+        }
+        n.update();
+    }
+
+    /**
+     * Copies the given range of the document from the given tree into a new array.
+     */
+    private char[] copy(Node tree, int startCharIncl, int endCharExcl)
+    {
+        char[] result = new char[endCharExcl - startCharIncl];
+        copyInto(tree, 0, startCharIncl, endCharExcl, result, 0);
+        return result;
+    }
+
+    /**
+     * Copies the part of [from, to) which lies in the given subtree into dest (at destOffset
+     * for document position from).  treeOffset is the document position of the start of the subtree.
+     */
+    private void copyInto(Node n, int treeOffset, int from, int to, char[] dest, int destOffset)
+    {
+        if (n == null || to <= treeOffset || from >= treeOffset + n.totalLength)
+        {
+            return;
+        }
+        copyInto(n.left, treeOffset, from, to, dest, destOffset);
+        int pieceStart = treeOffset + totalLength(n.left);
+        int copyStart = Math.max(from, pieceStart);
+        int copyEnd = Math.min(to, pieceStart + n.length);
+        if (copyStart < copyEnd)
+        {
+            System.arraycopy(buffer, n.start + copyStart - pieceStart, dest, destOffset + copyStart - from, copyEnd - copyStart);
+        }
+        copyInto(n.right, pieceStart + n.length, from, to, dest, destOffset);
+    }
+
+    @Override
+    public String getFullContent()
+    {
+        return new String(copy(root, 0, getLength()));
+    }
+
+    @Override
+    public int getLength()
+    {
+        return totalLength(root);
+    }
+
+    @Override
+    public int getLineFromPosition(int position)
+    {
+        // Count the newlines before the position:
+        int lines = 0;
+        Node n = root;
+        while (n != null)
+        {
+            int leftLength = totalLength(n.left);
+            if (position < leftLength)
+            {
+                n = n.left;
+            }
+            else
+            {
+                lines += totalLines(n.left);
+                position -= leftLength;
+                if (position <= n.length)
+                {
+                    return lines + countNewlines(n.start, n.start + position);
+                }
+                lines += n.lines;
+                position -= n.length;
+                n = n.right;
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public int getColumnFromPosition(int position)
+    {
+        return position - getLineStart(getLineFromPosition(position));
+    }
+
+    @Override
+    public int getLineStart(int lineNumber)
+    {
+        if (lineNumber == 0)
+        {
+            return 0;
+        }
+        // The line starts after the lineNumber-th newline (counting from one):
+        int remaining = lineNumber;
+        int position = 0;
+        Node n = root;
+        while (n != null)
+        {
+            int leftLines = totalLines(n.left);
+            if (remaining <= leftLines)
+            {
+                n = n.left;
+            }
+            else
+            {
+                remaining -= leftLines;
+                position += totalLength(n.left);
+                if (remaining <= n.lines)
+                {
+                    int newline = newlines[newlineIndexAtOrAfter(n.start) + remaining - 1];
+                    return position + (newline - n.start) + 1;
+                }
+                remaining -= n.lines;
+                position += n.length;
+                n = n.right;
+            }
+        }
+        throw new IndexOutOfBoundsException("Line " + lineNumber + " in document with " + getLineCount() + " lines");
+    }
+
+    @Override
+    public int getLineEnd(int lineNumber)
+    {
+        if (lineNumber + 1 < getLineCount())
+        {
+            return getLineStart(lineNumber + 1) - 1;
+        }
+        else
+        {
+            return getLength();
+        }
+    }
+
+    @Override
+    public int getLineCount()
+    {
+        return totalLines(root) + 1;
+    }
+
+    @Override
+    public List<CharSequence> getLines()
+    {
+        return new AbstractList<CharSequence>()
+        {
+            @Override
+            public CharSequence get(int lineIndex)
+            {
+                return getContent(getLineStart(lineIndex), getLineEnd(lineIndex));
+            }
+
+            @Override
+            public int size()
+            {
+                return getLineCount();
+            }
+        };
+    }
+
+    @Override
+    public TrackedPosition trackPosition(int position, Bias bias)
+    {
+        TrackedPosition trackedPosition = new TrackedPosition(this, position, bias);
+        trackedPositions.add(new WeakReference<>(trackedPosition));
+        return trackedPosition;
+    }
+
+    @Override
+    public void addListener(boolean atStart, DocumentListener listener)
+    {
+        if (atStart)
+            listeners.add(0, listener);
+        else
+            listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(DocumentListener listener)
+    {
+        // Remove all by reference equality, as in HoleDocument:
+        listeners.removeIf(l -> l == listener);
+    }
+
+    @Override
+    public boolean hasLineAttribute(int lineIndex, Object attributeKey)
+    {
+        return lineAttributes.stream().anyMatch(a -> a.key.equals(attributeKey) && a.lineStart.getLine() == lineIndex);
+    }
+
+    @Override
+    public void addLineAttribute(int lineIndex, Object key, Object value)
+    {
+        if (lineIndex >= 0 && lineIndex < getLineCount())
+        {
+            lineAttributes.removeIf(a -> a.key.equals(key) && a.lineStart.getLine() == lineIndex);
+            lineAttributes.add(new LineAttribute(trackPosition(getLineStart(lineIndex), Bias.FORWARD), key, value));
+        }
+    }
+
+    @Override
+    public void removeLineAttributeThroughout(Object key)
+    {
+        lineAttributes.removeIf(a -> a.key.equals(key));
+    }
+
+    @Override
+    public String getLongestLine()
+    {
+        int longestIndex = 0;
+        int longestLength = 0;
+        int lineStart = 0;
+        for (int line = 0; line < getLineCount(); line++)
+        {
+            int lineEnd = getLineEnd(line);
+            if (lineEnd - lineStart > longestLength)
+            {
+                longestLength = lineEnd - lineStart;
+                longestIndex = line;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return getLines().get(longestIndex).toString();
+    }
+
+    @Override
+    public String getContent(int startCharIncl, int endCharExcl)
+    {
+        return new String(copy(root, startCharIncl, endCharExcl));
+    }
+
+    @Override
+    public Reader makeReader(int startPos, int endPos)
+    {
+        return new PieceReader(startPos, endPos);
+    }
+
+    /**
+     * A reader for part of the document, which copies the document a block at a time.
+     * Like HoleReader, it is only valid while the document is not modified.
+     */
+    @OnThread(value = Tag.FXPlatform, ignoreParent = true)
+    private class PieceReader extends Reader
+    {
+        private static final int BLOCK_SIZE = 4096;
+        private final int end;
+        // The document position of the next char to read:
+        private int next;
+        private int mark;
+        // A block of the document, starting at document position blockStart:
+        private char[] block = new char[0];
+        private int blockStart = 0;
+
+        private PieceReader(int start, int end)
+        {
+            this.next = start;
+            this.mark = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read()
+        {
+            if (next >= end)
+            {
+                return -1;
+            }
+            if (next < blockStart || next >= blockStart + block.length)
+            {
+                blockStart = next;
+                block = copy(root, next, Math.min(end, next + BLOCK_SIZE));
+            }
+            return block[next++ - blockStart];
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len)
+        {
+            if ((off < 0) || (off > cbuf.length) || (len < 0) ||
+                    ((off + len) > cbuf.length) || ((off + len) < 0))
+            {
+                throw new IndexOutOfBoundsException();
+            }
+            else if (len == 0)
+            {
+                return 0;
+            }
+            else if (next >= end)
+            {
+                return -1;
+            }
+            int total = Math.min(end - next, len);
+            copyInto(root, 0, next, next + total, cbuf, off);
+            next += total;
+            return total;
+        }
+
+        @Override
+        public long skip(long ns)
+        {
+            if (next >= end)
+            {
+                return 0;
+            }
+            long n = Math.max(-next, Math.min(end - next, ns));
+            next += n;
+            return n;
+        }
+
+        @Override
+        public boolean ready()
+        {
+            return true;
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return true;
+        }
+
+        @Override
+        public void mark(int readAheadLimit)
+        {
+            if (readAheadLimit < 0)
+            {
+                throw new IllegalArgumentException("Read-ahead limit < 0");
+            }
+            mark = next;
+        }
+
+        @Override
+        public void reset()
+        {
+            next = mark;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
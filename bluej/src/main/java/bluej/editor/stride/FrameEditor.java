@@ -65,6 +65,7 @@ import bluej.stride.framedjava.frames.LocalCompletion;
 import bluej.stride.framedjava.slots.ExpressionSlot;
 import bluej.parser.AssistContentThreadSafe;
 import bluej.utility.Debug;
+import bluej.utility.SavePipeline;
 import bluej.utility.Utility;
 import bluej.utility.javafx.FXPlatformConsumer;
 import bluej.utility.javafx.FXPlatformRunnable;
@@ -78,11 +79,11 @@ import javafx.scene.image.Image;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -111,6 +112,8 @@ public class FrameEditor implements Editor
     @OnThread(Tag.FX) private String lastSavedSource = null;
     // The generated Java code at point of last save:
     @OnThread(Tag.FX) private SaveJavaResult lastSavedJava = null;
+    // Writes started by a background save which have not yet finished:
+    @OnThread(Tag.FXPlatform) private final List<CompletableFuture<Long>> pendingWrites = new ArrayList<>();
     
     /** Location of the .stride file */
     private File frameFilename;
@@ -253,7 +256,7 @@ public class FrameEditor implements Editor
             {
                 // runLater so that the panel will have been added:
                 JavaFXUtil.runPlatformLater(() -> {
-                    saveFX();
+                    saveFX(true);
                     // No relevant other compilation, so use -1 as identifier:
                     findLateErrors(-1);
                 });
@@ -278,10 +281,32 @@ public class FrameEditor implements Editor
 
     @Override
     public void save() throws IOException
+    {
+        save(true);
+        // Also make sure that any earlier background save has been written:
+        for (CompletableFuture<Long> write : new ArrayList<>(pendingWrites))
+        {
+            awaitWrite(write);
+        }
+    }
+
+    @Override
+    public void saveInBackground() throws IOException
+    {
+        // Any error during the writes will be reported when they finish:
+        save(false);
+    }
+
+    /**
+     * Save, if modified, and generate the Java source if not yet done.
+     *
+     * @param wait  Whether to wait for the files to be written.
+     */
+    private void save(boolean wait) throws IOException
     {
         if (changedSinceLastSave)
         {
-            SaveResult result = saveFX();
+            SaveResult result = saveFX(wait);
             if (result.exception != null)
             {
                 throw new IOException(result.exception);
@@ -296,7 +321,7 @@ public class FrameEditor implements Editor
         else if (lastSavedJava == null)
         {
             // If we haven't generated Java yet, we should do so:
-            lastSavedJava = saveJava(lastSource, true);
+            lastSavedJava = saveJava(lastSource, true, wait);
         }
     }
     
@@ -336,9 +361,11 @@ public class FrameEditor implements Editor
      * it is caught and returned; otherwise, the saved XML source is returned.<p>
      * 
      * The Java source is also generated if it is stale or has not yet been generated.
+     *
+     * @param wait  Whether to wait for the files to be written.
      */
     @OnThread(Tag.FXPlatform)
-    private SaveResult saveFX()
+    private SaveResult saveFX(boolean wait)
     {
         try
         {
@@ -346,7 +373,7 @@ public class FrameEditor implements Editor
             {
                 if (lastSavedJava == null)
                 {
-                    lastSavedJava = saveJava(lastSource, true);
+                    lastSavedJava = saveJava(lastSource, true, wait);
                 }
                 return new SaveResult(lastSavedSource, lastSavedJava);
             }
@@ -354,7 +381,7 @@ public class FrameEditor implements Editor
             // If frame editor is closed, we just need to write the Java code
             if (panel == null || panel.getSource() == null)
             {
-                SaveJavaResult javaResult = saveJava(lastSource, true);
+                SaveJavaResult javaResult = saveJava(lastSource, true, wait);
                 return new SaveResult(Utility.serialiseCodeToString(lastSource.toXML()), javaResult);
             }
 
@@ -365,12 +392,11 @@ public class FrameEditor implements Editor
                 return new SaveResult(Utility.serialiseCodeToString(lastSource.toXML()), null); // classFrame not initialised yet
 
             // Save Frame source:
-            try (FileOutputStream os = new FileOutputStream(frameFilename))
-            {
-                Utility.serialiseCodeTo(source.toXML(), os);
-            }
+            ByteArrayOutputStream xml = new ByteArrayOutputStream();
+            Utility.serialiseCodeTo(source.toXML(), xml);
+            writeFile(frameFilename, xml.toByteArray(), wait);
 
-            lastSavedJava = saveJava(panel.getSource(), true);
+            lastSavedJava = saveJava(panel.getSource(), true, wait);
             changedSinceLastSave = false;
             lastSavedSource = Utility.serialiseCodeToString(source.toXML());
         
@@ -391,7 +417,7 @@ public class FrameEditor implements Editor
     @OnThread(Tag.FXPlatform)
     public void saveJavaWithoutWarning() throws IOException
     {
-        saveJava(lastSource, false);
+        saveJava(lastSource, false, true);
     }
 
     private class SaveJavaResult
@@ -410,20 +436,17 @@ public class FrameEditor implements Editor
 
     /**
      * @param warning Whether to include the "auto-generated" warning at the top of the file
+     * @param wait Whether to wait for the file to be written
      */
     @OnThread(Tag.FXPlatform)
-    private SaveJavaResult saveJava(TopLevelCodeElement source, boolean warning) throws IOException
+    private SaveJavaResult saveJava(TopLevelCodeElement source, boolean warning, boolean wait) throws IOException
     {
         if (source == null)
             return null; // Not fully loaded yet
 
-        FileOutputStream fos = new FileOutputStream(javaFilename);
-        OutputStreamWriter w = new OutputStreamWriter(fos, Charset.forName("UTF-8"));
         final JavaSource js = source.toJavaSource(warning);
         String javaString = js.toDiskJavaCodeString();
-        w.write(javaString);
-        w.close();
-        fos.close();
+        writeFile(javaFilename, javaString.getBytes(StandardCharsets.UTF_8), wait);
         // Because there may be a listener waiting on javaSource in order to show compiler error,
         // it's important that we first generate the string above, before storing it into the property,
         // to make sure all the source positions have been recorded.
@@ -432,6 +455,43 @@ public class FrameEditor implements Editor
         return new SaveJavaResult(js, javaString, source.toXML().buildLocationMap());
     }
 
+    /**
+     * Write a file via the save pipeline.  If not waiting for the write to finish, the editor
+     * counts as modified until it has; if it fails, the error is reported and the editor is
+     * marked as changed so that it will be saved again.
+     */
+    @OnThread(Tag.FXPlatform)
+    private void writeFile(File file, byte[] content, boolean wait) throws IOException
+    {
+        CompletableFuture<Long> write = SavePipeline.getInstance().write(file, content);
+        if (wait)
+        {
+            awaitWrite(write);
+            return;
+        }
+        pendingWrites.add(write);
+        write.whenComplete((modified, ex) -> JavaFXUtil.runPlatformLater(() -> {
+            pendingWrites.remove(write);
+            if (ex != null)
+            {
+                Debug.reportError("Could not save " + file, ex);
+                changedSinceLastSave = true;
+            }
+        }));
+    }
+
+    private static void awaitWrite(CompletableFuture<Long> write) throws IOException
+    {
+        try
+        {
+            write.get();
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e);
+        }
+    }
+
     /**
      * Eugh.
      *
@@ -486,6 +546,10 @@ public class FrameEditor implements Editor
             @OnThread(Tag.FXPlatform)
             public void save() throws IOException { FrameEditor.this.save(); }
 
+            @Override
+            @OnThread(Tag.FXPlatform)
+            public void saveInBackground() throws IOException { FrameEditor.this.saveInBackground(); }
+
             @Override
             @OnThread(Tag.FXPlatform)
             public void removeStepMark() { FrameEditor.this.removeStepMark(); }
@@ -522,6 +586,10 @@ public class FrameEditor implements Editor
             @OnThread(Tag.FXPlatform)
             public boolean isModified() { return FrameEditor.this.isModified(); }
 
+            @Override
+            @OnThread(Tag.FXPlatform)
+            public boolean isModifiedSinceLastSave() { return FrameEditor.this.isModifiedSinceLastSave(); }
+
             @Override
             @OnThread(Tag.FXPlatform)
             public Object getProperty(String propertyKey) { return FrameEditor.this.getProperty(propertyKey); }
@@ -990,7 +1058,7 @@ public class FrameEditor implements Editor
         watcher.clearAllBreakpoints();
 
         if (javaSource.get() == null) {
-            IOException e = saveFX().exception;
+            IOException e = saveFX(true).exception;
             if (e != null)
                 Debug.reportError(e);
         }
@@ -1008,6 +1076,13 @@ public class FrameEditor implements Editor
 
     @Override
     public boolean isModified() 
+    {
+        // Not saved until all the files have been written:
+        return changedSinceLastSave || !pendingWrites.isEmpty();
+    }
+
+    @Override
+    public boolean isModifiedSinceLastSave()
     {
         return changedSinceLastSave;
     }
@@ -1119,7 +1194,7 @@ public class FrameEditor implements Editor
                 {
                     // First, save, so that the AST elements all have the correct references back to
                     // the GUI frames which generated them:
-                    Exception ex = saveFX().exception;
+                    Exception ex = saveFX(true).exception;
                     if (ex != null)
                     {
                         Debug.reportError(ex);
@@ -1420,7 +1495,7 @@ public class FrameEditor implements Editor
     @OnThread(Tag.FXPlatform)
     public void recordEdits(StrideEditReason reason)
     {
-        SaveResult result = saveFX();
+        SaveResult result = saveFX(true);
         if (result.exception == null)
         {
             watcher.recordStrideEdit(result.javaResult.javaSourceStringContent, result.savedSource, reason);
@@ -1795,6 +1795,13 @@ public class FrameEditorTab extends FXTab implements InteractionManager, Suggest
         if (f != null)
             f.trackBlank(); // Do this even if loading
 
+        // The undo snapshots of the frame and those containing it are now out of date.  If we
+        // don't know which frame was modified, none of the snapshots can be trusted:
+        if (f != null)
+            f.invalidateUndoSnapshot();
+        else if (getTopLevelFrame() != null)
+            getTopLevelFrame().getAllFrames().forEach(frame -> frame.setUndoSnapshot(null));
+
 
         // If we are loading, we'll thread hop
         if (!isLoading() || force)
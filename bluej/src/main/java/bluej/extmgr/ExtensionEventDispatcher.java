@@ -0,0 +1,460 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.extmgr;
+
+import bluej.extensions2.event.CompileEvent;
+import bluej.extensions2.event.ExtensionEvent;
+import bluej.utility.Debug;
+import javafx.application.Platform;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Delivers events to a single extension, asynchronously and in order.
+ *
+ * <p>Events are queued by the thread which generates them, which therefore never waits for
+ * the extension. They are delivered later on the FX thread (as the extension API requires),
+ * in batches limited by a time budget, so that a stream of events to an extension is
+ * interleaved with other UI work rather than holding it up.
+ *
+ * <p>Each handler is timed. Since a handler runs on the FX thread, a handler which takes a
+ * long time freezes the user interface while it runs; an extension with such a handler is
+ * suspended, so that it does not do so again. A suspended extension is not sent any events
+ * until it is resumed from the Extensions dialog.
+ *
+ * <p>The queue is bounded. When a compilation of a set of files is queued in full (from the
+ * start event to the done/failed event) and another compilation of the same files is started
+ * before the first has been delivered, the first is dropped as it is already out of date.
+ * If the queue still overflows, the oldest events are dropped, but a compilation is always
+ * dropped as a whole, so that the extension never sees the start of a compilation without
+ * its end, or the end without its start.
+ */
+@OnThread(Tag.Any)
+class ExtensionEventDispatcher
+{
+    /** The maximum number of events waiting to be delivered */
+    private static final int MAX_QUEUED = 1000;
+    /** The time to spend delivering events before giving other work on the FX thread a turn */
+    private static final long BATCH_BUDGET_NANOS = 8_000_000L;
+    /** Handlers taking longer than this on average are considered slow */
+    private static final long SLOW_AVERAGE_NANOS = 20_000_000L;
+    /** An extension with a handler taking longer than this is suspended */
+    private static final long SUSPEND_NANOS = 500_000_000L;
+
+    private final Consumer<ExtensionEvent> handler;
+    private final String extensionName;
+    private final Consumer<Runnable> scheduler;
+
+    // Protected by synchronizing on the dispatcher:
+    private final List<ExtensionEvent> queue = new ArrayList<>();
+    // The files of compilations whose start was dropped before their end was queued;
+    // the rest of those compilations is dropped as it arrives:
+    private final List<Set<File>> droppedCompilations = new ArrayList<>();
+    private boolean drainScheduled;
+    private boolean suspended;
+    private boolean warnedOverflow;
+    private int droppedEvents;
+
+    // Handler timing; protected by synchronizing on the dispatcher:
+    private long handledEvents;
+    private long totalHandlerNanos;
+    private long maxHandlerNanos;
+
+    /**
+     * Create a dispatcher which delivers events on the FX thread.
+     *
+     * @param handler        The handler which delivers an event to the extension
+     * @param extensionName  The name of the extension, for diagnostics
+     */
+    ExtensionEventDispatcher(Consumer<ExtensionEvent> handler, String extensionName)
+    {
+        this(handler, extensionName, Platform::runLater);
+    }
+
+    /**
+     * Create a dispatcher.
+     *
+     * @param handler        The handler which delivers an event to the extension
+     * @param extensionName  The name of the extension, for diagnostics
+     * @param scheduler      Runs delivery tasks later on the thread which events are delivered on
+     */
+    ExtensionEventDispatcher(Consumer<ExtensionEvent> handler, String extensionName, Consumer<Runnable> scheduler)
+    {
+        this.handler = handler;
+        this.extensionName = extensionName;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Queue an event for delivery. May be called from any thread.
+     */
+    public void dispatch(ExtensionEvent event)
+    {
+        synchronized (this)
+        {
+            if (suspended || isRestOfDroppedCompilation(event))
+            {
+                droppedEvents++;
+                return;
+            }
+            if (event instanceof CompileEvent)
+            {
+                coalesceCompile((CompileEvent) event);
+            }
+            queue.add(event);
+            if (queue.size() > MAX_QUEUED && dropOldest() && !warnedOverflow)
+            {
+                warnedOverflow = true;
+                Debug.message("Extension " + extensionName + " is not keeping up with events; dropping oldest events");
+            }
+            if (drainScheduled)
+            {
+                return;
+            }
+            drainScheduled = true;
+        }
+        scheduler.accept(this::drain);
+    }
+
+    /**
+     * Deliver all queued events immediately. Used before the extension is terminated, so that
+     * it sees the events leading up to that (for example, the closing of its project).
+     */
+    @OnThread(Tag.FXPlatform)
+    public void flush()
+    {
+        while (deliverNext())
+        {
+            // Keep delivering
+        }
+    }
+
+    /**
+     * Deliver queued events until the queue is empty or the time budget is used up,
+     * in which case delivery continues later.
+     */
+    @OnThread(Tag.FXPlatform)
+    private void drain()
+    {
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < BATCH_BUDGET_NANOS)
+        {
+            if (!deliverNext())
+            {
+                return;
+            }
+        }
+
+        synchronized (this)
+        {
+            if (queue.isEmpty())
+            {
+                drainScheduled = false;
+                return;
+            }
+        }
+        scheduler.accept(this::drain);
+    }
+
+    /**
+     * Deliver the next queued event, if any.
+     *
+     * @return true if an event was delivered; false if the queue was empty.
+     */
+    @OnThread(Tag.FXPlatform)
+    private boolean deliverNext()
+    {
+        ExtensionEvent event;
+        synchronized (this)
+        {
+            if (queue.isEmpty())
+            {
+                drainScheduled = false;
+                return false;
+            }
+            event = queue.remove(0);
+        }
+
+        long start = System.nanoTime();
+        handler.accept(event);
+        long elapsed = System.nanoTime() - start;
+
+        synchronized (this)
+        {
+            handledEvents++;
+            totalHandlerNanos += elapsed;
+            maxHandlerNanos = Math.max(maxHandlerNanos, elapsed);
+            if (elapsed > SUSPEND_NANOS)
+            {
+                Debug.message("Extension " + extensionName + " took " + elapsed / 1_000_000L
+                        + " ms to handle an event; it will not be sent any more events");
+                suspended = true;
+                droppedEvents += queue.size();
+                queue.clear();
+                droppedCompilations.clear();
+                drainScheduled = false;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * If a new compilation is starting, drop any earlier compilation of the same files which
+     * is queued in full and so has not been seen by the extension at all.
+     */
+    private void coalesceCompile(CompileEvent event)
+    {
+        if (event.getEventType() != CompileEvent.EventType.COMPILE_START_EVENT)
+        {
+            return;
+        }
+
+        Set<File> files = filesOf(event);
+        for (int startIndex = 0; startIndex < queue.size(); startIndex++)
+        {
+            if (isCompileOf(queue.get(startIndex), files, event.isUserGeneratedCompilation(), CompileEvent.EventType.COMPILE_START_EVENT))
+            {
+                int endIndex = findCompileEnd(startIndex);
+                if (endIndex != -1)
+                {
+                    droppedEvents += removeCompilation(startIndex, endIndex);
+                }
+                // Otherwise this compilation is still going on; leave it alone.
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drop the oldest queued event to make room. If it is the start of a compilation, the whole
+     * compilation is dropped, including the end if that arrives later. The end of a compilation
+     * whose start has already been delivered is never dropped.
+     *
+     * @return true if anything was dropped.
+     */
+    private boolean dropOldest()
+    {
+        for (int i = 0; i < queue.size(); i++)
+        {
+            ExtensionEvent oldest = queue.get(i);
+            if (!(oldest instanceof CompileEvent))
+            {
+                queue.remove(i);
+                droppedEvents++;
+                return true;
+            }
+
+            CompileEvent compileEvent = (CompileEvent) oldest;
+            switch (compileEvent.getEventType())
+            {
+                case COMPILE_START_EVENT:
+                    int endIndex = findCompileEnd(i);
+                    if (endIndex == -1)
+                    {
+                        // The end has not arrived yet; drop it (and what comes before it) when it does:
+                        droppedCompilations.add(filesOf(compileEvent));
+                        endIndex = queue.size() - 1;
+                    }
+                    droppedEvents += removeCompilation(i, endIndex);
+                    return true;
+                case COMPILE_ERROR_EVENT:
+                case COMPILE_WARNING_EVENT:
+                    queue.remove(i);
+                    droppedEvents++;
+                    return true;
+                default:
+                    // The end of a compilation which the extension has seen start; keep it
+                    break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check whether an event belongs to a compilation whose start was dropped.
+     * If it is the end of that compilation, stop looking for the rest of it.
+     */
+    private boolean isRestOfDroppedCompilation(ExtensionEvent event)
+    {
+        if (droppedCompilations.isEmpty() || !(event instanceof CompileEvent))
+        {
+            return false;
+        }
+        CompileEvent compileEvent = (CompileEvent) event;
+        List<File> files = Arrays.asList(compileEvent.getFiles());
+        for (int i = 0; i < droppedCompilations.size(); i++)
+        {
+            Set<File> dropped = droppedCompilations.get(i);
+            switch (compileEvent.getEventType())
+            {
+                case COMPILE_ERROR_EVENT:
+                case COMPILE_WARNING_EVENT:
+                    if (dropped.containsAll(files))
+                    {
+                        return true;
+                    }
+                    break;
+                case COMPILE_DONE_EVENT:
+                case COMPILE_FAILED_EVENT:
+                    if (dropped.equals(new HashSet<>(files)))
+                    {
+                        droppedCompilations.remove(i);
+                        return true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the queued end of the compilation which starts at the given index.
+     *
+     * @return the index of the done/failed event, or -1 if it has not been queued yet.
+     */
+    private int findCompileEnd(int startIndex)
+    {
+        CompileEvent start = (CompileEvent) queue.get(startIndex);
+        Set<File> files = filesOf(start);
+        for (int endIndex = startIndex + 1; endIndex < queue.size(); endIndex++)
+        {
+            if (isCompileOf(queue.get(endIndex), files, start.isUserGeneratedCompilation(), CompileEvent.EventType.COMPILE_DONE_EVENT)
+                    || isCompileOf(queue.get(endIndex), files, start.isUserGeneratedCompilation(), CompileEvent.EventType.COMPILE_FAILED_EVENT))
+            {
+                return endIndex;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Remove the compilation which starts at startIndex and ends at endIndex: the start, the end,
+     * and the errors and warnings for those files in between.
+     *
+     * @return the number of events removed.
+     */
+    private int removeCompilation(int startIndex, int endIndex)
+    {
+        Set<File> files = filesOf((CompileEvent) queue.get(startIndex));
+        int removed = 0;
+        for (int i = endIndex; i >= startIndex; i--)
+        {
+            ExtensionEvent e = queue.get(i);
+            if (e instanceof CompileEvent && files.containsAll(Arrays.asList(((CompileEvent) e).getFiles())))
+            {
+                queue.remove(i);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static Set<File> filesOf(CompileEvent event)
+    {
+        return new HashSet<>(Arrays.asList(event.getFiles()));
+    }
+
+    private static boolean isCompileOf(ExtensionEvent queued, Set<File> files, boolean userGenerated, CompileEvent.EventType type)
+    {
+        if (!(queued instanceof CompileEvent))
+        {
+            return false;
+        }
+        CompileEvent compileEvent = (CompileEvent) queued;
+        return compileEvent.getEventType() == type
+                && compileEvent.isUserGeneratedCompilation() == userGenerated
+                && files.equals(filesOf(compileEvent));
+    }
+
+    /**
+     * Check whether the extension's event handlers have been slow.
+     */
+    public synchronized boolean isSlow()
+    {
+        return suspended || (handledEvents > 0 && totalHandlerNanos / handledEvents > SLOW_AVERAGE_NANOS);
+    }
+
+    /**
+     * Check whether the extension has been suspended, because one of its handlers took so long
+     * that it froze the user interface. A suspended extension is not sent events.
+     */
+    public synchronized boolean isSuspended()
+    {
+        return suspended;
+    }
+
+    /**
+     * Send events to a suspended extension again. Its handler times are forgotten, so that
+     * it is judged afresh.
+     */
+    public synchronized void resume()
+    {
+        suspended = false;
+        handledEvents = 0;
+        totalHandlerNanos = 0;
+        maxHandlerNanos = 0;
+    }
+
+    /**
+     * Get the number of events delivered to the extension.
+     */
+    public synchronized long getHandledEventCount()
+    {
+        return handledEvents;
+    }
+
+    /**
+     * Get the average time taken by the extension to handle an event, in milliseconds.
+     */
+    public synchronized double getAverageHandlerMillis()
+    {
+        return handledEvents == 0 ? 0.0 : totalHandlerNanos / (handledEvents * 1_000_000.0);
+    }
+
+    /**
+     * Get the longest time taken by the extension to handle an event, in milliseconds.
+     */
+    public synchronized double getMaxHandlerMillis()
+    {
+        return maxHandlerNanos / 1_000_000.0;
+    }
+
+    /**
+     * Get the number of events which were dropped, because the queue was full, because they
+     * were out of date, or because the extension was suspended.
+     */
+    public synchronized int getDroppedEventCount()
+    {
+        return droppedEvents;
+    }
+}
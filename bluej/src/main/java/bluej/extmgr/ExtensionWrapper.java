@@ -75,6 +75,9 @@ public class ExtensionWrapper
     private String  extensionStatusString;
     private Project project;
 
+    // Delivers events to the extension
+    private final ExtensionEventDispatcher eventDispatcher;
+
     /**
      * Construct a new ExtensionWrapper for the given jar file.
      * 
@@ -85,6 +88,7 @@ public class ExtensionWrapper
     public ExtensionWrapper(ExtensionPrefManager prefManager, File jarFile)
     {
         this.prefManager = prefManager;
+        this.eventDispatcher = new ExtensionEventDispatcher(this::safeEventOccurred, jarFile.getName());
 
         // Let me try to load the extension class
         extensionClass = getExtensionClass(jarFile);
@@ -262,6 +266,9 @@ public class ExtensionWrapper
      */
     void terminate()
     {
+        // Let the extension see any events which led up to this:
+        eventDispatcher.flush();
+
         safeTerminate();
 
         // Needed to signal to the revalidate (below) that this instance is no longer here.            
@@ -274,6 +281,27 @@ public class ExtensionWrapper
     }
 
 
+    /**
+     * Queue an event to be delivered to the extension. The event is delivered
+     * later, on the FX thread.
+     */
+    @OnThread(Tag.Any)
+    void queueEvent(ExtensionEvent event)
+    {
+        if (isValid()) {
+            eventDispatcher.dispatch(event);
+        }
+    }
+
+    /**
+     * Get the dispatcher which delivers events to this extension, which also
+     * records how long the extension takes to handle them.
+     */
+    ExtensionEventDispatcher getEventDispatcher()
+    {
+        return eventDispatcher;
+    }
+
     /**
      * Gets the current status of this extension.
      *
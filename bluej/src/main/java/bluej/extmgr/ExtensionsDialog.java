@@ -53,6 +53,8 @@ public class ExtensionsDialog
     private final String projectLongString = Config.getString("extmgr.projectExtensionLong");
     private final String locationTag = Config.getString("extmgr.details.location");
     private final String versionTag = Config.getString("extmgr.details.version");
+    private final String slowString = Config.getString("extmgr.status.slow");
+    private final String suspendedString = Config.getString("extmgr.status.suspended");
     private Dialog<Void> mainFrame;
     private VBox extensionsVBox;
 
@@ -97,8 +99,11 @@ public class ExtensionsDialog
                 boolean isProject = wrapper.getProject() != null;
                 String extensionFileName = wrapper.getExtensionFileName();
                 URL url = wrapper.safeGetURL();
+                ExtensionEventDispatcher events = wrapper.getEventDispatcher();
                 // But create the TitledPane on the FX thread:
-                extensionsVBox.getChildren().add(makeDisplay(extensionName, extensionStatus, extensionVersion, extensionDescription, isProject, extensionFileName, url));
+                TitledPane display = makeDisplay(extensionName, extensionStatus, extensionVersion, extensionDescription, isProject, extensionFileName, url);
+                addEventTiming(display, events);
+                extensionsVBox.getChildren().add(display);
             });
         }
     }
@@ -137,4 +142,45 @@ public class ExtensionsDialog
         titledPane.setExpanded(false);
         return titledPane;
     }
+
+    /**
+     * Show how long the extension has taken to handle events, and mark it if it has been slow.
+     * If it has been suspended for being too slow, offer to resume it.
+     */
+    private void addEventTiming(TitledPane display, ExtensionEventDispatcher events)
+    {
+        if (events.getHandledEventCount() == 0)
+        {
+            return;
+        }
+
+        String timing = Config.getString("extmgr.details.events")
+                .replace("$count", Long.toString(events.getHandledEventCount()))
+                .replace("$average", String.format("%.1f", events.getAverageHandlerMillis()))
+                .replace("$longest", String.format("%.1f", events.getMaxHandlerMillis()));
+        Label timingLabel = new Label(timing);
+        VBox content = (VBox) display.getContent();
+        content.getChildren().add(timingLabel);
+
+        if (events.isSlow())
+        {
+            String title = display.getText();
+            display.setText(title + " - " + (events.isSuspended() ? suspendedString : slowString));
+            JavaFXUtil.addStyleClass(timingLabel, "extension-slow");
+            JavaFXUtil.addStyleClass(display, "extension-slow");
+
+            if (events.isSuspended())
+            {
+                Button resume = new Button(Config.getString("extmgr.resume"));
+                resume.setOnAction(e -> {
+                    events.resume();
+                    display.setText(title);
+                    JavaFXUtil.removeStyleClass(display, "extension-slow");
+                    JavaFXUtil.removeStyleClass(timingLabel, "extension-slow");
+                    content.getChildren().remove(resume);
+                });
+                content.getChildren().add(resume);
+            }
+        }
+    }
 }
@@ -262,8 +262,17 @@ public class ExtensionsManager
      */
     public void packageClosing(Package pkg)
     {
-        // Before removing the extension, signal that this package is closing
+        // Before removing the extension, signal that this package is closing. Extensions
+        // must see this while the package is still open, so deliver it straight away:
+        // (The handlers are not run while holding the lock on the extensions list.)
         delegateEvent(new PackageEvent(PackageEvent.EventType.PACKAGE_CLOSING, pkg));
+        List<ExtensionWrapper> toFlush;
+        synchronized(extensions) {
+            toFlush = new ArrayList<>(extensions);
+        }
+        for (ExtensionWrapper wrapper : toFlush) {
+            wrapper.getEventDispatcher().flush();
+        }
 
         // Let's assume we are NOT going to delete the extension...
         boolean invalidateExtension = false;
@@ -376,13 +385,15 @@ public class ExtensionsManager
     }
 
     /**
-     * Delegates an event to all known extensions.
+     * Delegates an event to all known extensions. The event is queued for each extension
+     * and delivered later (on the FX thread), so that the caller does not wait for
+     * extensions to handle it.
      */
     public void delegateEvent(ExtensionEvent event)
     {
         synchronized(extensions) {            
             for (ExtensionWrapper wrapper : extensions) {
-                wrapper.safeEventOccurred(event);
+                wrapper.queueEvent(event);
             }
         }
     }
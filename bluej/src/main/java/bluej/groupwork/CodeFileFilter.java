@@ -138,6 +138,10 @@ public class CodeFileFilter implements FileFilter, FilenameFilter
         if (name.equals("bluej.pkh")) {
             return false;
         }
+        // the project model file, which is rebuilt from the package files
+        if (name.equals("bluej.model")) {
+            return false;
+        }
         if (name.equals("team.defs")) {
             return false;
         }
@@ -21,6 +21,8 @@
  */
 package bluej.groupwork;
 
+import java.util.List;
+
 /**
  * An interface for receiving log/history information
  * 
@@ -30,6 +32,7 @@ public interface LogHistoryListener
 {
     /**
      * Some log/history information is available, during execution of a log command.
+     * The entries are ordered newest first.
      */
-    public void logInfoAvailable(HistoryInfo logInfo);
+    public void logInfoAvailable(List<HistoryInfo> logInfo);
 }
@@ -95,6 +95,22 @@ public interface Repository
      *                files argument.
      */
     public TeamworkCommand getStatus(StatusListener listener, FileFilter filter, boolean includeRemote);
+
+    /**
+     * Subscribe to the local status of the working copy. Each time the status of local files
+     * changes, the listener is notified of the status of all files, as if by a status command
+     * without remote checking. Notifications are made on a background thread.
+     *
+     * @param listener  The listener to notify
+     * @param filter    A file filter to determine which files and directories to include
+     * @return  true if subscribed, or false if the repository does not support status updates.
+     */
+    public boolean addStatusListener(StatusListener listener, FileFilter filter);
+
+    /**
+     * Remove a listener previously added via addStatusListener.
+     */
+    public void removeStatusListener(StatusListener listener);
     
     /**
      * Get a list of modules in the repository. The module names (String) are added
@@ -103,10 +119,13 @@ public interface Repository
     public TeamworkCommand getModules(List<String> modules);
     
     /**
-     * Get the history of the repository - all commits, including file, date,
-     * revision, user, and comment.
+     * Get part of the history of the repository - commits, including file, date,
+     * revision, user, and comment - newest first.
+     *
+     * @param skip      The number of (newest) commits to skip
+     * @param maxCount  The maximum number of commits to retrieve
      */
-    public TeamworkCommand getLogHistory(LogHistoryListener listener);
+    public TeamworkCommand getLogHistory(LogHistoryListener listener, int skip, int maxCount);
     
     /**
      * Prepare for the deletion of a directory. For CVS, this involves moving
@@ -313,6 +313,19 @@ public class TeamSettingsController
         }
     }
     
+    /**
+     * Notify the teamwork provider that a project has been closed, so that it can
+     * release any resources held for it.
+     * @param projDir the project directory
+     */
+    @OnThread(Tag.Any)
+    public static void projectClosed(File projDir)
+    {
+        if (teamProvider != null) {
+            teamProvider.projectClosed(projDir);
+        }
+    }
+
     /**
      * checks if a project has a team.defs if it doesn't, then return false
      * @param projDir File object representing the directory where team.defs is located.
@@ -516,6 +529,7 @@ public class TeamSettingsController
         teamProperties.put("bluej.teamsettings.ignore6", ".*\\#");
         teamProperties.put("bluej.teamsettings.ignore7", ".*\\#backup");
         teamProperties.put("bluej.teamsettings.ignore8", "\\.DS_Store");
+        teamProperties.put("bluej.teamsettings.ignore9", "bluej\\.model");
     }
 
     /**
@@ -93,4 +93,11 @@ public interface TeamworkProvider
      * @return String with the stored name in the repo.
      */
     public String getYourNameFromRepo(File projectPath) ;
+
+    /**
+     * Release any resources (such as background status tracking) held for a project
+     * which has been closed.
+     * @param projectPath path to the BlueJ project
+     */
+    public void projectClosed(File projectPath);
 }
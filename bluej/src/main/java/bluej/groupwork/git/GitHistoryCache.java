@@ -0,0 +1,264 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.groupwork.git;
+
+import bluej.Config;
+import bluej.utility.Debug;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A persistent cache of the paths changed by each commit in a repository, so that the
+ * history does not need to diff the same commits again each time it is shown.
+ *
+ * <p>Commits are immutable, so entries never become stale. Each repository has its own
+ * cache file in the user configuration directory, named by a hash of the repository's
+ * location, and new entries are appended to it.
+ */
+@OnThread(Tag.Worker)
+class GitHistoryCache
+{
+    private static final String CACHE_DIR_NAME = "git-history";
+    private static final int FORMAT_VERSION = 1;
+
+    private static final Map<File, GitHistoryCache> caches = new HashMap<>();
+
+    private final File cacheFile;
+    private final Map<String, String[]> changedPaths = new HashMap<>();
+    /** Entries added since the cache was last saved */
+    private final Map<String, String[]> unsaved = new LinkedHashMap<>();
+
+    /**
+     * Get the cache for the repository with the given metadata (.git) directory.
+     */
+    public static GitHistoryCache getCache(File gitDir)
+    {
+        return getCache(gitDir, Config.getUserConfigFile(CACHE_DIR_NAME));
+    }
+
+    /**
+     * Get the cache for the repository with the given metadata (.git) directory, keeping
+     * the cache file in the given directory (which is created when needed).
+     */
+    static GitHistoryCache getCache(File gitDir, File cacheDir)
+    {
+        File cacheFile = new File(cacheDir, repositoryKey(gitDir) + ".cache");
+        synchronized (caches)
+        {
+            return caches.computeIfAbsent(cacheFile, GitHistoryCache::new);
+        }
+    }
+
+    /**
+     * Create a cache kept in the given file, loading any entries it already holds.
+     */
+    GitHistoryCache(File cacheFile)
+    {
+        this.cacheFile = cacheFile;
+        load();
+    }
+
+    /**
+     * Get the key identifying a repository: a hash of the canonical path of its metadata directory.
+     */
+    private static String repositoryKey(File gitDir)
+    {
+        String path;
+        try
+        {
+            path = gitDir.getCanonicalPath();
+        }
+        catch (IOException e)
+        {
+            path = gitDir.getAbsolutePath();
+        }
+
+        try
+        {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(path.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash)
+            {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Get the paths changed by the commit with the given id, or null if not cached.
+     */
+    public synchronized String[] getChangedPaths(String commitId)
+    {
+        return changedPaths.get(commitId);
+    }
+
+    /**
+     * Record the paths changed by the commit with the given id.
+     */
+    public synchronized void putChangedPaths(String commitId, String[] paths)
+    {
+        if (changedPaths.put(commitId, paths) == null)
+        {
+            unsaved.put(commitId, paths);
+        }
+    }
+
+    /**
+     * Append any new entries to the cache file.
+     */
+    public synchronized void save()
+    {
+        if (unsaved.isEmpty())
+        {
+            return;
+        }
+
+        boolean newFile = !cacheFile.exists();
+        cacheFile.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(cacheFile, true))))
+        {
+            if (newFile)
+            {
+                out.writeInt(FORMAT_VERSION);
+            }
+            for (Map.Entry<String, String[]> entry : unsaved.entrySet())
+            {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                for (String path : entry.getValue())
+                {
+                    out.writeUTF(path);
+                }
+            }
+            unsaved.clear();
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Could not save Git history cache", e);
+        }
+    }
+
+    private void load()
+    {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new FileInputStream(cacheFile))))
+        {
+            if (in.readInt() != FORMAT_VERSION)
+            {
+                discard();
+                return;
+            }
+            while (true)
+            {
+                String commitId;
+                try
+                {
+                    commitId = in.readUTF();
+                }
+                catch (EOFException e)
+                {
+                    break;
+                }
+                String[] paths = new String[in.readInt()];
+                for (int i = 0; i < paths.length; i++)
+                {
+                    paths[i] = in.readUTF();
+                }
+                changedPaths.put(commitId, paths);
+            }
+        }
+        catch (FileNotFoundException e)
+        {
+            // No cache yet
+        }
+        catch (IOException e)
+        {
+            // Truncated or corrupt (e.g. an interrupted save); keep what we read, and rewrite
+            // the file so that later appends are readable:
+            Debug.message("Git history cache is damaged, rewriting: " + e.getMessage());
+            rewrite();
+        }
+    }
+
+    private void discard()
+    {
+        changedPaths.clear();
+        cacheFile.delete();
+    }
+
+    /**
+     * Rewrite the whole cache file from the in-memory entries.
+     */
+    private void rewrite()
+    {
+        try
+        {
+            File temp = File.createTempFile("bluej-history", ".tmp", cacheFile.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(temp))))
+            {
+                out.writeInt(FORMAT_VERSION);
+                for (Map.Entry<String, String[]> entry : changedPaths.entrySet())
+                {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    for (String path : entry.getValue())
+                    {
+                        out.writeUTF(path);
+                    }
+                }
+            }
+            Files.move(temp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Could not rewrite Git history cache", e);
+            discard();
+        }
+    }
+}
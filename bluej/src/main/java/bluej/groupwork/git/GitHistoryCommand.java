@@ -25,73 +25,78 @@ import bluej.groupwork.HistoryInfo;
 import bluej.groupwork.LogHistoryListener;
 import bluej.groupwork.TeamworkCommandError;
 import bluej.groupwork.TeamworkCommandResult;
-import bluej.utility.Debug;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
 
 /**
- * A Git history command.
+ * A Git history command. Retrieves one page of the history, newest commits first.
  *
  * @author Fabio Heday
  */
 public class GitHistoryCommand extends GitCommand
 {
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
 
     private final LogHistoryListener listener;
+    private final int skip;
+    private final int maxCount;
 
-    public GitHistoryCommand(GitRepository repository, LogHistoryListener listener)
+    /**
+     * Create a command to retrieve part of the history.
+     *
+     * @param skip      The number of (newest) commits to skip
+     * @param maxCount  The maximum number of commits to retrieve
+     */
+    public GitHistoryCommand(GitRepository repository, LogHistoryListener listener, int skip, int maxCount)
     {
         super(repository);
         this.listener = listener;
+        this.skip = skip;
+        this.maxCount = maxCount;
     }
 
     @Override
     public TeamworkCommandResult getResult()
     {
-        try (Git repo = Git.open(this.getRepository().getProjectPath())) {
-            Iterable<RevCommit> logs = repo.log().call();
-            logs.forEach((RevCommit rev) -> {
-                ArrayList<String> files = new ArrayList<>();
-                //every commit generates a revision with the commiter information
-                //e.g.: name, e-mail, date and time of commit
-                //to Access the commited files, we need to walk through the
-                //the subtree.
-                try (TreeWalk treeWalk = new TreeWalk(repo.getRepository())){
-                    treeWalk.addTree(rev.getTree());
-                    // We now look for all the parent commits and add those trees:
-                    for (RevCommit parent : rev.getParents()) {
-                        treeWalk.addTree(parent.getTree());
-                    }
+        try (Git repo = Git.open(this.getRepository().getProjectPath());
+             DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            diffFormatter.setRepository(repo.getRepository());
+            diffFormatter.setDetectRenames(true);
+            GitHistoryCache cache = GitHistoryCache.getCache(repo.getRepository().getDirectory());
 
-                    while (treeWalk.next()) {
-                        // For each file in the tree walk, we compare its file mode and hash to the
-                        // parent commits.  If it is the same as any parent, the file is NOT changed and we do NOT add it
-                        // If it is different to all parents, or there are no parents, we add the file as having been changed.
-                        int similarParents = 0;
-                        for (int i = 1; i < treeWalk.getTreeCount(); i++)
-                            if (treeWalk.getFileMode(i) == treeWalk.getFileMode(0) && treeWalk.getObjectId(0).equals(treeWalk.getObjectId(i)))
-                                similarParents++;
-                        if (similarParents == 0)
-                            files.add(treeWalk.getPathString());
-                    }
-                } catch (IOException ex) {
-                    Debug.reportError(ex.getMessage());
+            List<HistoryInfo> infos = new ArrayList<>();
+            for (RevCommit rev : repo.log().setSkip(skip).setMaxCount(maxCount).call()) {
+                if (isCancelled()) {
+                    break;
+                }
+                String commitId = rev.getId().name();
+                String[] files = cache.getChangedPaths(commitId);
+                if (files == null) {
+                    files = getChangedPaths(diffFormatter, rev);
+                    cache.putChangedPaths(commitId, files);
                 }
 
-                //Jgit returns the date by seconds after epoch, but Java works in
-                //milliseconds. conversion is needed.
-                Date date = new Date(rev.getCommitTime() * 1000L);
-                String dateString = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(date);
+                //Jgit returns the date by seconds after epoch.
+                String dateString = DATE_FORMAT.format(Instant.ofEpochSecond(rev.getCommitTime()));
 
-                HistoryInfo info = new HistoryInfo(files.toArray(new String[files.size()]), "", dateString, rev.getAuthorIdent().getName(), rev.getFullMessage());
-                listener.logInfoAvailable(info);
-            });
+                infos.add(new HistoryInfo(files, "", dateString, rev.getAuthorIdent().getName(), rev.getFullMessage()));
+            }
+            cache.save();
+            listener.logInfoAvailable(infos);
 
         } catch (GitAPIException | IOException ex) {
             return new TeamworkCommandError(ex.getMessage(), ex.getLocalizedMessage());
@@ -99,4 +104,31 @@ public class GitHistoryCommand extends GitCommand
         return new TeamworkCommandResult();
     }
 
+    /**
+     * Find the paths changed by a commit, by comparing its tree with that of its parent
+     * (or with an empty tree, for the initial commit). For a merge, only the paths which
+     * differ from every parent are reported, that is, those which the merge itself changed
+     * rather than merely brought in from one side. Renamed files are reported under their
+     * new name.
+     *
+     * @throws IOException  if the trees could not be read. The result must not be cached
+     *                      then, so this is not reported as an empty set of changes.
+     */
+    static String[] getChangedPaths(DiffFormatter diffFormatter, RevCommit rev) throws IOException
+    {
+        Set<String> files = new LinkedHashSet<>();
+        // The diff formatter peels commits to their trees (and treats null as an empty tree):
+        RevCommit firstParent = rev.getParentCount() > 0 ? rev.getParent(0) : null;
+        for (DiffEntry diff : diffFormatter.scan(firstParent, rev)) {
+            files.add(GitUtilities.getFileNameFromDiff(diff));
+        }
+        for (int i = 1; i < rev.getParentCount() && !files.isEmpty(); i++) {
+            Set<String> changedFromParent = new HashSet<>();
+            for (DiffEntry diff : diffFormatter.scan(rev.getParent(i), rev)) {
+                changedFromParent.add(GitUtilities.getFileNameFromDiff(diff));
+            }
+            files.retainAll(changedFromParent);
+        }
+        return files.toArray(new String[0]);
+    }
 }
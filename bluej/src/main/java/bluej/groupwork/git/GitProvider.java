@@ -280,6 +280,12 @@ public class GitProvider implements TeamworkProvider
         return true;
     }
     
+    @Override
+    public void projectClosed(File projectPath)
+    {
+        GitStatusService.shutdown(projectPath);
+    }
+
     /**
      * Find the user email as configured for the repository, if any.
      * 
@@ -34,7 +34,6 @@ import java.util.List;
 import java.util.Set;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.errors.NoWorkTreeException;
-import org.eclipse.jgit.api.Status;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.lib.ObjectId;
@@ -137,6 +136,24 @@ public class GitRepository implements Repository
         return new GitStatusCommand(this, listener, filter, includeRemote);
     }
 
+    @Override
+    public boolean addStatusListener(StatusListener listener, FileFilter filter)
+    {
+        // Doesn't wait for the repository to be opened; any problem with it is reported
+        // when status is next computed:
+        GitStatusService.getService(getProjectPath()).addListener(listener, filter, this);
+        return true;
+    }
+
+    @Override
+    public void removeStatusListener(StatusListener listener)
+    {
+        GitStatusService service = GitStatusService.findService(getProjectPath());
+        if (service != null) {
+            service.removeListener(listener);
+        }
+    }
+
     @Override
     public TeamworkCommand getModules(List<String> modules)
     {
@@ -144,9 +161,9 @@ public class GitRepository implements Repository
     }
 
     @Override
-    public TeamworkCommand getLogHistory(LogHistoryListener listener) 
+    public TeamworkCommand getLogHistory(LogHistoryListener listener, int skip, int maxCount)
     {
-        return new GitHistoryCommand(this, listener);
+        return new GitHistoryCommand(this, listener, skip, maxCount);
     }
 
     @Override
@@ -177,8 +194,8 @@ public class GitRepository implements Repository
     public void getAllLocallyDeletedFiles(Set<File> files)
     {
         
-        try (Git repo = Git.open(getProjectPath())) {
-            Status s = repo.status().call();
+        try {
+            GitStatusService.Snapshot s = GitStatusService.getService(getProjectPath()).getSnapshot();
 
             Set<String> filesStr = s.getMissing();
             filesStr.stream().forEach((fileName) -> {
@@ -21,6 +21,7 @@
  */
 package bluej.groupwork.git;
 
+import bluej.groupwork.StatusHandle;
 import bluej.groupwork.StatusListener;
 import bluej.groupwork.TeamStatusInfo;
 import bluej.groupwork.TeamStatusInfo.Status;
@@ -74,95 +75,14 @@ public class GitStatusCommand extends GitCommand
     @OnThread(Tag.Worker)
     public TeamworkCommandResult getResult()
     {
-        boolean didFilesChange = true;
         LinkedList<TeamStatusInfo> returnInfo = new LinkedList<>();
         File gitPath = this.getRepository().getProjectPath();
 
-        try (Git repo = Git.open(this.getRepository().getProjectPath()))
+        try
         {
-            //check local status
-            org.eclipse.jgit.api.Status s = repo.status().call();
-
-            // A file which has had changes merged as a result of a pull will be in a "unmerged"
-            // state, and will appear in "uncommitted changes" as well as "conflicting" (with
-            // BOTH_MODIFIED or one of the other "stages").
-            
-            s.getMissing().stream()
-                    .filter(p -> filter.accept(new File(gitPath, p)))
-                    .forEach(item -> {
-                        TeamStatusInfo teamInfo = new TeamStatusInfo(new File(gitPath, item), "", null, Status.DELETED);
-                        returnInfo.add(teamInfo);
-                    });
-
-            // "removed" files have been staged for removal ("git rm")
-            s.getRemoved().stream()
-                    .filter(p -> filter.accept(new File(gitPath, p)))
-                    .forEach(item -> {
-                        // Note this status might get altered below, if the file has been re-created
-                        // in the meantime:
-                        returnInfo.add(new TeamStatusInfo(new File(gitPath, item), "", null,
-                                Status.DELETED));
-                    });
-            
-            s.getUncommittedChanges().stream()
-                    .filter(p -> filter.accept(new File(gitPath, p)))
-                    .forEach(item -> {
-                        TeamStatusInfo teamInfo = new TeamStatusInfo(new File(gitPath, item), "", null, Status.NEEDS_COMMIT);
-                        TeamStatusInfo existingStatusInfo = getTeamStatusInfo(returnInfo, teamInfo.getFile());
-                        if (existingStatusInfo == null) {
-                            //add this new entry to the returnInfo.
-                            returnInfo.add(teamInfo);
-                        }
-                    });
-
-            s.getUntracked().stream()
-                    .filter(p -> filter.accept(new File(gitPath, p)))
-                    .forEach(item -> returnInfo.add(new TeamStatusInfo(new File(gitPath, item), "", null, Status.NEEDS_ADD)));
-
-            s.getUntrackedFolders().stream()
-                    .filter(p -> filter.accept(new File(gitPath, p)))
-                    .forEach(item -> returnInfo.add(new TeamStatusInfo(new File(gitPath, item), "", null, Status.NEEDS_ADD)));
-
-            Map<String, IndexDiff.StageState> conflictsMap = s.getConflictingStageState();
-            s.getConflicting().stream()
-                    .filter(p -> filter.accept(new File(gitPath, p)))
-                    .forEach(item -> {
-                        TeamStatusInfo teamInfo = getTeamStatusInfo(returnInfo, new File(gitPath, item));
-                        if (teamInfo == null)
-                        {
-                            Debug.message("Git unexpected status: file is "
-                                    + "conflicting but not otherwise noted? (" + item + ")");
-                            teamInfo = new TeamStatusInfo(new File(gitPath, item), "", null, Status.NEEDS_MERGE);
-                            returnInfo.add(teamInfo);
-                        }
-                        else
-                        {
-                            IndexDiff.StageState sstate = conflictsMap.get(item);
-                            // Note: for local status, NEEDS_MERGE actually means "needs commit to
-                            // resolve merge".
-                            switch (sstate)
-                            {
-                                case DELETED_BY_THEM:
-                                    teamInfo.setStatus(Status.CONFLICT_LMRD);
-                                    break;
-                                case DELETED_BY_US:
-                                    teamInfo.setStatus(Status.CONFLICT_LDRM);
-                                    break;
-                                case BOTH_ADDED:
-                                    teamInfo.setStatus(Status.CONFLICT_ADD);
-                                    break;
-                                case BOTH_MODIFIED:
-                                    teamInfo.setStatus(Status.NEEDS_MERGE);
-                                    break;
-                                default:
-                                    Debug.message("Git status, unknown/unhandled conflict state: " + sstate + " (" + item + ")");
-                                    teamInfo.setStatus(Status.NEEDS_MERGE);
-                            }
-                        }
-                    });
-
-            // check for files to push to remote repository.
-            List<DiffEntry> listOfDiffsLocal, listOfDiffsRemote;
+            // The status service keeps the repository open, and only re-examines files
+            // which have changed since the status was last requested:
+            GitStatusService statusService = GitStatusService.getService(gitPath);
 
             if (includeRemote) {
                 //update information about remote repository.
@@ -174,28 +94,16 @@ public class GitStatusCommand extends GitCommand
                 }
             }
 
-            String defaultBranchName = repo.getRepository().getBranch();
-            RevCommit forkPoint = findForkPoint(repo.getRepository(), "origin/"+defaultBranchName, "HEAD");
-            
-            //find diffs between <default branch>/head and the forkpoint.
-            listOfDiffsLocal = getDiffs(repo, "HEAD", forkPoint);
-            //check for differences between forkpoint and remote repo head.
-            listOfDiffsRemote = getDiffs(repo, "origin/"+defaultBranchName, forkPoint);
-            updateRemoteStatus(gitPath, listOfDiffsLocal, listOfDiffsRemote, returnInfo);
-            
-            if (returnInfo.isEmpty()){
-                didFilesChange = false;
-            }
+            // The repository is shared with the status service, so is only used while
+            // holding it:
+            StatusHandle handle = statusService.withGit(repo -> computeStatus(statusService, repo, gitPath, returnInfo));
 
             if (listener != null) {
-                // Git does not show any add up-to-date file. We need to add them manually to returnInfo.
-                addUpToDateFiles(returnInfo, gitPath);
-                
                 while (!returnInfo.isEmpty()) {
                     TeamStatusInfo teamInfo = returnInfo.removeFirst();
                     listener.gotStatus(teamInfo);
                 }
-                listener.statusComplete(new GitStatusHandle(getRepository(), didFilesChange && isAheadOnly(repo), didFilesChange && getBehindCount(repo) > 0));
+                listener.statusComplete(handle);
             }
         }
         catch (IOException | GitAPIException | NoWorkTreeException | GitTreeException ex)
@@ -207,6 +115,119 @@ public class GitStatusCommand extends GitCommand
         return new TeamworkCommandResult();
     }
 
+    /**
+     * Compute the status of all files, local and remote, into returnInfo.
+     * 
+     * @return  a status handle for the listener, or null if there is no listener.
+     */
+    @OnThread(Tag.Worker)
+    private StatusHandle computeStatus(GitStatusService statusService, Git repo, File gitPath,
+            LinkedList<TeamStatusInfo> returnInfo) throws IOException, GitAPIException, GitTreeException
+    {
+        //check local status
+        GitStatusService.Snapshot s = statusService.getSnapshot();
+
+        // A file which has had changes merged as a result of a pull will be in a "unmerged"
+        // state, and will appear in "uncommitted changes" as well as "conflicting" (with
+        // BOTH_MODIFIED or one of the other "stages").
+        
+        s.getMissing().stream()
+                .filter(p -> filter.accept(new File(gitPath, p)))
+                .forEach(item -> {
+                    TeamStatusInfo teamInfo = new TeamStatusInfo(new File(gitPath, item), "", null, Status.DELETED);
+                    returnInfo.add(teamInfo);
+                });
+
+        // "removed" files have been staged for removal ("git rm")
+        s.getRemoved().stream()
+                .filter(p -> filter.accept(new File(gitPath, p)))
+                .forEach(item -> {
+                    // Note this status might get altered below, if the file has been re-created
+                    // in the meantime:
+                    returnInfo.add(new TeamStatusInfo(new File(gitPath, item), "", null,
+                            Status.DELETED));
+                });
+        
+        s.getUncommittedChanges().stream()
+                .filter(p -> filter.accept(new File(gitPath, p)))
+                .forEach(item -> {
+                    TeamStatusInfo teamInfo = new TeamStatusInfo(new File(gitPath, item), "", null, Status.NEEDS_COMMIT);
+                    TeamStatusInfo existingStatusInfo = getTeamStatusInfo(returnInfo, teamInfo.getFile());
+                    if (existingStatusInfo == null) {
+                        //add this new entry to the returnInfo.
+                        returnInfo.add(teamInfo);
+                    }
+                });
+
+        s.getUntracked().stream()
+                .filter(p -> filter.accept(new File(gitPath, p)))
+                .forEach(item -> returnInfo.add(new TeamStatusInfo(new File(gitPath, item), "", null, Status.NEEDS_ADD)));
+
+        s.getUntrackedFolders().stream()
+                .filter(p -> filter.accept(new File(gitPath, p)))
+                .forEach(item -> returnInfo.add(new TeamStatusInfo(new File(gitPath, item), "", null, Status.NEEDS_ADD)));
+
+        Map<String, IndexDiff.StageState> conflictsMap = s.getConflictingStageState();
+        s.getConflicting().stream()
+                .filter(p -> filter.accept(new File(gitPath, p)))
+                .forEach(item -> {
+                    TeamStatusInfo teamInfo = getTeamStatusInfo(returnInfo, new File(gitPath, item));
+                    if (teamInfo == null)
+                    {
+                        Debug.message("Git unexpected status: file is "
+                                + "conflicting but not otherwise noted? (" + item + ")");
+                        teamInfo = new TeamStatusInfo(new File(gitPath, item), "", null, Status.NEEDS_MERGE);
+                        returnInfo.add(teamInfo);
+                    }
+                    else
+                    {
+                        IndexDiff.StageState sstate = conflictsMap.get(item);
+                        // Note: for local status, NEEDS_MERGE actually means "needs commit to
+                        // resolve merge".
+                        switch (sstate)
+                        {
+                            case DELETED_BY_THEM:
+                                teamInfo.setStatus(Status.CONFLICT_LMRD);
+                                break;
+                            case DELETED_BY_US:
+                                teamInfo.setStatus(Status.CONFLICT_LDRM);
+                                break;
+                            case BOTH_ADDED:
+                                teamInfo.setStatus(Status.CONFLICT_ADD);
+                                break;
+                            case BOTH_MODIFIED:
+                                teamInfo.setStatus(Status.NEEDS_MERGE);
+                                break;
+                            default:
+                                Debug.message("Git status, unknown/unhandled conflict state: " + sstate + " (" + item + ")");
+                                teamInfo.setStatus(Status.NEEDS_MERGE);
+                        }
+                    }
+                });
+
+        // check for files to push to remote repository.
+        List<DiffEntry> listOfDiffsLocal, listOfDiffsRemote;
+
+        String defaultBranchName = repo.getRepository().getBranch();
+        RevCommit forkPoint = findForkPoint(repo.getRepository(), "origin/"+defaultBranchName, "HEAD");
+        
+        //find diffs between <default branch>/head and the forkpoint.
+        listOfDiffsLocal = getDiffs(repo, "HEAD", forkPoint);
+        //check for differences between forkpoint and remote repo head.
+        listOfDiffsRemote = getDiffs(repo, "origin/"+defaultBranchName, forkPoint);
+        updateRemoteStatus(gitPath, listOfDiffsLocal, listOfDiffsRemote, returnInfo);
+        
+        boolean didFilesChange = !returnInfo.isEmpty();
+
+        if (listener == null) {
+            return null;
+        }
+
+        // Git does not show any add up-to-date file. We need to add them manually to returnInfo.
+        addUpToDateFiles(returnInfo, gitPath);
+        return new GitStatusHandle(getRepository(), didFilesChange && isAheadOnly(repo), didFilesChange && getBehindCount(repo) > 0);
+    }
+
     /**
      * Search a directory (recursively). For all files with no status currently recorded, add an
      * "unchanged" status entry.
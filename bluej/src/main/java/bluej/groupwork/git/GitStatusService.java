@@ -0,0 +1,1006 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.groupwork.git;
+
+import bluej.groupwork.StatusHandle;
+import bluej.groupwork.StatusListener;
+import bluej.groupwork.TeamStatusInfo;
+import bluej.utility.Debug;
+import bluej.utility.SavePipeline;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.StatusCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.errors.NoWorkTreeException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.IndexDiff;
+import org.eclipse.jgit.lib.ObjectId;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Keeps the local status of a Git working copy up to date in the background.
+ *
+ * <p>The repository is kept open, and the project directory tree is watched for changes.
+ * When files are touched, only the touched paths are re-examined, rather than walking the
+ * whole working tree and index. A full walk is only needed initially, and whenever the
+ * index or HEAD changes (after a commit, merge, checkout etc.), an ignore file changes, or
+ * file change events are lost. Paths ignored by Git are not watched, and changes to build
+ * outputs (class and context files) are only examined when the status is next computed for
+ * some other reason, so that compiling does not cause status to be recomputed.
+ *
+ * <p>Status listeners may subscribe to receive fresh status whenever the local status changes.
+ * The status is computed once for all listeners.
+ *
+ * <p>The repository is only used while holding the service's lock, via {@link #withGit}, so
+ * that it is not used by several threads at once nor closed while in use.
+ *
+ * <p>There is one service per project directory, obtained via {@link #getService(File)} and
+ * shut down via {@link #shutdown(File)} when the project is closed. Neither waits for the
+ * repository: it is opened, and the directories to watch registered, by the watcher thread
+ * (or by the first command which needs it, if that comes first), and closed by a separate
+ * thread once any command using it has finished. Subscribing and unsubscribing listeners
+ * likewise never wait for a status computation, so they can be done from the FX thread.
+ */
+@OnThread(Tag.Any)
+public class GitStatusService
+{
+    /** How long to wait for further file changes before recomputing status */
+    private static final long SETTLE_MILLIS = 150;
+    /** If more paths than this are touched at once, a full walk is cheaper */
+    private static final int MAX_INCREMENTAL_PATHS = 200;
+
+    private static final int MISSING = 1;
+    private static final int REMOVED = 2;
+    private static final int UNCOMMITTED = 4;
+    private static final int UNTRACKED = 8;
+    private static final int UNTRACKED_FOLDER = 16;
+    private static final int CONFLICTING = 32;
+
+    private static final Map<File, GitStatusService> services = new HashMap<>();
+
+    private final File projectDir;
+    private final Path projectPath;
+
+    /**
+     * Held while using the repository. When both are needed, this is acquired before the
+     * lock on the service object itself.
+     */
+    private final Object gitLock = new Object();
+
+    // Set by start(), while holding gitLock; git is null until then, or if it failed:
+    private Git git;
+    private Path gitDirPath;
+    private IOException startError;
+
+    // Fields below are protected by synchronising on this object:
+    /** Status of every path with a status other than up-to-date, keyed by repository-relative path */
+    private final TreeMap<String, Entry> entries = new TreeMap<>();
+    /** Repository-relative paths which have been touched since the status was last computed */
+    private final Set<String> touchedPaths = new TreeSet<>();
+    /** Build outputs which have been touched since the status was last computed */
+    private final Set<String> touchedOutputs = new TreeSet<>();
+    /** Paths ignored by Git, as found by the last status computation; folders are listed as a whole */
+    private final Set<String> ignoredPaths = new HashSet<>();
+    private boolean fullWalkNeeded = true;
+    private Snapshot snapshot;
+    private int snapshotVersion;
+    private long indexModified = -1;
+    private long indexLength = -1;
+    private ObjectId headId;
+    /** The number of times Git has been asked for status, for testing */
+    private int statusCalls;
+
+    /** Protected by synchronising on the map itself, which may be done while holding the other locks */
+    private final Map<StatusListener, Subscription> subscriptions = new LinkedHashMap<>();
+    private int pushedVersion;
+
+    /** Set by start(); null until then, or if the file system cannot be watched */
+    private volatile WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirs = new HashMap<>();
+    private volatile boolean stopped;
+
+    /**
+     * The status of a single path.
+     */
+    private static class Entry
+    {
+        private final int flags;
+        private final IndexDiff.StageState stageState;
+
+        private Entry(int flags, IndexDiff.StageState stageState)
+        {
+            this.flags = flags;
+            this.stageState = stageState;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Entry))
+            {
+                return false;
+            }
+            Entry other = (Entry) o;
+            return flags == other.flags && stageState == other.stageState;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return flags * 31 + Objects.hashCode(stageState);
+        }
+    }
+
+    private static class Subscription
+    {
+        private final GitRepository repository;
+        private final FileFilter filter;
+
+        private Subscription(GitRepository repository, FileFilter filter)
+        {
+            this.repository = repository;
+            this.filter = filter;
+        }
+    }
+
+    /**
+     * An immutable snapshot of the local status of the working copy. The methods mirror those
+     * of JGit's {@link org.eclipse.jgit.api.Status}, and all paths are relative to the
+     * project directory.
+     */
+    public static class Snapshot
+    {
+        private final Map<String, Entry> entries;
+
+        private Snapshot(Map<String, Entry> entries)
+        {
+            this.entries = entries;
+        }
+
+        private Set<String> pathsWith(int flag)
+        {
+            Set<String> result = new TreeSet<>();
+            entries.forEach((path, entry) -> {
+                if ((entry.flags & flag) != 0)
+                {
+                    result.add(path);
+                }
+            });
+            return result;
+        }
+
+        /** Files in the index which are missing from the working tree */
+        public Set<String> getMissing()
+        {
+            return pathsWith(MISSING);
+        }
+
+        /** Files which have been removed from the index ("git rm") */
+        public Set<String> getRemoved()
+        {
+            return pathsWith(REMOVED);
+        }
+
+        /** Files with changes which are not yet committed, whether in the index or not */
+        public Set<String> getUncommittedChanges()
+        {
+            return pathsWith(UNCOMMITTED);
+        }
+
+        /** Files which are not tracked */
+        public Set<String> getUntracked()
+        {
+            return pathsWith(UNTRACKED);
+        }
+
+        /** Folders which contain only untracked files */
+        public Set<String> getUntrackedFolders()
+        {
+            return pathsWith(UNTRACKED_FOLDER);
+        }
+
+        /** Files with merge conflicts */
+        public Set<String> getConflicting()
+        {
+            return pathsWith(CONFLICTING);
+        }
+
+        /** The conflict state of each conflicting file */
+        public Map<String, IndexDiff.StageState> getConflictingStageState()
+        {
+            Map<String, IndexDiff.StageState> result = new HashMap<>();
+            entries.forEach((path, entry) -> {
+                if (entry.stageState != null)
+                {
+                    result.put(path, entry.stageState);
+                }
+            });
+            return result;
+        }
+    }
+
+    /**
+     * Get the status service for the given project directory, starting it if necessary. This
+     * does not wait for the repository to be opened; if the directory is not a Git working
+     * copy, the service's commands fail with an IOException.
+     */
+    public static GitStatusService getService(File projectDir)
+    {
+        File key = projectDir.getAbsoluteFile();
+        synchronized (services)
+        {
+            GitStatusService service = services.get(key);
+            if (service == null)
+            {
+                service = new GitStatusService(key);
+                services.put(key, service);
+            }
+            return service;
+        }
+    }
+
+    /**
+     * Get the status service for the given project directory, if it is running.
+     *
+     * @return  the service, or null if it is not running.
+     */
+    public static GitStatusService findService(File projectDir)
+    {
+        synchronized (services)
+        {
+            return services.get(projectDir.getAbsoluteFile());
+        }
+    }
+
+    /**
+     * Shut down the status service for the given project directory, if there is one.
+     */
+    public static void shutdown(File projectDir)
+    {
+        GitStatusService service;
+        synchronized (services)
+        {
+            service = services.remove(projectDir.getAbsoluteFile());
+        }
+        if (service != null)
+        {
+            service.stop();
+        }
+    }
+
+    private GitStatusService(File projectDir)
+    {
+        this.projectDir = projectDir;
+        this.projectPath = projectDir.toPath();
+        Thread watchThread = new Thread(this::watchLoop, "Git status watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Open the repository and start watching the project for changes, unless that has
+     * already been done. Must be called while holding the repository lock.
+     *
+     * @throws IOException  if the service has been shut down, or the repository could not be opened.
+     */
+    @OnThread(Tag.Worker)
+    private void start() throws IOException
+    {
+        checkRunning();
+        if (git != null)
+        {
+            return;
+        }
+        if (startError != null)
+        {
+            throw startError;
+        }
+        try
+        {
+            git = Git.open(projectDir);
+        }
+        catch (IOException e)
+        {
+            startError = e;
+            throw e;
+        }
+        gitDirPath = git.getRepository().getDirectory().toPath();
+
+        WatchService ws;
+        try
+        {
+            ws = projectPath.getFileSystem().newWatchService();
+        }
+        catch (IOException | UnsupportedOperationException e)
+        {
+            Debug.message("Git status: cannot watch project for changes, status will be fully recomputed each time: " + e.getMessage());
+            return;
+        }
+        watchService = ws;
+        registerTree(projectPath);
+        registerDir(gitDirPath);
+        Path infoDir = gitDirPath.resolve(Constants.INFO_EXCLUDE).getParent();
+        if (Files.isDirectory(infoDir))
+        {
+            registerDir(infoDir);
+        }
+        if (stopped)
+        {
+            // Stopped while registering; stop() may have missed the watch service:
+            closeWatchService();
+        }
+    }
+
+    /**
+     * An operation using the open repository.
+     */
+    @FunctionalInterface
+    public interface GitOperation<T>
+    {
+        @OnThread(Tag.Worker)
+        T run(Git git) throws IOException, GitAPIException, GitTreeException;
+    }
+
+    /**
+     * Run an operation using the open repository. No other thread uses the repository while
+     * the operation runs, and the repository must not be used after it returns.
+     *
+     * @throws IOException  if the service has been shut down, or the operation fails.
+     */
+    @OnThread(Tag.Worker)
+    public <T> T withGit(GitOperation<T> operation) throws IOException, GitAPIException, GitTreeException
+    {
+        synchronized (gitLock)
+        {
+            start();
+            return operation.run(git);
+        }
+    }
+
+    /**
+     * Get an up-to-date snapshot of the local status. This only walks the whole working tree
+     * if the status has never been computed, or the index or HEAD has changed since.
+     *
+     * @throws IOException  if the service has been shut down.
+     */
+    @OnThread(Tag.Worker)
+    public Snapshot getSnapshot() throws IOException, GitAPIException, NoWorkTreeException
+    {
+        synchronized (gitLock)
+        {
+            start();
+            synchronized (this)
+            {
+                update();
+                return snapshot;
+            }
+        }
+    }
+
+    /**
+     * Get the number of times Git has been asked for the status of the working copy.
+     */
+    synchronized int getStatusCalls()
+    {
+        return statusCalls;
+    }
+
+    private void checkRunning() throws IOException
+    {
+        if (stopped)
+        {
+            throw new IOException("Git status service for " + projectDir + " has been shut down");
+        }
+    }
+
+    /**
+     * Subscribe to receive the status of the working copy (as would be given by a
+     * status command without remote checking) each time the local status changes.
+     * The listener is called on a background thread.
+     */
+    public void addListener(StatusListener listener, FileFilter filter, GitRepository repository)
+    {
+        synchronized (subscriptions)
+        {
+            subscriptions.put(listener, new Subscription(repository, filter));
+        }
+    }
+
+    /**
+     * Remove a listener previously added via {@link #addListener}.
+     */
+    public void removeListener(StatusListener listener)
+    {
+        synchronized (subscriptions)
+        {
+            subscriptions.remove(listener);
+        }
+    }
+
+    /**
+     * Bring the status up to date, if any changes are known. Must be called while
+     * holding both the repository lock and the lock on this object.
+     */
+    private void update() throws GitAPIException, NoWorkTreeException
+    {
+        if (watchService == null || repositoryStateChanged())
+        {
+            fullWalkNeeded = true;
+        }
+        touchedPaths.addAll(touchedOutputs);
+        touchedOutputs.clear();
+
+        if (fullWalkNeeded || touchedPaths.size() > MAX_INCREMENTAL_PATHS)
+        {
+            fullWalkNeeded = false;
+            touchedPaths.clear();
+            Map<String, Entry> newEntries = new HashMap<>();
+            statusCalls++;
+            org.eclipse.jgit.api.Status status = git.status().call();
+            addEntries(status, newEntries);
+            ignoredPaths.clear();
+            ignoredPaths.addAll(status.getIgnoredNotInIndex());
+            unwatchIgnored();
+            if (!newEntries.equals(entries) || snapshot == null)
+            {
+                entries.clear();
+                entries.putAll(newEntries);
+                publishSnapshot();
+            }
+        }
+        else if (!touchedPaths.isEmpty())
+        {
+            Set<String> scopes = new HashSet<>();
+            for (String path : touchedPaths)
+            {
+                scopes.add(widenToUntrackedFolder(path));
+            }
+            touchedPaths.clear();
+
+            StatusCommand statusCommand = git.status();
+            scopes.forEach(statusCommand::addPath);
+            Map<String, Entry> found = new HashMap<>();
+            statusCalls++;
+            org.eclipse.jgit.api.Status status = statusCommand.call();
+            addEntries(status, found);
+            for (String scope : scopes)
+            {
+                ignoredPaths.removeIf(p -> inScope(p, scope));
+            }
+            ignoredPaths.addAll(status.getIgnoredNotInIndex());
+
+            Map<String, Entry> newEntries = new TreeMap<>(entries);
+            for (String scope : scopes)
+            {
+                newEntries.keySet().removeIf(p -> inScope(p, scope));
+            }
+            found.forEach((path, entry) -> {
+                if (scopes.stream().anyMatch(scope -> inScope(path, scope)))
+                {
+                    newEntries.put(path, entry);
+                }
+            });
+
+            if (!newEntries.equals(entries))
+            {
+                entries.clear();
+                entries.putAll(newEntries);
+                publishSnapshot();
+            }
+        }
+    }
+
+    private void publishSnapshot()
+    {
+        snapshot = new Snapshot(Collections.unmodifiableMap(new TreeMap<>(entries)));
+        snapshotVersion++;
+    }
+
+    /**
+     * Check whether the index or HEAD has changed since the last check. Either may change the
+     * status of any path, and so require a full walk.
+     */
+    private boolean repositoryStateChanged()
+    {
+        File index = git.getRepository().getIndexFile();
+        long modified = index.lastModified();
+        long length = index.length();
+        ObjectId head = null;
+        try
+        {
+            head = git.getRepository().resolve(Constants.HEAD);
+        }
+        catch (IOException e)
+        {
+            // Treat as no HEAD (e.g. a new repository without commits)
+        }
+
+        boolean changed = modified != indexModified || length != indexLength || !Objects.equals(head, headId);
+        indexModified = modified;
+        indexLength = length;
+        headId = head;
+        return changed;
+    }
+
+    /**
+     * If a path lies within a folder currently known to be untracked, get that folder (whose
+     * status as a whole may be changed by changes to the path); otherwise, return the path.
+     */
+    private String widenToUntrackedFolder(String path)
+    {
+        String scope = path;
+        for (int slash = path.indexOf('/'); slash != -1; slash = path.indexOf('/', slash + 1))
+        {
+            String ancestor = path.substring(0, slash);
+            Entry entry = entries.get(ancestor);
+            if (entry != null && (entry.flags & UNTRACKED_FOLDER) != 0)
+            {
+                scope = ancestor;
+                break;
+            }
+        }
+        return scope;
+    }
+
+    /**
+     * Check whether the status of the given path may be affected by a status check of the
+     * given scope: if it is the scope itself, lies within it, or is a folder containing it.
+     */
+    private static boolean inScope(String path, String scope)
+    {
+        return path.equals(scope) || path.startsWith(scope + "/") || scope.startsWith(path + "/");
+    }
+
+    /**
+     * Check whether a path is ignored by Git, either itself or because a folder containing
+     * it is ignored. Must be called while holding the lock on this object.
+     */
+    private boolean isIgnored(String path)
+    {
+        if (ignoredPaths.isEmpty())
+        {
+            return false;
+        }
+        for (int slash = path.indexOf('/'); slash != -1; slash = path.indexOf('/', slash + 1))
+        {
+            if (ignoredPaths.contains(path.substring(0, slash)))
+            {
+                return true;
+            }
+        }
+        return ignoredPaths.contains(path);
+    }
+
+    /**
+     * Check whether a file is an output of compilation, which can be expected to change
+     * often without changes to the project's sources.
+     */
+    private static boolean isBuildOutput(String name)
+    {
+        return name.endsWith(".class") || name.endsWith(".ctxt");
+    }
+
+    private String relativePath(Path path)
+    {
+        return projectPath.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Stop watching directories which are ignored by Git. Must be called while holding the
+     * lock on this object.
+     */
+    private void unwatchIgnored()
+    {
+        if (watchService == null || ignoredPaths.isEmpty())
+        {
+            return;
+        }
+        synchronized (watchedDirs)
+        {
+            watchedDirs.entrySet().removeIf(e -> {
+                Path dir = e.getValue();
+                if (dir.startsWith(gitDirPath) || dir.equals(projectPath) || !isIgnored(relativePath(dir)))
+                {
+                    return false;
+                }
+                e.getKey().cancel();
+                return true;
+            });
+        }
+    }
+
+    private static void addEntries(org.eclipse.jgit.api.Status s, Map<String, Entry> result)
+    {
+        Map<String, Integer> flags = new HashMap<>();
+        s.getMissing().forEach(p -> flags.merge(p, MISSING, (a, b) -> a | b));
+        s.getRemoved().forEach(p -> flags.merge(p, REMOVED, (a, b) -> a | b));
+        s.getUncommittedChanges().forEach(p -> flags.merge(p, UNCOMMITTED, (a, b) -> a | b));
+        s.getUntracked().forEach(p -> flags.merge(p, UNTRACKED, (a, b) -> a | b));
+        s.getUntrackedFolders().forEach(p -> flags.merge(p, UNTRACKED_FOLDER, (a, b) -> a | b));
+        s.getConflicting().forEach(p -> flags.merge(p, CONFLICTING, (a, b) -> a | b));
+        Map<String, IndexDiff.StageState> stageStates = s.getConflictingStageState();
+        flags.forEach((path, f) -> result.put(path, new Entry(f, stageStates.get(path))));
+    }
+
+    /**
+     * Register a directory and all its subdirectories with the watch service. The Git
+     * metadata directory is excluded; it is registered separately. Directories known to be
+     * ignored by Git are also excluded.
+     */
+    private void registerTree(Path root)
+    {
+        try
+        {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                {
+                    if (dir.equals(gitDirPath))
+                    {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    if (!dir.equals(projectPath))
+                    {
+                        synchronized (GitStatusService.this)
+                        {
+                            if (isIgnored(relativePath(dir)))
+                            {
+                                return FileVisitResult.SKIP_SUBTREE;
+                            }
+                        }
+                    }
+                    registerDir(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc)
+                {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Git status: error registering directories to watch", e);
+        }
+    }
+
+    private void registerDir(Path dir)
+    {
+        try
+        {
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            synchronized (watchedDirs)
+            {
+                watchedDirs.put(key, dir);
+            }
+        }
+        catch (IOException | ClosedWatchServiceException e)
+        {
+            // The directory may have been removed again already. If a directory could not be
+            // watched, we don't notice changes within it; force a full walk to be safe:
+            synchronized (this)
+            {
+                fullWalkNeeded = true;
+            }
+        }
+    }
+
+    /**
+     * The main loop of the watcher thread: wait for file changes, record the touched paths,
+     * and once changes settle, recompute the status and push it to subscribers. If only
+     * build outputs were touched, the status is not recomputed.
+     */
+    @OnThread(Tag.Worker)
+    private void watchLoop()
+    {
+        synchronized (gitLock)
+        {
+            try
+            {
+                start();
+            }
+            catch (IOException e)
+            {
+                if (!stopped)
+                {
+                    Debug.reportError("Git status: could not open repository", e);
+                }
+                return;
+            }
+        }
+        if (watchService == null)
+        {
+            return;
+        }
+
+        try
+        {
+            while (!stopped)
+            {
+                WatchKey key = watchService.take();
+                boolean relevant = false;
+                while (key != null)
+                {
+                    relevant |= processEvents(key);
+                    key = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                if (relevant)
+                {
+                    updateAndPush();
+                }
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException e)
+        {
+            // Service has been stopped
+        }
+    }
+
+    /**
+     * Record the changes reported for a watched directory.
+     *
+     * @return  true if the status may need to be recomputed as a result.
+     */
+    private boolean processEvents(WatchKey key)
+    {
+        Path dir;
+        synchronized (watchedDirs)
+        {
+            dir = watchedDirs.get(key);
+        }
+
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents())
+        {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null)
+            {
+                synchronized (this)
+                {
+                    fullWalkNeeded = true;
+                }
+                relevant = true;
+                continue;
+            }
+
+            if (dir.startsWith(gitDirPath))
+            {
+                // Changes to the index or HEAD are detected when the status is next updated.
+                // Changes to the exclude file (in the "info" directory) may change what is ignored:
+                if (!dir.equals(gitDirPath))
+                {
+                    synchronized (this)
+                    {
+                        fullWalkNeeded = true;
+                    }
+                }
+                relevant = true;
+                continue;
+            }
+
+            Path child = dir.resolve((Path) event.context());
+            String name = child.getFileName().toString();
+            String relative = relativePath(child);
+            synchronized (this)
+            {
+                if (SavePipeline.isTemporaryFile(name))
+                {
+                    // Exists only while a file is being saved; the saved file's change is reported:
+                    continue;
+                }
+                else if (name.equals(Constants.DOT_GIT_IGNORE))
+                {
+                    // May change what is ignored anywhere below:
+                    fullWalkNeeded = true;
+                }
+                else if (isIgnored(relative))
+                {
+                    continue;
+                }
+                else if (isBuildOutput(name))
+                {
+                    touchedOutputs.add(relative);
+                    continue;
+                }
+                touchedPaths.add(relative);
+                relevant = true;
+            }
+
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child))
+            {
+                registerTree(child);
+            }
+        }
+
+        if (!key.reset())
+        {
+            synchronized (watchedDirs)
+            {
+                watchedDirs.remove(key);
+            }
+        }
+        return relevant;
+    }
+
+    /**
+     * Bring the status up to date and, if it has changed, push it to all subscribers. The
+     * status is computed once, and each subscriber is given the files its filter accepts.
+     */
+    @OnThread(Tag.Worker)
+    private void updateAndPush()
+    {
+        Map<StatusListener, Subscription> toNotify;
+        synchronized (gitLock)
+        {
+            if (stopped)
+            {
+                return;
+            }
+            synchronized (this)
+            {
+                try
+                {
+                    update();
+                }
+                catch (GitAPIException | NoWorkTreeException e)
+                {
+                    Debug.reportError("Git status: error updating status", e);
+                    return;
+                }
+                synchronized (subscriptions)
+                {
+                    toNotify = new LinkedHashMap<>(subscriptions);
+                }
+                if (pushedVersion == snapshotVersion || toNotify.isEmpty())
+                {
+                    pushedVersion = snapshotVersion;
+                    return;
+                }
+                pushedVersion = snapshotVersion;
+            }
+        }
+
+        List<Subscription> subs = new ArrayList<>(toNotify.values());
+        FileFilter anyFilter = f -> subs.stream().anyMatch(sub -> sub.filter.accept(f));
+        CollectingListener collector = new CollectingListener();
+        new GitStatusCommand(subs.get(0).repository, collector, anyFilter, false).getResult();
+        if (collector.handle == null)
+        {
+            // The command failed (and has reported the error), or the service was stopped
+            return;
+        }
+
+        toNotify.forEach((listener, subscription) -> {
+            if (!stopped)
+            {
+                for (TeamStatusInfo info : collector.infos)
+                {
+                    if (subscription.filter.accept(info.getFile()))
+                    {
+                        listener.gotStatus(info);
+                    }
+                }
+                listener.statusComplete(new GitStatusHandle(subscription.repository,
+                        collector.handle.pushNeeded(), collector.handle.pullNeeded()));
+            }
+        });
+    }
+
+    /**
+     * Collects the results of a status command, to pass on to each subscriber.
+     */
+    private static class CollectingListener implements StatusListener
+    {
+        private final List<TeamStatusInfo> infos = new ArrayList<>();
+        private StatusHandle handle;
+
+        @Override
+        @OnThread(Tag.Worker)
+        public void gotStatus(TeamStatusInfo info)
+        {
+            infos.add(info);
+        }
+
+        @Override
+        @OnThread(Tag.Worker)
+        public void statusComplete(StatusHandle statusHandle)
+        {
+            handle = statusHandle;
+        }
+    }
+
+    /**
+     * Stop watching for changes and close the repository. This does not wait: any status
+     * computation or command in progress is allowed to finish, and the repository is then
+     * closed by a separate thread.
+     */
+    private void stop()
+    {
+        stopped = true;
+        closeWatchService();
+        synchronized (subscriptions)
+        {
+            subscriptions.clear();
+        }
+        Thread closer = new Thread(() -> {
+            synchronized (gitLock)
+            {
+                if (git != null)
+                {
+                    git.close();
+                }
+            }
+        }, "Git status shutdown");
+        closer.setDaemon(true);
+        closer.start();
+    }
+
+    /**
+     * Close the watch service, if there is one, which also ends the watcher thread.
+     */
+    private void closeWatchService()
+    {
+        WatchService ws = watchService;
+        if (ws != null)
+        {
+            try
+            {
+                ws.close();
+            }
+            catch (IOException e)
+            {
+                Debug.reportError("Git status: error closing watch service", e);
+            }
+        }
+    }
+}
@@ -33,6 +33,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
@@ -72,16 +73,25 @@ import threadchecker.Tag;
 @OnThread(Tag.FXPlatform)
 public class HistoryFrame extends FXCustomizedDialog<Void>
 {
+    /** The number of commits to retrieve at a time */
+    private static final int PAGE_SIZE = 100;
+
     private Project project;
+    private Repository repository;
     private HistoryWorker worker;
+    /** Whether there may be more history to retrieve */
+    private boolean moreAvailable = true;
 
-    private List<HistoryInfo> historyInfoList;
+    private final List<HistoryInfo> historyInfoList = new ArrayList<>();
     private ObservableList<HistoryInfo> listModel = FXCollections.observableArrayList();
 
     private ListView<HistoryInfo> historyList = new ListView<>(listModel);
     private ComboBox<String> fileFilterCombo = new ComboBox<>();
     private ComboBox<String> userFilterCombo = new ComboBox<>();
     private ActivityIndicator activityBar = new ActivityIndicator();
+    /** Shown when the filters are in use but not all of the history has been retrieved */
+    private Label partialFilterLabel = new Label();
+    private HBox partialFilterBox = new HBox();
 
     /**
      * Create a new HistoryFrame.
@@ -101,8 +111,17 @@ public class HistoryFrame extends FXCustomizedDialog<Void>
      */
     private Pane makeMainPane()
     {
-        // History list
-        historyList.setCellFactory(param -> new HistoryCell());
+        // History list. More history is fetched when the last entry is displayed:
+        historyList.setCellFactory(param -> new HistoryCell() {
+            @Override
+            public void updateItem(HistoryInfo info, boolean empty)
+            {
+                super.updateItem(info, empty);
+                if (!empty && info != null && getIndex() == listModel.size() - 1) {
+                    fetchNextPage();
+                }
+            }
+        });
         ScrollPane historyPane = new ScrollPane(historyList);
         historyPane.setVbarPolicy(ScrollBarPolicy.AS_NEEDED);
         historyPane.setFitToWidth(true);
@@ -116,10 +135,18 @@ public class HistoryFrame extends FXCustomizedDialog<Void>
         HBox.setMargin(fileFilterCombo, new Insets(0, 40, 0, 0));
         HBox.setMargin(userFilterCombo, new Insets(0, 40, 0, 0));
 
+        Button loadMoreButton = new Button(Config.getString("team.history.loadMore"));
+        loadMoreButton.setOnAction(e -> fetchNextPage());
+        partialFilterBox.setAlignment(Pos.BASELINE_LEFT);
+        partialFilterBox.setSpacing(10);
+        partialFilterBox.getChildren().addAll(partialFilterLabel, loadMoreButton);
+        partialFilterBox.managedProperty().bind(partialFilterBox.visibleProperty());
+        partialFilterBox.setVisible(false);
+
         // Main content pane
         VBox mainPane = new VBox();
         JavaFXUtil.addStyleClass(mainPane, "main-pane");
-        mainPane.getChildren().addAll(historyPane, filterBox);
+        mainPane.getChildren().addAll(historyPane, filterBox, partialFilterBox);
         VBox.setVgrow(historyPane, Priority.ALWAYS);
         return mainPane;
     }
@@ -140,10 +167,18 @@ public class HistoryFrame extends FXCustomizedDialog<Void>
 
     private void prepareData()
     {
-        Repository repository = project.getTeamSettingsController().trytoEstablishRepository(false);
+        repository = project.getTeamSettingsController().trytoEstablishRepository(false);
+        fetchNextPage();
+    }
 
-        if (repository != null) {
-            worker = new HistoryWorker(repository);
+    /**
+     * Start retrieving the next page of history, unless it is already being retrieved
+     * or there is no more.
+     */
+    private void fetchNextPage()
+    {
+        if (repository != null && worker == null && moreAvailable) {
+            worker = new HistoryWorker(repository, historyInfoList.size());
             worker.start();
             activityBar.setRunning(true);
         }
@@ -183,7 +218,19 @@ public class HistoryFrame extends FXCustomizedDialog<Void>
             }
         }
 
-        listModel.setAll(displayList);
+        // When more history has been fetched, the existing entries are usually unchanged;
+        // just add the new ones so that the list keeps its scroll position:
+        if (displayList.size() >= listModel.size() && displayList.subList(0, listModel.size()).equals(listModel)) {
+            listModel.addAll(displayList.subList(listModel.size(), displayList.size()));
+        }
+        else {
+            listModel.setAll(displayList);
+        }
+
+        // The filters only see the history retrieved so far, so say so:
+        partialFilterLabel.setText(Config.getString("team.history.filterPartial")
+                .replace("$", Integer.toString(historyInfoList.size())));
+        partialFilterBox.setVisible((user != null || file != null) && moreAvailable);
     }
 
     /**
@@ -200,6 +247,13 @@ public class HistoryFrame extends FXCustomizedDialog<Void>
      */
     private void resetFilterBoxes()
     {
+        String selectedFile = fileFilterCombo.getSelectionModel().getSelectedIndex() > 0
+                ? fileFilterCombo.getSelectionModel().getSelectedItem() : null;
+        String selectedUser = userFilterCombo.getSelectionModel().getSelectedIndex() > 0
+                ? userFilterCombo.getSelectionModel().getSelectedItem() : null;
+        fileFilterCombo.setOnAction(null);
+        userFilterCombo.setOnAction(null);
+
         SortedSet<String> files = new TreeSet<>();
         SortedSet<String> users = new TreeSet<>();
 
@@ -211,32 +265,42 @@ public class HistoryFrame extends FXCustomizedDialog<Void>
         fileFilterCombo.getItems().clear();
         fileFilterCombo.getItems().add(Config.getString("team.history.allFiles"));
         fileFilterCombo.getItems().addAll(files);
-        fileFilterCombo.getSelectionModel().selectFirst();
+        if (selectedFile != null) {
+            fileFilterCombo.getSelectionModel().select(selectedFile);
+        }
+        else {
+            fileFilterCombo.getSelectionModel().selectFirst();
+        }
         fileFilterCombo.setOnAction(e -> refilter());
 
         userFilterCombo.getItems().clear();
         userFilterCombo.getItems().add(Config.getString("team.history.allUsers"));
         userFilterCombo.getItems().addAll(users);
-        userFilterCombo.getSelectionModel().selectFirst();
+        if (selectedUser != null) {
+            userFilterCombo.getSelectionModel().select(selectedUser);
+        }
+        else {
+            userFilterCombo.getSelectionModel().selectFirst();
+        }
         userFilterCombo.setOnAction(e -> refilter());
     }
 
     /**
-     * A worker class to fetch the required information from the repository
+     * A worker class to fetch one page of history from the repository
      * in the background.
      */
     private class HistoryWorker extends FXWorker implements LogHistoryListener
     {
         private List<HistoryInfo> responseList;
-        private Repository repository;
+        private final boolean firstPage;
         private TeamworkCommand command;
         private TeamworkCommandResult response;
 
-        public HistoryWorker(Repository repository)
+        public HistoryWorker(Repository repository, int skip)
         {
             this.responseList = new ArrayList<>();
-            command = repository.getLogHistory(this);
-            this.repository = repository;
+            this.firstPage = skip == 0;
+            command = repository.getLogHistory(this, skip, PAGE_SIZE);
         }
 
         @OnThread(Tag.Worker)
@@ -247,9 +311,9 @@ public class HistoryFrame extends FXCustomizedDialog<Void>
         }
 
         @OnThread(Tag.Any)
-        public void logInfoAvailable(HistoryInfo hInfo)
+        public void logInfoAvailable(List<HistoryInfo> logInfo)
         {
-            responseList.add(hInfo);
+            responseList.addAll(logInfo);
         }
 
         public void finished()
@@ -257,23 +321,30 @@ public class HistoryFrame extends FXCustomizedDialog<Void>
             if (command != null) {
                 activityBar.setRunning(false);
                 command = null; // marks the command as finished
+                worker = null;
                 if (response.isError()) {
+                    moreAvailable = false;
+                    partialFilterBox.setVisible(false);
                     HistoryFrame.this.dialogThenHide(() -> TeamUtils.handleServerResponseFX(response, HistoryFrame.this.asWindow()));
                 }
                 else {
-                    responseList.sort(new DateCompare());
-
-                    // Make the history list forget the preferred size that was forced
-                    // upon it when we built the frame.
-                    // TODO Maybe not needed in FX
-                    historyList.setPrefSize(-1, -1);
+                    moreAvailable = responseList.size() == PAGE_SIZE;
+                    historyInfoList.addAll(responseList);
+                    historyInfoList.sort(new DateCompare());
 
-                    listModel.setAll(responseList);
-                    historyInfoList = responseList;
+                    if (firstPage) {
+                        // Make the history list forget the preferred size that was forced
+                        // upon it when we built the frame.
+                        // TODO Maybe not needed in FX
+                        historyList.setPrefSize(-1, -1);
+                    }
 
                     resetFilterBoxes();
+                    refilter();
 
-                    DataCollector.teamHistoryProject(project, repository);
+                    if (firstPage) {
+                        DataCollector.teamHistoryProject(project, repository);
+                    }
                 }
             }
         }
@@ -281,6 +352,7 @@ public class HistoryFrame extends FXCustomizedDialog<Void>
         public void abort()
         {
             activityBar.setRunning(false);
+            moreAvailable = false;
             if (command != null) {
                 command.cancel();
                 command = null;
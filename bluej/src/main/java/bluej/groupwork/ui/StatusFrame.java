@@ -23,9 +23,13 @@ package bluej.groupwork.ui;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import javafx.application.Platform;
+
 import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.beans.property.ReadOnlyStringWrapper;
 import javafx.collections.FXCollections;
@@ -74,6 +78,8 @@ public class StatusFrame extends FXCustomizedDialog<Void>
     private Button refreshButton;
     private ActivityIndicator progressBar;
     private StatusWorker worker;
+    /** Receives updated local status from the repository while the window is showing */
+    private LocalStatusListener localStatusListener;
 
     private TableView<TeamStatusInfo> statusTable;
 
@@ -165,6 +171,7 @@ public class StatusFrame extends FXCustomizedDialog<Void>
                 worker.abort();
             }
         });
+        this.setOnHidden(event -> stopLocalStatusUpdates());
     }
 
     /**
@@ -178,12 +185,54 @@ public class StatusFrame extends FXCustomizedDialog<Void>
             refreshButton.setDisable(true);
             worker = new StatusWorker();
             worker.start();
+            if (localStatusListener == null) {
+                localStatusListener = new LocalStatusListener(repository);
+                if (!repository.addStatusListener(localStatusListener, worker.filter)) {
+                    localStatusListener = null;
+                }
+            }
         }
         else {
             hide();
         }
     }
 
+    /**
+     * Stop receiving local status updates from the repository.
+     */
+    private void stopLocalStatusUpdates()
+    {
+        if (localStatusListener != null) {
+            localStatusListener.repository.removeStatusListener(localStatusListener);
+            localStatusListener = null;
+        }
+    }
+
+    /**
+     * Display the given status information in the table.
+     */
+    private void showStatus(ObservableList<TeamStatusInfo> resources)
+    {
+        resources.sort((info0, info1) -> info1.getStatus().ordinal() - info0.getStatus().ordinal());
+
+        TeamViewFilter filter = new TeamViewFilter();
+        // Remove old package files from display
+        resources.removeIf(info -> !filter.accept(info));
+        statusModel.setStatusData(resources);
+
+        if (statusTable.getItems() != null ) {
+            statusTable.getItems().clear();
+        }
+        statusTable.refresh();
+        statusTable.setItems(resources);
+
+        // Sort by status, descending. The sort above actually does this, but this makes it visible
+        // in the UI by marking the second column header with an indicator:
+        TableColumn<TeamStatusInfo,?> secondColumn = statusTable.getColumns().get(1);
+        statusTable.getSortOrder().setAll(secondColumn);
+        secondColumn.setSortType(SortType.DESCENDING);
+    }
+
     /**
      * Find the table entry at a particular column for a specific info object (row).
      *
@@ -258,12 +307,7 @@ public class StatusFrame extends FXCustomizedDialog<Void>
                     StatusFrame.this.dialogThenHide(() -> TeamUtils.handleServerResponseFX(result, StatusFrame.this.asWindow()));
                 }
                 else {
-                    resources.sort((info0, info1) -> info1.getStatus().ordinal() - info0.getStatus().ordinal());
-
-                    TeamViewFilter filter = new TeamViewFilter();
-                    // Remove old package files from display
-                    resources.removeIf(info -> !filter.accept(info));
-                    statusModel.setStatusData(resources);
+                    showStatus(resources);
 
                     Map<File, String> statusMap = new HashMap<>();
 
@@ -275,18 +319,47 @@ public class StatusFrame extends FXCustomizedDialog<Void>
                     DataCollector.teamStatusProject(project, repository, statusMap);
                 }
                 refreshButton.setDisable(false);
-                if (statusTable.getItems() != null ) {
-                    statusTable.getItems().clear();
-                }
-                statusTable.refresh();
-                statusTable.setItems(resources);
-                
-                // Sort by status, descending. The sort above actually does this, but this makes it visible
-                // in the UI by marking the second column header with an indicator:
-                TableColumn<TeamStatusInfo,?> secondColumn = statusTable.getColumns().get(1);
-                statusTable.getSortOrder().add(secondColumn);
-                secondColumn.setSortType(SortType.DESCENDING);
             }
+            worker = null;
+        }
+    }
+
+    /**
+     * Receives the status of local files from the repository whenever it changes, so that the
+     * window stays current without the user needing to refresh it. The remote status is
+     * as of the last fetch from the remote repository.
+     */
+    private class LocalStatusListener implements StatusListener
+    {
+        private final Repository repository;
+        @OnThread(Tag.Worker)
+        private List<TeamStatusInfo> received = new ArrayList<>();
+
+        @OnThread(Tag.Any)
+        public LocalStatusListener(Repository repository)
+        {
+            this.repository = repository;
+        }
+
+        @Override
+        @OnThread(Tag.Worker)
+        public void gotStatus(TeamStatusInfo info)
+        {
+            received.add(info);
+        }
+
+        @Override
+        @OnThread(Tag.Worker)
+        public void statusComplete(StatusHandle statusHandle)
+        {
+            List<TeamStatusInfo> infos = received;
+            received = new ArrayList<>();
+            Platform.runLater(() -> {
+                // A full refresh in progress will show more complete information:
+                if (localStatusListener == this && worker == null) {
+                    showStatus(FXCollections.observableArrayList(infos));
+                }
+            });
         }
     }
 }
@@ -0,0 +1,169 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+
+import bluej.parser.lexer.LocatableToken;
+import bluej.utility.Debug;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A parser which extracts the declarations (types, methods, constructors and fields) from a
+ * compilation unit, with their locations. It uses the same parser callbacks from which the
+ * editor builds its ParsedCUNode tree, but does not need a document, so it can be used on
+ * any source text on any thread.
+ */
+@OnThread(value = Tag.Any, ignoreParent = true)
+public class DeclarationParser extends JavaParser
+{
+    /**
+     * The kind of a declaration.
+     */
+    public static enum Kind
+    {
+        TYPE, METHOD, CONSTRUCTOR, FIELD
+    }
+
+    /**
+     * A declaration found in the source.
+     */
+    public record Declaration(Kind kind, String name, String container, int line, int column)
+    {
+        /**
+         * Get the qualified name of the declaration within the compilation unit,
+         * for instance "Outer.Inner.method".
+         */
+        public String qualifiedName()
+        {
+            return container.isEmpty() ? name : container + "." + name;
+        }
+    }
+
+    private final List<Declaration> declarations = new ArrayList<>();
+    /** The enclosing type names (null for a type whose name has not yet been seen) */
+    private final Stack<String> typeNames = new Stack<>();
+
+    /**
+     * Parse the given source and collect its declarations. Parse errors are
+     * ignored; the parser recovers and continues. If the parser fails altogether,
+     * the problem is logged, and the declarations found up to that point are kept.
+     */
+    public DeclarationParser(Reader r)
+    {
+        super(r);
+        try {
+            parseCU();
+        }
+        catch (RuntimeException e) {
+            Debug.reportError("Exception while parsing declarations", e);
+        }
+    }
+
+    /**
+     * Get the declarations, in source order.
+     */
+    public List<Declaration> getDeclarations()
+    {
+        return declarations;
+    }
+
+    @Override
+    protected void error(String msg, int beginLine, int beginCol, int endLine, int endCol)
+    {
+        // Just try and recover.
+    }
+
+    private String getContainer()
+    {
+        StringBuilder container = new StringBuilder();
+        for (String typeName : typeNames) {
+            if (typeName != null) {
+                if (container.length() > 0) {
+                    container.append('.');
+                }
+                container.append(typeName);
+            }
+        }
+        return container.toString();
+    }
+
+    private void addDeclaration(Kind kind, LocatableToken token)
+    {
+        if (token != null) {
+            declarations.add(new Declaration(kind, token.getText(), getContainer(), token.getLine(), token.getColumn()));
+        }
+    }
+
+    @Override
+    protected void gotTypeDef(LocatableToken firstToken, int tdType)
+    {
+        typeNames.push(null);
+    }
+
+    @Override
+    protected void gotTypeDefName(LocatableToken nameToken)
+    {
+        if (!typeNames.isEmpty()) {
+            typeNames.pop();
+            addDeclaration(Kind.TYPE, nameToken);
+            typeNames.push(nameToken.getText());
+        }
+    }
+
+    @Override
+    protected void gotTypeDefEnd(LocatableToken token, boolean included)
+    {
+        if (!typeNames.isEmpty()) {
+            typeNames.pop();
+        }
+        super.gotTypeDefEnd(token, included);
+    }
+
+    @Override
+    protected void gotMethodDeclaration(LocatableToken token, LocatableToken hiddenToken)
+    {
+        addDeclaration(Kind.METHOD, token);
+    }
+
+    @Override
+    protected void gotConstructorDecl(LocatableToken token, LocatableToken hiddenToken)
+    {
+        addDeclaration(Kind.CONSTRUCTOR, token);
+    }
+
+    @Override
+    protected void gotField(LocatableToken first, LocatableToken idToken, boolean initExpressionFollows)
+    {
+        addDeclaration(Kind.FIELD, idToken);
+    }
+
+    @Override
+    protected void gotSubsequentField(LocatableToken first, LocatableToken idToken, boolean initFollows)
+    {
+        addDeclaration(Kind.FIELD, idToken);
+    }
+}
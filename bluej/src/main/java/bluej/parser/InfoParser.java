@@ -22,10 +22,12 @@
 package bluej.parser;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
@@ -56,6 +58,7 @@ import bluej.parser.symtab.ClassInfo;
 import bluej.parser.symtab.Selection;
 import bluej.pkgmgr.Package;
 import bluej.utility.JavaNames;
+import bluej.utility.SavePipeline;
 
 /**
  * The main BlueJ parser, which extracts various information from source code including:
@@ -171,7 +174,9 @@ public class InfoParser extends EditorParser
     @OnThread(Tag.FXPlatform)
     public static ClassInfo parseWithPkg(File f, Package pkg) throws FileNotFoundException
     {
-        FileInputStream fis = new FileInputStream(f);
+        // The file may have been saved but not yet written:
+        byte[] pending = SavePipeline.getInstance().getPendingContent(f);
+        InputStream fis = pending != null ? new ByteArrayInputStream(pending) : new FileInputStream(f);
         EntityResolver resolver = new PackageResolver(pkg.getProject().getEntityResolver(),
                 pkg.getQualifiedName());
         Reader reader = new InputStreamReader(fis, pkg.getProject().getProjectCharset());
@@ -0,0 +1,267 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import bluej.parser.entity.EntityResolver;
+import bluej.parser.nodes.NodeStructureListener;
+import bluej.parser.nodes.NodeTree.NodeAndPosition;
+import bluej.parser.nodes.ParsedCUNode;
+import bluej.parser.nodes.ParsedNode;
+import bluej.parser.nodes.ReparseableDocument;
+
+/**
+ * A read-only document used to build the full parsed node structure of a source file
+ * which is not open in an editor.  The source is parsed completely when the document is
+ * created; the document must not be modified afterwards.
+ */
+public class SourceParseDocument implements ReparseableDocument
+{
+    private static final NodeStructureListener NO_LISTENER = new NodeStructureListener()
+    {
+        @Override
+        public void nodeAdded(NodeAndPosition<ParsedNode> node)
+        {
+        }
+
+        @Override
+        public void nodeRemoved(NodeAndPosition<ParsedNode> node)
+        {
+        }
+
+        @Override
+        public void nodeChangedLength(NodeAndPosition<ParsedNode> node, int oldPos, int oldSize)
+        {
+        }
+    };
+
+    private final String source;
+    /** The start position of each line */
+    private final int[] lineStarts;
+    private final ParsedCUNode rootNode;
+    /** Sections waiting to be parsed, as a map from start to end position */
+    private final TreeMap<Integer, Integer> pending = new TreeMap<>();
+
+    /**
+     * Parse the given source, resolving references via the given resolver.
+     */
+    public SourceParseDocument(String source, EntityResolver resolver)
+    {
+        this.source = source;
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        for (int i = 0; i < source.length(); i++)
+        {
+            if (source.charAt(i) == '\n')
+            {
+                starts.add(i + 1);
+            }
+        }
+        lineStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+
+        rootNode = new ParsedCUNode(resolver);
+        rootNode.textInserted(this, 0, 0, source.length(), NO_LISTENER);
+        flushReparseQueue();
+    }
+
+    @Override
+    public ParsedCUNode getParser()
+    {
+        return rootNode;
+    }
+
+    @Override
+    public int getLength()
+    {
+        return source.length();
+    }
+
+    @Override
+    public Reader makeReader(int startPos, int endPos)
+    {
+        return new StringReader(source.substring(startPos, endPos));
+    }
+
+    @Override
+    public void scheduleReparse(int pos, int size)
+    {
+        int start = pos;
+        int end = pos + size;
+        // Merge with any overlapping or adjacent sections:
+        Map.Entry<Integer, Integer> before = pending.floorEntry(start);
+        if (before != null && before.getValue() >= start)
+        {
+            start = before.getKey();
+            end = Math.max(end, before.getValue());
+            pending.remove(before.getKey());
+        }
+        Map.Entry<Integer, Integer> after = pending.ceilingEntry(start);
+        while (after != null && after.getKey() <= end)
+        {
+            end = Math.max(end, after.getValue());
+            pending.remove(after.getKey());
+            after = pending.ceilingEntry(start);
+        }
+        pending.put(start, end);
+    }
+
+    @Override
+    public void markSectionParsed(int pos, int size)
+    {
+        int end = pos + size;
+        for (Map.Entry<Integer, Integer> section : new ArrayList<>(pending.headMap(end, true).entrySet()))
+        {
+            int sectionStart = section.getKey();
+            int sectionEnd = section.getValue();
+            boolean overlaps = sectionStart == sectionEnd
+                ? sectionStart == pos || (sectionStart > pos && sectionStart < end)
+                : sectionStart < end && sectionEnd > pos;
+            if (overlaps)
+            {
+                pending.remove(sectionStart);
+                if (sectionStart < pos)
+                {
+                    pending.put(sectionStart, pos);
+                }
+                if (sectionEnd > end)
+                {
+                    pending.put(end, sectionEnd);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void flushReparseQueue()
+    {
+        while (!pending.isEmpty())
+        {
+            int pos = pending.firstKey();
+
+            // Find the innermost node which should handle the reparse (as JavaSyntaxView does):
+            ParsedNode pn = rootNode;
+            int ppos = 0;
+            NodeAndPosition<ParsedNode> cn = pn.findNodeAt(pos, ppos);
+            while (cn != null && cn.getEnd() == pos)
+            {
+                cn = cn.nextSibling();
+            }
+            while (cn != null && cn.getPosition() <= pos)
+            {
+                ppos = cn.getPosition();
+                pn = cn.getNode();
+                cn = pn.findNodeAt(pos, ppos);
+                while (cn != null && cn.getEnd() == pos)
+                {
+                    cn = cn.nextSibling();
+                }
+            }
+
+            pn.reparse(this, ppos, pos, source.length(), NO_LISTENER);
+        }
+    }
+
+    @Override
+    public Element getDefaultRootElement()
+    {
+        return new Element()
+        {
+            @Override
+            public Element getElement(int index)
+            {
+                return index < lineStarts.length ? new LineElement(index) : null;
+            }
+
+            @Override
+            public int getStartOffset()
+            {
+                return 0;
+            }
+
+            @Override
+            public int getEndOffset()
+            {
+                return source.length();
+            }
+
+            @Override
+            public int getElementIndex(int offset)
+            {
+                int index = Arrays.binarySearch(lineStarts, offset);
+                return index >= 0 ? index : -index - 2;
+            }
+
+            @Override
+            public int getElementCount()
+            {
+                return lineStarts.length;
+            }
+        };
+    }
+
+    private class LineElement implements Element
+    {
+        private final int line;
+
+        private LineElement(int line)
+        {
+            this.line = line;
+        }
+
+        @Override
+        public Element getElement(int index)
+        {
+            return null;
+        }
+
+        @Override
+        public int getStartOffset()
+        {
+            return lineStarts[line];
+        }
+
+        @Override
+        public int getEndOffset()
+        {
+            return line + 1 < lineStarts.length ? lineStarts[line + 1] : source.length();
+        }
+
+        @Override
+        public int getElementIndex(int offset)
+        {
+            return -1;
+        }
+
+        @Override
+        public int getElementCount()
+        {
+            return 0;
+        }
+    }
+}
@@ -333,8 +333,41 @@ public class ParsedReflective extends Reflective
     @Override
     public List<ConstructorReflective> getDeclaredConstructors()
     {
-        // TODO actually pick out the constructors:
-        return Collections.emptyList();
+        List<ConstructorReflective> rlist = new ArrayList<ConstructorReflective>();
+        TypeInnerNode pnodeInner = pnode.getInner();
+        if (pnodeInner == null) {
+            return rlist;
+        }
+
+        boolean anyDeclared = false;
+        for (Set<MethodNode> mset : pnodeInner.getMethods().values()) {
+            constructorLoop:
+            for (MethodNode method : mset) {
+                if (method.getReturnType() != null) continue; // not a constructor
+                anyDeclared = true;
+                List<JavaType> paramTypes = new ArrayList<JavaType>();
+                for (JavaEntity mparam : method.getParamTypes()) {
+                    TypeEntity mtent = mparam.resolveAsType();
+                    if (mtent == null) continue constructorLoop;
+                    paramTypes.add(mtent.getType());
+                }
+                List<GenTypeDeclTpar> tparTypes = method.getTypeParams();
+                ConstructorReflective cref = new ConstructorReflective(
+                        tparTypes != null ? tparTypes : Collections.<GenTypeDeclTpar>emptyList(),
+                        paramTypes, this, method.isVarArgs(), method.getModifiers());
+                cref.setJavaDoc(JavaUtils.javadocToString(method.getJavadoc()));
+                cref.setParamNames(method.getParamNames());
+                rlist.add(cref);
+            }
+        }
+
+        if (! anyDeclared && pnode.getTypeKind() == JavaParser.TYPEDEF_CLASS) {
+            // The compiler supplies a default constructor, with the same access as the class:
+            int access = pnode.getModifiers() & (Modifier.PUBLIC | Modifier.PROTECTED | Modifier.PRIVATE);
+            rlist.add(new ConstructorReflective(Collections.<GenTypeDeclTpar>emptyList(),
+                    Collections.<JavaType>emptyList(), this, false, access));
+        }
+        return rlist;
     }
     
     @Override
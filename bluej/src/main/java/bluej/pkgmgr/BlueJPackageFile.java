@@ -88,6 +88,15 @@ public class BlueJPackageFile
         return "BlueJ package file in: " + dir.toString();
     }
 
+    /**
+     * Get the package file (package.bluej). This may not exist, if there is only an old
+     * package file (bluej.pkg).
+     */
+    File getFile()
+    {
+        return pkgFile;
+    }
+
     /**
      * Whether a BlueJ package file exists in this directory.
      */
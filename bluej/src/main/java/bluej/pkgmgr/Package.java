@@ -30,6 +30,8 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -87,6 +89,8 @@ public final class Package
     static final String compiling = Config.getString("pkgmgr.compiling");
     /** message to be shown on the status bar */
     static final String compileDone = Config.getString("pkgmgr.compileDone");
+    /** message to be shown on the status bar when dependent classes did not need recompiling */
+    static final String compileDoneSkipped = Config.getString("pkgmgr.compileDoneSkipped");
     /** message to be shown on the status bar */
     static final String chooseUsesTo = Config.getString("pkgmgr.chooseUsesTo");
     /** message to be shown on the status bar */
@@ -1066,7 +1070,13 @@ public final class Package
     private PackageFile getPkgFile()
     {
         File dir = getPath();
-        return PackageFileFactory.getPackageFile(dir);
+        PackageFile file = PackageFileFactory.getPackageFile(dir);
+        ProjectModelFile modelFile = getProject().getModelFile();
+        if (modelFile != null && file instanceof BlueJPackageFile)
+        {
+            return modelFile.getPackageFile(getQualifiedName(), (BlueJPackageFile) file);
+        }
+        return file;
     }
 
     /**
@@ -1480,7 +1490,7 @@ public final class Package
             {
                 if (!ct.isCompiled() && !ct.isQueued())
                 {
-                    ct.ensureSaved();
+                    ct.ensureSavedInBackground();
                     toCompile.add(ct);
                     ct.setQueued(true);
                 }
@@ -1659,7 +1669,7 @@ public final class Package
                 ClassTarget ct = i.next();
                 // we don't want to try and compile if it is a class target without src
                 if (ct.hasSourceCode()) {
-                    ct.ensureSaved();
+                    ct.ensureSavedInBackground();
                     ct.markModified();
                     ct.setQueued(true);
                 }
@@ -1717,7 +1727,7 @@ public final class Package
         try {
             List<ClassTarget> queue = new LinkedList<ClassTarget>();
             toCompile.add(t);
-            t.ensureSaved();
+            t.ensureSavedInBackground();
             queue.add(t);
             t.setQueued(true);
 
@@ -1729,7 +1739,7 @@ public final class Package
                     if (dependency instanceof ClassTarget to)
                     {
                         if (!to.isCompiled() && ! to.isQueued() && toCompile.add(to)) {
-                            to.ensureSaved();
+                            to.ensureSavedInBackground();
                             to.setQueued(true);
                             queue.add(to);
                         }
@@ -1762,9 +1772,54 @@ public final class Package
         List<CompileInputFile> srcFiles = Utility.mapList(targetList, ClassTarget::getCompileInputFile);
         if (srcFiles.size() > 0 && srcFiles.stream().allMatch(CompileInputFile::isValid))
         {
+            Map<String, Supplier<byte[]>> dependencyAbis = null;
+            if (type.keepClasses())
+            {
+                // So that we can tell afterwards whether dependent classes need recompiling:
+                for (ClassTarget ct : targetList)
+                {
+                    ct.recordAbiBeforeCompile();
+                }
+                dependencyAbis = getDependencyAbis(targetList);
+            }
             JobQueue.getJobQueue().addJob(srcFiles.toArray(new CompileInputFile[0]), observer, project.getClassLoader(), project.getProjectDir(),
-                ! PrefMgr.getFlag(PrefMgr.SHOW_UNCHECKED), project.getProjectCharset(), reason, type);
+                ! PrefMgr.getFlag(PrefMgr.SHOW_UNCHECKED), project.getProjectCharset(), reason, type, dependencyAbis);
+        }
+    }
+
+    /**
+     * Get the ABI hashes of the classes which the given classes depend on, directly or
+     * indirectly, for the class output cache (see ClassOutputCache).  Returns null if the
+     * cache cannot be used: if one of those classes is not compiled (or is about to be),
+     * or if the project has more than one package, since dependencies on classes in
+     * other packages are not tracked.  Any hashes which are not already known are computed
+     * by the compile job, so that the class files are not read here.
+     */
+    private Map<String, Supplier<byte[]>> getDependencyAbis(Collection<ClassTarget> targetList)
+    {
+        if (project.getPackageNames().size() > 1)
+        {
+            return null;
+        }
+        Map<String, Supplier<byte[]>> abis = new HashMap<>();
+        Set<ClassTarget> visited = new HashSet<>(targetList);
+        Deque<ClassTarget> queue = new ArrayDeque<>(targetList);
+        while (!queue.isEmpty())
+        {
+            for (DependentTarget d : queue.remove().dependencies())
+            {
+                if (d instanceof ClassTarget dependency && visited.add(dependency))
+                {
+                    if (!dependency.isCompiled() || dependency.isQueued())
+                    {
+                        return null;
+                    }
+                    abis.put(dependency.getQualifiedName(), dependency.getAbiSupplier());
+                    queue.add(dependency);
+                }
+            }
         }
+        return abis;
     }
 
     /**
@@ -2395,15 +2450,20 @@ public final class Package
 
     /**
      * A breakpoint in this package was hit.
+     * 
+     * @param breakpointMessage  a message about the breakpoint to show in the editor, or null
      */
     @OnThread(Tag.FXPlatform)
-    public void hitBreakpoint(DebuggerThread thread, String classSourceName, int lineNumber, DebuggerObject currentObject)
+    public void hitBreakpoint(DebuggerThread thread, String classSourceName, int lineNumber, DebuggerObject currentObject, String breakpointMessage)
     {
         String msg = null;
         if (PrefMgr.getFlag(PrefMgr.ACCESSIBILITY_SUPPORT)) {
             msg = Config.getString("debugger.accessibility.breakpoint");
             msg = msg.replace("$", thread.getName());
         }
+        if (breakpointMessage != null) {
+            msg = (msg == null) ? breakpointMessage : msg + " " + breakpointMessage;
+        }
 
         if (!showSource(thread, classSourceName, lineNumber, ShowSourceReason.BREAKPOINT_HIT, msg, currentObject))
         {
@@ -2789,6 +2849,15 @@ public final class Package
             // Compile the classes that have no direct/indirect dependencies that have compile errors
             doCompile(readyToCompileList, this, CompileReason.USER, CompileType.EXPLICIT_USER_COMPILE);
 
+            int skipped = 0;
+            if (type.keepClasses())
+            {
+                // Recompile the classes which use a compiled class whose ABI has changed:
+                List<ClassTarget> abiChangedDependents = new ArrayList<>();
+                skipped = checkAbiChanges(targetsToAnalyse, abiChangedDependents);
+                doCompile(abiChangedDependents, this, CompileReason.MODIFIED, type);
+            }
+
             for (ClassTarget classTarget : targetsToAnalyse)
             {
                 classTarget.analyseAfterCompile();
@@ -2796,7 +2865,7 @@ public final class Package
 
             if (type.keepClasses())
             {
-                setStatus(compileDone);
+                setStatus(skipped == 0 ? compileDone : compileDoneSkipped.replace("$", Integer.toString(skipped)));
             }
             fireChangedEvent();
 
@@ -2812,6 +2881,110 @@ public final class Package
         }
     }
 
+    /**
+     * After a compilation, compare the ABI of each compiled class with that of its previous
+     * class files. The dependent classes of those whose ABI has changed are invalidated, and
+     * added to the given list to be recompiled; the dependents of the others can keep their
+     * class files.
+     * 
+     * <p>A class's ABI hash covers only the members it declares, so a change to a class is
+     * also treated as a change to all of its direct and indirect subclasses and implementers,
+     * which inherit its members.
+     * 
+     * @param compiled  The classes which were successfully compiled
+     * @param toRecompile  A list to which the invalidated classes are added
+     * @return  The number of classes which would have been recompiled had we not checked the
+     *          ABI: the direct and indirect dependents of the compiled classes, other than those
+     *          which were compiled or now need recompiling (and their dependents).
+     */
+    private int checkAbiChanges(List<ClassTarget> compiled, List<ClassTarget> toRecompile)
+    {
+        List<ClassTarget> changed = new ArrayList<>();
+        for (ClassTarget t : compiled)
+        {
+            if (t.updateAbiAfterCompile())
+            {
+                changed.add(t);
+            }
+        }
+
+        Set<ClassTarget> affected = findAbiAffected(changed,
+                t -> Utility.mapList(t.subtypes(), d -> (ClassTarget) d),
+                t -> Utility.mapList(t.dependents(), d -> (ClassTarget) d));
+        for (ClassTarget dependent : affected)
+        {
+            if (dependent.hasSourceCode() && dependent.isCompiled() && !dependent.isQueued()
+                    && !compiled.contains(dependent))
+            {
+                dependent.invalidateSelf();
+                dependent.setQueued(true);
+                toRecompile.add(dependent);
+            }
+        }
+
+        Set<ClassTarget> unaffected = findDependents(compiled);
+        unaffected.removeAll(findDependents(toRecompile));
+        unaffected.removeAll(toRecompile);
+        unaffected.removeAll(compiled);
+        return unaffected.size();
+    }
+
+    /**
+     * Find the classes which must be recompiled because the ABI of the given classes has
+     * changed. Each changed class's ABI is inherited by its direct and indirect subtypes,
+     * so those are treated as changed too; the result is all of these classes together
+     * with their direct dependents. The result may include the changed classes themselves.
+     * 
+     * @param changed  The classes whose own ABI has changed
+     * @param subtypes  Gives the classes which directly extend or implement a class
+     * @param dependents  Gives the classes which directly depend on a class
+     */
+    static <T> Set<T> findAbiAffected(Collection<T> changed,
+            Function<T, Collection<T>> subtypes,
+            Function<T, Collection<T>> dependents)
+    {
+        Set<T> inherited = new LinkedHashSet<>(changed);
+        Deque<T> queue = new ArrayDeque<>(changed);
+        while (!queue.isEmpty())
+        {
+            for (T subtype : subtypes.apply(queue.remove()))
+            {
+                if (inherited.add(subtype))
+                {
+                    queue.add(subtype);
+                }
+            }
+        }
+
+        Set<T> affected = new LinkedHashSet<>(inherited);
+        for (T t : inherited)
+        {
+            affected.addAll(dependents.apply(t));
+        }
+        return affected;
+    }
+
+    /**
+     * Find all the direct and indirect dependents (with source code) of the given classes.
+     */
+    private static Set<ClassTarget> findDependents(Collection<ClassTarget> classes)
+    {
+        Set<ClassTarget> found = new HashSet<>();
+        Deque<ClassTarget> queue = new ArrayDeque<>(classes);
+        while (!queue.isEmpty())
+        {
+            for (DependentTarget d : queue.remove().dependents())
+            {
+                ClassTarget dependent = (ClassTarget) d;
+                if (dependent.hasSourceCode() && found.add(dependent))
+                {
+                    queue.add(dependent);
+                }
+            }
+        }
+        return found;
+    }
+
     /**
      * The same, but also display error/warning messages for the user
      */
@@ -37,12 +37,15 @@ import bluej.pkgmgr.target.DependentTarget;
 import bluej.pkgmgr.target.Target;
 import bluej.testmgr.record.InvokerRecord;
 import bluej.utility.DialogManager;
+import bluej.utility.SpatialGrid;
 import bluej.utility.Utility;
 import bluej.utility.javafx.JavaFXUtil;
 import bluej.utility.javafx.ResizableCanvas;
 import bluej.views.CallableView;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
 import javafx.geometry.Point2D;
 import javafx.geometry.Rectangle2D;
 import javafx.scene.Node;
@@ -108,6 +111,12 @@ public final class PackageEditor extends StackPane
     private final Canvas arrowLayer = new ResizableCanvas();
     // Boolean remembering whether we've already scheduled a repaint.
     private boolean aboutToRepaint = false;
+    // The arrows currently drawn on the arrow layer, indexed by their bounds:
+    private final SpatialGrid<ArrowInfo> drawnArrows = new SpatialGrid<>(ARROW_GRID_CELL_SIZE);
+    private Set<ArrowInfo> drawnArrowSet = Collections.emptySet();
+    // The size of the arrow layer when the arrows were last drawn:
+    private double drawnWidth = -1;
+    private double drawnHeight = -1;
     // The ContextMenu that is currently being shown on screen (null if not visible)
     @OnThread(Tag.FXPlatform)
     private ContextMenu showingContextMenu;
@@ -439,6 +448,12 @@ public final class PackageEditor extends StackPane
     private static final int ARROW_SIZE = 18; // pixels
     private static final double ARROW_ANGLE = Math.PI / 6; // radians
     private static final double DASHES[] = {5.0f, 2.0f};
+    // Extra space around an arrow's lines which drawing it may touch (thick lines, anti-aliasing):
+    private static final double ARROW_PADDING = 3.0;
+    // The size of the cells in the spatial index of drawn arrows:
+    private static final double ARROW_GRID_CELL_SIZE = 200.0;
+    // If more than this proportion of the arrow layer has changed, we redraw it all:
+    private static final double MAX_PARTIAL_REPAINT_PROPORTION = 0.5;
 
     /**
      * Schedules a repaint.  The repaint is done with a runLater,
@@ -533,12 +548,31 @@ public final class PackageEditor extends StackPane
         return selectionController.getSelection();
     }
 
+    /**
+     * An arrow drawn on the arrow layer.  Two arrows are equal if they would draw
+     * exactly the same thing, which is how we work out which parts of the arrow layer
+     * need redrawing.
+     */
+    @OnThread(Tag.FXPlatform)
+    private interface ArrowInfo
+    {
+        /**
+         * Gets the bounds of everything that draw() may paint.
+         */
+        public Bounds getBounds();
+
+        /**
+         * Draws the arrow.
+         */
+        public void draw(GraphicsContext g);
+    }
+
     /**
      * A class caching the vital details needed to draw an extends dependency line,
      * which could be either real and finished, or in-progress of being created.
      */
     @OnThread(Tag.FXPlatform)
-    private static class ExtendsDepInfo
+    private static class ExtendsDepInfo implements ArrowInfo
     {
         private final Dependency.Line line;
         private final boolean selected;
@@ -591,41 +625,23 @@ public final class PackageEditor extends StackPane
             selected = false;
             creating = true;
         }
-    }
-
-    /**
-     * Does the actual repaint of the arrowLayer (do not call directly;
-     * see repaint method).
-     */
-    private void actualRepaint()
-    {
-        aboutToRepaint = false;
-        List<Dependency> extendsDeps = isShowExtends() ? new ArrayList<>(pkg.getExtendsArrows()) : Collections.emptyList();;
-        List<UsesDependency> usesDeps = isShowUses() ? new ArrayList<>(pkg.getUsesArrows()) : Collections.emptyList();
 
-        List<ExtendsDepInfo> extendsLines = new ArrayList<>(Utility.mapList(extendsDeps, ExtendsDepInfo::new));
-        if (extendsSubClass != null)
+        @Override
+        public Bounds getBounds()
         {
-            if (extendsSuperClassHover != null)
-            {
-                extendsLines.add(new ExtendsDepInfo(extendsSubClass, extendsSuperClassHover));
-            }
-            else
-            {
-                Point2D p = arrowLayer.sceneToLocal(newExtendsDestX, newExtendsDestY);
-                extendsLines.add(new ExtendsDepInfo(extendsSubClass, p.getX(), p.getY()));
-            }
+            // The arrow head is at the "to" end, and may stick out by the arrow size:
+            double pad = ARROW_SIZE + ARROW_PADDING;
+            return new BoundingBox(Math.min(line.from.getX(), line.to.getX()) - pad,
+                Math.min(line.from.getY(), line.to.getY()) - pad,
+                Math.abs(line.from.getX() - line.to.getX()) + 2 * pad,
+                Math.abs(line.from.getY() - line.to.getY()) + 2 * pad);
         }
-        
-        
-        GraphicsContext g = arrowLayer.getGraphicsContext2D();
-        g.clearRect(0, 0, arrowLayer.getWidth(), arrowLayer.getHeight());
 
-        for (ExtendsDepInfo d : extendsLines)
+        @Override
+        public void draw(GraphicsContext g)
         {
-            g.setStroke(d.creating ? Color.BLUE : Color.BLACK);
-            g.setLineWidth(d.selected ? 3.0 : 1.0);
-            Dependency.Line line = d.line;
+            g.setStroke(creating ? Color.BLUE : Color.BLACK);
+            g.setLineWidth(selected ? 3.0 : 1.0);
             double fromY = line.from.getY();
             double fromX = line.from.getX();
             double toY = line.to.getY();
@@ -644,7 +660,7 @@ public final class PackageEditor extends StackPane
                     toY - (ARROW_SIZE * Math.sin(angle - ARROW_ANGLE))};
             g.setLineDashes();
             g.strokePolygon(xPoints, yPoints, 3);
-            if (d.type==Dependency.Type.IMPLEMENTS)
+            if (type==Dependency.Type.IMPLEMENTS)
             {
                 g.setLineDashes(DASHES);
             }
@@ -655,50 +671,85 @@ public final class PackageEditor extends StackPane
             g.strokeLine(fromX, fromY, arrowJoinX, arrowJoinY);
         }
 
-        for (UsesDependency d : usesDeps)
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ExtendsDepInfo that = (ExtendsDepInfo) o;
+            return selected == that.selected && creating == that.creating && type == that.type
+                && line.from.equals(that.line.from) && line.to.equals(that.line.to);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(line.from, line.to, selected, creating, type);
+        }
+    }
+
+    /**
+     * The vital details needed to draw a uses dependency line.
+     */
+    @OnThread(Tag.FXPlatform)
+    private record UsesDepInfo(double srcX, double srcY, double dstX, double dstY,
+                               boolean startTop, boolean endLeft) implements ArrowInfo
+    {
+        public UsesDepInfo(UsesDependency d)
+        {
+            // These should all be rounded to the nearest integer+0.5 value:
+            this(d.getSourceX(), d.getSourceY(), d.getDestX(), d.getDestY(), d.isStartTop(), d.isEndLeft());
+        }
+
+        @Override
+        public Bounds getBounds()
+        {
+            // The corners and the arrow head are at most 15 pixels outside the end points:
+            double pad = 15 + ARROW_PADDING;
+            return new BoundingBox(Math.min(srcX, dstX) - pad, Math.min(srcY, dstY) - pad,
+                Math.abs(srcX - dstX) + 2 * pad, Math.abs(srcY - dstY) + 2 * pad);
+        }
+
+        @Override
+        public void draw(GraphicsContext g)
         {
-            // Special case - don't draw a dependency line between a Foo class and the FooTest class:
-            if (d.to instanceof DependentTarget && ((DependentTarget)d.to).getAssociation() == d.from)
-                continue;
-            
             g.setLineWidth(1.0);
             g.setLineDashes(DASHES);
-            // These should all be rounded to the nearest integer+0.5 value:
-            double src_x = d.getSourceX();
-            double src_y = d.getSourceY();
-            double dst_x = d.getDestX();
-            double dst_y = d.getDestY();
+            double src_x = srcX;
+            double src_y = srcY;
+            double dst_x = dstX;
+            double dst_y = dstY;
 
             g.setStroke(Color.BLACK);
             // Draw the end arrow
-            int delta_x = d.isEndLeft() ? -10 : 10;
+            int delta_x = endLeft ? -10 : 10;
 
             g.strokeLine(dst_x, dst_y, dst_x + delta_x, dst_y + 4);
             g.strokeLine(dst_x, dst_y, dst_x + delta_x, dst_y - 4);
             g.setLineDashes(DASHES);
 
             // Draw the start
-            double corner_y = src_y + (d.isStartTop() ? -15 : 15);
+            double corner_y = src_y + (startTop ? -15 : 15);
             g.strokeLine(src_x, corner_y, src_x, src_y);
             src_y = corner_y;
 
             // Draw the last line segment
-            double corner_x = dst_x + (d.isEndLeft() ? -15 : 15);
+            double corner_x = dst_x + (endLeft ? -15 : 15);
             g.strokeLine(corner_x, dst_y, dst_x, dst_y);
             dst_x = corner_x;
 
             // if arrow vertical corner, draw first segment up to corner
-            if ((src_y != dst_y) && (d.isStartTop() == (src_y < dst_y))) {
-                corner_x = Utility.roundHalf(((src_x + dst_x) / 2) + (d.isEndLeft() ? 15 : -15));
-                corner_x = (d.isEndLeft() ? Math.min(dst_x, corner_x) : Math.max(dst_x, corner_x));
+            if ((src_y != dst_y) && (startTop == (src_y < dst_y))) {
+                corner_x = Utility.roundHalf(((src_x + dst_x) / 2) + (endLeft ? 15 : -15));
+                corner_x = (endLeft ? Math.min(dst_x, corner_x) : Math.max(dst_x, corner_x));
                 g.strokeLine(src_x, src_y, corner_x, src_y);
                 src_x = corner_x;
             }
 
             // if arrow horiz. corner, draw first segment up to corner
-            if ((src_x != dst_x) && (d.isEndLeft() == (src_x > dst_x))) {
-                corner_y = Utility.roundHalf(((src_y + dst_y) / 2) + (d.isStartTop() ? 15 : -15));
-                corner_y = (d.isStartTop() ? Math.min(src_y, corner_y) : Math.max(src_y, corner_y));
+            if ((src_x != dst_x) && (endLeft == (src_x > dst_x))) {
+                corner_y = Utility.roundHalf(((src_y + dst_y) / 2) + (startTop ? 15 : -15));
+                corner_y = (startTop ? Math.min(src_y, corner_y) : Math.max(src_y, corner_y));
                 g.strokeLine(dst_x, corner_y, dst_x, dst_y);
                 dst_y = corner_y;
             }
@@ -709,6 +760,118 @@ public final class PackageEditor extends StackPane
         }
     }
 
+    /**
+     * Does the actual repaint of the arrowLayer (do not call directly;
+     * see repaint method).
+     */
+    private void actualRepaint()
+    {
+        aboutToRepaint = false;
+        List<Dependency> extendsDeps = isShowExtends() ? new ArrayList<>(pkg.getExtendsArrows()) : Collections.emptyList();;
+        List<UsesDependency> usesDeps = isShowUses() ? new ArrayList<>(pkg.getUsesArrows()) : Collections.emptyList();
+
+        List<ExtendsDepInfo> extendsLines = new ArrayList<>(Utility.mapList(extendsDeps, ExtendsDepInfo::new));
+        if (extendsSubClass != null)
+        {
+            if (extendsSuperClassHover != null)
+            {
+                extendsLines.add(new ExtendsDepInfo(extendsSubClass, extendsSuperClassHover));
+            }
+            else
+            {
+                Point2D p = arrowLayer.sceneToLocal(newExtendsDestX, newExtendsDestY);
+                extendsLines.add(new ExtendsDepInfo(extendsSubClass, p.getX(), p.getY()));
+            }
+        }
+        
+        
+        List<ArrowInfo> arrows = new ArrayList<>(extendsLines);
+        for (UsesDependency d : usesDeps)
+        {
+            // Special case - don't draw a dependency line between a Foo class and the FooTest class:
+            if (d.to instanceof DependentTarget && ((DependentTarget)d.to).getAssociation() == d.from)
+                continue;
+            arrows.add(new UsesDepInfo(d));
+        }
+
+        GraphicsContext g = arrowLayer.getGraphicsContext2D();
+        double width = arrowLayer.getWidth();
+        double height = arrowLayer.getHeight();
+        Set<ArrowInfo> arrowSet = new HashSet<>(arrows);
+        // Work out which areas have changed since the last repaint, unless we must redraw it all anyway:
+        List<Bounds> damaged = width == drawnWidth && height == drawnHeight ? findDamage(arrowSet) : null;
+
+        drawnArrows.clear();
+        for (ArrowInfo arrow : arrows)
+        {
+            Bounds b = arrow.getBounds();
+            drawnArrows.add(arrow, b.getMinX(), b.getMinY(), b.getMaxX(), b.getMaxY());
+        }
+        drawnArrowSet = arrowSet;
+        drawnWidth = width;
+        drawnHeight = height;
+
+        double damagedArea = damaged == null ? 0 : damaged.stream().mapToDouble(b -> b.getWidth() * b.getHeight()).sum();
+        if (damaged == null || damagedArea > MAX_PARTIAL_REPAINT_PROPORTION * width * height)
+        {
+            g.clearRect(0, 0, width, height);
+            for (ArrowInfo arrow : arrows)
+            {
+                arrow.draw(g);
+            }
+        }
+        else if (!damaged.isEmpty())
+        {
+            // Only redraw the changed areas: clear them, and redraw all the
+            // arrows which overlap them, clipped to those areas:
+            Set<ArrowInfo> toRedraw = new HashSet<>();
+            g.save();
+            g.beginPath();
+            for (Bounds b : damaged)
+            {
+                g.rect(b.getMinX(), b.getMinY(), b.getWidth(), b.getHeight());
+                g.clearRect(b.getMinX(), b.getMinY(), b.getWidth(), b.getHeight());
+                toRedraw.addAll(drawnArrows.query(b.getMinX(), b.getMinY(), b.getMaxX(), b.getMaxY()));
+            }
+            g.clip();
+            for (ArrowInfo arrow : arrows)
+            {
+                if (toRedraw.contains(arrow))
+                    arrow.draw(g);
+            }
+            g.restore();
+        }
+    }
+
+    /**
+     * Finds the areas of the arrow layer which need redrawing in order to go from the
+     * currently drawn arrows to the given arrows: the bounds of all arrows which have
+     * been removed or added (which includes arrows which have moved or changed appearance).
+     * The bounds are rounded outwards to whole pixels.
+     */
+    private List<Bounds> findDamage(Set<ArrowInfo> newArrows)
+    {
+        List<Bounds> damaged = new ArrayList<>();
+        for (ArrowInfo arrow : drawnArrowSet)
+        {
+            if (!newArrows.contains(arrow))
+                damaged.add(roundOut(arrow.getBounds()));
+        }
+        for (ArrowInfo arrow : newArrows)
+        {
+            if (!drawnArrowSet.contains(arrow))
+                damaged.add(roundOut(arrow.getBounds()));
+        }
+        return damaged;
+    }
+
+    private static Bounds roundOut(Bounds b)
+    {
+        double minX = Math.floor(b.getMinX());
+        double minY = Math.floor(b.getMinY());
+        return new BoundingBox(minX, minY, Math.ceil(b.getMaxX()) - minX, Math.ceil(b.getMaxY()) - minY);
+    }
+
 
     /**
      * Clear the set of selected classes. (Nothing will be selected after this.)
@@ -183,6 +183,7 @@ public class PkgMgrFrame
     private final PkgMgrAction newCSSAction = new NewCSSAction(this);
     private final PkgMgrAction addClassAction = new AddClassAction(this);
     private final PkgMgrAction removeAction = new RemoveAction(this);
+    private final PkgMgrAction findInProjectAction = new FindInProjectAction(this);
     @OnThread(Tag.Any)
     private final PkgMgrAction newInheritsAction = new NewInheritsAction(this);
     @OnThread(Tag.Any)
@@ -1148,6 +1149,7 @@ public class PkgMgrFrame
         DataCollector.packageClosed(thePkg);
 
         Project proj = getProject();
+        proj.getTypeCache().removePackage(thePkg.getQualifiedName());
 
         editor = null;
         this.pkg.set(null);
@@ -3015,6 +3017,9 @@ public class PkgMgrFrame
             menu.getItems().add(new SeparatorMenuItem());
 
             menu.getItems().add(newInheritsAction.makeMenuItem());
+            menu.getItems().add(new SeparatorMenuItem());
+
+            menu.getItems().add(findInProjectAction.makeMenuItem());
         }
 
         ExtensionsManager extMgr = ExtensionsManager.getInstance();
@@ -3180,6 +3185,7 @@ public class PkgMgrFrame
         actionsToDisable.add(addClassAction);
         actionsToDisable.add(removeAction);
         actionsToDisable.add(newInheritsAction);
+        actionsToDisable.add(findInProjectAction);
         actionsToDisable.add(compileAction);
         actionsToDisable.add(compileSelectedAction);
         actionsToDisable.add(rebuildAction);
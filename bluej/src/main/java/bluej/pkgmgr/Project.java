@@ -51,10 +51,12 @@ import bluej.groupwork.ui.StatusFrame;
 import bluej.groupwork.ui.TeamSettingsDialog;
 import bluej.groupwork.ui.UpdateFilesFrame;
 import bluej.parser.entity.EntityResolver;
+import bluej.pkgmgr.search.SourceIndex;
 import bluej.pkgmgr.target.ClassTarget;
 import bluej.pkgmgr.target.Target;
 import bluej.prefmgr.PrefMgr;
 import bluej.terminal.Terminal;
+import bluej.testmgr.TestResultCache;
 import bluej.testmgr.record.ClassInspectInvokerRecord;
 import bluej.testmgr.record.InvokerRecord;
 import bluej.utility.*;
@@ -137,6 +139,16 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
     /** the debugger for this project */
     @OnThread(Tag.Any)
     private final Debugger debugger;
+    /** the results of test classes which passed when last run */
+    @OnThread(Tag.Any)
+    private final TestResultCache testResultCache = new TestResultCache();
+    /** The index used by "Find in Project"; built in the background when the project is opened */
+    private final SourceIndex sourceIndex;
+    /** the indexed copy of the project's package files, or null if it is not used */
+    @OnThread(Tag.Any)
+    private final ProjectModelFile modelFile;
+    /** type information for the project's classes, parsed from their source */
+    private final ProjectTypeCache typeCache = new ProjectTypeCache(this);
     /** the ExecControls for this project */
     private ExecControls execControls = null;
     /** the Terminal for this project */
@@ -307,6 +319,12 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         
 
         this.projectDir = projectDir;
+        if (!Config.isGreenfoot() && Config.getPropBoolean("bluej.projectModel", false)) {
+            modelFile = new ProjectModelFile(new File(projectDir, ProjectModelFile.FILE_NAME));
+        }
+        else {
+            modelFile = null;
+        }
         libraryUrls = getLibrariesClasspath();
         inspectors = new HashMap<Object,Inspector>();
         packages = new TreeMap<String, Package>();
@@ -317,6 +335,7 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         loadProjectProperties(props);
         packages.put("", unnamedPackage);
 
+        sourceIndex = new SourceIndex(this.projectDir);
         shelfStorage = new FrameShelfStorage(this.projectDir);
         createNewFXTabbedEditor();
 
@@ -621,6 +640,13 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         if (project.statusFrame != null) {
             project.statusFrame.close();
         }
+        TeamSettingsController.projectClosed(project.getProjectDir());
+        project.sourceIndex.shutdown();
+        if (project.modelFile != null) {
+            project.modelFile.exportAll();
+        }
+        // Don't let the project's files change after it has been closed:
+        SavePipeline.getInstance().awaitAllWrites();
 
         project.removeAllInspectors();
         project.getDebugger().removeDebuggerListener(project);
@@ -1463,6 +1489,11 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
             frame.doSave();
             frame.setStatus(Config.getString("pkgmgr.packageSaved"));
         }
+
+        // Bring the package files up to date, for anything else which reads them:
+        if (modelFile != null) {
+            modelFile.exportAll();
+        }
     }
 
     /**
@@ -1726,6 +1757,41 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         return debugger;
     }
 
+    /**
+     * Get the cache of passing test results, used to skip unchanged tests.
+     */
+    @OnThread(Tag.Any)
+    public TestResultCache getTestResultCache()
+    {
+        return testResultCache;
+    }
+
+    /**
+     * Get the index of the source of all classes in the project, used for "Find in Project".
+     */
+    public SourceIndex getSourceIndex()
+    {
+        return sourceIndex;
+    }
+
+    /**
+     * Get the indexed copy of this project's package files, or null if it is not used.
+     */
+    @OnThread(Tag.Any)
+    ProjectModelFile getModelFile()
+    {
+        return modelFile;
+    }
+
+    /**
+     * Get the cache of type information for the classes in this project. Unlike reflective
+     * information, this survives the class loader being discarded after compilation.
+     */
+    public ProjectTypeCache getTypeCache()
+    {
+        return typeCache;
+    }
+
     public boolean hasExecControls()
     {
         return execControls != null;
@@ -1857,6 +1923,16 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         return currentClassLoader;
     }
 
+    /**
+     * Get the libraries known to the currently executing VM: those specified in preferences,
+     * in the project's +libs, in the BlueJ userlib folder, etc.
+     */
+    @OnThread(Tag.FXPlatform)
+    public List<URL> getLibraryUrls()
+    {
+        return Collections.unmodifiableList(libraryUrls);
+    }
+
     /**
      * Get the classpath for libraries - those specified in preferences, in the project's +libs,
      * in the BlueJ userlib folder, etc. This doesn't include the BlueJ runtime.
@@ -1891,6 +1967,16 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         return new ProjectEntityResolver(this);
     }
 
+    /**
+     * Get an entity resolver for editors' code completion and error checking.  Unlike
+     * {@link #getEntityResolver()}, compiled classes in the project are resolved from their
+     * source via the type cache, so they need not be loaded again after each compilation.
+     */
+    public EntityResolver getEditorEntityResolver()
+    {
+        return new ProjectEntityResolver(this, true);
+    }
+
     /**
      * Get a javadoc resolver, which can be used to retrieve comments for methods.
      */
@@ -1990,11 +2076,13 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         }
         // Variables which must be fetched from this thread:
         String packageName = JavaNames.getPrefix(thr.getClass(0));
-        SourceLocation[] filteredStack = ExecControls.getFilteredStack(thr.getStack());
+        // (This also captures the snapshot that the debugger window will display)
+        SourceLocation[] filteredStack = ExecControls.getFilteredStack(thr.getSnapshot().getStack());
         String classSourceName = thr.getClassSourceName(0);
         int lineNumber = thr.getLineNumber(0);
         DebuggerObject currentObject = thr.getCurrentObject(0);
         boolean atBreakpoint = thr.isAtBreakpoint();
+        String breakpointMessage = getBreakpointMessage(event.getBreakpointProperties());
         
         Platform.runLater(() -> {
             Package pkg = getPackage(packageName);
@@ -2004,7 +2092,7 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
                 switch (event.getID())
                 {
                     case DebuggerEvent.THREAD_BREAKPOINT:
-                        pkg.hitBreakpoint(thr, classSourceName, lineNumber, currentObject);
+                        pkg.hitBreakpoint(thr, classSourceName, lineNumber, currentObject, breakpointMessage);
                         break;
 
                     case DebuggerEvent.THREAD_HALT_UNKNOWN:
@@ -2034,6 +2122,30 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         });
     }
 
+    /**
+     * Get a message to show when a conditional or hit-count breakpoint stops: why its condition
+     * could not be evaluated, or how many hits it ignored. Returns null for other breakpoints.
+     */
+    @OnThread(Tag.Any)
+    private static String getBreakpointMessage(DebuggerEvent.BreakpointProperties props)
+    {
+        if (props == null)
+        {
+            return null;
+        }
+        Object conditionError = props.get(Debugger.BREAKPOINT_CONDITION_ERROR_PROPERTY);
+        if (conditionError != null)
+        {
+            return Config.getString("debugger.breakpointConditionError").replace("$", conditionError.toString());
+        }
+        Object ignoredHits = props.get(Debugger.BREAKPOINT_IGNORED_HITS_PROPERTY);
+        if (ignoredHits != null)
+        {
+            return Config.getString("debugger.breakpointIgnoredHits").replace("$", ignoredHits.toString());
+        }
+        return null;
+    }
+
     /**
      * Show the source code at a particular position
      */
@@ -2069,6 +2181,7 @@ public class Project implements DebuggerListener, DebuggerThreadListener, Inspec
         if (pkg != null) {
             pkg.getChildren(false).forEach(childPkg -> removePackage(childPkg.getQualifiedName()));
             packages.remove(packageQualifiedName);
+            typeCache.removePackage(packageQualifiedName);
         }
     }
 
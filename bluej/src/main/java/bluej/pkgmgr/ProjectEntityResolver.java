@@ -41,13 +41,27 @@ import bluej.pkgmgr.target.Target;
 public class ProjectEntityResolver implements EntityResolver
 {
     private Project project;
+    /** Whether compiled project classes are resolved from the project's type cache */
+    private final boolean useTypeCache;
     
     /**
      * Construct a ProjectEntityResolver for the given project.
      */
     public ProjectEntityResolver(Project project)
+    {
+        this(project, false);
+    }
+
+    /**
+     * Construct a ProjectEntityResolver for the given project.
+     *
+     * @param useTypeCache  if true, compiled project classes are resolved from their parsed
+     *                      source (via the project's type cache) rather than by loading them.
+     */
+    public ProjectEntityResolver(Project project, boolean useTypeCache)
     {
         this.project = project;
+        this.useTypeCache = useTypeCache;
     }
     
     public JavaEntity getValueEntity(String name, Reflective querySource)
@@ -77,7 +91,7 @@ public class ProjectEntityResolver implements EntityResolver
             Target target = pkg.getTarget(baseName);
             if (target instanceof ClassTarget) {
                 ClassTarget ct = (ClassTarget) target;
-                Reflective ref = ct.getTypeReflective();
+                Reflective ref = useTypeCache ? ct.getCachedTypeReflective() : ct.getTypeReflective();
                 if (ref != null) {
                     return new TypeEntity(ref);
                 }
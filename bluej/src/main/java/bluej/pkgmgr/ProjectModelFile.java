@@ -0,0 +1,810 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import bluej.utility.Debug;
+import bluej.utility.SortedProperties;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A single indexed binary file ("bluej.model" in the project directory) holding the package
+ * file properties of all the packages in a project.  It is optional (see the
+ * bluej.projectModel property).
+ *
+ * <p>The file is a sequence of records, followed by an index and a trailer giving the
+ * position of the index.  The index is read once, when the first package is loaded, and maps
+ * each package to its records, so a package's properties can then be read directly.  Each
+ * package's properties are split into records: one per target and per dependency, and one
+ * for the rest.  When a package is saved, only the records which have changed are written,
+ * appended to the file along with a new index.  The file is compacted once it has grown to
+ * more than twice the size of its live records.  A damaged file is ignored and rebuilt.
+ *
+ * <p>The text package.bluej files are still written, so that other tools and other versions
+ * of BlueJ can read the project, but not on every save: a package's package.bluej is exported
+ * a few seconds after the last change to it, when the project is saved explicitly, and when
+ * the project is closed.  (It is written straight away if it does not exist yet, since it is
+ * what marks a directory as a package.)  An entry which has not been exported yet is marked in
+ * the index, so that it is exported the next time the package is loaded if BlueJ exits first.
+ *
+ * <p>Each package's entry records the modification time and length of its package.bluej as
+ * it was when it was last exported (or loaded).  If package.bluej has since been changed by
+ * something else (for example, a version control update), the text file is loaded instead,
+ * and any changes not yet exported are lost.
+ */
+@OnThread(Tag.Any)
+class ProjectModelFile
+{
+    static final String FILE_NAME = "bluej.model";
+
+    private static final int MAGIC = 0x424A4D31; // "BJM1"
+    private static final int VERSION = 2;
+    // The trailer is the position of the index, followed by the magic number:
+    private static final int TRAILER_SIZE = 12;
+    private static final long MIN_COMPACT_SIZE = 64 * 1024;
+    // Property keys with these prefixes go in a record of their own (keyed by the prefix):
+    private static final Pattern RECORD_PREFIX = Pattern.compile("(target|dependency)[0-9]+|readme");
+    // How long after the last change to a package its package.bluej is exported:
+    private static final long EXPORT_DELAY_MILLIS = 5000;
+
+    private static final ScheduledExecutorService exporter = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Package file exporter");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final File file;
+    // The index, by qualified package name ("" for the unnamed package); null until read:
+    private Map<String, PackageEntry> index;
+    // The length of the valid part of the file; new records are written from here:
+    private long dataEnd;
+    // The package files still to be exported, by package name:
+    private final Map<String, BlueJPackageFile> pendingExports = new HashMap<>();
+    private ScheduledFuture<?> scheduledExport;
+
+    /**
+     * The index entry for a package.
+     */
+    private static class PackageEntry
+    {
+        final long textModified;
+        final long textLength;
+        // Whether package.bluej holds the same properties as the records:
+        final boolean exported;
+        // The package's records, by key:
+        final Map<String, Record> records;
+
+        PackageEntry(long textModified, long textLength, boolean exported, Map<String, Record> records)
+        {
+            this.textModified = textModified;
+            this.textLength = textLength;
+            this.exported = exported;
+            this.records = records;
+        }
+
+        PackageEntry(BasicFileAttributes textAttributes, Map<String, Record> records)
+        {
+            this(textAttributes.lastModifiedTime().toMillis(), textAttributes.size(), true, records);
+        }
+
+        /**
+         * Check whether package.bluej, with the given attributes (or null if it does not
+         * exist), is as it was when this entry was exported or loaded.
+         */
+        boolean matches(BasicFileAttributes textAttributes)
+        {
+            return textAttributes != null && textAttributes.lastModifiedTime().toMillis() == textModified
+                    && textAttributes.size() == textLength;
+        }
+    }
+
+    /**
+     * The position of a record in the file, and a checksum of its contents.
+     */
+    private static class Record
+    {
+        final long offset;
+        final int length;
+        final int crc;
+
+        Record(long offset, int length, int crc)
+        {
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+        }
+    }
+
+    ProjectModelFile(File file)
+    {
+        this.file = file;
+    }
+
+    /**
+     * Get a PackageFile for the given package which loads from this file where possible,
+     * and saves to both this file and the package's package.bluej.
+     */
+    PackageFile getPackageFile(String packageName, BlueJPackageFile textPackageFile)
+    {
+        return new ModelPackageFile(packageName, textPackageFile);
+    }
+
+    /**
+     * Load the properties of a package into the given properties, if this file has an
+     * up-to-date copy of them.
+     *
+     * @param textFile  The package's package.bluej
+     * @return  true if the properties were loaded; false if package.bluej must be loaded instead.
+     */
+    synchronized boolean load(String packageName, File textFile, Properties p)
+    {
+        PackageEntry entry = getIndex().get(packageName);
+        if (entry == null || !entry.matches(getAttributes(textFile)))
+        {
+            // package.bluej will be loaded, and replaces anything not yet exported:
+            pendingExports.remove(packageName);
+            return false;
+        }
+
+        Properties loaded = new Properties();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+        {
+            readRecords(raf, entry.records.values(), loaded);
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Error reading project model file " + file + ": " + e);
+            // Rewrite the package's records next time it is saved:
+            index.remove(packageName);
+            pendingExports.remove(packageName);
+            return false;
+        }
+        p.putAll(loaded);
+        return true;
+    }
+
+    /**
+     * Read the properties in the given records.  Records which are close together (as they are
+     * once the file has been compacted) are read all at once.
+     */
+    private static void readRecords(RandomAccessFile raf, Collection<Record> records, Properties p)
+        throws IOException
+    {
+        if (records.isEmpty())
+        {
+            return;
+        }
+
+        long start = Long.MAX_VALUE;
+        long end = 0;
+        long total = 0;
+        for (Record record : records)
+        {
+            start = Math.min(start, record.offset);
+            end = Math.max(end, record.offset + record.length);
+            total += record.length;
+        }
+
+        if (end - start > 2 * total)
+        {
+            for (Record record : records)
+            {
+                readRecord(readData(raf, record), p);
+            }
+            return;
+        }
+
+        byte[] span = new byte[(int) (end - start)];
+        raf.seek(start);
+        raf.readFully(span);
+        for (Record record : records)
+        {
+            int from = (int) (record.offset - start);
+            byte[] data = Arrays.copyOfRange(span, from, from + record.length);
+            if (crc(data) != record.crc)
+            {
+                throw new IOException("bad record checksum");
+            }
+            readRecord(data, p);
+        }
+    }
+
+    /**
+     * Check whether the given properties are the same as those stored for a package, and
+     * package.bluej has not changed since they were stored.
+     */
+    synchronized boolean isUnchanged(String packageName, File textFile, Properties p)
+    {
+        PackageEntry entry = getIndex().get(packageName);
+        if (entry == null || !entry.matches(getAttributes(textFile)))
+        {
+            return false;
+        }
+
+        Map<String, byte[]> records = makeRecords(p);
+        if (!records.keySet().equals(entry.records.keySet()))
+        {
+            return false;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+        {
+            for (Map.Entry<String, byte[]> record : records.entrySet())
+            {
+                if (!isStored(raf, entry.records.get(record.getKey()), record.getValue()))
+                {
+                    return false;
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Store the properties of a package.  Only the records which have changed are written.
+     * The package's package.bluej is written later (see exportAll()), unless it does not
+     * exist or has been changed by something else since it was last loaded or exported, in
+     * which case it is written now.
+     */
+    synchronized void save(String packageName, BlueJPackageFile textPackageFile, Properties p)
+        throws IOException
+    {
+        PackageEntry oldEntry = getIndex().get(packageName);
+        BasicFileAttributes textAttributes = getAttributes(textPackageFile.getFile());
+        if (oldEntry != null && oldEntry.matches(textAttributes))
+        {
+            store(packageName, p, oldEntry.textModified, oldEntry.textLength, false);
+            pendingExports.put(packageName, textPackageFile);
+            scheduleExport();
+        }
+        else
+        {
+            textPackageFile.save(p);
+            pendingExports.remove(packageName);
+            stored(packageName, textPackageFile.getFile(), p);
+        }
+    }
+
+    /**
+     * Store the properties of a package, which are the same as those just loaded from or saved
+     * to its package.bluej.
+     */
+    synchronized void stored(String packageName, File textFile, Properties p)
+        throws IOException
+    {
+        BasicFileAttributes textAttributes = getAttributes(textFile);
+        if (textAttributes == null)
+        {
+            throw new NoSuchFileException(textFile.getPath());
+        }
+        store(packageName, p, textAttributes.lastModifiedTime().toMillis(), textAttributes.size(), true);
+    }
+
+    private void store(String packageName, Properties p, long textModified, long textLength, boolean exported)
+        throws IOException
+    {
+        PackageEntry oldEntry = getIndex().get(packageName);
+        Map<String, byte[]> records = makeRecords(p);
+        Map<String, Record> newRecords = new HashMap<>();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            long position = dataEnd;
+            for (Map.Entry<String, byte[]> record : records.entrySet())
+            {
+                byte[] data = record.getValue();
+                Record oldRecord = oldEntry == null ? null : oldEntry.records.get(record.getKey());
+                if (oldRecord != null && isStored(raf, oldRecord, data))
+                {
+                    newRecords.put(record.getKey(), oldRecord);
+                }
+                else
+                {
+                    raf.seek(position);
+                    raf.write(data);
+                    newRecords.put(record.getKey(), new Record(position, data.length, crc(data)));
+                    position += data.length;
+                }
+            }
+            index.put(packageName, new PackageEntry(textModified, textLength, exported, newRecords));
+            writeIndex(raf, position);
+        }
+        catch (IOException e)
+        {
+            // The entry may now refer to a partly written record:
+            index.remove(packageName);
+            throw e;
+        }
+
+        if (dataEnd > MIN_COMPACT_SIZE && dataEnd > 2 * getLiveSize())
+        {
+            compact();
+        }
+    }
+
+    /**
+     * Export package.bluej for the given package if its entry has not been exported.  Used when
+     * a package is loaded, in case BlueJ exited before the entry was exported.
+     */
+    private synchronized void exportIfNeeded(String packageName, BlueJPackageFile textPackageFile)
+    {
+        PackageEntry entry = getIndex().get(packageName);
+        if (entry != null && !entry.exported)
+        {
+            pendingExports.put(packageName, textPackageFile);
+            scheduleExport();
+        }
+    }
+
+    /**
+     * Schedule the pending exports, replacing any scheduled earlier, so that they are done once
+     * the packages have stopped changing.
+     */
+    private void scheduleExport()
+    {
+        if (scheduledExport != null)
+        {
+            scheduledExport.cancel(false);
+        }
+        scheduledExport = exporter.schedule(this::exportAll, EXPORT_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write package.bluej for every package whose properties have changed since it was last
+     * written.  Called when the project is saved or closed, and after changes have stopped.
+     */
+    synchronized void exportAll()
+    {
+        if (scheduledExport != null)
+        {
+            scheduledExport.cancel(false);
+            scheduledExport = null;
+        }
+
+        List<String> packageNames = new ArrayList<>(pendingExports.keySet());
+        for (String packageName : packageNames)
+        {
+            BlueJPackageFile textPackageFile = pendingExports.remove(packageName);
+            PackageEntry entry = getIndex().get(packageName);
+            // Don't recreate a package which has been deleted:
+            if (entry == null || entry.exported || !textPackageFile.getFile().getParentFile().isDirectory())
+            {
+                continue;
+            }
+
+            try
+            {
+                Properties p = new SortedProperties();
+                try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+                {
+                    readRecords(raf, entry.records.values(), p);
+                }
+                textPackageFile.save(p);
+                BasicFileAttributes textAttributes = getAttributes(textPackageFile.getFile());
+                if (textAttributes != null)
+                {
+                    index.put(packageName, new PackageEntry(textAttributes, entry.records));
+                    try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+                    {
+                        writeIndex(raf, dataEnd);
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                Debug.reportError("Error exporting package file for " + textPackageFile + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * Get the index, reading it from the file if it has not yet been read.
+     */
+    private Map<String, PackageEntry> getIndex()
+    {
+        if (index == null)
+        {
+            index = new HashMap<>();
+            dataEnd = 0;
+            if (file.length() >= TRAILER_SIZE)
+            {
+                try
+                {
+                    readIndex();
+                }
+                catch (IOException e)
+                {
+                    Debug.message("Ignoring damaged project model file " + file + ": " + e);
+                    index.clear();
+                    dataEnd = 0;
+                }
+            }
+        }
+        return index;
+    }
+
+    private void readIndex() throws IOException
+    {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+        {
+            long length = raf.length();
+            raf.seek(length - TRAILER_SIZE);
+            long indexOffset = raf.readLong();
+            if (raf.readInt() != MAGIC || indexOffset < 0 || indexOffset > length - TRAILER_SIZE)
+            {
+                throw new IOException("bad trailer");
+            }
+
+            byte[] indexData = new byte[(int) (length - TRAILER_SIZE - indexOffset)];
+            raf.seek(indexOffset);
+            raf.readFully(indexData);
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(indexData));
+            if (input.readInt() != VERSION)
+            {
+                throw new IOException("unknown version");
+            }
+            int numPackages = input.readInt();
+            for (int i = 0; i < numPackages; i++)
+            {
+                String packageName = input.readUTF();
+                long textModified = input.readLong();
+                long textLength = input.readLong();
+                boolean exported = input.readBoolean();
+                int numRecords = input.readInt();
+                Map<String, Record> records = new HashMap<>();
+                for (int j = 0; j < numRecords; j++)
+                {
+                    String key = input.readUTF();
+                    Record record = new Record(input.readLong(), input.readInt(), input.readInt());
+                    if (record.offset < 0 || record.length < 0 || record.offset + record.length > indexOffset)
+                    {
+                        throw new IOException("bad record position");
+                    }
+                    records.put(key, record);
+                }
+                index.put(packageName, new PackageEntry(textModified, textLength, exported, records));
+            }
+            dataEnd = length;
+        }
+    }
+
+    /**
+     * Write the index and trailer at the given position, which becomes the new end of the file.
+     */
+    private void writeIndex(RandomAccessFile raf, long position) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(VERSION);
+        output.writeInt(index.size());
+        for (Map.Entry<String, PackageEntry> entry : index.entrySet())
+        {
+            PackageEntry packageEntry = entry.getValue();
+            output.writeUTF(entry.getKey());
+            output.writeLong(packageEntry.textModified);
+            output.writeLong(packageEntry.textLength);
+            output.writeBoolean(packageEntry.exported);
+            output.writeInt(packageEntry.records.size());
+            for (Map.Entry<String, Record> record : packageEntry.records.entrySet())
+            {
+                output.writeUTF(record.getKey());
+                output.writeLong(record.getValue().offset);
+                output.writeInt(record.getValue().length);
+                output.writeInt(record.getValue().crc);
+            }
+        }
+        output.writeLong(position);
+        output.writeInt(MAGIC);
+        output.flush();
+
+        raf.seek(position);
+        raf.write(bytes.toByteArray());
+        raf.setLength(raf.getFilePointer());
+        dataEnd = raf.getFilePointer();
+    }
+
+    private long getLiveSize()
+    {
+        long size = 0;
+        for (PackageEntry entry : index.values())
+        {
+            for (Record record : entry.records.values())
+            {
+                size += record.length;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Rewrite the file with only the records which are in use.
+     */
+    private void compact()
+    {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+        Map<String, PackageEntry> newIndex = new HashMap<>();
+        try (RandomAccessFile input = new RandomAccessFile(file, "r");
+                RandomAccessFile output = new RandomAccessFile(temp, "rw"))
+        {
+            output.setLength(0);
+            for (Map.Entry<String, PackageEntry> entry : index.entrySet())
+            {
+                PackageEntry packageEntry = entry.getValue();
+                Map<String, Record> records = new HashMap<>();
+                for (Map.Entry<String, Record> record : packageEntry.records.entrySet())
+                {
+                    Record oldRecord = record.getValue();
+                    records.put(record.getKey(), new Record(output.getFilePointer(), oldRecord.length, oldRecord.crc));
+                    output.write(readData(input, oldRecord));
+                }
+                newIndex.put(entry.getKey(), new PackageEntry(packageEntry.textModified, packageEntry.textLength,
+                        packageEntry.exported, records));
+            }
+            Map<String, PackageEntry> oldIndex = index;
+            index = newIndex;
+            try
+            {
+                writeIndex(output, output.getFilePointer());
+            }
+            catch (IOException e)
+            {
+                index = oldIndex;
+                throw e;
+            }
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Error compacting project model file " + file + ": " + e);
+            temp.delete();
+            // Carry on with the uncompacted file:
+            index = null;
+            return;
+        }
+
+        try
+        {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Error replacing project model file " + file + ": " + e);
+            temp.delete();
+            index = null;
+        }
+    }
+
+    /**
+     * Get the attributes of a package.bluej file, or null if it does not exist.  (Reading them
+     * together needs only one call to the file system.)
+     */
+    private static BasicFileAttributes getAttributes(File textFile)
+    {
+        try
+        {
+            return Files.readAttributes(textFile.toPath(), BasicFileAttributes.class);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Read a record's data, checking it against its checksum.
+     */
+    private static byte[] readData(RandomAccessFile raf, Record record) throws IOException
+    {
+        byte[] data = new byte[record.length];
+        raf.seek(record.offset);
+        raf.readFully(data);
+        if (crc(data) != record.crc)
+        {
+            throw new IOException("bad record checksum");
+        }
+        return data;
+    }
+
+    /**
+     * Check whether a record in the file holds exactly the given data.
+     */
+    private static boolean isStored(RandomAccessFile raf, Record record, byte[] data) throws IOException
+    {
+        return record.length == data.length && record.crc == crc(data)
+                && Arrays.equals(readData(raf, record), data);
+    }
+
+    /**
+     * Split package properties into records, keyed by property prefix (or "" for properties
+     * without a record of their own).
+     */
+    private static Map<String, byte[]> makeRecords(Properties p)
+    {
+        Map<String, Map<String, String>> grouped = new TreeMap<>();
+        for (String key : p.stringPropertyNames())
+        {
+            int dot = key.indexOf('.');
+            String prefix = dot == -1 ? "" : key.substring(0, dot);
+            String recordKey = RECORD_PREFIX.matcher(prefix).matches() ? prefix : "";
+            grouped.computeIfAbsent(recordKey, k -> new TreeMap<>()).put(key, p.getProperty(key));
+        }
+
+        Map<String, byte[]> records = new TreeMap<>();
+        for (Map.Entry<String, Map<String, String>> group : grouped.entrySet())
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream output = new DataOutputStream(bytes))
+            {
+                output.writeInt(group.getValue().size());
+                for (Map.Entry<String, String> property : group.getValue().entrySet())
+                {
+                    writeString(output, property.getKey());
+                    writeString(output, property.getValue());
+                }
+            }
+            catch (IOException e)
+            {
+                // Not possible when writing to a byte array
+                throw new RuntimeException(e);
+            }
+            records.put(group.getKey(), bytes.toByteArray());
+        }
+        return records;
+    }
+
+    private static void readRecord(byte[] data, Properties p) throws IOException
+    {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        int numProperties = input.readInt();
+        for (int i = 0; i < numProperties; i++)
+        {
+            String key = readString(input);
+            p.setProperty(key, readString(input));
+        }
+    }
+
+    // Strings are written as UTF-16 chars, since writeUTF cannot write long strings:
+    private static void writeString(DataOutputStream output, String s) throws IOException
+    {
+        output.writeInt(s.length());
+        output.writeChars(s);
+    }
+
+    private static String readString(DataInputStream input) throws IOException
+    {
+        char[] chars = new char[input.readInt()];
+        for (int i = 0; i < chars.length; i++)
+        {
+            chars[i] = input.readChar();
+        }
+        return new String(chars);
+    }
+
+    private static int crc(byte[] data)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A package file which loads from the project model file where possible, and saves to
+     * the project model file, exporting package.bluej later.
+     */
+    @OnThread(Tag.Any)
+    private class ModelPackageFile implements PackageFile
+    {
+        private final String packageName;
+        private final BlueJPackageFile textPackageFile;
+
+        ModelPackageFile(String packageName, BlueJPackageFile textPackageFile)
+        {
+            this.packageName = packageName;
+            this.textPackageFile = textPackageFile;
+        }
+
+        @Override
+        public boolean create() throws IOException
+        {
+            return textPackageFile.create();
+        }
+
+        @Override
+        public void load(Properties p) throws IOException
+        {
+            File textFile = textPackageFile.getFile();
+            // (If there is only an old bluej.pkg, it must be loaded from that)
+            if (textFile.exists() && ProjectModelFile.this.load(packageName, textFile, p))
+            {
+                exportIfNeeded(packageName, textPackageFile);
+                return;
+            }
+
+            textPackageFile.load(p);
+            if (textFile.exists())
+            {
+                try
+                {
+                    stored(packageName, textFile, p);
+                }
+                catch (IOException e)
+                {
+                    Debug.reportError("Error writing project model file " + file + ": " + e);
+                }
+            }
+        }
+
+        @Override
+        public void save(Properties p) throws IOException
+        {
+            if (isUnchanged(packageName, textPackageFile.getFile(), p))
+            {
+                return;
+            }
+
+            try
+            {
+                ProjectModelFile.this.save(packageName, textPackageFile, p);
+            }
+            catch (IOException e)
+            {
+                Debug.reportError("Error writing project model file " + file + ": " + e);
+                // Make sure the package is saved somewhere:
+                textPackageFile.save(p);
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return textPackageFile.toString();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import bluej.parser.SourceParseDocument;
+import bluej.parser.entity.PackageResolver;
+import bluej.parser.entity.ParsedReflective;
+import bluej.parser.nodes.ParsedNode;
+import bluej.parser.nodes.ParsedTypeNode;
+import bluej.pkgmgr.target.ClassTarget;
+
+/**
+ * A cache of type information for the classes of a project, built by parsing their
+ * source files.
+ *
+ * <p>Type information for compiled classes used to come from reflection on classes loaded
+ * through the project class loader, but that loader is thrown away after every compilation,
+ * so every editor had to load all the classes it referred to again.  The parsed information
+ * kept here does not depend on any class loader: references to other types are resolved by
+ * name when asked for, so an entry stays valid until its own source changes.
+ *
+ * <p>Entries are keyed by class name, and checked against a hash of the source file's
+ * contents.  The hash is only recalculated if the file's size or modification time has
+ * changed, or the class has been recompiled since it was last checked.
+ *
+ * <p>Only the editors' code completion and error checking use this cache (see
+ * {@link Project#getEditorEntityResolver()}); everything else still uses reflection on the
+ * loaded classes.  Since each entry holds a whole parse tree, at most {@link #MAX_ENTRIES}
+ * are kept, and a package's entries are dropped when it is closed.
+ */
+public class ProjectTypeCache
+{
+    /** The number of classes whose type information is kept */
+    private static final int MAX_ENTRIES = 200;
+
+    private final Project project;
+    /** The entries, least recently used first */
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+        {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static class Entry
+    {
+        /** The source file's modification time and length when last checked, or -1 if it must be checked again */
+        private long lastModified;
+        private long length;
+        private final byte[] sourceHash;
+        private final ParsedReflective reflective;
+
+        private Entry(long lastModified, long length, byte[] sourceHash, ParsedReflective reflective)
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.sourceHash = sourceHash;
+            this.reflective = reflective;
+        }
+    }
+
+    ProjectTypeCache(Project project)
+    {
+        this.project = project;
+    }
+
+    /**
+     * Get the type information for the given class, from its source file.
+     *
+     * @return  the type information, or null if the class has no source or it could not be
+     *          read or parsed.
+     */
+    public ParsedReflective getReflective(ClassTarget ct)
+    {
+        if (!ct.hasSourceCode())
+        {
+            return null;
+        }
+        // For Stride classes, this is the generated Java source:
+        File sourceFile = ct.getJavaSourceFile();
+        String className = ct.getQualifiedName();
+        Entry entry = entries.get(className);
+        long lastModified = sourceFile.lastModified();
+        long length = sourceFile.length();
+        if (entry != null && entry.lastModified == lastModified && entry.length == length)
+        {
+            return entry.reflective;
+        }
+
+        byte[] content;
+        byte[] hash;
+        try
+        {
+            content = Files.readAllBytes(sourceFile.toPath());
+            hash = MessageDigest.getInstance("SHA-256").digest(content);
+        }
+        catch (IOException | NoSuchAlgorithmException e)
+        {
+            entries.remove(className);
+            return null;
+        }
+
+        if (entry != null && Arrays.equals(entry.sourceHash, hash))
+        {
+            // Touched or recompiled, but not changed:
+            entry.lastModified = lastModified;
+            entry.length = length;
+            return entry.reflective;
+        }
+
+        String pkgName = ct.getPackage().getQualifiedName();
+        SourceParseDocument document = new SourceParseDocument(new String(content, project.getProjectCharset()),
+                new PackageResolver(project.getEditorEntityResolver(), pkgName));
+        ParsedNode typeNode = document.getParser().getTypeNode(ct.getBaseName());
+        ParsedReflective reflective = typeNode instanceof ParsedTypeNode ? new ParsedReflective((ParsedTypeNode) typeNode) : null;
+        entries.put(className, new Entry(lastModified, length, hash, reflective));
+        return reflective;
+    }
+
+    /**
+     * Notify the cache that a class has been compiled.  Its source will be checked for changes
+     * the next time its type information is needed, even if the file's modification time and
+     * size are the same.
+     */
+    public void classCompiled(String className)
+    {
+        Entry entry = entries.get(className);
+        if (entry != null)
+        {
+            entry.lastModified = -1;
+        }
+    }
+
+    /**
+     * Remove a class from the cache, e.g. because it has been removed from the project.
+     */
+    public void remove(String className)
+    {
+        entries.remove(className);
+    }
+
+    /**
+     * Remove the classes of a package (but not its sub-packages) from the cache, because the
+     * package has been closed or removed.
+     *
+     * @param pkgName  the qualified name of the package; "" for the unnamed package
+     */
+    public void removePackage(String pkgName)
+    {
+        for (Iterator<String> i = entries.keySet().iterator(); i.hasNext(); )
+        {
+            String className = i.next();
+            int lastDot = className.lastIndexOf('.');
+            if ((lastDot == -1 ? "" : className.substring(0, lastDot)).equals(pkgName))
+            {
+                i.remove();
+            }
+        }
+    }
+
+    /**
+     * Get the number of classes currently cached.
+     */
+    int size()
+    {
+        return entries.size();
+    }
+}
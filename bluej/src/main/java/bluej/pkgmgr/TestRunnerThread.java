@@ -28,16 +28,21 @@ import bluej.debugger.jdi.TestResultsWithRunTime;
 import bluej.pkgmgr.target.ClassTarget;
 import bluej.pkgmgr.target.role.UnitTestClassRole;
 import bluej.testmgr.TestDisplayFrame;
+import bluej.testmgr.TestResultCache;
 import bluej.utility.Debug;
 import javafx.application.Platform;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
+import java.io.File;
+import java.net.URL;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -48,12 +53,18 @@ import java.util.concurrent.ExecutionException;
  * This class provides the means to do this.
  * 
  * There are two primary modes of operation: run a single test (methodname != null),
- * and run all tests for a series of ClassTargets.
+ * and run all tests for a series of ClassTargets. In the latter case all the classes
+ * are run in a single test run, and results are shown as they arrive.
  * 
  * @author Davin McCall
  */
 public class TestRunnerThread extends Thread
 {
+    // Whether test classes may be run concurrently (JUnit 5 tests only):
+    private static final String PARALLEL_PROPERTY = "bluej.testing.parallel";
+    // Whether to skip test classes which passed last time and have not changed since:
+    private static final String SKIP_UNCHANGED_PROPERTY = "bluej.testing.skipUnchanged";
+
     @OnThread(Tag.Worker)
     private final Iterator<ClassTarget> testIterator;
     private final PkgMgrFrame pmf;
@@ -95,56 +106,153 @@ public class TestRunnerThread extends Thread
     @OnThread(value = Tag.Worker, ignoreParent = true)
     public void run()
     {
-        while (testIterator.hasNext()) 
+        if (methodName == null)
+        {
+            runAllTests();
+        }
+        else
         {
+            runSingleTest();
+        }
+    }
 
+    /**
+     * Run a single test method (there is only one ClassTarget in this case).
+     */
+    @OnThread(Tag.Worker)
+    private void runSingleTest()
+    {
+        while (testIterator.hasNext()) 
+        {
             ClassTarget ct = testIterator.next();
 
-            List<String> allMethods;
-            if (methodName == null)
+            // With JUnit 5, a method does not always match to 1 test (parameterized),
+            // so we should not rely on this to assume there are no more than 1 result for 1 single method of test.
+            TestResultsWithRunTime lastResults = project.getDebugger().runTestMethod(ct.getQualifiedName(), methodName);
+            // Add all test results to the test display frame:
+            for (DebuggerTestResult result : lastResults.getResults())
             {
-                // Run all tests for a target, so find out what they are:
-                CompletableFuture<List<String>> methodsFuture = new CompletableFuture<>();
-                Platform.runLater(() -> startTestFindMethods(ct, methodsFuture));
-                try
-                {
-                    allMethods = methodsFuture.get();
-                }
-                catch (InterruptedException | ExecutionException e)
+                Platform.runLater(() -> showNextResult(result));
+            }
+            Platform.runLater(() -> TestDisplayFrame.getTestDisplay()
+                    .updateTotalTimeMs(lastResults.getTotalRunTime()));
+        }
+    }
+
+    /**
+     * Run all tests of all the test classes. The classes are run together in one test run,
+     * with each result shown as soon as it arrives. Classes which passed last time, and which
+     * have not changed since (nor have the classes they depend on) are not run again; their
+     * previous results are shown instead.
+     */
+    @OnThread(Tag.Worker)
+    private void runAllTests()
+    {
+        // Find which classes have tests to run, and the class files they depend on:
+        List<ClassTarget> targets = new ArrayList<>();
+        testIterator.forEachRemaining(targets::add);
+        CompletableFuture<Map<String, List<File>>> testClassesFuture = new CompletableFuture<>();
+        CompletableFuture<List<URL>> librariesFuture = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            librariesFuture.complete(new ArrayList<>(project.getLibraryUrls()));
+            testClassesFuture.complete(findTestClasses(targets));
+        });
+        Map<String, List<File>> testClasses;
+        List<URL> libraries;
+        try
+        {
+            testClasses = testClassesFuture.get();
+            libraries = librariesFuture.get();
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+            Debug.reportError(e);
+            testClasses = Collections.emptyMap();
+            libraries = Collections.emptyList();
+        }
+
+        TestResultCache cache = project.getTestResultCache();
+        boolean skipUnchanged = Config.getPropBoolean(SKIP_UNCHANGED_PROPERTY);
+        Map<String, String> fingerprints = new HashMap<>();
+        List<String> classesToRun = new ArrayList<>();
+        int skippedCount = 0;
+        for (Map.Entry<String, List<File>> testClass : testClasses.entrySet())
+        {
+            String fingerprint = TestResultCache.fingerprint(testClass.getValue(), libraries);
+            List<DebuggerTestResult> previousResults = skipUnchanged ?
+                    cache.getGreenResults(testClass.getKey(), fingerprint) : null;
+            if (previousResults != null)
+            {
+                skippedCount += 1;
+                for (DebuggerTestResult result : previousResults)
                 {
-                    Debug.reportError(e);
-                    allMethods = Collections.emptyList();
+                    Platform.runLater(() -> showNextResult(result));
                 }
             }
-            else 
+            else
             {
-                // Run only a single test.
-                allMethods = Arrays.asList(methodName);
+                fingerprints.put(testClass.getKey(), fingerprint);
+                classesToRun.add(testClass.getKey());
             }
+        }
 
-            // State 1 has given us the tests we need to run. Now run them:
-            // With JUnit 5, a method does not always match to 1 test (parameterized),
-            // so we should not rely on this to assume there are no more than 1 result for 1 single method of test.
-            if (allMethods.size() > 0)
+        if (!classesToRun.isEmpty())
+        {
+            TestResultsWithRunTime results = project.getDebugger().runTestClasses(classesToRun,
+                    Config.getPropBoolean(PARALLEL_PROPERTY),
+                    result -> Platform.runLater(() -> showNextResult(result)));
+
+            // Remember which classes passed:
+            Map<String, List<DebuggerTestResult>> resultsByClass = new HashMap<>();
+            synchronized (results.getResults())
             {
-                TestResultsWithRunTime lastResults = project.getDebugger().runTestMethod(ct.getQualifiedName(), (allMethods.size() == 1) ? methodName : null);
-                // Add all test results to the test display frame:
-                for (DebuggerTestResult result : lastResults.getResults())
+                for (DebuggerTestResult result : results.getResults())
                 {
-                    Platform.runLater(() -> showNextResult(result));
+                    resultsByClass.computeIfAbsent(result.getQualifiedClassName(), n -> new ArrayList<>()).add(result);
                 }
-                Platform.runLater(() -> TestDisplayFrame.getTestDisplay()
-                        .updateTotalTimeMs(lastResults.getTotalRunTime()));
             }
+            for (String className : classesToRun)
+            {
+                cache.recordRun(className, fingerprints.get(className),
+                        resultsByClass.getOrDefault(className, Collections.emptyList()));
+            }
+
+            Platform.runLater(() -> TestDisplayFrame.getTestDisplay()
+                    .updateTotalTimeMs(results.getTotalRunTime()));
         }
 
         // Finally, tell the PkgMgrFrame that we're done:
+        int skippedFinal = skippedCount;
         Platform.runLater(() -> {
-            if (methodName == null)
-                pmf.endTestRun();
+            pmf.endTestRun();
+            if (skippedFinal > 0)
+            {
+                pmf.setStatus(Config.getString("pkgmgr.test.skippedUnchanged").replace("$", Integer.toString(skippedFinal)));
+            }
         });
     }
 
+    /**
+     * Find the test classes which have tests to run.
+     *
+     * @param targets  the candidate test classes
+     * @return a map from test class name to the class files which its results depend on,
+     *         in the order the classes were given.
+     */
+    @OnThread(Tag.FXPlatform)
+    private Map<String, List<File>> findTestClasses(List<ClassTarget> targets)
+    {
+        Map<String, List<File>> testClasses = new LinkedHashMap<>();
+        for (ClassTarget ct : targets)
+        {
+            if (!startTestFindMethods(ct).isEmpty())
+            {
+                testClasses.put(ct.getQualifiedName(), TestResultCache.getClassFiles(ct));
+            }
+        }
+        return testClasses;
+    }
+
     @OnThread(Tag.FXPlatform)
     private void showNextResult(DebuggerTestResult lastResult)
     {
@@ -159,22 +267,18 @@ public class TestRunnerThread extends Thread
     }
 
     @OnThread(Tag.FXPlatform)
-    private void startTestFindMethods(ClassTarget ct, CompletableFuture<List<String>> methodsFuture)
+    private List<String> startTestFindMethods(ClassTarget ct)
     {
-        // State 1 is where we confirm that we really do have an executable unit
+        // Here we confirm that we really do have an executable unit
         // test class, and we delegate to the unit test role to gives us some
         // test methods to executed.
         if (ct.isCompiled() && ct.isUnitTest() && ! ct.isAbstract()) {
             UnitTestClassRole utcr = (UnitTestClassRole) ct.getRole();
 
             List<String> allMethods = utcr.startRunTest(pmf, ct, TestRunnerThread.this);
-            if (allMethods == null)
-                methodsFuture.complete(Collections.emptyList());
-            else
-                methodsFuture.complete(allMethods);
-        }
-        else {
-            methodsFuture.complete(Collections.emptyList());
+            if (allMethods != null)
+                return allMethods;
         }
+        return Collections.emptyList();
     }
 }
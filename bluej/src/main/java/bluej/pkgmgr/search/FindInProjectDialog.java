@@ -0,0 +1,277 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr.search;
+
+import java.io.File;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Pos;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TextField;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+import javafx.util.StringConverter;
+
+import bluej.Config;
+import bluej.pkgmgr.Package;
+import bluej.pkgmgr.PkgMgrFrame;
+import bluej.pkgmgr.Project;
+import bluej.pkgmgr.search.SourceIndex.Match;
+import bluej.pkgmgr.search.SourceIndex.QueryType;
+import bluej.utility.DialogManager;
+import bluej.utility.JavaNames;
+import bluej.utility.Utility;
+import bluej.utility.javafx.FXCustomizedDialog;
+import bluej.utility.javafx.FXPlatformRunnable;
+import bluej.utility.javafx.JavaFXUtil;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * The "Find in Project" dialog, which searches the source of all classes in the project
+ * using the project's SourceIndex, and opens the editor at a chosen result.
+ */
+@OnThread(Tag.FXPlatform)
+public class FindInProjectDialog extends FXCustomizedDialog<Void>
+{
+    /** The maximum number of results to show */
+    private static final int MAX_RESULTS = 1000;
+    /** The delay after typing before searching */
+    private static final Duration SEARCH_DELAY = Duration.millis(200);
+
+    private final Project project;
+    private final ObservableList<Match> results = FXCollections.observableArrayList();
+    private final ListView<Match> resultList = new ListView<>(results);
+    private final TextField queryField = new TextField();
+    private final ComboBox<QueryType> typeCombo = new ComboBox<>(FXCollections.observableArrayList(QueryType.values()));
+    private final CheckBox matchCase = new CheckBox(Config.getString("findInProject.matchCase"));
+    private final Label statusLabel = new Label();
+
+    /** Cancels the search scheduled after typing, if any */
+    private FXPlatformRunnable cancelPendingSearch;
+    /**
+     * Incremented for each search, so that superseded searches stop, and their results
+     * are ignored. Only modified on the FX thread.
+     */
+    @OnThread(Tag.Any)
+    private volatile int searchNumber;
+
+    /**
+     * Create a new Find in Project dialog for the project in the given frame.
+     */
+    public FindInProjectDialog(PkgMgrFrame pmf)
+    {
+        super(pmf.getWindow(), "findInProject.title", "find-in-project");
+        project = pmf.getProject();
+        setModal(false);
+        getDialogPane().getButtonTypes().setAll(ButtonType.CLOSE);
+        getDialogPane().setContent(makeMainPane());
+        setOnShown(e -> queryField.requestFocus());
+        DialogManager.centreDialog(this);
+        // Catch any changes made outside BlueJ since the index was last updated:
+        project.getSourceIndex().refresh();
+    }
+
+    private Pane makeMainPane()
+    {
+        typeCombo.getSelectionModel().select(QueryType.LITERAL);
+        typeCombo.setConverter(new StringConverter<QueryType>()
+        {
+            @Override
+            public String toString(QueryType type)
+            {
+                return type == null ? "" : Config.getString("findInProject.type." + type.name().toLowerCase());
+            }
+
+            @Override
+            public QueryType fromString(String string)
+            {
+                return null;
+            }
+        });
+        matchCase.disableProperty().bind(typeCombo.valueProperty().isEqualTo(QueryType.SYMBOL));
+
+        JavaFXUtil.addChangeListenerPlatform(queryField.textProperty(), text -> scheduleSearch());
+        JavaFXUtil.addChangeListenerPlatform(typeCombo.valueProperty(), type -> search());
+        JavaFXUtil.addChangeListenerPlatform(matchCase.selectedProperty(), selected -> search());
+        queryField.setOnAction(e -> search());
+        HBox.setHgrow(queryField, Priority.ALWAYS);
+
+        HBox queryBox = new HBox(queryField, typeCombo, matchCase);
+        queryBox.setAlignment(Pos.BASELINE_LEFT);
+        JavaFXUtil.addStyleClass(queryBox, "find-in-project-query");
+
+        resultList.setCellFactory(param -> new MatchCell());
+        resultList.setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) {
+                showSelected();
+            }
+        });
+        resultList.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) {
+                showSelected();
+            }
+        });
+
+        VBox mainPane = new VBox(queryBox, resultList, statusLabel);
+        JavaFXUtil.addStyleClass(mainPane, "main-pane");
+        VBox.setVgrow(resultList, Priority.ALWAYS);
+        return mainPane;
+    }
+
+    /**
+     * Search after a short delay, unless further typing happens before then.
+     */
+    private void scheduleSearch()
+    {
+        if (cancelPendingSearch != null) {
+            cancelPendingSearch.run();
+        }
+        cancelPendingSearch = JavaFXUtil.runAfter(SEARCH_DELAY, this::search);
+    }
+
+    /**
+     * Search for the current query in the background, and show the results when done.
+     */
+    private void search()
+    {
+        if (cancelPendingSearch != null) {
+            cancelPendingSearch.run();
+            cancelPendingSearch = null;
+        }
+
+        int thisSearch = ++searchNumber;
+        String query = queryField.getText();
+        QueryType type = typeCombo.getValue();
+        boolean caseSensitive = matchCase.isSelected();
+        SourceIndex index = project.getSourceIndex();
+        if (query.isEmpty()) {
+            results.clear();
+            statusLabel.setText("");
+            return;
+        }
+
+        statusLabel.setText(Config.getString("findInProject.searching"));
+        Utility.runBackground(() -> {
+            String status;
+            List<Match> found = null;
+            try {
+                long start = System.nanoTime();
+                found = index.find(type, query, caseSensitive, MAX_RESULTS, () -> thisSearch != searchNumber);
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                status = Config.getString(found.size() >= MAX_RESULTS ? "findInProject.tooMany" : "findInProject.found")
+                    .replace("$n", Integer.toString(found.size()))
+                    .replace("$f", Integer.toString(index.getIndexedFileCount()))
+                    .replace("$t", Long.toString(millis));
+            }
+            catch (PatternSyntaxException e) {
+                status = Config.getString("findInProject.badRegex") + " " + e.getDescription();
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+
+            List<Match> finalFound = found;
+            String finalStatus = status;
+            Platform.runLater(() -> {
+                if (thisSearch == searchNumber) {
+                    if (finalFound == null) {
+                        results.clear();
+                    }
+                    else {
+                        results.setAll(finalFound);
+                    }
+                    statusLabel.setText(finalStatus);
+                }
+            });
+        });
+    }
+
+    /**
+     * Open the editor at the selected result.
+     */
+    private void showSelected()
+    {
+        Match match = resultList.getSelectionModel().getSelectedItem();
+        if (match == null) {
+            return;
+        }
+        String className = project.convertPathToPackageName(match.file().getPath());
+        if (className == null) {
+            return;
+        }
+        Package pkg = project.getPackage(JavaNames.getPrefix(className));
+        if (pkg != null) {
+            pkg.showSource(match.file().getName(), match.line());
+        }
+    }
+
+    /**
+     * Get the name of the file containing a match, relative to the project directory.
+     */
+    private String getDisplayPath(File file)
+    {
+        String projectPath = project.getProjectDir().getAbsolutePath() + File.separator;
+        String path = file.getPath();
+        return path.startsWith(projectPath) ? path.substring(projectPath.length()) : path;
+    }
+
+    /**
+     * A cell showing a match: the file and line, and the text of the line (or, for
+     * symbol queries, the declaration).
+     */
+    @OnThread(value = Tag.FXPlatform, ignoreParent = true)
+    private class MatchCell extends ListCell<Match>
+    {
+        @Override
+        protected void updateItem(Match match, boolean empty)
+        {
+            super.updateItem(match, empty);
+            if (empty || match == null) {
+                setText(null);
+                return;
+            }
+            String location = getDisplayPath(match.file()) + ":" + match.line();
+            if (match.declaration() != null) {
+                String kind = Config.getString("findInProject.kind." + match.declaration().kind().name().toLowerCase());
+                setText(kind + " " + match.declaration().qualifiedName() + "  (" + location + ")");
+            }
+            else {
+                setText(location + ":  " + match.lineText().trim());
+            }
+        }
+    }
+}
@@ -0,0 +1,806 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr.search;
+
+import bluej.parser.DeclarationParser;
+import bluej.parser.DeclarationParser.Declaration;
+import bluej.utility.Debug;
+import bluej.utility.SavePipeline;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An in-memory index of the source of all classes in a project, used for "Find in Project".
+ *
+ * <p>For each source file the index keeps the text, the set of trigrams (three-character
+ * sequences, case-folded) it contains, and its declarations. A query for a literal string
+ * only needs to look at the files which contain every trigram of the string; regular
+ * expressions are narrowed down the same way using the literal parts they require.
+ *
+ * <p>The index is built on a background thread when the project is opened. It is updated
+ * from the editor as the source is edited (after a short delay, so that typing does not cause
+ * constant re-indexing), when a class is saved, and by checking file modification times
+ * when a search is started, which catches changes made outside BlueJ.
+ *
+ * <p>Searches take a snapshot of the relevant entries while holding the index's lock, and
+ * scan the text without it, so that a long search does not hold up the editor's updates.
+ * Entries are never modified once created, so a snapshot stays consistent.
+ *
+ * <p>Stride classes are indexed by their generated Java source, which is what the editor
+ * reports as the user edits, and which has the line numbers used to show a location.
+ */
+@OnThread(Tag.Any)
+public class SourceIndex
+{
+    /** The delay after an edit before the edited source is indexed */
+    private static final long UPDATE_DELAY_MILLIS = 300;
+    /** Source files larger than this are not indexed */
+    private static final long MAX_FILE_SIZE = 4 * 1024 * 1024;
+
+    private final File projectDir;
+    private final ScheduledExecutorService executor;
+    private final CountDownLatch built = new CountDownLatch(1);
+
+    // Protected by synchronizing on the index:
+    private final Map<File, IndexedFile> files = new HashMap<>();
+    private final Map<Long, Set<File>> postings = new HashMap<>();
+    private final Map<File, ScheduledFuture<?>> pendingUpdates = new HashMap<>();
+
+    /**
+     * The kind of a query.
+     */
+    public static enum QueryType
+    {
+        /** Find a literal string */
+        LITERAL,
+        /** Find matches of a regular expression */
+        REGEX,
+        /** Find declarations with the given name */
+        SYMBOL
+    }
+
+    /**
+     * A location found by a query.
+     *
+     * @param file         The source file (for Stride classes, the generated Java file)
+     * @param line         The line number (starting at 1)
+     * @param column       The column number (starting at 1)
+     * @param lineText     The text of the line
+     * @param declaration  The matching declaration, for symbol queries; otherwise null
+     */
+    public record Match(File file, int line, int column, String lineText, Declaration declaration)
+    {
+    }
+
+    /**
+     * The indexed state of one source file.
+     */
+    private static class IndexedFile
+    {
+        private final String text;
+        /** The text, with each character converted to lower case (so offsets are the same) */
+        private final String lowerText;
+        /** The offset of the start of each line */
+        private final int[] lineStarts;
+        /** The distinct trigrams in the text, sorted */
+        private final long[] trigrams;
+        private final List<Declaration> declarations;
+        /** The names and qualified names of the declarations, in lower case */
+        private final String[] lowerNames;
+        private final String[] lowerQualifiedNames;
+        /** The modification time and size of the file when last read from disk */
+        private final long lastModified;
+        private final long length;
+
+        private IndexedFile(String text, long lastModified, long length)
+        {
+            this.text = text;
+            this.lowerText = toLower(text);
+            this.lineStarts = findLineStarts(text);
+            this.trigrams = trigramsOf(lowerText);
+            this.declarations = new DeclarationParser(new StringReader(text)).getDeclarations();
+            this.lowerNames = new String[declarations.size()];
+            this.lowerQualifiedNames = new String[declarations.size()];
+            for (int i = 0; i < lowerNames.length; i++) {
+                lowerNames[i] = toLower(declarations.get(i).name());
+                lowerQualifiedNames[i] = toLower(declarations.get(i).qualifiedName());
+            }
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        private int getLine(int offset)
+        {
+            int index = Arrays.binarySearch(lineStarts, offset);
+            return index >= 0 ? index + 1 : -index - 1;
+        }
+
+        private String getLineText(int line)
+        {
+            int start = lineStarts[line - 1];
+            int end = line < lineStarts.length ? lineStarts[line] : text.length();
+            while (end > start && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+                end--;
+            }
+            return text.substring(start, end);
+        }
+
+        private Match matchAt(File file, int offset)
+        {
+            int line = getLine(offset);
+            return new Match(file, line, offset - lineStarts[line - 1] + 1, getLineText(line), null);
+        }
+    }
+
+    /**
+     * Create an index for the project in the given directory, and start building it
+     * in the background.
+     */
+    public SourceIndex(File projectDir)
+    {
+        this.projectDir = projectDir;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Source indexer");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        executor.execute(() -> {
+            try {
+                refreshFromDisk();
+            }
+            finally {
+                built.countDown();
+            }
+        });
+    }
+
+    /**
+     * Stop indexing. Called when the project is closed.
+     */
+    public void shutdown()
+    {
+        executor.shutdownNow();
+        // In case the initial build never ran:
+        built.countDown();
+    }
+
+    /**
+     * Notify the index that the source of a file has been edited. The new content is
+     * indexed after a short delay, unless it is superseded by further edits first.
+     *
+     * @param file     The Java source file (for Stride classes, the generated Java file)
+     * @param content  The complete new content
+     */
+    public void sourceEdited(File file, String content)
+    {
+        File key = file.getAbsoluteFile();
+        scheduleUpdate(key, () -> {
+            IndexedFile old;
+            synchronized (this) {
+                old = files.get(key);
+            }
+            // Keep the on-disk state, so that a later check of the disk does not replace the
+            // edited content unless the file is actually changed on disk. If the file has not
+            // been indexed, the state it has now is the one the edited content started from:
+            long lastModified = old == null ? key.lastModified() : old.lastModified;
+            long length = old == null ? key.length() : old.length;
+            putFile(key, new IndexedFile(content, lastModified, length));
+        });
+    }
+
+    /**
+     * Notify the index that a file has been saved (or otherwise changed on disk).
+     */
+    public void fileSaved(File file)
+    {
+        File key = file.getAbsoluteFile();
+        scheduleUpdate(key, () -> indexFromDisk(key));
+    }
+
+    /**
+     * Check the project's source files against the index, and index any which have been
+     * added or changed on disk since they were indexed. Files which no longer exist are
+     * removed from the index. The check runs in the background.
+     */
+    public void refresh()
+    {
+        executor.execute(this::refreshFromDisk);
+    }
+
+    /**
+     * Run a query. Waits for the index to be built, and for any refresh requested before
+     * the query, but not for pending editor updates.
+     *
+     * @param type        The type of query
+     * @param query       The text to find, regular expression, or symbol name
+     * @param matchCase   Whether to match case (ignored for symbol queries, which
+     *                    always ignore case but rank matching case first)
+     * @param maxResults  The maximum number of matches to return
+     * @return  The matches, in order of file and position (or by rank for symbol queries)
+     * @throws java.util.regex.PatternSyntaxException  if a regular expression is invalid
+     * @throws InterruptedException  if the thread is interrupted while searching
+     */
+    @OnThread(Tag.Worker)
+    public List<Match> find(QueryType type, String query, boolean matchCase, int maxResults)
+        throws InterruptedException
+    {
+        return find(type, query, matchCase, maxResults, () -> false);
+    }
+
+    /**
+     * Run a query, as {@link #find(QueryType, String, boolean, int)}, but give up as soon as
+     * the given check reports that the search is no longer wanted (for instance, because
+     * it has been superseded by another search).
+     *
+     * @throws InterruptedException  if the search is cancelled, or the thread is interrupted
+     */
+    @OnThread(Tag.Worker)
+    public List<Match> find(QueryType type, String query, boolean matchCase, int maxResults,
+                            BooleanSupplier cancelled)
+        throws InterruptedException
+    {
+        BooleanSupplier stop = () -> cancelled.getAsBoolean() || Thread.currentThread().isInterrupted();
+        built.await();
+        // Let any queued refresh run first:
+        CountDownLatch caughtUp = new CountDownLatch(1);
+        try {
+            executor.execute(caughtUp::countDown);
+            caughtUp.await();
+        }
+        catch (RejectedExecutionException e) {
+            // Shut down; just use what we have
+        }
+
+        switch (type) {
+            case LITERAL:
+                return findLiteral(query, matchCase, maxResults, stop);
+            case REGEX:
+                return findRegex(Pattern.compile(query, matchCase ? 0 : Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE),
+                    maxResults, stop);
+            default:
+                return findSymbol(query, maxResults, stop);
+        }
+    }
+
+    /**
+     * Find occurrences of a literal string.
+     */
+    List<Match> findLiteral(String query, boolean matchCase, int maxResults, BooleanSupplier cancelled)
+        throws InterruptedException
+    {
+        List<Match> matches = new ArrayList<>();
+        if (query.isEmpty()) {
+            return matches;
+        }
+        String lowerQuery = toLower(query);
+        for (Map.Entry<File, IndexedFile> entry : getCandidates(Collections.singletonList(lowerQuery))) {
+            checkCancelled(cancelled);
+            IndexedFile indexed = entry.getValue();
+            String text = matchCase ? indexed.text : indexed.lowerText;
+            String target = matchCase ? query : lowerQuery;
+            int lastLine = 0;
+            for (int pos = text.indexOf(target); pos != -1; pos = text.indexOf(target, pos + 1)) {
+                Match match = indexed.matchAt(entry.getKey(), pos);
+                // Only report the first match on each line:
+                if (match.line() != lastLine) {
+                    lastLine = match.line();
+                    matches.add(match);
+                    if (matches.size() >= maxResults) {
+                        return matches;
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Find matches of a regular expression.
+     */
+    List<Match> findRegex(Pattern pattern, int maxResults, BooleanSupplier cancelled)
+        throws InterruptedException
+    {
+        List<Match> matches = new ArrayList<>();
+        try {
+            for (Map.Entry<File, IndexedFile> entry : getCandidates(requiredLiterals(pattern.pattern()))) {
+                checkCancelled(cancelled);
+                IndexedFile indexed = entry.getValue();
+                // A badly-behaved expression can take a very long time on one file, so the
+                // matcher checks for cancellation as it reads the text:
+                Matcher matcher = pattern.matcher(new CancellableText(indexed.text, cancelled));
+                int lastLine = 0;
+                while (matcher.find()) {
+                    Match match = indexed.matchAt(entry.getKey(), matcher.start());
+                    if (match.line() != lastLine) {
+                        lastLine = match.line();
+                        matches.add(match);
+                        if (matches.size() >= maxResults) {
+                            return matches;
+                        }
+                    }
+                    if (matcher.end() == matcher.start() && matcher.end() >= indexed.text.length()) {
+                        break;
+                    }
+                }
+            }
+        }
+        catch (SearchCancelledException e) {
+            throw new InterruptedException();
+        }
+        return matches;
+    }
+
+    /**
+     * Find declarations by name. A query containing a dot is matched against the qualified
+     * name within the compilation unit (for example "Outer.method"). Exact matches are listed
+     * first, then prefix matches, then other matches containing the query.
+     */
+    List<Match> findSymbol(String query, int maxResults, BooleanSupplier cancelled)
+        throws InterruptedException
+    {
+        String lowerQuery = toLower(query.trim());
+        if (lowerQuery.isEmpty()) {
+            return new ArrayList<>();
+        }
+        boolean qualified = lowerQuery.indexOf('.') != -1;
+
+        List<Match> matches = new ArrayList<>();
+        List<Integer> ranks = new ArrayList<>();
+        for (Map.Entry<File, IndexedFile> entry : getCandidates(Collections.emptyList())) {
+            checkCancelled(cancelled);
+            IndexedFile indexed = entry.getValue();
+            for (int i = 0; i < indexed.declarations.size(); i++) {
+                Declaration declaration = indexed.declarations.get(i);
+                String lowerName = qualified ? indexed.lowerQualifiedNames[i] : indexed.lowerNames[i];
+                int rank;
+                if (lowerName.equals(lowerQuery) || (qualified && lowerName.endsWith("." + lowerQuery))) {
+                    rank = 0;
+                }
+                else if (lowerName.startsWith(lowerQuery)) {
+                    rank = 2;
+                }
+                else if (lowerName.contains(lowerQuery)) {
+                    rank = 4;
+                }
+                else {
+                    continue;
+                }
+                // Prefer matches whose case matches too:
+                String name = qualified ? declaration.qualifiedName() : declaration.name();
+                if (!name.contains(query.trim())) {
+                    rank++;
+                }
+                matches.add(new Match(entry.getKey(), declaration.line(), declaration.column(),
+                    indexed.getLineText(declaration.line()), declaration));
+                ranks.add(rank);
+            }
+        }
+
+        Integer[] order = new Integer[matches.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // Stable sort, so matches of the same rank stay in file order:
+        Arrays.sort(order, Comparator.comparingInt(ranks::get));
+        List<Match> sorted = new ArrayList<>();
+        for (int i = 0; i < order.length && i < maxResults; i++) {
+            sorted.add(matches.get(order[i]));
+        }
+        return sorted;
+    }
+
+    private static void checkCancelled(BooleanSupplier cancelled) throws InterruptedException
+    {
+        if (cancelled.getAsBoolean()) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Get the entries of the files which may contain all of the given (lower-case) literal
+     * strings, according to their trigrams, sorted by path. If no literals are given (or
+     * none is long enough to have a trigram), all files are returned.
+     */
+    synchronized List<Map.Entry<File, IndexedFile>> getCandidates(Collection<String> literals)
+    {
+        Set<File> candidates = null;
+        for (String literal : literals) {
+            for (long trigram : trigramsOf(literal)) {
+                Set<File> containing = postings.get(trigram);
+                if (containing == null) {
+                    return new ArrayList<>();
+                }
+                if (candidates == null) {
+                    candidates = new HashSet<>(containing);
+                }
+                else {
+                    candidates.retainAll(containing);
+                }
+                if (candidates.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+        }
+        List<Map.Entry<File, IndexedFile>> entries = new ArrayList<>();
+        for (File file : sortedFiles(candidates == null ? files.keySet() : candidates)) {
+            entries.add(Map.entry(file, files.get(file)));
+        }
+        return entries;
+    }
+
+    private static List<File> sortedFiles(Collection<File> files)
+    {
+        List<File> sorted = new ArrayList<>(files);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Get literal strings which any match of the given regular expression must contain,
+     * in lower case. This is conservative: only literal characters outside any group,
+     * character class or quantifier are considered, and nothing is returned if the
+     * expression contains an alternation or inline flags.
+     */
+    static List<String> requiredLiterals(String regex)
+    {
+        List<String> literals = new ArrayList<>();
+        if (regex.contains("|") || regex.contains("(?") || regex.contains("\\Q")) {
+            return literals;
+        }
+
+        StringBuilder current = new StringBuilder();
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            Character literal = null;
+            if (c == '\\' && i + 1 < regex.length()) {
+                char next = regex.charAt(++i);
+                if (!Character.isLetterOrDigit(next)) {
+                    literal = next;
+                }
+            }
+            else if (c == '(') {
+                depth++;
+            }
+            else if (c == ')') {
+                depth = Math.max(0, depth - 1);
+            }
+            else if (c == '[') {
+                // Skip the character class:
+                i++;
+                if (i < regex.length() && regex.charAt(i) == ']') {
+                    i++;
+                }
+                while (i < regex.length() && regex.charAt(i) != ']') {
+                    if (regex.charAt(i) == '\\') {
+                        i++;
+                    }
+                    i++;
+                }
+            }
+            else if (c == '?' || c == '*' || c == '{') {
+                // The previous character is optional (or repeated an unknown number of times):
+                if (current.length() > 0) {
+                    current.setLength(current.length() - 1);
+                }
+                if (c == '{') {
+                    int close = regex.indexOf('}', i);
+                    i = close == -1 ? regex.length() : close;
+                }
+            }
+            else if (".^$+".indexOf(c) == -1) {
+                literal = c;
+            }
+
+            if (literal != null && depth == 0) {
+                current.append(literal);
+            }
+            else {
+                addLiteral(literals, current);
+            }
+        }
+        addLiteral(literals, current);
+        return literals;
+    }
+
+    private static void addLiteral(List<String> literals, StringBuilder current)
+    {
+        if (current.length() >= 3) {
+            literals.add(toLower(current.toString()));
+        }
+        current.setLength(0);
+    }
+
+    /**
+     * Schedule an update of a file's entry, replacing any update already scheduled for it.
+     */
+    private void scheduleUpdate(File file, Runnable update)
+    {
+        synchronized (this) {
+            ScheduledFuture<?> pending = pendingUpdates.remove(file);
+            if (pending != null) {
+                pending.cancel(false);
+            }
+            try {
+                pendingUpdates.put(file, executor.schedule(() -> {
+                    synchronized (this) {
+                        pendingUpdates.remove(file);
+                    }
+                    update.run();
+                }, UPDATE_DELAY_MILLIS, TimeUnit.MILLISECONDS));
+            }
+            catch (RejectedExecutionException e) {
+                // Shut down
+            }
+        }
+    }
+
+    /**
+     * Compare the source files in the project directory with the index, and bring the
+     * index up to date.
+     */
+    @OnThread(Tag.Worker)
+    private void refreshFromDisk()
+    {
+        Set<File> onDisk = new HashSet<>();
+        findSourceFiles(projectDir.getAbsoluteFile(), onDisk);
+
+        Set<File> removed;
+        synchronized (this) {
+            removed = new HashSet<>(files.keySet());
+        }
+        removed.removeAll(onDisk);
+        for (File file : removed) {
+            putFile(file, null);
+        }
+
+        for (File file : onDisk) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            IndexedFile indexed;
+            synchronized (this) {
+                indexed = files.get(file);
+            }
+            if (indexed == null || indexed.lastModified != file.lastModified() || indexed.length != file.length()) {
+                indexFromDisk(file);
+            }
+        }
+    }
+
+    /**
+     * Find the Java source files in a directory and its subdirectories, ignoring hidden
+     * directories (such as version control metadata).
+     */
+    private static void findSourceFiles(File dir, Set<File> found)
+    {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.getName().startsWith(".")) {
+                continue;
+            }
+            if (child.isDirectory()) {
+                findSourceFiles(child, found);
+            }
+            else if (child.getName().endsWith(".java") && child.length() <= MAX_FILE_SIZE) {
+                found.add(child);
+            }
+        }
+    }
+
+    @OnThread(Tag.Worker)
+    private void indexFromDisk(File file)
+    {
+        byte[] pending = SavePipeline.getInstance().getPendingContent(file);
+        if (pending != null && pending.length <= MAX_FILE_SIZE) {
+            // Saved but not yet written; an unknown modification time means that the
+            // next refresh will index the file again from disk:
+            putFile(file, new IndexedFile(new String(pending, StandardCharsets.UTF_8), -1, pending.length));
+            return;
+        }
+        long lastModified = file.lastModified();
+        long length = file.length();
+        if (!file.isFile() || length > MAX_FILE_SIZE) {
+            putFile(file, null);
+            return;
+        }
+        try {
+            String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            putFile(file, new IndexedFile(text, lastModified, length));
+        }
+        catch (IOException e) {
+            Debug.message("Could not index " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replace the entry for a file (or remove it, if indexed is null), updating the postings.
+     */
+    private synchronized void putFile(File file, IndexedFile indexed)
+    {
+        IndexedFile old = indexed == null ? files.remove(file) : files.put(file, indexed);
+        if (old != null) {
+            for (long trigram : old.trigrams) {
+                Set<File> containing = postings.get(trigram);
+                if (containing != null) {
+                    containing.remove(file);
+                    if (containing.isEmpty()) {
+                        postings.remove(trigram);
+                    }
+                }
+            }
+        }
+        if (indexed != null) {
+            for (long trigram : indexed.trigrams) {
+                postings.computeIfAbsent(trigram, t -> new HashSet<>()).add(file);
+            }
+        }
+    }
+
+    /**
+     * Get the number of files currently indexed.
+     */
+    public synchronized int getIndexedFileCount()
+    {
+        return files.size();
+    }
+
+    /**
+     * Thrown by {@link CancellableText} when the search reading it has been cancelled.
+     */
+    private static class SearchCancelledException extends RuntimeException
+    {
+        private SearchCancelledException()
+        {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Text for a regular expression to match against, which checks every so often whether
+     * the search has been cancelled, and if so, stops the match by throwing
+     * SearchCancelledException.
+     */
+    private static class CancellableText implements CharSequence
+    {
+        /** How many characters may be read between checks */
+        private static final int CHECK_INTERVAL = 1 << 16;
+
+        private final String text;
+        private final BooleanSupplier cancelled;
+        private int untilCheck = CHECK_INTERVAL;
+
+        private CancellableText(String text, BooleanSupplier cancelled)
+        {
+            this.text = text;
+            this.cancelled = cancelled;
+        }
+
+        @Override
+        public char charAt(int index)
+        {
+            if (--untilCheck <= 0) {
+                untilCheck = CHECK_INTERVAL;
+                if (cancelled.getAsBoolean()) {
+                    throw new SearchCancelledException();
+                }
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length()
+        {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end)
+        {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString()
+        {
+            return text;
+        }
+    }
+
+    private static String toLower(String s)
+    {
+        char[] chars = s.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private static int[] findLineStarts(String text)
+    {
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        int[] starts = new int[count];
+        int line = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                starts[line++] = i + 1;
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * Get the distinct trigrams of a string, each packed into a long, sorted.
+     */
+    static long[] trigramsOf(String s)
+    {
+        if (s.length() < 3) {
+            return new long[0];
+        }
+        long[] trigrams = new long[s.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+}
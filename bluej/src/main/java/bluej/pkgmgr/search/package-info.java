@@ -0,0 +1,4 @@
+@OnThread(Tag.FXPlatform)
+package bluej.pkgmgr.search;
+import threadchecker.OnThread;
+import threadchecker.Tag;
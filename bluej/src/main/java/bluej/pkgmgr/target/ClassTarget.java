@@ -26,6 +26,7 @@ import bluej.Config;
 import bluej.collect.DataCollector;
 import bluej.collect.DiagnosticWithShown;
 import bluej.collect.StrideEditReason;
+import bluej.compiler.ClassAbi;
 import bluej.compiler.CompileInputFile;
 import bluej.compiler.CompileReason;
 import bluej.compiler.CompileType;
@@ -109,6 +110,7 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.lang.ClassNotFoundException;
 
@@ -174,6 +176,11 @@ public class ClassTarget extends DependentTarget
     // Whether the current compilation is invalid due to edits since compilation began
     private boolean compilationInvalid = false;
 
+    // The ABI hash of the class files which the dependent classes were last compiled against
+    // (null if there were no class files), once abiRecorded is set (see ClassAbi):
+    private byte[] abiHash;
+    private boolean abiRecorded = false;
+
     private SourceType sourceAvailable;
     // Part of keeping track of number of editors opened, for Greenfoot phone home:
     private boolean hasBeenOpened = false;
@@ -386,6 +393,27 @@ public class ClassTarget extends DependentTarget
         return sourceInfo;
     }
 
+    /**
+     * Get a reflective for the type represented by this target, for use by editors' code
+     * completion and error checking.  If the class is compiled, this comes from the project's
+     * type cache, which parses the source rather than loading the class again after every
+     * compilation; otherwise (or if there is no source) it is the same as {@link #getTypeReflective()}.
+     *
+     * @return A suitable reflective, or null.
+     */
+    public Reflective getCachedTypeReflective()
+    {
+        if (isCompiled())
+        {
+            Reflective cached = getPackage().getProject().getTypeCache().getReflective(this);
+            if (cached != null)
+            {
+                return cached;
+            }
+        }
+        return getTypeReflective();
+    }
+
     /**
      * Get a reflective for the type represented by this target.
      *
@@ -498,7 +526,7 @@ public class ClassTarget extends DependentTarget
     public void markCompiling(int compilationSequence)
     {
         // The results of compilation will be invalid if the editor contents have not been saved:
-        compilationInvalid = (editor != null) ? editor.isModified() : false; 
+        compilationInvalid = (editor != null) ? editor.isModifiedSinceLastSave() : false; 
         
         if (getState() == State.HAS_ERROR)
         {
@@ -992,18 +1020,7 @@ public class ClassTarget extends DependentTarget
      */
     private void invalidateInclDependents(ArrayList<ClassTarget> alreadyInvalidated)
     {
-        // Mark any current compilation as stale:
-        compilationInvalid = true;
-        
-        if (hasSourceCode())
-        {
-            setState(State.NEEDS_COMPILE);
-            if (editor != null)
-            {
-                // Need to run later because we might be notified mid-edit event:
-                JavaFXUtil.runAfterCurrent(() -> editor.removeErrorHighlights());
-            }
-        }
+        invalidateSelf();
         
         alreadyInvalidated.add(this);
         
@@ -1020,6 +1037,108 @@ public class ClassTarget extends DependentTarget
         }
     }
 
+    /**
+     * Mark this class as modified, but not its dependent classes.  They will be invalidated
+     * when this class has been compiled, if its ABI has changed (see Package).
+     */
+    public void invalidateSelf()
+    {
+        // Mark any current compilation as stale:
+        compilationInvalid = true;
+        
+        if (hasSourceCode())
+        {
+            setState(State.NEEDS_COMPILE);
+            if (editor != null)
+            {
+                // Need to run later because we might be notified mid-edit event:
+                JavaFXUtil.runAfterCurrent(() -> editor.removeErrorHighlights());
+            }
+        }
+    }
+
+    /**
+     * Record the ABI of the class files as they are before compilation, if it is not already
+     * known, so that it can be compared with the result of the compilation.
+     */
+    public void recordAbiBeforeCompile()
+    {
+        if (!abiRecorded)
+        {
+            abiHash = computeAbi();
+            abiRecorded = true;
+        }
+    }
+
+    /**
+     * After a successful compilation, check whether the ABI of the class files has changed
+     * since the dependent classes were compiled, and record the new ABI.
+     * 
+     * @return true if the ABI has changed (or was unknown), in which case the dependent
+     *         classes must be recompiled
+     */
+    public boolean updateAbiAfterCompile()
+    {
+        byte[] newHash = computeAbi();
+        boolean changed = !abiRecorded || abiHash == null || newHash == null || !Arrays.equals(abiHash, newHash);
+        abiHash = newHash;
+        abiRecorded = true;
+        return changed;
+    }
+
+    /**
+     * Compute the ABI hash of the current class files, or null if there are none
+     * (or they cannot be read).
+     */
+    public byte[] computeAbi()
+    {
+        return computeAbi(getPackage().getPath(), getBaseName(), getQualifiedName());
+    }
+
+    /**
+     * Get the ABI hash of the current class files, for the class output cache. If it is already
+     * known (because it was recorded for the last compilation), the supplier just returns it;
+     * otherwise the class files are read when the supplier is called, which may be on another
+     * thread, so that this doesn't read them on the FX thread.
+     */
+    public Supplier<byte[]> getAbiSupplier()
+    {
+        if (abiRecorded)
+        {
+            byte[] hash = abiHash;
+            return () -> hash;
+        }
+        File dir = getPackage().getPath();
+        String baseName = getBaseName();
+        String qualifiedName = getQualifiedName();
+        return () -> computeAbi(dir, baseName, qualifiedName);
+    }
+
+    /**
+     * Compute the ABI hash of the class files of a class (including its inner classes), or null
+     * if there are none (or they cannot be read).
+     */
+    @OnThread(Tag.Any)
+    private static byte[] computeAbi(File dir, String baseName, String qualifiedName)
+    {
+        List<File> classFiles = new ArrayList<>();
+        classFiles.add(new File(dir, baseName + ".class"));
+        File[] innerClassFiles = dir.listFiles(f -> f.getName().startsWith(baseName + "$"));
+        if (innerClassFiles != null)
+        {
+            classFiles.addAll(Arrays.asList(innerClassFiles));
+        }
+        try
+        {
+            return ClassAbi.hash(classFiles);
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Could not read class files for " + qualifiedName, e);
+            return null;
+        }
+    }
+
     /**
      * Verify whether this class target is an interface class
      * 
@@ -1153,6 +1272,7 @@ public class ClassTarget extends DependentTarget
             {
                 setState(State.COMPILED);
             }
+            getPackage().getProject().getTypeCache().classCompiled(getQualifiedName());
         }
 
         if (editor != null)
@@ -1301,7 +1421,7 @@ public class ClassTarget extends DependentTarget
             }
 
             Project project = getPackage().getProject();
-            EntityResolver resolver = new PackageResolver(project.getEntityResolver(),
+            EntityResolver resolver = new PackageResolver(project.getEditorEntityResolver(),
                     getPackage().getQualifiedName());
 
 
@@ -1386,6 +1506,16 @@ public class ClassTarget extends DependentTarget
         super.ensureSaved();
     }
 
+    @Override
+    public void ensureSavedInBackground() throws IOException
+    {
+        // As for ensureSaved():
+        if(editor == null && sourceAvailable == SourceType.Stride) {
+            getEditor();
+        }
+        super.ensureSavedInBackground();
+    }
+
     // --- end of EditableTarget interface ---
 
     // --- user interface function implementation ---
@@ -1419,7 +1549,8 @@ public class ClassTarget extends DependentTarget
     @Override
     public void modificationEvent(Editor editor)
     {
-        invalidate();
+        // Dependent classes are only recompiled if the ABI of this class changes:
+        invalidateSelf();
                 
         removeBreakpoints();
         if (getPackage().getProject().getDebugger() != null)
@@ -1436,6 +1567,7 @@ public class ClassTarget extends DependentTarget
     @Override
     public void saveEvent(Editor editor)
     {
+        getPackage().getProject().getSourceIndex().fileSaved(getJavaSourceFile());
         ClassInfo info = analyseSource();
         if (info != null) {
             updateTargetFile(info);
@@ -1445,9 +1577,15 @@ public class ClassTarget extends DependentTarget
 
     @Override
     public boolean breakpointToggleEvent(int lineNo, boolean set)
+    {
+        return breakpointToggleEvent(lineNo, set, null);
+    }
+
+    @Override
+    public boolean breakpointToggleEvent(int lineNo, boolean set, Map<String, String> properties)
     {
         if (isCompiled()) {
-            boolean nowSet = getPackage().getDebugger().toggleBreakpoint(getQualifiedName(), lineNo, set, null);
+            boolean nowSet = getPackage().getDebugger().toggleBreakpoint(getQualifiedName(), lineNo, set, properties);
 
             if (nowSet == set && getPackage() != null)
             {
@@ -2154,6 +2292,7 @@ public class ClassTarget extends DependentTarget
                 if (sourceAvailable != SourceType.NONE)
                 {
                     getClassFile().delete();
+                    abiRecorded = false;
                     invalidate();
                 }
             }
@@ -2423,6 +2562,7 @@ public class ClassTarget extends DependentTarget
         prepareForRemoval();
         Package pkg = getPackage();
         pkg.removeTarget(this);
+        pkg.getProject().getTypeCache().remove(getQualifiedName());
 
         // Inform all listeners about the class removed
         ClassEvent event = new ClassEvent(getPackage(), getBClass());
@@ -2586,12 +2726,14 @@ public class ClassTarget extends DependentTarget
     public void recordJavaEdit(String latest, boolean includeOneLineEdits)
     {
         DataCollector.editJava(getPackage(), getJavaSourceFile(), latest, includeOneLineEdits);
+        getPackage().getProject().getSourceIndex().sourceEdited(getJavaSourceFile(), latest);
     }
 
     @Override
     public void recordStrideEdit(String latestJava, String latestStride, StrideEditReason reason)
     {
         DataCollector.editStride(getPackage(), getJavaSourceFile(), latestJava, getFrameSourceFile(), latestStride, reason);
+        getPackage().getProject().getSourceIndex().sourceEdited(getJavaSourceFile(), latestJava);
     }
 
     @Override
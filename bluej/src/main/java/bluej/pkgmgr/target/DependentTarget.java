@@ -247,6 +247,17 @@ public abstract class DependentTarget extends EditableTarget
             ).collect(Collectors.toList());
     }
 
+    /**
+     * Returns the collection of classes which directly extend or implement this class.
+     */
+    @OnThread(Tag.Any)
+    public final synchronized Collection<DependentTarget> subtypes()
+    {
+        return children.stream()
+            .map(Dependency::getFrom)
+            .collect(Collectors.toList());
+    }
+
     @OnThread(Tag.Any)
     public synchronized List<Dependency> dependentsAsList()
     {
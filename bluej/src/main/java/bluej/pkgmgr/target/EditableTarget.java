@@ -76,6 +76,19 @@ public abstract class  EditableTarget extends Target
             editor.save();
         }
     }
+
+    /**
+     * Ensure that any unsaved changes in an open editor window are saved, but
+     * without waiting for the file to be written to disk. This is suitable before
+     * compiling, since the compiler sees content which is still being written.
+     */
+    public void ensureSavedInBackground() throws IOException
+    {
+        if (editor != null && editor.isModifiedSinceLastSave())
+        {
+            editor.saveInBackground();
+        }
+    }
     
     /**
      * Called to open the editor for this target
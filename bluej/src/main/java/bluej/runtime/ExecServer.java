@@ -26,11 +26,13 @@ import java.awt.Toolkit;
 import java.awt.Window;
 import java.awt.event.AWTEventListener;
 import java.awt.event.WindowEvent;
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -38,6 +40,7 @@ import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -55,8 +58,12 @@ import javafx.embed.swing.JFXPanel;
 import javafx.stage.Stage;
 
 import org.junit.jupiter.api.extension.InvocationInterceptor;
+import org.junit.platform.engine.DiscoverySelector;
 import org.junit.platform.engine.TestExecutionResult;
 import org.junit.platform.engine.TestExecutionResult.Status;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.engine.support.descriptor.MethodSource;
 import org.junit.platform.launcher.Launcher;
 import org.junit.platform.launcher.LauncherDiscoveryRequest;
 import org.junit.platform.launcher.TestIdentifier;
@@ -113,6 +120,8 @@ public class ExecServer
     public static String [] parameterTypes;
     public static Object [] arguments;
     public static int execAction = -1;   // EXEC_SHELL, TEST_SETUP or TEST_RUN
+    // For TEST_RUN_CLASSES, whether test classes may be run concurrently:
+    public static boolean runTestsInParallel;
     
     public static Object methodReturn;
     public static Class<?> executedClass;
@@ -128,6 +137,7 @@ public class ExecServer
     public static final String METHOD_RETURN_NAME = "methodReturn";
     public static final String EXCEPTION_NAME = "exception";
     public static final String EXECUTED_CLASS_NAME = "executedClass";
+    public static final String RUN_TESTS_IN_PARALLEL_NAME = "runTestsInParallel";
 
     // Possible actions for the main thread
     public static final int EXEC_SHELL = 0;  // Execute a shell class
@@ -140,6 +150,7 @@ public class ExecServer
     public static final int INSTANTIATE_CLASS_ARGS = 7; // use constructor
         // with specified parameter types and arguments
     public static final int LAUNCH_FX_APP = 8;
+    public static final int TEST_RUN_CLASSES = 9; // run all tests in several classes, streaming results
 
     // Parameter for worker thread actions
     public static int workerAction = EXIT_VM;
@@ -331,6 +342,19 @@ public class ExecServer
         // <<READING-REQUEST BREAKPOINT!>
     }
 
+    /**
+     * This method is called each time a test finishes during a TEST_RUN_CLASSES run, so that
+     * the result can be shown straight away. The details are read from the arguments by the
+     * debugger, which has a breakpoint on this method.
+     *
+     * @param details  the test class name, followed by the nine items described in
+     *                 {@link #runTestMethod(String, String)}
+     */
+    public static void testResultReported(String[] details)
+    {
+        // <<TEST-RESULT BREAKPOINT!>
+    }
+
     /**
      * Add the object to our list of open windows
      *
@@ -485,6 +509,23 @@ public class ExecServer
         return cl;
     }
     
+    /**
+     * Define a compiled breakpoint condition class in the same package (and class loader)
+     * as the class containing the breakpoint, so that the condition can use the types and
+     * members that are visible there. This is invoked by the debugger on the thread which
+     * has hit the breakpoint.
+     *
+     * @param host       the class containing the breakpoint
+     * @param classFile  the path of the class file of the condition
+     * @return  the defined class
+     */
+    public static Class<?> defineBreakpointCondition(Class<?> host, String classFile)
+        throws IOException, IllegalAccessException
+    {
+        byte[] bytes = Files.readAllBytes(new File(classFile).toPath());
+        return MethodHandles.privateLookupIn(host, MethodHandles.lookup()).defineClass(bytes);
+    }
+
     /**
      * Load a class, and all its inner classes.
      */
@@ -652,9 +693,16 @@ public class ExecServer
     private static class TestRecorder implements TestExecutionListener
     {
         private final List<Object[]> testDetails = new ArrayList<>();
+        // If true, report each result via testResultReported rather than storing it in testDetails:
+        private final boolean streamResults;
         private long executionStartTime;
         private long executionRunTime = -1;
 
+        public TestRecorder(boolean streamResults)
+        {
+            this.streamResults = streamResults;
+        }
+
         public void testPlanExecutionStarted(TestPlan testPlan)
         {
             executionStartTime = System.currentTimeMillis();
@@ -732,8 +780,39 @@ public class ExecServer
                         r[2] = r[3] = r[4] = r[5] = r[6] = r[7] = "";
                     }
                 }
-                testDetails.add(r);
+
+                if (streamResults)
+                {
+                    String[] details = new String[r.length + 1];
+                    details[0] = getTestClassName(testIdentifier);
+                    for (int i = 0; i < r.length; i++)
+                    {
+                        details[i + 1] = (r[i] != null) ? r[i].toString() : "";
+                    }
+                    testResultReported(details);
+                }
+                else
+                {
+                    testDetails.add(r);
+                }
+            }
+        }
+
+        /**
+         * Get the name of the class which declares a test.
+         */
+        private static String getTestClassName(TestIdentifier testIdentifier)
+        {
+            TestSource source = testIdentifier.getSource().orElse(null);
+            if (source instanceof MethodSource)
+            {
+                return ((MethodSource) source).getClassName();
             }
+            else if (source instanceof ClassSource)
+            {
+                return ((ClassSource) source).getClassName();
+            }
+            return "";
         }
     }
 
@@ -768,13 +847,55 @@ public class ExecServer
         ServiceLoader.load(InvocationInterceptor.class);
 
         Launcher launcher = LauncherFactory.create();
-        TestRecorder recorder = new TestRecorder();
+        TestRecorder recorder = new TestRecorder(false);
         launcher.registerTestExecutionListeners(recorder);
         launcher.execute(request);
         return Stream.concat(Stream.of(String.valueOf(recorder.getExecutionRunTime())),
                 recorder.testDetails.stream().flatMap(t -> Arrays.stream(t))).toArray();
     }
 
+    /**
+     * Execute all JUnit tests in a set of test classes, as a single test plan. Each result is
+     * passed to {@link #testResultReported(String[])} as soon as the test finishes, rather than
+     * being returned.
+     *
+     * @param classNames  the fully qualified names of the test classes, separated by newlines
+     * @param parallel    whether the test classes may be run concurrently. This only applies
+     *                    to JUnit 5 tests; the methods within a class are always run one at a time.
+     * @return an array with one item: the runtime of executing all tests in milliseconds
+     *         expressed as a decimal integer.
+     */
+    private static Object[] runTestClasses(String classNames, boolean parallel)
+    {
+        List<DiscoverySelector> selectors = new ArrayList<>();
+        for (String className : classNames.split("\n"))
+        {
+            if (!className.isEmpty())
+            {
+                selectors.add(selectClass(className));
+            }
+        }
+
+        LauncherDiscoveryRequestBuilder requestBuilder = LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectors)
+                .configurationParameter("junit.jupiter.extensions.autodetection.enabled", "true"); //required to use our extension
+        if (parallel)
+        {
+            requestBuilder.configurationParameter("junit.jupiter.execution.parallel.enabled", "true")
+                    .configurationParameter("junit.jupiter.execution.parallel.mode.default", "same_thread")
+                    .configurationParameter("junit.jupiter.execution.parallel.mode.classes.default", "concurrent");
+        }
+
+        // Load the implementation of InvocationInterceptor with Java ServiceLoader.
+        ServiceLoader.load(InvocationInterceptor.class);
+
+        Launcher launcher = LauncherFactory.create();
+        TestRecorder recorder = new TestRecorder(true);
+        launcher.registerTestExecutionListeners(recorder);
+        launcher.execute(requestBuilder.build());
+        return new Object[] {String.valueOf(recorder.getExecutionRunTime())};
+    }
+
     /**
      * Remove an object from the scope.
      */
@@ -950,6 +1071,9 @@ public class ExecServer
                         case TEST_RUN:
                             methodReturn = runTestMethod(classToRun, methodToRun);
                             break;
+                        case TEST_RUN_CLASSES:
+                            methodReturn = runTestClasses(classToRun, runTestsInParallel);
+                            break;
                         case DISPOSE_WINDOWS:
                             disposeWindows();
                             break;
@@ -39,12 +39,14 @@ import java.util.List;
  */
 public class UnitTestExtension implements InvocationInterceptor
 {
-    // The method parameters are listed in this list to be read by other classes
-    private static ArrayList<String> argsAsStrList = new ArrayList<String>();
+    // The method parameters are listed in this list to be read by other classes.  Tests in
+    // different classes may run concurrently, so each thread has its own list.
+    private static final ThreadLocal<ArrayList<String>> argsAsStrList = ThreadLocal.withInitial(ArrayList::new);
 
     private void doIntereceptionMethod(InvocationInterceptor.Invocation<Void> invocation, ReflectiveInvocationContext<Method> invocationContext, ExtensionContext extensionContext) throws Throwable
     {
         // First we clear the list from potential previous calls
+        ArrayList<String> argsAsStrList = UnitTestExtension.argsAsStrList.get();
         argsAsStrList.clear();
 
         // Retrieve the method's parameter so we can show something meaningful in BlueJ's tests list.
@@ -125,6 +127,6 @@ public class UnitTestExtension implements InvocationInterceptor
 
     public static ArrayList<String> getArgsAsStrList()
     {
-        return argsAsStrList;
+        return argsAsStrList.get();
     }
 }
@@ -74,7 +74,7 @@ public class CaseElement extends ContainerCodeElement implements JavaSingleLineD
         caseEl.addAttributeStructured("expression", expression);
         addEnableAttribute(caseEl);
         for (CodeElement c : contents) {
-            caseEl.appendChild(c.toXML());
+            caseEl.appendChild(childToXML(c));
         }
         return caseEl;
     }
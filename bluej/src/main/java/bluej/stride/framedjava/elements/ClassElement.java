@@ -299,7 +299,7 @@ public class ClassElement extends DocumentContainerCodeElement implements TopLev
     private void appendCollection(Element topEl, List<? extends CodeElement> collection, String name)
     {
         Element collectionEl = new Element(name);
-        collection.forEach(element -> collectionEl.appendChild(element.toXML()));
+        collection.forEach(element -> collectionEl.appendChild(childToXML(element)));
         topEl.appendChild(collectionEl);
     }
 
@@ -43,6 +43,7 @@ import bluej.stride.framedjava.ast.JavaSource;
 import bluej.stride.framedjava.ast.SlotFragment;
 import bluej.stride.framedjava.errors.CodeError;
 import bluej.stride.framedjava.errors.SyntaxCodeError;
+import bluej.stride.generic.ElementSnapshot;
 import bluej.stride.generic.Frame;
 import bluej.stride.generic.Frame.ShowReason;
 
@@ -97,6 +98,16 @@ public abstract class CodeElement
     
     public abstract LocatableElement toXML();
 
+    /**
+     * Get the XML for a child element, for inclusion in this element's XML.  This is the
+     * same as child.toXML(), except while an undo snapshot is being taken, when a child
+     * which already has a snapshot is not converted again (see ElementSnapshot).
+     */
+    protected static Element childToXML(CodeElement child)
+    {
+        return ElementSnapshot.childToXML(child);
+    }
+
     @OnThread(Tag.FX)
     public abstract Frame createFrame(InteractionManager editor);
     
@@ -101,7 +101,7 @@ public class ForeachElement extends ContainerCodeElement
         addEnableAttribute(loopEl);
         for (CodeElement c : contents)
         {
-            loopEl.appendChild(c.toXML());
+            loopEl.appendChild(childToXML(c));
         }
         return loopEl;
     }
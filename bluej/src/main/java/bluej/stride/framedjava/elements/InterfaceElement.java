@@ -191,7 +191,7 @@ public class InterfaceElement extends DocumentContainerCodeElement implements To
     private void appendCollection(Element topEl, List<? extends CodeElement> collection, String name)
     {
         Element collectionEl = new Element(name);
-        collection.forEach(element -> collectionEl.appendChild(element.toXML()));
+        collection.forEach(element -> collectionEl.appendChild(childToXML(element)));
         topEl.appendChild(collectionEl);
     }
 
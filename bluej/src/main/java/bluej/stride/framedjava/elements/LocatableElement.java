@@ -60,6 +60,14 @@ public class LocatableElement extends Element
         this.origin = origin;
     }
 
+    /**
+     * Get the CodeElement which generated this Element (may be null).
+     */
+    public CodeElement getOrigin()
+    {
+        return origin;
+    }
+
     public void addAttributeStructured(String name, StructuredSlotFragment code)
     {
         attrNames.put(name, code);
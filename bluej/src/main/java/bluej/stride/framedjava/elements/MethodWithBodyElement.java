@@ -190,7 +190,7 @@ public abstract class MethodWithBodyElement extends DocumentContainerCodeElement
     {
         Element bodyEl = new Element("body");
         for (CodeElement c : contents) {
-            bodyEl.appendChild(c.toXML());
+            bodyEl.appendChild(childToXML(c));
         }
         methodEl.appendChild(bodyEl);
     }
@@ -195,21 +195,21 @@ public abstract class SandwichCanvasesElement extends ContainerCodeElement imple
         addMainAttributes(mainEl);
         addEnableAttribute(mainEl);
         Element firstCanvasStatementsEl = new Element(frameCaption + "Statements");
-        firstCanvasContents.forEach(c -> firstCanvasStatementsEl.appendChild(c.toXML()));
+        firstCanvasContents.forEach(c -> firstCanvasStatementsEl.appendChild(childToXML(c)));
         mainEl.appendChild(firstCanvasStatementsEl);
 
         for (int i = 0; i < intermediateCanvasContents.size(); i++)
         {
             LocatableElement intermediateCanvasEl = new LocatableElement(null, intermediateCanvasElement);
             addIntermediateAttributes(intermediateCanvasEl, i);
-            intermediateCanvasContents.get(i).forEach(f -> intermediateCanvasEl.appendChild(f.toXML()));
+            intermediateCanvasContents.get(i).forEach(f -> intermediateCanvasEl.appendChild(childToXML(f)));
             mainEl.appendChild(intermediateCanvasEl);
         }
 
         // We only want a tailCanvas if there is an tailCanvasContents; empty is different to null:
         if (tailCanvasContents != null) {
             Element tailCanvasEl = new Element(tailCanvasCaption);
-            tailCanvasContents.forEach(c -> tailCanvasEl.appendChild(c.toXML()));
+            tailCanvasContents.forEach(c -> tailCanvasEl.appendChild(childToXML(c)));
             mainEl.appendChild(tailCanvasEl);
         }
         return mainEl;
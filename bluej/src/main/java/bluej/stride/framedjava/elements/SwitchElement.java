@@ -104,13 +104,13 @@ public class SwitchElement extends ContainerCodeElement implements JavaSingleLin
         addEnableAttribute(switchEl);
 
         Element casesEl = new Element("cases");
-        casesContents.forEach(c -> casesEl.appendChild(c.toXML()));
+        casesContents.forEach(c -> casesEl.appendChild(childToXML(c)));
         switchEl.appendChild(casesEl);
 
         // We only want a default if there is an defaultContents; empty is different to null:
         if (defaultContents != null) {
             Element defaultEl = new Element("default");
-            defaultContents.forEach(c -> defaultEl.appendChild(c.toXML()));
+            defaultContents.forEach(c -> defaultEl.appendChild(childToXML(c)));
             switchEl.appendChild(defaultEl);
         }
 
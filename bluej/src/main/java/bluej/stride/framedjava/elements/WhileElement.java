@@ -76,7 +76,7 @@ public class WhileElement extends ContainerCodeElement implements JavaSingleLine
         addEnableAttribute(whileEl);
         for (CodeElement c : contents)
         {
-            whileEl.appendChild(c.toXML());
+            whileEl.appendChild(childToXML(c));
         }
         return whileEl;
     }
@@ -36,6 +36,7 @@ import threadchecker.Tag;
 import bluej.stride.framedjava.elements.CodeElement;
 import bluej.stride.framedjava.elements.TopLevelCodeElement;
 import bluej.stride.generic.CursorFinder;
+import bluej.stride.generic.ElementSnapshot;
 import bluej.stride.generic.Frame;
 import bluej.stride.generic.FrameCanvas;
 import bluej.stride.generic.RecallableFocus;
@@ -85,6 +86,9 @@ public interface TopLevelFrame<T extends CodeElement & TopLevelCodeElement> exte
     }
     public Stream<RecallableFocus> getFocusables();
     public Stream<Frame> getAllFrames();
+    public Stream<FrameCanvas> getPersistentCanvases();
+    public ElementSnapshot getUndoSnapshot();
+    public void setUndoSnapshot(ElementSnapshot undoSnapshot);
     
     public void restore(T target);
     default public void restoreCast(TopLevelCodeElement target)
@@ -0,0 +1,285 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.stride.generic;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Supplier;
+
+import bluej.stride.framedjava.elements.CodeElement;
+import bluej.stride.framedjava.elements.LocatableElement;
+import nu.xom.Attribute;
+import nu.xom.Element;
+import nu.xom.Node;
+import nu.xom.ProcessingInstruction;
+import nu.xom.Text;
+
+/**
+ * An immutable snapshot of an XML element tree (as produced by CodeElement.toXML()).
+ *
+ * Snapshots are interned: taking a snapshot of a tree which is structurally equal to one
+ * which is still in use gives the same snapshot object, and this applies to every subtree
+ * too.  So successive snapshots of a class in which only one frame has changed share
+ * everything except the changed frame and its ancestors, and two snapshots (or two
+ * subtrees) can be compared by reference.
+ *
+ * When snapshotting a code element, snapshots already taken of code elements within it can
+ * be supplied, and those elements are then not converted to XML at all (see FrameState).
+ */
+public final class ElementSnapshot
+{
+    /** The canonical instance of each snapshot in use.  Unused snapshots are removed by the GC. */
+    private static final Map<ElementSnapshot, WeakReference<ElementSnapshot>> interned = new WeakHashMap<>();
+
+    /** While a snapshot is being taken on this thread: the snapshots known for code elements within it */
+    private static final ThreadLocal<Map<CodeElement, ElementSnapshot>> knownSnapshots = new ThreadLocal<>();
+
+    private final String qualifiedName;
+    private final String namespaceURI;
+    /** Triples of qualified name, namespace URI and value */
+    private final String[] attributes;
+    /** Each child is an (interned) ElementSnapshot, a String for a text node, or an OtherNode */
+    private final Object[] children;
+    private final int hash;
+
+    private ElementSnapshot(String qualifiedName, String namespaceURI, String[] attributes, Object[] children)
+    {
+        this.qualifiedName = qualifiedName;
+        this.namespaceURI = namespaceURI;
+        this.attributes = attributes;
+        this.children = children;
+        int h = qualifiedName.hashCode() * 31 + namespaceURI.hashCode();
+        h = h * 31 + Arrays.hashCode(attributes);
+        for (Object child : children)
+        {
+            // Child snapshots are interned, so their (cached) hash is enough:
+            h = h * 31 + child.hashCode();
+        }
+        this.hash = h;
+    }
+
+    /**
+     * A child node which is neither an element nor text (e.g. a comment).  Compared by its
+     * kind and content.
+     */
+    private static final class OtherNode
+    {
+        private final Node node;
+        private final String key;
+
+        private OtherNode(Node node)
+        {
+            this.node = node.copy();
+            String target = node instanceof ProcessingInstruction ? ((ProcessingInstruction) node).getTarget() : "";
+            this.key = node.getClass().getName() + ":" + target + ":" + node.getValue();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof OtherNode && ((OtherNode) o).key.equals(key);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return key.hashCode();
+        }
+    }
+
+    /**
+     * Stands in for the XML of a code element whose snapshot is already known.
+     */
+    private static final class Placeholder extends Element
+    {
+        private final ElementSnapshot snapshot;
+
+        private Placeholder(ElementSnapshot snapshot)
+        {
+            super("snapshot");
+            this.snapshot = snapshot;
+        }
+    }
+
+    /**
+     * Take a snapshot of the given element.
+     */
+    public static ElementSnapshot of(Element element)
+    {
+        return of(element, null);
+    }
+
+    /**
+     * Take a snapshot of the XML of a code element.
+     *
+     * @param toXML     Produces the XML of the code element
+     * @param known     Snapshots already taken of code elements within it.  These elements
+     *                  are not converted to XML again, and their snapshots are reused.
+     * @param produced  Receives the snapshot taken of each code element which was converted
+     */
+    public static ElementSnapshot of(Supplier<? extends Element> toXML, Map<CodeElement, ElementSnapshot> known,
+                                     Map<CodeElement, ElementSnapshot> produced)
+    {
+        Map<CodeElement, ElementSnapshot> previous = knownSnapshots.get();
+        knownSnapshots.set(known);
+        try
+        {
+            return of(toXML.get(), produced);
+        }
+        finally
+        {
+            knownSnapshots.set(previous);
+        }
+    }
+
+    /**
+     * Get the XML for a child code element, for inclusion in its parent's XML.  While a
+     * snapshot is being taken, this is a placeholder if the child's snapshot is known.
+     */
+    public static Element childToXML(CodeElement child)
+    {
+        Map<CodeElement, ElementSnapshot> known = knownSnapshots.get();
+        ElementSnapshot snapshot = known == null ? null : known.get(child);
+        return snapshot != null ? new Placeholder(snapshot) : child.toXML();
+    }
+
+    private static ElementSnapshot of(Element element, Map<CodeElement, ElementSnapshot> produced)
+    {
+        String[] attributes = new String[element.getAttributeCount() * 3];
+        for (int i = 0; i < element.getAttributeCount(); i++)
+        {
+            Attribute attribute = element.getAttribute(i);
+            attributes[i * 3] = attribute.getQualifiedName();
+            attributes[i * 3 + 1] = attribute.getNamespaceURI();
+            attributes[i * 3 + 2] = attribute.getValue();
+        }
+        Object[] children = new Object[element.getChildCount()];
+        for (int i = 0; i < children.length; i++)
+        {
+            Node child = element.getChild(i);
+            if (child instanceof Placeholder)
+            {
+                children[i] = ((Placeholder) child).snapshot;
+            }
+            else if (child instanceof Element)
+            {
+                children[i] = of((Element) child, produced);
+            }
+            else if (child instanceof Text)
+            {
+                children[i] = child.getValue();
+            }
+            else
+            {
+                children[i] = new OtherNode(child);
+            }
+        }
+        ElementSnapshot snapshot = intern(new ElementSnapshot(element.getQualifiedName(), element.getNamespaceURI(), attributes, children));
+        if (produced != null && element instanceof LocatableElement && ((LocatableElement) element).getOrigin() != null)
+        {
+            produced.put(((LocatableElement) element).getOrigin(), snapshot);
+        }
+        return snapshot;
+    }
+
+    private static ElementSnapshot intern(ElementSnapshot snapshot)
+    {
+        // The table is shared by all editors, and snapshots may be taken on any thread:
+        synchronized (interned)
+        {
+            WeakReference<ElementSnapshot> existingRef = interned.get(snapshot);
+            ElementSnapshot existing = existingRef == null ? null : existingRef.get();
+            if (existing != null)
+            {
+                return existing;
+            }
+            interned.put(snapshot, new WeakReference<>(snapshot));
+            return snapshot;
+        }
+    }
+
+    /**
+     * Create a new XML element tree equal to the one this snapshot was taken of.
+     */
+    public Element toElement()
+    {
+        Element element = new Element(qualifiedName, namespaceURI);
+        for (int i = 0; i < attributes.length; i += 3)
+        {
+            element.addAttribute(new Attribute(attributes[i], attributes[i + 1], attributes[i + 2]));
+        }
+        for (Object child : children)
+        {
+            if (child instanceof ElementSnapshot)
+            {
+                element.appendChild(((ElementSnapshot) child).toElement());
+            }
+            else if (child instanceof String)
+            {
+                element.appendChild((String) child);
+            }
+            else
+            {
+                element.appendChild(((OtherNode) child).node.copy());
+            }
+        }
+        return element;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+            return true;
+        if (!(o instanceof ElementSnapshot))
+            return false;
+        ElementSnapshot other = (ElementSnapshot) o;
+        if (hash != other.hash || !qualifiedName.equals(other.qualifiedName)
+                || !namespaceURI.equals(other.namespaceURI) || !Arrays.equals(attributes, other.attributes)
+                || children.length != other.children.length)
+            return false;
+        for (int i = 0; i < children.length; i++)
+        {
+            Object a = children[i];
+            Object b = other.children[i];
+            // Child snapshots are interned before their parent, so can be compared by reference:
+            if (a instanceof ElementSnapshot || b instanceof ElementSnapshot)
+            {
+                if (a != b)
+                    return false;
+            }
+            else if (!a.equals(b))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+}
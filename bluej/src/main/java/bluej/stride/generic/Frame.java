@@ -261,6 +261,12 @@ public abstract class Frame implements CursorFinder, FocusParent<FrameContentIte
      */
     private boolean alwaysBeenBlank = true;
 
+    /**
+     * The snapshot of this frame's code taken for the undo history, if one has been taken since
+     * this frame (or any frame within it) was last modified; null otherwise.  See FrameState.
+     */
+    private ElementSnapshot undoSnapshot;
+
     protected Map<String, BooleanProperty> modifiers = new HashMap<>();
     /**
      * Creates a new frame.
@@ -1166,6 +1172,35 @@ public abstract class Frame implements CursorFinder, FocusParent<FrameContentIte
             .collect(Utility.<List<Frame>>intersperse(() -> Arrays.<Frame>asList(new BlankFrame(editor)))).toArray(new List[0])));
     }
 
+    /**
+     * Gets the snapshot of this frame's code taken for the undo history, or null if this frame
+     * (or any frame within it) has been modified since.
+     */
+    public ElementSnapshot getUndoSnapshot()
+    {
+        return undoSnapshot;
+    }
+
+    public void setUndoSnapshot(ElementSnapshot undoSnapshot)
+    {
+        this.undoSnapshot = undoSnapshot;
+    }
+
+    /**
+     * Notes that this frame has been modified, so that any undo snapshot of it, or of the
+     * frames containing it, is out of date.
+     */
+    public void invalidateUndoSnapshot()
+    {
+        Frame f = this;
+        while (f != null)
+        {
+            f.undoSnapshot = null;
+            FrameCanvas canvas = f.getParentCanvas();
+            f = canvas == null || canvas.getParent() == null ? null : canvas.getParent().getFrame();
+        }
+    }
+
     /**
      * Gets all frames contained within, to unlimited depth
      */
@@ -1127,19 +1127,23 @@ public class FrameCanvas implements FrameContentItem
     
     public void restore(List<? extends CodeElement> elements, InteractionManager editor)
     {
-        // First, make a mapping of all existing elements to their source
-        Map<String, List<Frame>> existingLookup = new HashMap<>();
-        List<String> existingList = new ArrayList<>();
+        // First, make a mapping of all existing elements to their source.  Snapshots are interned,
+        // and shared with the undo history, so comparing them is cheap.  Unmodified frames
+        // still have the snapshot taken for the undo history:
+        Map<ElementSnapshot, List<Frame>> existingLookup = new HashMap<>();
+        List<ElementSnapshot> existingList = new ArrayList<>();
         for (CodeFrame f : getBlocksSubtype(CodeFrame.class))
         {
-            String xml = f.getCode().toXML().toXML();
+            ElementSnapshot xml = ((Frame) f).getUndoSnapshot();
+            if (xml == null)
+                xml = ElementSnapshot.of(f.getCode().toXML());
             existingLookup.merge(xml, new ArrayList<>(Arrays.asList((Frame) f)), (a, b) -> {
                 a.addAll(b);
                 return a;
             });
             existingList.add(xml);
         }
-        List<String> newContentXML = elements.stream().map(el -> el.toXML().toXML()).collect(Collectors.toList());
+        List<ElementSnapshot> newContentXML = elements.stream().map(el -> ElementSnapshot.of(el.toXML())).collect(Collectors.toList());
 
         // Check how many frames differ between the two, if they're of same length
         if (existingList.size() == newContentXML.size())
@@ -1148,7 +1152,7 @@ public class FrameCanvas implements FrameContentItem
             int lastDiff = -1;
             for (int i = 0; i < existingList.size(); i++)
             {
-                if (existingList.get(i).equals(newContentXML.get(i)) == false)
+                if (existingList.get(i) != newContentXML.get(i))
                 {
                     numDiff += 1;
                     lastDiff = i;
@@ -0,0 +1,233 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.stride.generic;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.ListChangeListener;
+import javafx.geometry.Bounds;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.layout.Region;
+
+import bluej.editor.stride.WindowOverlayPane;
+import bluej.stride.generic.Frame.View;
+import bluej.utility.javafx.JavaFXUtil;
+import bluej.utility.javafx.SharedTransition;
+
+/**
+ * Virtualises the frames in a canvas (in practice, the methods canvas of a class) with
+ * respect to the editor's viewport.
+ *
+ * Frames which are well away from the viewport are "collapsed": their size is fixed at
+ * the size they were last laid out at, so the canvas lays them out as a single box of
+ * known size, without measuring their slots, flow panes and nested canvases.  This means
+ * that inserting and removing frames, or other changes which lay out the canvas again,
+ * only measure the frames which are near the viewport.  A collapsed frame is expanded
+ * again (and laid out properly) as soon as it comes within a viewport's height of the
+ * visible area, contains the focus, or the view changes away from the normal view
+ * (e.g. to bird's eye view or Java preview, which need the true size of every frame).
+ *
+ * A collapsed frame's fixed size is only valid while its content and width stay the
+ * same, so it is also expanded when anything inside it needs laying out again (for
+ * example after an undo, or when its error display changes), and all frames are
+ * expanded when the width of the canvas changes.  They are collapsed again, at their
+ * new size, once they have been laid out.
+ *
+ * The frames themselves are left untouched, and remain in the scene graph, so the code
+ * model, focus handling and cursor navigation are all unaffected.  (So this saves layout
+ * work, but not memory.)
+ */
+class FrameCanvasVirtualiser
+{
+    /** Frames within this many viewport heights of the visible area are always expanded */
+    private static final double MARGIN = 1.0;
+    /** Canvases with fewer frames than this are not worth virtualising */
+    private static final int MIN_FRAMES = 20;
+
+    private final InteractionManager editor;
+    private final FrameCanvas canvas;
+    /** The collapsed frames, with the listeners which expand them if their content changes */
+    private final Map<Frame, ChangeListener<Boolean>> collapsed = new IdentityHashMap<>();
+    private final InvalidationListener scrollListener = o -> scheduleUpdate();
+    private final ChangeListener<Bounds> widthListener = (prop, oldBounds, newBounds) -> {
+        if (oldBounds.getWidth() != newBounds.getWidth())
+        {
+            expandAll();
+            scheduleUpdate();
+        }
+    };
+    private final ListChangeListener<Frame> framesListener;
+    private boolean updateScheduled = false;
+
+    FrameCanvasVirtualiser(InteractionManager editor, FrameCanvas canvas)
+    {
+        this.editor = editor;
+        this.canvas = canvas;
+        this.framesListener = c -> {
+            // A frame which has left the canvas (e.g. been dragged elsewhere) must not stay collapsed:
+            for (Frame f : new ArrayList<>(collapsed.keySet()))
+            {
+                if (!canvas.getBlockContents().contains(f))
+                    expand(f);
+            }
+            scheduleUpdate();
+        };
+        editor.getObservableScroll().addListener(scrollListener);
+        editor.getObservableViewportHeight().addListener(scrollListener);
+        canvas.getBlockContents().addListener(framesListener);
+        canvas.getNode().layoutBoundsProperty().addListener(widthListener);
+    }
+
+    /**
+     * Called when the view is changing.  Any view other than the normal view needs
+     * all frames to be expanded; we expand them before the transition starts so that
+     * the transition works from their true sizes.
+     */
+    public void viewChanging(View newView, SharedTransition animateProgress)
+    {
+        if (newView != View.NORMAL)
+        {
+            expandAll();
+        }
+        else if (animateProgress != null)
+        {
+            animateProgress.addOnStopped(this::scheduleUpdate);
+        }
+        else
+        {
+            scheduleUpdate();
+        }
+    }
+
+    /**
+     * Expands all frames and stops listening for changes.  Called when the canvas is no longer in use.
+     */
+    public void cleanup()
+    {
+        editor.getObservableScroll().removeListener(scrollListener);
+        editor.getObservableViewportHeight().removeListener(scrollListener);
+        canvas.getBlockContents().removeListener(framesListener);
+        canvas.getNode().layoutBoundsProperty().removeListener(widthListener);
+        expandAll();
+    }
+
+    /**
+     * Updates the collapsed frames after the current event (scrolling typically gives several
+     * events in quick succession, and the frames' positions are only settled after layout).
+     */
+    private void scheduleUpdate()
+    {
+        if (!updateScheduled)
+        {
+            updateScheduled = true;
+            JavaFXUtil.runPlatformLater(this::update);
+        }
+    }
+
+    private void update()
+    {
+        updateScheduled = false;
+        WindowOverlayPane overlay = editor.getWindowOverlayPane();
+        Scene scene = canvas.getNode().getScene();
+        if (overlay == null || scene == null || editor.viewProperty().get() != View.NORMAL
+                || canvas.getBlockContents().size() < MIN_FRAMES)
+        {
+            expandAll();
+            return;
+        }
+
+        double viewportHeight = editor.getObservableViewportHeight().get();
+        double margin = viewportHeight * MARGIN;
+        Node focusOwner = scene.getFocusOwner();
+        for (Frame f : canvas.getBlockContents())
+        {
+            Region region = f.getRegion();
+            Bounds sceneBounds = region.localToScene(region.getBoundsInLocal());
+            double top = overlay.sceneYToWindowOverlayY(sceneBounds.getMinY());
+            double bottom = overlay.sceneYToWindowOverlayY(sceneBounds.getMaxY());
+            if ((bottom >= -margin && top <= viewportHeight + margin) || isAncestor(region, focusOwner))
+                expand(f);
+            else
+                collapse(f);
+        }
+    }
+
+    /**
+     * Fixes the frame at its current size, so that layout no longer looks inside it.
+     */
+    private void collapse(Frame f)
+    {
+        Region region = f.getRegion();
+        // Don't interfere with frames which are animating their size, or haven't been laid out
+        // (since they were last changed) yet:
+        if (collapsed.containsKey(f) || region.getMaxHeight() != Region.USE_COMPUTED_SIZE
+                || region.getWidth() <= 0 || region.getHeight() <= 0 || region.isNeedsLayout())
+            return;
+        region.setPrefHeight(region.getHeight());
+        region.setMaxWidth(region.getWidth());
+        // If anything inside the frame changes, its fixed size may be wrong:
+        ChangeListener<Boolean> contentListener = (prop, wasNeeded, needed) -> {
+            if (needed)
+            {
+                expand(f);
+                scheduleUpdate();
+            }
+        };
+        region.needsLayoutProperty().addListener(contentListener);
+        collapsed.put(f, contentListener);
+    }
+
+    private void expand(Frame f)
+    {
+        ChangeListener<Boolean> contentListener = collapsed.remove(f);
+        if (contentListener != null)
+        {
+            Region region = f.getRegion();
+            region.needsLayoutProperty().removeListener(contentListener);
+            region.setPrefHeight(Region.USE_COMPUTED_SIZE);
+            region.setMaxWidth(Region.USE_COMPUTED_SIZE);
+        }
+    }
+
+    private void expandAll()
+    {
+        for (Frame f : new ArrayList<>(collapsed.keySet()))
+        {
+            expand(f);
+        }
+    }
+
+    private static boolean isAncestor(Node ancestor, Node n)
+    {
+        for (; n != null; n = n.getParent())
+        {
+            if (n == ancestor)
+                return true;
+        }
+        return false;
+    }
+}
@@ -21,39 +21,49 @@
  */
 package bluej.stride.generic;
 
-import java.io.IOException;
-import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import javafx.scene.Node;
 
-import nu.xom.Builder;
 import bluej.parser.entity.EntityResolver;
 import bluej.stride.framedjava.elements.ClassElement;
+import bluej.stride.framedjava.elements.CodeElement;
 import bluej.stride.framedjava.elements.TopLevelCodeElement;
+import bluej.stride.framedjava.frames.CodeFrame;
 import bluej.stride.framedjava.frames.TopLevelFrame;
-import nu.xom.ParsingException;
 
 /**
- * Stores a ClassElement's state as XML
+ * Stores a ClassElement's state as a snapshot of its XML.  Snapshots share the subtrees
+ * which are unchanged from earlier states, so each state only adds the frames which
+ * changed, and the enclosing frames' own XML.
+ *
+ * Each frame keeps its latest snapshot until it is modified, so taking a new state only
+ * converts the modified frames (and the frames containing them) to XML.
  */
 public class FrameState
 {
-    private String classElementXML;
+    private final ElementSnapshot classSnapshot;
     private int cursorIndex; // Which cursor
     private int cursorInfo; // Saved state, e.g. caret position
 
     public FrameState(TopLevelCodeElement topLevelElement)
     {
-        this.classElementXML = topLevelElement.toXML().toXML();
+        this.classSnapshot = ElementSnapshot.of(topLevelElement.toXML());
         cursorIndex = -1;
         cursorInfo = -1;
     }
     
+    /**
+     * Record the state of the given frame.  The frame's code must have been regenerated since
+     * it was last modified.
+     */
     public FrameState(TopLevelFrame<?> frame, TopLevelCodeElement classElement, RecallableFocus focusOverride)
     {
-        this.classElementXML = classElement.toXML().toXML();
+        this.classSnapshot = takeSnapshot(frame, classElement);
         List<RecallableFocus> focusables = frame.getFocusables().collect(Collectors.toList());
         this.cursorIndex = -1;    
 
@@ -73,6 +83,51 @@ public class FrameState
         }
     }
     
+    private static ElementSnapshot takeSnapshot(TopLevelFrame<?> topLevelFrame, TopLevelCodeElement classElement)
+    {
+        ElementSnapshot existing = topLevelFrame.getUndoSnapshot();
+        if (existing != null)
+        {
+            return existing;
+        }
+
+        Map<CodeElement, ElementSnapshot> known = new IdentityHashMap<>();
+        List<Frame> modified = new ArrayList<>();
+        topLevelFrame.getPersistentCanvases().forEach(canvas -> findSnapshots(canvas, known, modified));
+        Map<CodeElement, ElementSnapshot> produced = new IdentityHashMap<>();
+        ElementSnapshot snapshot = ElementSnapshot.of(classElement::toXML, known, produced);
+
+        topLevelFrame.setUndoSnapshot(snapshot);
+        for (Frame f : modified)
+        {
+            f.setUndoSnapshot(produced.get(((CodeFrame<?>) f).getCode()));
+        }
+        return snapshot;
+    }
+
+    /**
+     * Find the snapshots which are still valid for frames in the given canvas, and the
+     * frames which have been modified since their last snapshot.  Frames within unmodified
+     * frames are not visited.
+     */
+    private static void findSnapshots(FrameCanvas canvas, Map<CodeElement, ElementSnapshot> known, List<Frame> modified)
+    {
+        for (CodeFrame<?> codeFrame : canvas.getBlocksSubtype(CodeFrame.class))
+        {
+            Frame f = (Frame) codeFrame;
+            ElementSnapshot snapshot = f.getUndoSnapshot();
+            if (snapshot != null)
+            {
+                known.put(codeFrame.getCode(), snapshot);
+            }
+            else
+            {
+                modified.add(f);
+                f.getPersistentCanvases().forEach(c -> findSnapshots(c, known, modified));
+            }
+        }
+    }
+
     /**
      * Create a ClassElement corresponding to this FrameState.
      * 
@@ -82,15 +137,7 @@ public class FrameState
      */
     public ClassElement getClassElement(EntityResolver resolver, String packageName)
     {
-        try
-        {
-            return new ClassElement(new Builder().build(new StringReader(classElementXML))
-                    .getRootElement(), resolver, packageName);
-        }
-        catch (IOException | ParsingException e)
-        {
-            throw new RuntimeException(e);
-        }
+        return new ClassElement(classSnapshot.toElement(), resolver, packageName);
     }
     
     @Override
@@ -101,13 +148,14 @@ public class FrameState
         }
         FrameState otherState = (FrameState)obj;
         // Currently, it is equality on the contents only, not on the cursor position.
-        return otherState.classElementXML.equals(classElementXML);//&& cursorPosition == otherState.cursorPosition;
+        // Snapshots are interned, so this is a reference comparison:
+        return otherState.classSnapshot == classSnapshot;//&& cursorPosition == otherState.cursorPosition;
     }
 
     @Override
     public int hashCode()
     {
-        return classElementXML.hashCode();
+        return classSnapshot.hashCode();
     }
 
     public Node recallFocus(TopLevelFrame<?> frame)
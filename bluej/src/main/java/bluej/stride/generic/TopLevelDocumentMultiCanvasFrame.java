@@ -101,6 +101,8 @@ public abstract class TopLevelDocumentMultiCanvasFrame<ELEMENT extends CodeEleme
     protected final FrameContentRow methodsLabelRow;
 
     protected final FrameContentItem endSpacer;
+    // Keeps method frames which are far off-screen from being laid out:
+    private final FrameCanvasVirtualiser methodsVirtualiser;
 
     public TopLevelDocumentMultiCanvasFrame(InteractionManager editor, EntityResolver projectResolver, String caption,
                                         String stylePrefix, String packageName, List<ImportElement> imports,
@@ -243,6 +245,7 @@ public abstract class TopLevelDocumentMultiCanvasFrame<ELEMENT extends CodeEleme
         this.methodsCanvas = new FrameCanvas(editor, this, stylePrefix);
         methodsLabelRow = new FrameContentRow(this, methodsLabel);
         addCanvas(methodsLabelRow, methodsCanvas);
+        methodsVirtualiser = new FrameCanvasVirtualiser(editor, methodsCanvas);
 
         frameEnabledProperty.set(enabled);
     }
@@ -551,6 +554,7 @@ public abstract class TopLevelDocumentMultiCanvasFrame<ELEMENT extends CodeEleme
     @OnThread(Tag.FXPlatform)
     public void setView(View oldView, View newView, SharedTransition animateProgress)
     {
+        methodsVirtualiser.viewChanging(newView, animateProgress);
         super.setView(oldView, newView, animateProgress);
         boolean java = newView == View.JAVA_PREVIEW;
         if (java || oldView == View.JAVA_PREVIEW) {
@@ -576,6 +580,13 @@ public abstract class TopLevelDocumentMultiCanvasFrame<ELEMENT extends CodeEleme
         // TODO if extendsInheritedCanvases is added to Interfaces, use the code of setView in ClassFrame.
     }
 
+    @Override
+    protected void cleanupFrame()
+    {
+        methodsVirtualiser.cleanup();
+        super.cleanupFrame();
+    }
+
     private void animateLabelRows(View newView, SharedTransition animateProgress)
     {
         final List<FrameContentRow> labelRows = getLabelRows();
@@ -22,7 +22,6 @@
 package bluej.stride.operations;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
 import bluej.stride.generic.FrameState;
@@ -40,10 +39,12 @@ public class UndoRedoManager
     private int current;
     private boolean recording = false;
     private boolean restoring = false;
-    private final List<FrameState> statesStack = new LinkedList<>();
+    private final List<FrameState> statesStack = new ArrayList<>();
     private final List<FXRunnable> listeners = new ArrayList<>();
     // TODO Add it to the defs file
-    private static final int MAX_CAPACITY = 30;
+    // States share all unchanged frames with each other (see FrameState), so each one
+    // only costs the size of the frames which changed, plus the enclosing frames' own XML:
+    private static final int MAX_CAPACITY = 300;
 
     public UndoRedoManager(FrameState initialState)
     {
@@ -75,6 +75,7 @@ import org.fxmisc.wellbehaved.event.Nodes;
 import threadchecker.OnThread;
 import threadchecker.Tag;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -128,6 +129,8 @@ public final class Terminal
     
     private final TerminalTextPane text;
     private TerminalTextPane errorText;
+    // The number of complete lines in errorText that have been scanned for stack traces:
+    private int stackTraceScannedLines;
     private final TextField input;
     private final SplitPane splitPane;
     private boolean isActive = false;
@@ -376,12 +379,17 @@ public final class Terminal
                     return;
             }
 
-            try
+            // Write a line at a time, rather than joining all the text together in memory:
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileName)))
             {
-                FileWriter writer = new FileWriter(fileName);
-                String output = String.join(System.lineSeparator(), text.getLines());
-                writer.write(output);
-                writer.close();
+                for (int i = 0; i < text.getLineCount(); i++)
+                {
+                    if (i > 0)
+                    {
+                        writer.write(System.lineSeparator());
+                    }
+                    writer.write(text.getLineText(i));
+                }
             }
             catch (IOException ex)
             {
@@ -400,7 +408,7 @@ public final class Terminal
         }
         else if (job.showPrintDialog(window))
         {
-            List<List<TextLine.StyledSegment>> lines = text.getStyledLines();
+            List<List<TextLine.StyledSegment>> lines = text.copyStyledLines();
                         
             BorderPane root = new BorderPane();
             Scene scene = new Scene(root);
@@ -592,12 +600,18 @@ public final class Terminal
 
     /**
      * Looks through the contents of the terminal for lines
-     * that look like they are part of a stack trace.
+     * that look like they are part of a stack trace.  Only the lines
+     * which have been added (or may have changed) since the last scan are looked at.
      */
     private void scanForStackTrace()
     {
+        int lineCount = errorText.getLineCount();
+        if (lineCount <= stackTraceScannedLines)
+        {
+            // The content has been cleared or trimmed; start again:
+            stackTraceScannedLines = 0;
+        }
         try {
-            List<String> allLines = errorText.getLines();
 
             Pattern fileAndLine = java.util.regex.Pattern.compile("at (\\S+)\\((\\S+)\\.java:(\\d+)\\)");
             Pattern noSource = java.util.regex.Pattern.compile("at \\S+\\((Native Method|Unknown Source)\\)");
@@ -605,9 +619,9 @@ public final class Terminal
             // Matches things like:
             // at greenfoot.localdebugger.LocalDebugger$QueuedExecution.run(LocalDebugger.java:267)
             //    ^--------------------group 1----------------------------^ ^--group 2--^      ^3^
-            for (int i = 0; i < allLines.size(); i++)
+            for (int i = stackTraceScannedLines; i < lineCount; i++)
             {
-                String line = allLines.get(i);
+                String line = errorText.getLineText(i);
                 Matcher m = fileAndLine.matcher(line);
                 
                 while (m.find())
@@ -652,6 +666,8 @@ public final class Terminal
             //In case it looks like an exception but has a large line number:
             e.printStackTrace();
         }
+        // The last line may still be added to, so it will be scanned again next time:
+        stackTraceScannedLines = lineCount - 1;
         errorText.refreshDisplay();
     }
 
@@ -0,0 +1,460 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.terminal;
+
+import bluej.editor.base.TextLine.StyledSegment;
+import bluej.utility.Debug;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * The content of a terminal text pane: a list of lines, each with its styled segments.
+ * There is always at least one line.
+ *
+ * <p>The most recent lines are kept in memory, where they can be appended to and restyled
+ * cheaply.  Once there are too many of them, the oldest are encoded and paged out to a
+ * memory-mapped temporary file, so that a program which outputs millions of lines does not
+ * fill the heap.  Paged lines are decoded again when they are needed (for example, when they
+ * are scrolled into view).  They can still be restyled, which writes a new copy of the line.
+ */
+@OnThread(Tag.FXPlatform)
+class TerminalBuffer
+{
+    private static final int DEFAULT_MEMORY_LINES = 5000;
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    // Each index entry is the position of the line's record in the data file, and the
+    // character position of the start of the line:
+    private static final int INDEX_ENTRY_SIZE = 16;
+
+    private final int maxMemoryLines;
+
+    // The most recent lines, which follow any paged lines.  Never empty:
+    private final ArrayList<ContentLine> memoryLines = new ArrayList<>();
+
+    // The lines which have been paged out, if any (data and index are null if none):
+    private MappedFile data;
+    private MappedFile index;
+    private int pagedLines;
+    private long pagedChars;
+    private long dataEnd;
+    // Style classes and custom data of paged segments, which are stored as indexes into these lists:
+    private final ArrayList<List<String>> styles = new ArrayList<>();
+    private final HashMap<List<String>, Integer> styleIds = new HashMap<>();
+    private final ArrayList<Object> customData = new ArrayList<>();
+    private final IdentityHashMap<Object, Integer> customDataIds = new IdentityHashMap<>();
+    // Set if paging fails (e.g. the disk is full), after which all lines are kept in memory:
+    private boolean pagingFailed;
+
+    // The index and length of the longest line:
+    private int longestLine;
+    private int longestLength;
+
+    public TerminalBuffer()
+    {
+        this(DEFAULT_MEMORY_LINES);
+    }
+
+    /**
+     * @param maxMemoryLines  The number of lines to keep in memory before the older half of
+     *                        them are paged out
+     */
+    TerminalBuffer(int maxMemoryLines)
+    {
+        this.maxMemoryLines = maxMemoryLines;
+        clear();
+    }
+
+    /**
+     * Remove all content, leaving a single empty line.
+     */
+    public void clear()
+    {
+        discardPages();
+        memoryLines.clear();
+        memoryLines.add(new ContentLine(new ArrayList<>()));
+        longestLine = 0;
+        longestLength = 0;
+    }
+
+    public int getLineCount()
+    {
+        return pagedLines + memoryLines.size();
+    }
+
+    /**
+     * Get a line.  If it has been paged out, this is a copy, which must not be modified.
+     */
+    public ContentLine getLine(int lineIndex)
+    {
+        if (lineIndex < pagedLines)
+        {
+            return readPagedLine(lineIndex);
+        }
+        return memoryLines.get(lineIndex - pagedLines);
+    }
+
+    public String getLineText(int lineIndex)
+    {
+        return getLine(lineIndex).getText();
+    }
+
+    public int getLineLength(int lineIndex)
+    {
+        if (lineIndex < pagedLines)
+        {
+            long end = lineIndex + 1 < pagedLines ? getPagedLineStart(lineIndex + 1) : pagedChars;
+            return (int)(end - getPagedLineStart(lineIndex));
+        }
+        return memoryLines.get(lineIndex - pagedLines).getText().length();
+    }
+
+    /**
+     * Get the position of the start of a line: the number of characters in the lines before it
+     * (not counting line breaks).
+     */
+    public long getLineStartPosition(int lineIndex)
+    {
+        if (lineIndex < pagedLines)
+        {
+            return getPagedLineStart(lineIndex);
+        }
+        long position = pagedChars;
+        for (int i = 0; i < lineIndex - pagedLines; i++)
+        {
+            position += memoryLines.get(i).getText().length();
+        }
+        return position;
+    }
+
+    /**
+     * Get the text of the longest line (by number of characters).
+     */
+    public String getLongestLine()
+    {
+        return getLineText(longestLine);
+    }
+
+    /**
+     * Append a segment to the last line.  The segment must not contain line breaks.
+     */
+    public void appendToLastLine(StyledSegment segment)
+    {
+        ContentLine last = memoryLines.get(memoryLines.size() - 1);
+        last.append(segment);
+        int length = last.getText().length();
+        if (length > longestLength)
+        {
+            longestLength = length;
+            longestLine = getLineCount() - 1;
+        }
+    }
+
+    /**
+     * Start a new, empty, last line.  This may page out older lines.
+     */
+    public void newLine()
+    {
+        memoryLines.add(new ContentLine(new ArrayList<>()));
+        if (memoryLines.size() > maxMemoryLines && !pagingFailed)
+        {
+            pageOut(maxMemoryLines / 2);
+        }
+    }
+
+    /**
+     * Replace the segments of a line.  The text of the line must not be changed, only its styles.
+     */
+    public void setLine(int lineIndex, List<StyledSegment> segments)
+    {
+        ContentLine line = new ContentLine(segments);
+        if (lineIndex < pagedLines)
+        {
+            try
+            {
+                // Write a new copy, and point the index at it:
+                long position = writeRecord(line);
+                index.putLong((long)lineIndex * INDEX_ENTRY_SIZE, position);
+            }
+            catch (IOException e)
+            {
+                Debug.reportError("Could not restyle terminal line", e);
+            }
+        }
+        else
+        {
+            memoryLines.set(lineIndex - pagedLines, line);
+        }
+    }
+
+    /**
+     * Remove lines from the start so that only the most recent lines are kept.  Any lines which
+     * have been paged out and are kept are brought back into memory.
+     */
+    public void trimToMostRecent(int numLines)
+    {
+        int toRemove = getLineCount() - numLines;
+        if (toRemove <= 0)
+        {
+            return;
+        }
+        List<ContentLine> restored = new ArrayList<>();
+        for (int i = toRemove; i < pagedLines; i++)
+        {
+            restored.add(readPagedLine(i));
+        }
+        int removeFromMemory = Math.max(0, toRemove - pagedLines);
+        discardPages();
+        memoryLines.subList(0, removeFromMemory).clear();
+        memoryLines.addAll(0, restored);
+
+        longestLine = 0;
+        longestLength = 0;
+        for (int i = 0; i < memoryLines.size(); i++)
+        {
+            int length = memoryLines.get(i).getText().length();
+            if (length > longestLength)
+            {
+                longestLength = length;
+                longestLine = i;
+            }
+        }
+    }
+
+    /**
+     * Page out the given number of the oldest lines in memory.
+     */
+    private void pageOut(int count)
+    {
+        try
+        {
+            if (data == null)
+            {
+                data = new MappedFile("data");
+                index = new MappedFile("index");
+            }
+            for (int i = 0; i < count; i++)
+            {
+                ContentLine line = memoryLines.get(i);
+                long entry = (long)(pagedLines + i) * INDEX_ENTRY_SIZE;
+                index.putLong(entry, writeRecord(line));
+                index.putLong(entry + 8, pagedChars);
+                pagedChars += line.getText().length();
+            }
+            pagedLines += count;
+            memoryLines.subList(0, count).clear();
+        }
+        catch (IOException e)
+        {
+            Debug.reportError("Could not page out terminal content; keeping it in memory instead", e);
+            pagingFailed = true;
+        }
+    }
+
+    /**
+     * Encode a line and write it at the end of the data file, returning its position.  The
+     * record is the length of the encoding, then the number of segments, then for each segment
+     * its style index, custom data index (or -1), and its text as length-prefixed UTF-8.
+     */
+    private long writeRecord(ContentLine line) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // length, filled in below
+        List<StyledSegment> segments = new ArrayList<>();
+        line.forEach(segments::add);
+        out.writeInt(segments.size());
+        for (StyledSegment segment : segments)
+        {
+            out.writeInt(styleIds.computeIfAbsent(List.copyOf(segment.getStyleClasses()), s -> {
+                styles.add(s);
+                return styles.size() - 1;
+            }));
+            Object custom = segment.getCustomData();
+            out.writeInt(custom == null ? -1 : customDataIds.computeIfAbsent(custom, c -> {
+                customData.add(c);
+                return customData.size() - 1;
+            }));
+            byte[] text = segment.getText().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(text.length);
+            out.write(text);
+        }
+        out.flush();
+        byte[] record = bytes.toByteArray();
+        ByteBuffer.wrap(record).putInt(0, record.length - 4);
+
+        long position = dataEnd;
+        data.write(position, record);
+        dataEnd += record.length;
+        return position;
+    }
+
+    private ContentLine readPagedLine(int lineIndex)
+    {
+        long position = index.getLong((long)lineIndex * INDEX_ENTRY_SIZE);
+        byte[] lengthBytes = new byte[4];
+        data.read(position, lengthBytes);
+        byte[] record = new byte[ByteBuffer.wrap(lengthBytes).getInt()];
+        data.read(position + 4, record);
+
+        ByteBuffer in = ByteBuffer.wrap(record);
+        int count = in.getInt();
+        List<StyledSegment> segments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            List<String> style = styles.get(in.getInt());
+            int customIndex = in.getInt();
+            int textLength = in.getInt();
+            String text = new String(record, in.position(), textLength, StandardCharsets.UTF_8);
+            in.position(in.position() + textLength);
+            // Empty segments are only there to represent an empty line:
+            if (!text.isEmpty())
+            {
+                segments.add(new StyledSegment(style, text, customIndex == -1 ? null : customData.get(customIndex)));
+            }
+        }
+        return new ContentLine(segments);
+    }
+
+    private long getPagedLineStart(int lineIndex)
+    {
+        return index.getLong((long)lineIndex * INDEX_ENTRY_SIZE + 8);
+    }
+
+    private void discardPages()
+    {
+        if (data != null)
+        {
+            data.close();
+            index.close();
+            data = null;
+            index = null;
+        }
+        pagedLines = 0;
+        pagedChars = 0;
+        dataEnd = 0;
+        styles.clear();
+        styleIds.clear();
+        customData.clear();
+        customDataIds.clear();
+    }
+
+    /**
+     * A temporary file, memory-mapped in fixed-size chunks as it grows.  The file is deleted
+     * when closed (or failing that, on exit).
+     */
+    private static class MappedFile
+    {
+        private final File file;
+        private final FileChannel channel;
+        private final ArrayList<MappedByteBuffer> chunks = new ArrayList<>();
+
+        public MappedFile(String kind) throws IOException
+        {
+            file = File.createTempFile("bluej-terminal-", "." + kind);
+            file.deleteOnExit();
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * Get a chunk, mapping it (and so extending the file) if it is not yet mapped.
+         */
+        private MappedByteBuffer getChunk(int chunkIndex) throws IOException
+        {
+            while (chunks.size() <= chunkIndex)
+            {
+                chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, (long)chunks.size() * CHUNK_SIZE, CHUNK_SIZE));
+            }
+            return chunks.get(chunkIndex);
+        }
+
+        public void write(long position, byte[] bytes) throws IOException
+        {
+            int done = 0;
+            while (done < bytes.length)
+            {
+                MappedByteBuffer chunk = getChunk((int)(position / CHUNK_SIZE));
+                int offset = (int)(position % CHUNK_SIZE);
+                int length = Math.min(bytes.length - done, CHUNK_SIZE - offset);
+                chunk.put(offset, bytes, done, length);
+                done += length;
+                position += length;
+            }
+        }
+
+        /**
+         * Read bytes which have previously been written.
+         */
+        public void read(long position, byte[] bytes)
+        {
+            int done = 0;
+            while (done < bytes.length)
+            {
+                MappedByteBuffer chunk = chunks.get((int)(position / CHUNK_SIZE));
+                int offset = (int)(position % CHUNK_SIZE);
+                int length = Math.min(bytes.length - done, CHUNK_SIZE - offset);
+                chunk.get(offset, bytes, done, length);
+                done += length;
+                position += length;
+            }
+        }
+
+        // Longs are aligned, so never span chunks:
+        public void putLong(long position, long value) throws IOException
+        {
+            getChunk((int)(position / CHUNK_SIZE)).putLong((int)(position % CHUNK_SIZE), value);
+        }
+
+        public long getLong(long position)
+        {
+            return chunks.get((int)(position / CHUNK_SIZE)).getLong((int)(position % CHUNK_SIZE));
+        }
+
+        public void close()
+        {
+            chunks.clear();
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                Debug.reportError(e);
+            }
+            // May fail on Windows while the chunks are still mapped; deleteOnExit will catch it then:
+            file.delete();
+        }
+    }
+}
@@ -53,17 +53,17 @@ import javafx.stage.Stage;
 import org.fxmisc.wellbehaved.event.EventPattern;
 import org.fxmisc.wellbehaved.event.InputMap;
 import org.fxmisc.wellbehaved.event.Nodes;
+import threadchecker.OnThread;
+import threadchecker.Tag;
 
 import javax.tools.Tool;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * A non-editable text pane that is used for the terminal text panes (stdout and stderr).  The requirements
@@ -75,8 +75,8 @@ import java.util.stream.Collectors;
  */
 public abstract class TerminalTextPane extends BaseEditorPane
 {
-    // One list entry per line of content.  Will always be at least one entry:
-    private final ArrayList<ContentLine> content = new ArrayList<>();
+    // The lines of content (older lines may be paged out to disk).  Will always be at least one line:
+    private final TerminalBuffer content = new TerminalBuffer();
     // Listeners to call when the content of the pane changes
     private final ArrayList<FXPlatformRunnable> contentListeners = new ArrayList<>();
 
@@ -110,14 +110,8 @@ public abstract class TerminalTextPane extends BaseEditorPane
     // calculation about trailing newlines.
     private TerminalPos getCurStart()
     {
-        if (content.isEmpty())
-        {
-            return new TerminalPos(0, 0);
-        }
-        else
-        {
-            return new TerminalPos(content.size() - 1, content.get(content.size() - 1).getText().length());
-        }
+        int lastLine = content.getLineCount() - 1;
+        return new TerminalPos(lastLine, content.getLineLength(lastLine));
     }
     
     // Get the current end position of the content as an end position
@@ -127,21 +121,15 @@ public abstract class TerminalTextPane extends BaseEditorPane
     private TerminalPos getCurEnd()
     {
         // If the final line is empty, we count the current end as the whole of the line before
-        if (content.isEmpty())
+        int lastLine = content.getLineCount() - 1;
+        int lastLineLength = content.getLineLength(lastLine);
+        if (lastLineLength == 0)
         {
-            return new TerminalPos(0, 0);
+            return new TerminalPos(lastLine - 1, Integer.MAX_VALUE);
         }
         else
         {
-            String lastLine = content.get(content.size() - 1).getText();
-            if (lastLine.isEmpty())
-            {
-                return new TerminalPos(content.size() - 2, Integer.MAX_VALUE);
-            }
-            else
-            {
-                return new TerminalPos(content.size() - 1, lastLine.length());
-            }
+            return new TerminalPos(lastLine, lastLineLength);
         }
     }
     
@@ -166,7 +154,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
         if (!currentSections.isEmpty())
         {
             // If the content is empty we get rid of all sections: 
-            if (content.isEmpty())
+            if (content.getLineCount() == 1 && content.getLineLength(0) == 0)
             {
                 currentSections.clear();
             }
@@ -234,7 +222,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
             case ENTER:
             case SPACE:
             {
-                Object customData = content.get(caretPos.getLine()).getCustomStyleDataAtColumn(caretPos.getColumn());
+                Object customData = content.getLine(caretPos.getLine()).getCustomStyleDataAtColumn(caretPos.getColumn());
                 if (customData != null && customData instanceof ExceptionSourceLocation)
                 {
                     ((ExceptionSourceLocation)customData).showInEditor();
@@ -347,7 +335,9 @@ public abstract class TerminalTextPane extends BaseEditorPane
         boolean reschedule = false;
         if (PrefMgr.getFlag(PrefMgr.SHOW_TERMINAL_SCOPES))
         {
-            for (int i = 0; i < content.size(); i++)
+            // Only look at the visible lines; there may be millions of others:
+            int[] visibleRange = lineDisplay.getLineRangeVisible();
+            for (int i = Math.max(0, visibleRange[0]); i <= visibleRange[1] && i < content.getLineCount(); i++)
             {
                 // Can't work it out for non visible lines:
                 if (!lineDisplay.isLineVisible(i))
@@ -369,7 +359,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
                     {
                         topRadius = singleRadius;
                         topInset = 1;
-                        if (s.start.column >= 0 && s.start.column < content.get(i).getText().length())
+                        if (s.start.column >= 0 && s.start.column < content.getLineLength(i))
                         {
                             Optional<Double> edge = lineDisplay.calculateLeftEdgeX(i, s.start.column);
                             reschedule |= edge.isEmpty();
@@ -379,7 +369,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
                         {
                             bottomRadius = singleRadius;
                             bottomInset = 1;
-                            if (s.end.column >= 0 && s.end.column <= content.get(i).getText().length())
+                            if (s.end.column >= 0 && s.end.column <= content.getLineLength(i))
                             {
                                 Optional<Double> edge = lineDisplay.calculateLeftEdgeX(i, s.end.column);
                                 reschedule |= edge.isEmpty();
@@ -390,7 +380,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
                     {
                         bottomRadius = singleRadius;
                         bottomInset = 1;
-                        if (s.end.column >= 0 && s.end.column <= content.get(i).getText().length())
+                        if (s.end.column >= 0 && s.end.column <= content.getLineLength(i))
                         {
                             Optional<Double> edge = lineDisplay.calculateLeftEdgeX(i, s.end.column);
                             reschedule |= edge.isEmpty();
@@ -435,7 +425,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
         // The text lines themselves are mouse-transparent.  So rather than use CSS styles,
         // we must change the cursor ourselves for the whole panel based on where the mouse is:
         getCaretPositionForMouseEvent(e).ifPresent(p -> {
-            Object styleData = content.get(p.getLine()).getCustomStyleDataAtColumn(p.getColumn());
+            Object styleData = content.getLine(p.getLine()).getCustomStyleDataAtColumn(p.getColumn());
             // Checks non-null and sanity check for the type too:
             if (styleData != null && styleData instanceof ExceptionSourceLocation)
             {
@@ -477,7 +467,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
         {
             // If it was a click, and on a hyperlinked stack trace, follow the link:
             getCaretPositionForMouseEvent(e).ifPresent(p -> {
-                Object styleData = content.get(p.getLine()).getCustomStyleDataAtColumn(p.getColumn());
+                Object styleData = content.getLine(p.getLine()).getCustomStyleDataAtColumn(p.getColumn());
                 // Checks non-null and sanity check for the type too:
                 if (styleData != null && styleData instanceof ExceptionSourceLocation)
                 {
@@ -490,7 +480,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
     @Override
     protected Pos makePosition(int line, int column)
     {
-        return new Pos(content.stream().limit(line).mapToInt(l -> l.getText().length()).sum() + column, line, column);
+        return new Pos((int)Math.min(Integer.MAX_VALUE, content.getLineStartPosition(line) + column), line, column);
     }
 
     @Override
@@ -510,11 +500,12 @@ public abstract class TerminalTextPane extends BaseEditorPane
      */
     public void trimToMostRecentNLines(int numLines)
     {
-        if (content.size() > numLines)
+        if (content.getLineCount() > numLines)
         {
-            // Important to take a copy, as content will be blanked during the set:
-            int linesToSubtract = content.size() - numLines;
-            setContent(new ArrayList<>(content.subList(linesToSubtract, content.size())));
+            int linesToSubtract = content.getLineCount() - numLines;
+            content.trimToMostRecent(numLines);
+            refreshDisplay();
+            contentChanged();
             // Adjust caret and anchor positions upwards by the trimmed lines:
             int newCaretLine = Math.max(0, caretPos.getLine() - linesToSubtract);
             caretPos = makePosition(
@@ -542,15 +533,6 @@ public abstract class TerminalTextPane extends BaseEditorPane
         }
     }
 
-    // Helper to set content and call listeners:
-    private void setContent(List<ContentLine> lines)
-    {
-        content.clear();
-        content.addAll(lines);
-        refreshDisplay();
-        contentChanged();
-    }
-
     // Helper to call all the content listeners:
     private void contentChanged()
     {
@@ -569,52 +551,86 @@ public abstract class TerminalTextPane extends BaseEditorPane
     public void clear()
     {
         // Reset cursor and anchor to only remaining valid position:
-        // Important to do this before setContent because that may use the caret position
+        // Important to do this before refreshing because that may use the caret position
         // while updating the display:
         caretPos = new Pos(0, 0, 0);
         anchorPos = new Pos(0, 0, 0);
-        setContent(Collections.singletonList(new ContentLine(new ArrayList<>())));
+        content.clear();
+        refreshDisplay();
+        contentChanged();
         currentSections.clear();
         lineDisplay.applyScopeBackgrounds(Map.of());
     }
 
     /**
-     * Get the text content of the pane as a list of lines.
-     * @return The list of lines, without any newline characters.
+     * Get the text content of a line of the pane.
+     * @param lineIndex The index of the line (zero-based)
+     * @return The line, without any newline characters.
      */
-    public List<String> getLines()
+    public String getLineText(int lineIndex)
     {
-        return content.stream().map(line -> line.getText()).collect(Collectors.toList());
+        return content.getLineText(lineIndex);
     }
 
     @Override
     protected int getLineLength(int lineIndex)
     {
-        return content.get(lineIndex).getText().length();
+        return content.getLineLength(lineIndex);
     }
 
     @Override
     protected String getLineContentAtCaret()
     {
-        return content.get(caretPos.line).getText();
+        return content.getLineText(caretPos.line);
     }
 
     @Override
     protected String getLongestLineInWholeDocument()
     {
-        return content.stream().map(l -> l.getText()).max(Comparator.comparing(String::length)).orElse("");
+        return content.getLongestLine();
     }
 
     @Override
-    protected int getLineCount()
+    public int getLineCount()
     {
-        return content.size();
+        return content.getLineCount();
     }
 
-    // Returns a copy, to avoid sharing.
-    public List<List<StyledSegment>> getStyledLines()
+    // A view which fetches each line (as a copy, to avoid sharing) only when asked, so that
+    // only the visible lines are fetched for display.  Must not be used off the FX thread.
+    @Override
+    protected List<List<StyledSegment>> getStyledLines()
     {
-        return content.stream().map(line -> ImmutableList.copyOf(line)).collect(Collectors.toList());
+        return new AbstractList<>()
+        {
+            @Override
+            @OnThread(value = Tag.FXPlatform, ignoreParent = true)
+            public List<StyledSegment> get(int index)
+            {
+                return ImmutableList.copyOf(content.getLine(index));
+            }
+
+            @Override
+            @OnThread(value = Tag.FXPlatform, ignoreParent = true)
+            public int size()
+            {
+                return content.getLineCount();
+            }
+        };
+    }
+
+    /**
+     * Get a copy of all the styled lines, which can be used from any thread.
+     * Unlike the rest of the pane, this needs all the content in memory at once.
+     */
+    public List<List<StyledSegment>> copyStyledLines()
+    {
+        List<List<StyledSegment>> lines = new ArrayList<>(content.getLineCount());
+        for (int i = 0; i < content.getLineCount(); i++)
+        {
+            lines.add(ImmutableList.copyOf(content.getLine(i)));
+        }
+        return lines;
     }
 
     @Override
@@ -643,14 +659,14 @@ public abstract class TerminalTextPane extends BaseEditorPane
             if (newlineIndex == -1)
             {
                 // No newline, just append it:
-                content.get(content.size() - 1).append(new StyledSegment(styledSegment.getStyleClasses(), remainder));
+                content.appendToLastLine(new StyledSegment(styledSegment.getStyleClasses(), remainder));
                 remainder = "";
             }
             else
             {
                 String beforeNewline = remainder.substring(0, newlineIndex);
-                content.get(content.size() - 1).append(new StyledSegment(styledSegment.getStyleClasses(), beforeNewline));
-                content.add(new ContentLine(new ArrayList<>()));
+                content.appendToLastLine(new StyledSegment(styledSegment.getStyleClasses(), beforeNewline));
+                content.newLine();
                 remainder = remainder.substring(newlineIndex + 1);
             }
         }
@@ -663,7 +679,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
      */
     public void scrollToEnd()
     {
-        lineDisplay.ensureLineVisible(content.size() - 1, getLineContainerHeight(), getLineCount());
+        lineDisplay.ensureLineVisible(content.getLineCount() - 1, getLineContainerHeight(), getLineCount());
         updateRender(false);
     }
 
@@ -679,7 +695,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
      */
     public void setStyleForLineSegment(int lineIndex, int start, int end, List<String> cssClasses, Object customData)
     {
-        Iterable<StyledSegment> origLine = content.get(lineIndex);
+        Iterable<StyledSegment> origLine = content.getLine(lineIndex);
         ArrayList<StyledSegment> result = new ArrayList<>();
         // We need to find the right segment and replace it:
         int charsToSkip = start;
@@ -716,7 +732,7 @@ public abstract class TerminalTextPane extends BaseEditorPane
                     charsToSkip -= segmentLength;
             }
         }
-        content.set(lineIndex, new ContentLine(result));
+        content.setLine(lineIndex, result);
         // We don't call contentChanged here, because although the styles have changed, the text content has not
     }
 
@@ -728,22 +744,21 @@ public abstract class TerminalTextPane extends BaseEditorPane
         StringBuilder copied = new StringBuilder();
         Pos startPos = anchorPos.getPosition() < caretPos.getPosition() ? anchorPos : caretPos;
         Pos endPos = anchorPos.getPosition() < caretPos.getPosition() ? caretPos : anchorPos;
-        List<String> lines = getLines();
         if (startPos.getLine() == endPos.getLine())
         {
-            copied.append(lines.get(startPos.getLine()).substring(startPos.getColumn(), endPos.getColumn()));
+            copied.append(content.getLineText(startPos.getLine()).substring(startPos.getColumn(), endPos.getColumn()));
         }
         else
         {
             // First line:
-            copied.append(lines.get(startPos.getLine()).substring(startPos.getColumn())).append("\n");
+            copied.append(content.getLineText(startPos.getLine()).substring(startPos.getColumn())).append("\n");
             // Inbetween lines:
             for (int line = startPos.getLine() + 1; line < endPos.getLine(); line++)
             {
-                copied.append(lines.get(line)).append("\n");
+                copied.append(content.getLineText(line)).append("\n");
             }
             // Last line (no newline):
-            copied.append(lines.get(endPos.getLine()).substring(0, endPos.getColumn()));
+            copied.append(content.getLineText(endPos.getLine()).substring(0, endPos.getColumn()));
         }
         if (copied.length() > 0)
             Clipboard.getSystemClipboard().setContent(Map.of(DataFormat.PLAIN_TEXT, copied.toString()));
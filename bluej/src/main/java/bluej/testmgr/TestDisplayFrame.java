@@ -469,14 +469,20 @@ public @OnThread(Tag.FXPlatform) class TestDisplayFrame
                 // This checks if the JUnit executes all tests at the same time,
                 // We have used zero execution time for individual test as there is no way so
                 // far to extract the runtime of individual test.
+                String text;
                 if (item.getRunTimeMs() == 0)
                 {
-                    setText(item.getQualifiedClassName() + "." + item.getMethodName());
+                    text = item.getQualifiedClassName() + "." + item.getMethodName();
                 }
                 else
                 {
-                    setText(item.getQualifiedClassName() + item.getMethodName() + " (" + item.getRunTimeMs() + "ms)");
+                    text = item.getQualifiedClassName() + item.getMethodName() + " (" + item.getRunTimeMs() + "ms)";
                 }
+                if (item.isFromPreviousRun())
+                {
+                    text += " " + Config.getString("testdisplay.previousRun");
+                }
+                setText(text);
 
                 // Add a tooltip on the entry (display name)
                 Tooltip displayNameToolTip = new Tooltip(item.getDisplayName());
@@ -0,0 +1,273 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.testmgr;
+
+import bluej.debugger.DebuggerTestResult;
+import bluej.debugger.SourceLocation;
+import bluej.pkgmgr.target.ClassTarget;
+import bluej.pkgmgr.target.DependentTarget;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Remembers which test classes passed on their last run, so that "Run Tests" can skip them
+ * if neither the test class nor anything it (transitively) depends on has changed since.
+ *
+ * <p>Changes are detected by a fingerprint of the contents of the class files involved,
+ * so recompiling a class without changing it does not cause its tests to be re-run. The
+ * fingerprint also covers the libraries on the classpath, by their path, size and
+ * modification time. Other files which a test reads are not covered.
+ *
+ * <p>Results returned from the cache are marked as being from a previous run, so that
+ * they can be shown as such.
+ */
+@OnThread(Tag.Any)
+public class TestResultCache
+{
+    /** Results of the last green run of each test class, keyed by class name */
+    private final Map<String, GreenRun> greenRuns = new HashMap<>();
+
+    private static class GreenRun
+    {
+        private final String fingerprint;
+        private final List<DebuggerTestResult> results;
+
+        private GreenRun(String fingerprint, List<DebuggerTestResult> results)
+        {
+            this.fingerprint = fingerprint;
+            this.results = results;
+        }
+    }
+
+    /**
+     * Get the class files which a test class's results may depend on: those of the class itself
+     * and its inner classes, and of every class it depends on, directly or indirectly.
+     */
+    @OnThread(Tag.FXPlatform)
+    public static List<File> getClassFiles(ClassTarget testClass)
+    {
+        List<File> classFiles = new ArrayList<>();
+        Set<DependentTarget> visited = new HashSet<>();
+        Queue<DependentTarget> toVisit = new ArrayDeque<>();
+        toVisit.add(testClass);
+        visited.add(testClass);
+        while (!toVisit.isEmpty())
+        {
+            DependentTarget target = toVisit.remove();
+            if (target instanceof ClassTarget)
+            {
+                ClassTarget ct = (ClassTarget) target;
+                classFiles.add(ct.getClassFile());
+                File[] innerClassFiles = ct.getInnerClassFiles();
+                if (innerClassFiles != null)
+                {
+                    Arrays.sort(innerClassFiles);
+                    classFiles.addAll(Arrays.asList(innerClassFiles));
+                }
+            }
+            for (DependentTarget dependency : target.dependencies())
+            {
+                if (visited.add(dependency))
+                {
+                    toVisit.add(dependency);
+                }
+            }
+        }
+        return classFiles;
+    }
+
+    /**
+     * Calculate a fingerprint of the contents of the given class files, and of the given
+     * libraries. Library jars are not read; their path, size and modification time are used.
+     *
+     * @return  the fingerprint, or null if any of the class files could not be read.
+     */
+    @OnThread(Tag.Worker)
+    public static String fingerprint(List<File> classFiles, List<URL> libraries)
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (File classFile : classFiles)
+            {
+                digest.update(classFile.getName().getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.readAllBytes(classFile.toPath()));
+            }
+            for (URL library : libraries)
+            {
+                String description = library.toExternalForm();
+                if ("file".equals(library.getProtocol()))
+                {
+                    File file = new File(library.toURI());
+                    description += "|" + file.length() + "|" + file.lastModified();
+                }
+                digest.update(description.getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest())
+            {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        }
+        catch (IOException | NoSuchAlgorithmException | URISyntaxException | IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Get the results of the last run of a test class, if all its tests passed and the
+     * fingerprint is unchanged since.
+     *
+     * @return  the results of the last run, marked as being from a previous run, or null if
+     *          the tests need to be run again.
+     */
+    public synchronized List<DebuggerTestResult> getGreenResults(String className, String fingerprint)
+    {
+        GreenRun run = greenRuns.get(className);
+        if (run == null || fingerprint == null || !run.fingerprint.equals(fingerprint))
+        {
+            return null;
+        }
+        List<DebuggerTestResult> results = new ArrayList<>();
+        for (DebuggerTestResult result : run.results)
+        {
+            results.add(new PreviousRunResult(result));
+        }
+        return results;
+    }
+
+    /**
+     * Record the results of running a test class. The results are only remembered if there
+     * was at least one test and all tests passed.
+     */
+    public synchronized void recordRun(String className, String fingerprint, List<DebuggerTestResult> results)
+    {
+        if (fingerprint != null && !results.isEmpty() && results.stream().allMatch(DebuggerTestResult::isSuccess))
+        {
+            greenRuns.put(className, new GreenRun(fingerprint, Collections.unmodifiableList(new ArrayList<>(results))));
+        }
+        else
+        {
+            greenRuns.remove(className);
+        }
+    }
+
+    /**
+     * A result from an earlier run, shown again because the test was not re-run.
+     */
+    private static class PreviousRunResult extends DebuggerTestResult
+    {
+        private final DebuggerTestResult result;
+
+        private PreviousRunResult(DebuggerTestResult result)
+        {
+            this.result = result;
+        }
+
+        @Override
+        public String getMethodName()
+        {
+            return result.getMethodName();
+        }
+
+        @Override
+        public String getQualifiedClassName()
+        {
+            return result.getQualifiedClassName();
+        }
+
+        @Override
+        public String getDisplayName()
+        {
+            return result.getDisplayName();
+        }
+
+        @Override
+        public int getRunTimeMs()
+        {
+            return result.getRunTimeMs();
+        }
+
+        @Override
+        public boolean isSuccess()
+        {
+            return result.isSuccess();
+        }
+
+        @Override
+        public boolean isFailure()
+        {
+            return result.isFailure();
+        }
+
+        @Override
+        public boolean isError()
+        {
+            return result.isError();
+        }
+
+        @Override
+        public String getTrace()
+        {
+            return result.getTrace();
+        }
+
+        @Override
+        public String getExceptionMessage()
+        {
+            return result.getExceptionMessage();
+        }
+
+        @Override
+        public SourceLocation getExceptionLocation()
+        {
+            return result.getExceptionLocation();
+        }
+
+        @Override
+        public boolean isFromPreviousRun()
+        {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.utility;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * An index of a set of strings which finds those within a given (small) edit distance of
+ * a query, as measured by {@link Utility#editDistance(String, String)}.
+ *
+ * <p>Computing the edit distance is relatively expensive, so candidates are first filtered
+ * using two cheap lower bounds on the distance: the difference in length, and the difference
+ * in character counts (each edit operation changes the counts by at most two). Strings are
+ * grouped by length so that only those of a suitable length are looked at. The exact distance
+ * is only computed for the few candidates which pass both filters, so the distances reported,
+ * and hence any ranking based on them, are the same as comparing against every string.
+ *
+ * <p>Comparisons are case-insensitive. Indexes are immutable, and those built by
+ * {@link #forKeys(List)} are shared, so that a set of candidates (for instance all the
+ * commonly imported types) is only indexed once however many editors use it.
+ */
+@OnThread(Tag.Any)
+public class FuzzyMatchIndex
+{
+    /** The number of buckets which characters are counted in */
+    private static final int BUCKETS = 32;
+    /** The number of indexes kept by forKeys */
+    private static final int CACHE_SIZE = 8;
+
+    private static final Map<List<String>, FuzzyMatchIndex> cache = new LinkedHashMap<>(CACHE_SIZE, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, FuzzyMatchIndex> eldest)
+        {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    /** The keys, in lower case */
+    private final String[] keys;
+    /** The character counts of each key, in BUCKETS buckets (saturating at Byte.MAX_VALUE) */
+    private final byte[][] counts;
+    /** The indexes of the keys of each length, in ascending order */
+    private final int[][] byLength;
+
+    /**
+     * A key found by a search.
+     *
+     * @param index     The index of the key in the list the index was built from
+     * @param distance  The edit distance between the key and the query
+     */
+    public record Match(int index, int distance)
+    {
+    }
+
+    /**
+     * Get an index of the given keys, re-using a previously built index of the same keys
+     * if there is one.
+     */
+    public static FuzzyMatchIndex forKeys(List<String> keys)
+    {
+        synchronized (cache)
+        {
+            FuzzyMatchIndex index = cache.get(keys);
+            if (index == null)
+            {
+                List<String> copy = List.copyOf(keys);
+                index = new FuzzyMatchIndex(copy);
+                cache.put(copy, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Build an index of the given keys.
+     */
+    public FuzzyMatchIndex(List<String> keys)
+    {
+        this.keys = new String[keys.size()];
+        this.counts = new byte[keys.size()][];
+        int maxLength = 0;
+        for (int i = 0; i < this.keys.length; i++)
+        {
+            this.keys[i] = keys.get(i).toLowerCase();
+            this.counts[i] = countChars(this.keys[i]);
+            maxLength = Math.max(maxLength, this.keys[i].length());
+        }
+
+        int[] lengthCounts = new int[maxLength + 1];
+        for (String key : this.keys)
+        {
+            lengthCounts[key.length()]++;
+        }
+        byLength = new int[maxLength + 1][];
+        for (int length = 0; length <= maxLength; length++)
+        {
+            byLength[length] = new int[lengthCounts[length]];
+        }
+        int[] filled = new int[maxLength + 1];
+        for (int i = 0; i < this.keys.length; i++)
+        {
+            int length = this.keys[i].length();
+            byLength[length][filled[length]++] = i;
+        }
+    }
+
+    /**
+     * Get the number of keys in the index.
+     */
+    public int size()
+    {
+        return keys.length;
+    }
+
+    /**
+     * Find the keys within the given edit distance of the query (ignoring case).
+     *
+     * @return  The matching keys, in the order of the list the index was built from.
+     */
+    public List<Match> search(String query, int maxDistance)
+    {
+        String queryLower = query.toLowerCase();
+        byte[] queryCounts = countChars(queryLower);
+        List<Match> matches = new ArrayList<>();
+        int minLength = Math.max(0, queryLower.length() - maxDistance);
+        int maxLength = Math.min(byLength.length - 1, queryLower.length() + maxDistance);
+        for (int length = minLength; length <= maxLength; length++)
+        {
+            for (int i : byLength[length])
+            {
+                if (countDifference(queryCounts, counts[i]) > 2 * maxDistance)
+                {
+                    continue;
+                }
+                int distance = Utility.editDistance(queryLower, keys[i]);
+                if (distance <= maxDistance)
+                {
+                    matches.add(new Match(i, distance));
+                }
+            }
+        }
+        matches.sort((a, b) -> Integer.compare(a.index(), b.index()));
+        return matches;
+    }
+
+    /**
+     * Get the edit distance between two strings if it is at most the given maximum. This is
+     * the same as {@link Utility#editDistance(String, String)}, but is much quicker for strings
+     * which are not close.
+     *
+     * @return  The edit distance if it is at most maxDistance; otherwise, some value greater
+     *          than maxDistance which is not more than the edit distance.
+     */
+    public static int distanceAtMost(String s, String t, int maxDistance)
+    {
+        int lengthDifference = Math.abs(s.length() - t.length());
+        if (lengthDifference > maxDistance)
+        {
+            return lengthDifference;
+        }
+        int countBound = (countDifference(countChars(s), countChars(t)) + 1) / 2;
+        if (countBound > maxDistance)
+        {
+            return countBound;
+        }
+        return Utility.editDistance(s, t);
+    }
+
+    private static byte[] countChars(String s)
+    {
+        byte[] result = new byte[BUCKETS];
+        for (int i = 0; i < s.length(); i++)
+        {
+            int bucket = s.charAt(i) % BUCKETS;
+            if (result[bucket] < Byte.MAX_VALUE)
+            {
+                result[bucket]++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The total difference between two sets of character counts. An insertion or deletion
+     * changes this by one, a replacement by at most two and a swap not at all, so it is
+     * at most twice the edit distance.
+     */
+    private static int countDifference(byte[] a, byte[] b)
+    {
+        int difference = 0;
+        for (int i = 0; i < BUCKETS; i++)
+        {
+            difference += Math.abs(a[i] - b[i]);
+        }
+        return difference;
+    }
+}
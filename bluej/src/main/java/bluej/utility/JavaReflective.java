@@ -30,6 +30,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -254,9 +255,25 @@ public class JavaReflective extends Reflective
         if (r instanceof JavaReflective) {
             return c.isAssignableFrom(((JavaReflective)r).getUnderlyingClass());
         }
-        else {
-            return false;
+        
+        // A parsed type (such as a project class); search its supertypes by name:
+        Set<String> done = new HashSet<String>();
+        LinkedList<Reflective> todo = new LinkedList<Reflective>();
+        while (r != null) {
+            if (r instanceof JavaReflective) {
+                if (c.isAssignableFrom(((JavaReflective)r).getUnderlyingClass())) {
+                    return true;
+                }
+            }
+            else if (done.add(r.getName())) {
+                if (r.getName().equals(c.getName())) {
+                    return true;
+                }
+                todo.addAll(r.getSuperTypesR());
+            }
+            r = todo.poll();
         }
+        return false;
     }
     
     @Override
@@ -0,0 +1,430 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.utility;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.DosFileAttributeView;
+import java.nio.file.attribute.DosFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * Writes source files in the background, so that saving (in particular, the saving done
+ * before every compilation) does not wait for the disk.
+ *
+ * <p>Writes are done one at a time, in the order requested.  If a file is saved again before
+ * an earlier write of it has started, only the latest content is written.  A write is skipped
+ * if the file already holds the same content (as determined by a hash of what was last
+ * written, or by reading the file).  Files are written to a temporary file in the same
+ * directory which then replaces the original, so that a reader never sees a partly written
+ * file.  The temporary file is given the original's permissions, ownership and ACL first; if
+ * that isn't possible, or the original has other hard links, the file is written in place.
+ *
+ * <p>Until a write has finished, the content is available from {@link #getPendingContent},
+ * and {@link #openInputStream} reads it from there rather than from the disk.  The compiler
+ * uses this to compile the saved source without waiting for it to be written.
+ *
+ * <p>Outstanding writes are finished before BlueJ exits (see {@link #awaitAllWrites}, which
+ * is also run by a shutdown hook) and when a project is closed.
+ */
+@OnThread(Tag.Any)
+public class SavePipeline
+{
+    private static final SavePipeline instance = new SavePipeline();
+    /** The suffix of the temporary files written while saving (which also start with ".") */
+    private static final String TEMP_SUFFIX = ".saving";
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "BlueJ source save");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Writes which have been requested but not started, and those being written, by file:
+    private final Map<File, PendingWrite> queued = new HashMap<>();
+    private final Map<File, PendingWrite> writing = new HashMap<>();
+    // What was last written to each file, to avoid writing the same content again:
+    private final Map<File, WrittenContent> written = new HashMap<>();
+
+    private static class PendingWrite
+    {
+        byte[] content;
+        final List<CompletableFuture<Long>> futures = new ArrayList<>();
+    }
+
+    private static class WrittenContent
+    {
+        final byte[] hash;
+        final long lastModified;
+        final long length;
+
+        WrittenContent(byte[] hash, long lastModified, long length)
+        {
+            this.hash = hash;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Check whether a file name is that of a temporary file written while saving, which
+     * exists only until it replaces the file being saved.
+     */
+    public static boolean isTemporaryFile(String fileName)
+    {
+        return fileName.startsWith(".") && fileName.endsWith(TEMP_SUFFIX);
+    }
+
+    public static SavePipeline getInstance()
+    {
+        return instance;
+    }
+
+    private SavePipeline()
+    {
+        // The write thread is a daemon, so make sure that nothing queued is lost on exit:
+        Runtime.getRuntime().addShutdownHook(new Thread(this::awaitAllWrites, "BlueJ save drain"));
+    }
+
+    /**
+     * Write the given content to a file, in the background.
+     *
+     * @return  A future which completes, with the modification time of the file, once the
+     *          content (or content saved after it) has been written; or which completes
+     *          exceptionally with an IOException if it could not be written.
+     */
+    public synchronized CompletableFuture<Long> write(File file, byte[] content)
+    {
+        File key = file.getAbsoluteFile();
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        PendingWrite pending = queued.get(key);
+        if (pending == null)
+        {
+            pending = new PendingWrite();
+            queued.put(key, pending);
+            executor.execute(() -> doWrite(key));
+        }
+        pending.content = content;
+        pending.futures.add(future);
+        return future;
+    }
+
+    /**
+     * Get the content most recently saved to a file which has not yet been written,
+     * or null if there is none.
+     */
+    public synchronized byte[] getPendingContent(File file)
+    {
+        File key = file.getAbsoluteFile();
+        PendingWrite pending = queued.get(key);
+        if (pending == null)
+        {
+            pending = writing.get(key);
+        }
+        return pending == null ? null : pending.content;
+    }
+
+    /**
+     * Open a file for reading.  If it has content which has not yet been written, that is
+     * read instead.
+     */
+    public InputStream openInputStream(File file) throws IOException
+    {
+        byte[] pending = getPendingContent(file);
+        return pending != null ? new ByteArrayInputStream(pending) : new FileInputStream(file);
+    }
+
+    /**
+     * Wait until there are no unwritten files, other than those given.
+     */
+    public synchronized void awaitWrites(Collection<File> except) throws InterruptedException
+    {
+        Set<File> exceptKeys = new HashSet<>();
+        for (File file : except)
+        {
+            exceptKeys.add(file.getAbsoluteFile());
+        }
+        while (!exceptKeys.containsAll(queued.keySet()) || !exceptKeys.containsAll(writing.keySet()))
+        {
+            wait();
+        }
+    }
+
+    /**
+     * Wait until every requested write has finished (successfully or not).
+     */
+    public void awaitAllWrites()
+    {
+        try
+        {
+            awaitWrites(Collections.emptyList());
+        }
+        catch (InterruptedException e)
+        {
+            Debug.reportError("Interrupted while waiting for files to be saved", e);
+        }
+    }
+
+    @OnThread(Tag.Worker)
+    private void doWrite(File file)
+    {
+        PendingWrite pending;
+        WrittenContent last;
+        synchronized (this)
+        {
+            pending = queued.remove(file);
+            writing.put(file, pending);
+            last = written.get(file);
+        }
+
+        Long lastModified = null;
+        IOException exception = null;
+        try
+        {
+            byte[] hash = hash(pending.content);
+            if (!isWritten(file, pending.content, hash, last))
+            {
+                writeAtomically(file, pending.content);
+            }
+            lastModified = file.lastModified();
+            synchronized (this)
+            {
+                written.put(file, new WrittenContent(hash, lastModified, file.length()));
+            }
+        }
+        catch (IOException e)
+        {
+            exception = e;
+            synchronized (this)
+            {
+                written.remove(file);
+            }
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                writing.remove(file);
+                notifyAll();
+            }
+        }
+
+        for (CompletableFuture<Long> future : pending.futures)
+        {
+            if (exception != null)
+            {
+                future.completeExceptionally(exception);
+            }
+            else
+            {
+                future.complete(lastModified);
+            }
+        }
+    }
+
+    /**
+     * Check whether a file already holds the given content.
+     */
+    private static boolean isWritten(File file, byte[] content, byte[] hash, WrittenContent last)
+    {
+        long length = file.length();
+        if (length != content.length || !file.isFile())
+        {
+            return false;
+        }
+        if (last != null && last.lastModified == file.lastModified() && last.length == length)
+        {
+            return Arrays.equals(last.hash, hash);
+        }
+        try
+        {
+            return Arrays.equals(Files.readAllBytes(file.toPath()), content);
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+    }
+
+    private static void writeAtomically(File file, byte[] content) throws IOException
+    {
+        // Preserve the old behaviour of failing to overwrite a read-only file (renaming
+        // over it would succeed), and don't replace a symbolic link (or a file with other
+        // hard links) with a new file:
+        if (file.exists() && !file.canWrite())
+        {
+            throw new IOException("File is not writable: " + file);
+        }
+        if (Files.isSymbolicLink(file.toPath()) || hasOtherLinks(file.toPath()))
+        {
+            writeInPlace(file, content);
+            return;
+        }
+
+        File temp = new File(file.getParentFile(), "." + file.getName() + TEMP_SUFFIX);
+        try
+        {
+            try (FileOutputStream output = new FileOutputStream(temp))
+            {
+                output.write(content);
+            }
+            if (file.exists() && !copyAttributes(file.toPath(), temp.toPath()))
+            {
+                // Replacing the file would change its attributes (e.g. its owner):
+                writeInPlace(file, content);
+                return;
+            }
+            try
+            {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally
+        {
+            temp.delete();
+        }
+    }
+
+    private static void writeInPlace(File file, byte[] content) throws IOException
+    {
+        try (FileOutputStream output = new FileOutputStream(file))
+        {
+            output.write(content);
+        }
+    }
+
+    /**
+     * Check whether a file has hard links other than the given path, where the file system
+     * can tell us.
+     */
+    private static boolean hasOtherLinks(Path path)
+    {
+        try
+        {
+            return Files.exists(path) && (Integer) Files.getAttribute(path, "unix:nlink") > 1;
+        }
+        catch (IOException | UnsupportedOperationException | IllegalArgumentException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Give a new file the owner, group, permissions, ACL and DOS hidden/system flags of an
+     * existing one, as far as the file system supports them.
+     *
+     * @return  false if they could not all be copied (typically, the owner, when the
+     *          existing file belongs to another user).
+     */
+    private static boolean copyAttributes(Path from, Path to)
+    {
+        try
+        {
+            PosixFileAttributeView fromPosix = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+            PosixFileAttributeView toPosix = Files.getFileAttributeView(to, PosixFileAttributeView.class);
+            if (fromPosix != null && toPosix != null)
+            {
+                PosixFileAttributes attributes = fromPosix.readAttributes();
+                PosixFileAttributes current = toPosix.readAttributes();
+                // Only change the owner and group if necessary, since it usually needs privileges:
+                if (!attributes.owner().equals(current.owner()))
+                {
+                    toPosix.setOwner(attributes.owner());
+                }
+                if (!attributes.group().equals(current.group()))
+                {
+                    toPosix.setGroup(attributes.group());
+                }
+                toPosix.setPermissions(attributes.permissions());
+            }
+
+            AclFileAttributeView fromAcl = Files.getFileAttributeView(from, AclFileAttributeView.class);
+            AclFileAttributeView toAcl = Files.getFileAttributeView(to, AclFileAttributeView.class);
+            if (fromAcl != null && toAcl != null)
+            {
+                if (!fromAcl.getOwner().equals(toAcl.getOwner()))
+                {
+                    toAcl.setOwner(fromAcl.getOwner());
+                }
+                toAcl.setAcl(fromAcl.getAcl());
+            }
+
+            DosFileAttributeView fromDos = Files.getFileAttributeView(from, DosFileAttributeView.class);
+            DosFileAttributeView toDos = Files.getFileAttributeView(to, DosFileAttributeView.class);
+            if (fromDos != null && toDos != null && fromPosix == null)
+            {
+                DosFileAttributes attributes = fromDos.readAttributes();
+                toDos.setHidden(attributes.isHidden());
+                toDos.setSystem(attributes.isSystem());
+            }
+            return true;
+        }
+        catch (IOException | UnsupportedOperationException | SecurityException e)
+        {
+            return false;
+        }
+    }
+
+    private static byte[] hash(byte[] content)
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // SHA-256 is always available
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.utility;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A spatial index of items by their bounding rectangles, using a uniform grid of square
+ * cells.  Each item is recorded in every cell which its bounds overlap, so that finding the
+ * items which may overlap a given rectangle only needs to look at the cells the rectangle
+ * covers, rather than at every item.
+ *
+ * <p>Queries return items in the order they were added, which makes the index suitable for
+ * finding things to (re)draw when drawing order matters.  Not thread-safe.
+ *
+ * @param <T> The type of the items
+ */
+@OnThread(Tag.Any)
+public class SpatialGrid<T>
+{
+    private final double cellSize;
+    private final List<T> items = new ArrayList<>();
+    private final List<double[]> bounds = new ArrayList<>();
+    /** Map from cell key to the indexes of the items overlapping that cell, in ascending order */
+    private final Map<Long, List<Integer>> cells = new HashMap<>();
+
+    /**
+     * Create an empty grid with the given cell size.  The cell size should be around the size
+     * of a typical query; much smaller means long items are recorded in many cells, much larger
+     * means queries look at many items which don't overlap.
+     */
+    public SpatialGrid(double cellSize)
+    {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Add an item with the given bounds.
+     */
+    public void add(T item, double minX, double minY, double maxX, double maxY)
+    {
+        int index = items.size();
+        items.add(item);
+        bounds.add(new double[] {minX, minY, maxX, maxY});
+        for (int cy = cell(minY); cy <= cell(maxY); cy++)
+        {
+            for (int cx = cell(minX); cx <= cell(maxX); cx++)
+            {
+                cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>()).add(index);
+            }
+        }
+    }
+
+    /**
+     * Remove all items.
+     */
+    public void clear()
+    {
+        items.clear();
+        bounds.clear();
+        cells.clear();
+    }
+
+    /**
+     * Get the number of items in the grid.
+     */
+    public int size()
+    {
+        return items.size();
+    }
+
+    /**
+     * Find all the items whose bounds overlap (or touch) the given rectangle.
+     *
+     * @return The overlapping items, in the order they were added.
+     */
+    public List<T> query(double minX, double minY, double maxX, double maxY)
+    {
+        BitSet found = new BitSet(items.size());
+        for (int cy = cell(minY); cy <= cell(maxY); cy++)
+        {
+            for (int cx = cell(minX); cx <= cell(maxX); cx++)
+            {
+                List<Integer> cell = cells.get(key(cx, cy));
+                if (cell == null)
+                    continue;
+                for (int index : cell)
+                {
+                    if (!found.get(index))
+                    {
+                        double[] b = bounds.get(index);
+                        if (b[0] <= maxX && b[2] >= minX && b[1] <= maxY && b[3] >= minY)
+                            found.set(index);
+                    }
+                }
+            }
+        }
+
+        List<T> result = new ArrayList<>(found.cardinality());
+        for (int index = found.nextSetBit(0); index >= 0; index = found.nextSetBit(index + 1))
+        {
+            result.add(items.get(index));
+        }
+        return result;
+    }
+
+    private int cell(double coord)
+    {
+        return (int)Math.floor(coord / cellSize);
+    }
+
+    private static long key(int cx, int cy)
+    {
+        return ((long)cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
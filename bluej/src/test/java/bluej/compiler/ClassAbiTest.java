@@ -0,0 +1,159 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ClassAbiTest
+{
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("abitest").toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        for (File f : dir.listFiles())
+        {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    /**
+     * Compile a class A with the given body, and return the ABI hash of its class files.
+     */
+    private byte[] compile(String body) throws IOException
+    {
+        for (File f : dir.listFiles())
+        {
+            f.delete();
+        }
+        File source = new File(dir, "A.java");
+        Files.write(source.toPath(), ("public class A\n{\n" + body + "\n}\n").getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, compiler.run(null, null, null, "-d", dir.getPath(), source.getPath()));
+
+        List<File> classFiles = new ArrayList<>();
+        for (File f : dir.listFiles())
+        {
+            if (f.getName().endsWith(".class"))
+            {
+                classFiles.add(f);
+            }
+        }
+        return ClassAbi.hash(classFiles);
+    }
+
+    private void assertSameAbi(String body1, String body2) throws IOException
+    {
+        assertTrue(Arrays.equals(compile(body1), compile(body2)));
+    }
+
+    private void assertDifferentAbi(String body1, String body2) throws IOException
+    {
+        assertFalse(Arrays.equals(compile(body1), compile(body2)));
+    }
+
+    @Test
+    public void testMethodBody() throws IOException
+    {
+        assertSameAbi("public int f() { return 1; }", "public int f() { int x = 2; return x * 3; }");
+        // Adding an anonymous class or lambda doesn't affect users of the class:
+        assertSameAbi("public Runnable f() { return null; }",
+                "public Runnable f() { return new Runnable() { public void run() { } }; }");
+        assertSameAbi("public Runnable f() { return null; }", "public Runnable f() { return () -> {}; }");
+    }
+
+    @Test
+    public void testPrivateMembers() throws IOException
+    {
+        assertSameAbi("private int x;", "private String y; private void g(int z) { }");
+    }
+
+    @Test
+    public void testMemberOrder() throws IOException
+    {
+        assertSameAbi("public void f() { } public void g() { }", "public void g() { } public void f() { }");
+    }
+
+    @Test
+    public void testSignatures() throws IOException
+    {
+        assertDifferentAbi("public void f() { }", "public void f(int x) { }");
+        assertDifferentAbi("public void f() { }", "protected void f() { }");
+        assertDifferentAbi("public void f() { }", "void f() { }");
+        assertDifferentAbi("public void f() { }", "public void f() throws Exception { }");
+        assertDifferentAbi("public java.util.List<String> f() { return null; }",
+                "public java.util.List<Integer> f() { return null; }");
+        assertDifferentAbi("public int x;", "public long x;");
+        assertDifferentAbi("", "public static class Inner { }");
+    }
+
+    @Test
+    public void testConstants() throws IOException
+    {
+        assertSameAbi("public static final int X = 1;", "public static final int X = 1;");
+        assertDifferentAbi("public static final int X = 1;", "public static final int X = 2;");
+        assertDifferentAbi("public static final String S = \"a\";", "public static final String S = \"b\";");
+    }
+
+    @Test
+    public void testAnnotations() throws IOException
+    {
+        assertSameAbi("public @interface Inner { int x() default 1; }", "public @interface Inner { int x() default 1; }");
+        assertDifferentAbi("public @interface Inner { int x() default 1; }", "public @interface Inner { int x(); }");
+        assertDifferentAbi("public @interface Inner { int x() default 1; }", "public @interface Inner { int x() default 2; }");
+        assertDifferentAbi("public @interface Inner { String[] x() default {\"a\"}; }",
+                "public @interface Inner { String[] x() default {\"a\", \"b\"}; }");
+        assertDifferentAbi("@java.lang.annotation.Target(java.lang.annotation.ElementType.TYPE) public @interface Inner { }",
+                "@java.lang.annotation.Target(java.lang.annotation.ElementType.METHOD) public @interface Inner { }");
+        assertDifferentAbi("public @interface Inner { }",
+                "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME) public @interface Inner { }");
+        assertDifferentAbi("public interface F { void f(); }", "@FunctionalInterface public interface F { void f(); }");
+    }
+
+    @Test
+    public void testNoClassFiles() throws IOException
+    {
+        assertNull(ClassAbi.hash(Arrays.asList(new File(dir, "Missing.class"))));
+    }
+}
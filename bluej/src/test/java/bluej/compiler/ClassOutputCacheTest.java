@@ -0,0 +1,192 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ClassOutputCacheTest
+{
+    private File tempDir;
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        tempDir = Files.createTempDirectory("cachetest").toFile();
+        cacheDir = new File(tempDir, "cache");
+    }
+
+    @After
+    public void tearDown()
+    {
+        delete(tempDir);
+    }
+
+    private static void delete(File file)
+    {
+        File[] children = file.listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private File makeProject(String name, String source) throws IOException
+    {
+        File project = new File(tempDir, name);
+        project.mkdir();
+        write(new File(project, "A.java"), source);
+        return project;
+    }
+
+    private static void write(File file, String content) throws IOException
+    {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String key(ClassOutputCache cache, File project, Map<String, byte[]> abis, List<String> options)
+            throws IOException
+    {
+        return cache.makeKey(project, new File[] {new File(project, "A.java")}, abis, Collections.emptyList(), options);
+    }
+
+    @Test
+    public void testKey() throws IOException
+    {
+        ClassOutputCache cache = new ClassOutputCache(cacheDir, 1000000);
+        File project1 = makeProject("p1", "class A { }");
+        File project2 = makeProject("p2", "class A { }");
+        Map<String, byte[]> abis = Map.of("B", new byte[] {1, 2});
+        List<String> options = List.of("-g");
+
+        // The same sources in a different location have the same key:
+        String key = key(cache, project1, abis, options);
+        assertEquals(key, key(cache, project2, abis, options));
+
+        write(new File(project2, "A.java"), "class A { int x; }");
+        assertNotEquals(key, key(cache, project2, abis, options));
+        assertNotEquals(key, key(cache, project1, Map.of("B", new byte[] {1, 3}), options));
+        assertNotEquals(key, key(cache, project1, Collections.emptyMap(), options));
+        assertNotEquals(key, key(cache, project1, abis, List.of()));
+    }
+
+    @Test
+    public void testStoreAndRestore() throws IOException
+    {
+        ClassOutputCache cache = new ClassOutputCache(cacheDir, 1000000);
+        File project1 = makeProject("p1", "class A { }");
+        File classFile = new File(project1, "A.class");
+        write(classFile, "compiled A");
+        File innerFile = new File(project1, "A$Inner.class");
+        write(innerFile, "compiled inner");
+        String key = key(cache, project1, Collections.emptyMap(), List.of());
+
+        File project2 = makeProject("p2", "class A { }");
+        assertNull(cache.restore(key, project2));
+        cache.store(key, project1, Arrays.asList(classFile, innerFile), List.of());
+        assertEquals(List.of(), cache.restore(key, project2));
+        assertEquals("compiled A", Files.readString(new File(project2, "A.class").toPath()));
+        assertEquals("compiled inner", Files.readString(new File(project2, "A$Inner.class").toPath()));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // The cache is shared with other instances (i.e. later sessions):
+        ClassOutputCache cache2 = new ClassOutputCache(cacheDir, 1000000);
+        assertNotNull(cache2.restore(key, makeProject("p3", "class A { }")));
+    }
+
+    @Test
+    public void testEviction() throws IOException
+    {
+        // Room for two entries of 1000 bytes:
+        ClassOutputCache cache = new ClassOutputCache(cacheDir, 2500);
+        File project = makeProject("p", "");
+        File classFile = new File(project, "A.class");
+        write(classFile, "x".repeat(1000));
+        String[] keys = {"k1", "k2", "k3"};
+        for (String key : keys)
+        {
+            cache.store(key, project, List.of(classFile), List.of());
+            // Make sure the entries have different access times:
+            new File(cacheDir, key).setLastModified(System.currentTimeMillis() - 100000);
+        }
+        assertEquals(1, cache.getEvictions());
+        assertFalse(new File(cacheDir, "k1").exists());
+
+        // Using k2 makes k3 the least recently used:
+        assertNotNull(cache.restore("k2", project));
+        cache.store("k4", project, List.of(classFile), List.of());
+        assertTrue(new File(cacheDir, "k2").exists());
+        assertFalse(new File(cacheDir, "k3").exists());
+        assertTrue(new File(cacheDir, "k4").exists());
+        assertEquals(2, cache.getEvictions());
+    }
+
+    @Test
+    public void testMessages() throws IOException
+    {
+        ClassOutputCache cache = new ClassOutputCache(cacheDir, 1000000);
+        File project1 = makeProject("p1", "class A { }");
+        File classFile = new File(project1, "A.class");
+        write(classFile, "compiled A");
+        List<Diagnostic> messages = List.of(
+                new Diagnostic(Diagnostic.WARNING, "unchecked call", new File(project1, "A.java").getPath(),
+                        3, 5, 3, 12, Diagnostic.DiagnosticOrigin.JAVAC, 1),
+                new Diagnostic(Diagnostic.NOTE, "A.java uses unchecked or unsafe operations."));
+        cache.store("k", project1, List.of(classFile), messages);
+
+        // The messages refer to the source in the project which the class files are copied to:
+        File project2 = makeProject("p2", "class A { }");
+        List<Diagnostic> restored = cache.restore("k", project2);
+        assertEquals(2, restored.size());
+        Diagnostic warning = restored.get(0);
+        assertEquals(Diagnostic.WARNING, warning.getType());
+        assertEquals("unchecked call", warning.getMessage());
+        assertEquals(new File(project2, "A.java").getAbsolutePath(), warning.getFileName());
+        assertEquals(3, warning.getStartLine());
+        assertEquals(5, warning.getStartColumn());
+        assertEquals(3, warning.getEndLine());
+        assertEquals(12, warning.getEndColumn());
+        assertEquals(Diagnostic.NOTE, restored.get(1).getType());
+        assertNull(restored.get(1).getFileName());
+
+        // The messages aren't copied into the project:
+        assertEquals(List.of("A.class", "A.java"), Arrays.stream(project2.list()).sorted().toList());
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugger.jdi;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import bluej.debugger.Debugger;
+import com.sun.jdi.Bootstrap;
+import com.sun.jdi.ClassType;
+import com.sun.jdi.IntegerValue;
+import com.sun.jdi.StackFrame;
+import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.connect.Connector;
+import com.sun.jdi.connect.LaunchingConnector;
+import com.sun.jdi.event.BreakpointEvent;
+import com.sun.jdi.event.ClassPrepareEvent;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.event.EventSet;
+import com.sun.jdi.event.VMDeathEvent;
+import com.sun.jdi.event.VMDisconnectEvent;
+import com.sun.jdi.request.BreakpointRequest;
+import com.sun.jdi.request.ClassPrepareRequest;
+import com.sun.jdi.request.EventRequest;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for conditional breakpoints, which launch a debug VM running the Target class below
+ * with a breakpoint at the start of Target.step.
+ */
+public class BreakpointConditionsTest
+{
+    private static final long TIMEOUT_MILLIS = 30000;
+
+    /**
+     * The program being debugged. It also stands in for ExecServer, which defines the
+     * compiled conditions.
+     */
+    static class Target
+    {
+        private static int total;
+        private int count;
+
+        void step(int i)
+        {
+            count++;
+            total += i;
+        }
+
+        boolean isEven(int i)
+        {
+            return i % 2 == 0;
+        }
+
+        public static void main(String[] args)
+        {
+            Target target = new Target();
+            for (int i = 0; i < 100; i++)
+            {
+                target.step(i);
+            }
+        }
+
+        public static Class<?> defineBreakpointCondition(Class<?> host, String classFile)
+            throws IOException, IllegalAccessException
+        {
+            byte[] bytes = Files.readAllBytes(new File(classFile).toPath());
+            return MethodHandles.privateLookupIn(host, MethodHandles.lookup()).defineClass(bytes);
+        }
+    }
+
+    /**
+     * A hit on the breakpoint which was reported.
+     */
+    private static class Stop
+    {
+        final int i;
+        final Object ignoredHits;
+        final Object error;
+
+        Stop(int i, Object ignoredHits, Object error)
+        {
+            this.i = i;
+            this.ignoredHits = ignoredHits;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Run the target with a breakpoint with the given condition and hit count (which may be null),
+     * and return the hits on the breakpoint which were reported.
+     */
+    private static List<Stop> run(String condition, String hitCount) throws Exception
+    {
+        LaunchingConnector connector = Bootstrap.virtualMachineManager().defaultConnector();
+        Map<String, Connector.Argument> arguments = connector.defaultArguments();
+        arguments.get("main").setValue(Target.class.getName());
+        arguments.get("options").setValue("-cp \"" + System.getProperty("java.class.path") + "\"");
+        VirtualMachine machine = connector.launch(arguments);
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put(Debugger.BREAKPOINT_CONDITION_PROPERTY, condition);
+        if (hitCount != null)
+        {
+            properties.put(Debugger.BREAKPOINT_HIT_COUNT_PROPERTY, hitCount);
+        }
+
+        List<Stop> stops = Collections.synchronizedList(new ArrayList<>());
+        BreakpointConditions.EventSetHandler handler = (eventSet, afterwards) -> {
+            try
+            {
+                BreakpointEvent event = (BreakpointEvent) eventSet.iterator().next();
+                StackFrame frame = event.thread().frame(0);
+                int i = ((IntegerValue) frame.getValue(frame.visibleVariableByName("i"))).value();
+                EventRequest request = event.request();
+                stops.add(new Stop(i, request.getProperty(Debugger.BREAKPOINT_IGNORED_HITS_PROPERTY),
+                        request.getProperty(Debugger.BREAKPOINT_CONDITION_ERROR_PROPERTY)));
+            }
+            catch (Exception e)
+            {
+                throw new RuntimeException(e);
+            }
+            finally
+            {
+                eventSet.resume();
+                afterwards.run();
+            }
+        };
+
+        try
+        {
+            ClassPrepareRequest prepareRequest = machine.eventRequestManager().createClassPrepareRequest();
+            prepareRequest.addClassFilter(Target.class.getName());
+            prepareRequest.enable();
+
+            BreakpointConditions conditions = null;
+            while (true)
+            {
+                EventSet eventSet = machine.eventQueue().remove(TIMEOUT_MILLIS);
+                assertNotNull("Timed out waiting for the debug VM", eventSet);
+                for (Event event : eventSet)
+                {
+                    if (event instanceof ClassPrepareEvent)
+                    {
+                        ClassType target = (ClassType) ((ClassPrepareEvent) event).referenceType();
+                        conditions = new BreakpointConditions(machine, target);
+                        conditions.setClassPath(classPath());
+                        BreakpointRequest request = machine.eventRequestManager()
+                                .createBreakpointRequest(target.methodsByName("step").get(0).location());
+                        request.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+                        BreakpointConditions.prepareRequest(request, properties);
+                        request.enable();
+                    }
+                    else if (event instanceof VMDeathEvent || event instanceof VMDisconnectEvent)
+                    {
+                        return stops;
+                    }
+                }
+                if (conditions == null || !conditions.screen(eventSet, handler))
+                {
+                    eventSet.resume();
+                }
+            }
+        }
+        finally
+        {
+            machine.process().destroy();
+        }
+    }
+
+    private static URL[] classPath() throws MalformedURLException
+    {
+        List<URL> urls = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator))
+        {
+            urls.add(new File(entry).toURI().toURL());
+        }
+        return urls.toArray(new URL[0]);
+    }
+
+    @Test
+    public void testLocalCondition() throws Exception
+    {
+        List<Stop> stops = run("i == 50", null);
+        assertEquals(1, stops.size());
+        assertEquals(50, stops.get(0).i);
+        assertEquals(50, stops.get(0).ignoredHits);
+        assertNull(stops.get(0).error);
+    }
+
+    @Test
+    public void testFieldCondition() throws Exception
+    {
+        // count is private, and is i when step is entered:
+        List<Stop> stops = run("count == 10 || this.count == 20", null);
+        assertEquals(2, stops.size());
+        assertEquals(10, stops.get(0).i);
+        assertEquals(20, stops.get(1).i);
+    }
+
+    @Test
+    public void testThisAndStaticField() throws Exception
+    {
+        // total is the sum of 0 .. i-1 when step is entered:
+        List<Stop> stops = run("total > 100 && this != null && isEven(i)", null);
+        assertEquals(16, stops.get(0).i);
+        assertEquals(42, stops.size());
+    }
+
+    @Test
+    public void testHitCount() throws Exception
+    {
+        List<Stop> stops = run("i % 10 == 0", "3");
+        assertEquals(3, stops.size());
+        assertEquals(20, stops.get(0).i);
+        assertEquals(50, stops.get(1).i);
+        assertEquals(80, stops.get(2).i);
+        assertEquals(78, stops.get(2).ignoredHits);
+    }
+
+    @Test
+    public void testError() throws Exception
+    {
+        // A condition which can't be compiled stops every time, with the error:
+        List<Stop> stops = run("noSuchVariable > 1", null);
+        assertEquals(100, stops.size());
+        assertNotNull(stops.get(0).error);
+        assertTrue(stops.get(0).error.toString().contains("noSuchVariable"));
+    }
+}
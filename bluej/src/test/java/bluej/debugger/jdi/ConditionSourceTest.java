@@ -0,0 +1,91 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.debugger.jdi;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the analysis and rewriting of breakpoint conditions.
+ */
+public class ConditionSourceTest
+{
+    private static Set<String> set(String... names)
+    {
+        return new LinkedHashSet<>(Arrays.asList(names));
+    }
+
+    @Test
+    public void testNames()
+    {
+        ConditionSource source = new ConditionSource("i == 5 && list.size() > count && s.equals(\"x y\")");
+        assertEquals(set("i", "list", "count", "s"), source.getNames());
+        assertEquals(set(), source.getThisFields());
+        assertEquals("i == 5 && list.size() > count && s.equals(\"x y\")", source.rewrite(false, "A", n -> false));
+        assertFalse(source.usesThis());
+    }
+
+    @Test
+    public void testLiteralsAndComments()
+    {
+        ConditionSource source = new ConditionSource("'a' == c /* this */ && \"this\\\" x\".isEmpty() && d > 1.5e-3f && h == 0xFE-e");
+        assertEquals(set("c", "d", "h", "e"), source.getNames());
+        assertEquals("'a' == c /* this */ && \"this\\\" x\".isEmpty() && d > 1.5e-3f && h == 0xFE-e",
+                source.rewrite(false, "A", n -> true));
+        assertFalse(source.usesThis());
+    }
+
+    @Test
+    public void testThisFields()
+    {
+        ConditionSource source = new ConditionSource("this.count > count && this . total == 0");
+        assertEquals(set("count"), source.getNames());
+        assertEquals(set("count", "total"), source.getThisFields());
+        assertEquals("__field_count > count && __field_total == 0", source.rewrite(false, "A", n -> false));
+        assertFalse(source.usesThis());
+    }
+
+    @Test
+    public void testThis()
+    {
+        ConditionSource source = new ConditionSource("this != other && this.isEmpty() && size() > 2 && other.size() > 3");
+        assertEquals(set("other"), source.getNames());
+        assertEquals(set(), source.getThisFields());
+        assertEquals("__this != other && __this.isEmpty() && __this.size() > 2 && other.size() > 3",
+                source.rewrite(false, "p.A", n -> n.equals("size")));
+        assertTrue(source.usesThis());
+    }
+
+    @Test
+    public void testStaticMethods()
+    {
+        ConditionSource source = new ConditionSource("limit() > n && Math.abs(n) < 3");
+        assertEquals("p.A.limit() > n && Math.abs(n) < 3", source.rewrite(true, "p.A", n -> n.equals("limit")));
+        assertFalse(source.usesThis());
+        assertEquals(set("n", "Math"), source.getNames());
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.editor.flow;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * A simple edit benchmark comparing the Document implementations on a large generated
+ * file.  Not a unit test; run the main method directly.  The first rounds act as warm-up.
+ */
+public class DocumentEditBenchmark
+{
+    private static final int LINES = 50000;
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args)
+    {
+        StringBuilder generated = new StringBuilder();
+        for (int i = 0; i < LINES; i++)
+        {
+            generated.append("    int field").append(i).append(" = ").append(i).append(";\n");
+        }
+        String content = generated.toString();
+
+        for (int round = 0; round < ROUNDS; round++)
+        {
+            run("HoleDocument", HoleDocument::new, content);
+            run("PieceTableDocument", PieceTableDocument::new, content);
+        }
+    }
+
+    private static void run(String name, Supplier<Document> factory, String content)
+    {
+        Document d = factory.get();
+        d.replaceText(0, 0, content);
+        Random random = new Random(2);
+
+        // Pastes and replacements of up to 4000 characters, with line lookups in between:
+        long start = System.nanoTime();
+        for (int i = 0; i < 2000; i++)
+        {
+            int pos = random.nextInt(d.getLength() - 2000);
+            d.replaceText(pos, pos + random.nextInt(2000), content.substring(0, random.nextInt(4000)));
+            d.getLineStart(random.nextInt(d.getLineCount()));
+            d.getLineFromPosition(random.nextInt(d.getLength()));
+        }
+        long pasted = System.nanoTime();
+
+        // Typing single characters at scattered positions:
+        for (int i = 0; i < 20000; i++)
+        {
+            int pos = random.nextInt(d.getLength());
+            d.replaceText(pos, pos, "x");
+        }
+        long typed = System.nanoTime();
+
+        System.out.println(name + ": paste/replace " + (pasted - start) / 1_000_000 + "ms, typing "
+            + (typed - pasted) / 1_000_000 + "ms, " + d.getLineCount() + " lines");
+    }
+}
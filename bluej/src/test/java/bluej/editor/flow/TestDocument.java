@@ -33,6 +33,7 @@ import com.pholser.junit.quickcheck.runner.JUnitQuickcheck;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.BeforeClass;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.io.IOException;
@@ -73,13 +74,37 @@ public class TestDocument
         Debug.setDebugStream(new OutputStreamWriter(System.out));
     }
 
+    @Test
+    public void testLineAttributes()
+    {
+        for (EditorDocument document : new EditorDocument[] { new HoleDocument(), new PieceTableDocument() })
+        {
+            document.replaceText(0, 0, "a\nbbbb\ncc\nd");
+            assertEquals("bbbb", document.getLongestLine());
+            document.addLineAttribute(1, "error", true);
+            document.addLineAttribute(7, "error", true);
+            assertTrue(document.hasLineAttribute(1, "error"));
+            assertFalse(document.hasLineAttribute(2, "error"));
+            assertFalse(document.hasLineAttribute(7, "error"));
+
+            // Attributes move with their line:
+            document.replaceText(0, 0, "xxxxxx\n");
+            assertEquals("xxxxxx", document.getLongestLine());
+            assertFalse(document.hasLineAttribute(1, "error"));
+            assertTrue(document.hasLineAttribute(2, "error"));
+
+            document.removeLineAttributeThroughout("error");
+            assertFalse(document.hasLineAttribute(2, "error"));
+        }
+    }
+
     @Property(trials = 20, shrink = false)
     public void propDocumentStringReplace(@From(GenRandom.class) Random r)
     {
         // Documents with identical content to test alongside each other:
-        Document[] documents = new Document[] { new SlowDocument(), new HoleDocument() };
+        Document[] documents = new Document[] { new SlowDocument(), new HoleDocument(), new PieceTableDocument() };
         // Keep an undo stack for each:
-        DocumentUndoStack[] undoStacks = new DocumentUndoStack[] { new DocumentUndoStack(documents[0]), new DocumentUndoStack(documents[1])}; 
+        DocumentUndoStack[] undoStacks = Arrays.stream(documents).map(DocumentUndoStack::new).toArray(DocumentUndoStack[]::new);
         String curContent = "";
         GenString stringMaker = new GenString();
         
@@ -260,8 +285,11 @@ public class TestDocument
             }
             
             // Try some undo/redo:
-            assertEquals(undoStacks[0].canUndoCount(), undoStacks[1].canUndoCount());
-            assertEquals(undoStacks[0].canRedoCount(), undoStacks[1].canRedoCount());
+            for (int doc = 1; doc < undoStacks.length; doc++)
+            {
+                assertEquals(undoStacks[0].canUndoCount(), undoStacks[doc].canUndoCount());
+                assertEquals(undoStacks[0].canRedoCount(), undoStacks[doc].canRedoCount());
+            }
             MatcherAssert.assertThat(undoStacks[0].canUndoCount(), Matchers.lessThanOrEqualTo(prevContent.size()));
             // No redo since we're on latest:
             assertEquals(undoStacks[0].canRedoCount(), 0);
@@ -323,10 +351,9 @@ public class TestDocument
     public void propDocumentTripleQuotes(@From(GenRandom.class) Random r)
     {
         // Documents with identical content to test alongside each other:
-        Document[] documents = new Document[]{new SlowDocument(), new HoleDocument()};
-        MultilineStringTracker[] trackers = new MultilineStringTracker[]{
-                new MultilineStringTracker(documents[0], () -> {}), new MultilineStringTracker(documents[1], () -> {})
-        };
+        Document[] documents = new Document[]{new SlowDocument(), new HoleDocument(), new PieceTableDocument()};
+        MultilineStringTracker[] trackers = Arrays.stream(documents)
+                .map(d -> new MultilineStringTracker(d, () -> {})).toArray(MultilineStringTracker[]::new);
 
         GenString stringMaker = new GenString();
         String curContent = "";
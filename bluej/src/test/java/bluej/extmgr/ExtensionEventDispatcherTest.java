@@ -0,0 +1,218 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.extmgr;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import bluej.extensions2.event.ApplicationEvent;
+import bluej.extensions2.event.CompileEvent;
+import bluej.extensions2.event.ExtensionEvent;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the queueing, coalescing and dropping of events sent to an extension.
+ */
+public class ExtensionEventDispatcherTest
+{
+    private final File fileA = new File("A.java");
+    private final File fileB = new File("B.java");
+
+    private final List<ExtensionEvent> delivered = new ArrayList<>();
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private long handlerDelayMillis;
+    private ExtensionEventDispatcher dispatcher;
+
+    @Before
+    public void setUp()
+    {
+        dispatcher = new ExtensionEventDispatcher(this::handle, "test", scheduled::add);
+    }
+
+    private void handle(ExtensionEvent event)
+    {
+        delivered.add(event);
+        if (handlerDelayMillis > 0)
+        {
+            try
+            {
+                Thread.sleep(handlerDelayMillis);
+            }
+            catch (InterruptedException e)
+            {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Run the scheduled delivery tasks until there are none left.
+     */
+    private void runScheduled()
+    {
+        while (!scheduled.isEmpty())
+        {
+            scheduled.remove(0).run();
+        }
+    }
+
+    private static CompileEvent compile(CompileEvent.EventType type, File... files)
+    {
+        return new CompileEvent(type, true, files);
+    }
+
+    private List<CompileEvent.EventType> deliveredCompileTypes()
+    {
+        List<CompileEvent.EventType> types = new ArrayList<>();
+        for (ExtensionEvent event : delivered)
+        {
+            if (event instanceof CompileEvent)
+            {
+                types.add(((CompileEvent) event).getEventType());
+            }
+        }
+        return types;
+    }
+
+    @Test
+    public void testDeliveredInOrder()
+    {
+        ExtensionEvent ready = new ApplicationEvent(ApplicationEvent.EventType.APP_READY_EVENT);
+        CompileEvent start = compile(CompileEvent.EventType.COMPILE_START_EVENT, fileA);
+        CompileEvent done = compile(CompileEvent.EventType.COMPILE_DONE_EVENT, fileA);
+        dispatcher.dispatch(ready);
+        dispatcher.dispatch(start);
+        dispatcher.dispatch(done);
+
+        // Nothing is delivered until the scheduled task runs, and only one task is scheduled:
+        assertTrue(delivered.isEmpty());
+        assertEquals(1, scheduled.size());
+
+        runScheduled();
+        assertEquals(List.of(ready, start, done), delivered);
+        assertEquals(3, dispatcher.getHandledEventCount());
+    }
+
+    @Test
+    public void testRepeatedCompileCoalesced()
+    {
+        dispatcher.dispatch(compile(CompileEvent.EventType.COMPILE_START_EVENT, fileA));
+        dispatcher.dispatch(compile(CompileEvent.EventType.COMPILE_ERROR_EVENT, fileA));
+        dispatcher.dispatch(compile(CompileEvent.EventType.COMPILE_FAILED_EVENT, fileA));
+        // A compilation of other files is not affected:
+        CompileEvent startB = compile(CompileEvent.EventType.COMPILE_START_EVENT, fileB);
+        CompileEvent doneB = compile(CompileEvent.EventType.COMPILE_DONE_EVENT, fileB);
+        dispatcher.dispatch(startB);
+        dispatcher.dispatch(doneB);
+        CompileEvent startA = compile(CompileEvent.EventType.COMPILE_START_EVENT, fileA);
+        CompileEvent doneA = compile(CompileEvent.EventType.COMPILE_DONE_EVENT, fileA);
+        dispatcher.dispatch(startA);
+        dispatcher.dispatch(doneA);
+
+        runScheduled();
+        assertEquals(List.of(startB, doneB, startA, doneA), delivered);
+        assertEquals(3, dispatcher.getDroppedEventCount());
+    }
+
+    @Test
+    public void testCompileInProgressNotCoalesced()
+    {
+        CompileEvent start1 = compile(CompileEvent.EventType.COMPILE_START_EVENT, fileA);
+        CompileEvent start2 = compile(CompileEvent.EventType.COMPILE_START_EVENT, fileA);
+        dispatcher.dispatch(start1);
+        dispatcher.dispatch(start2);
+
+        runScheduled();
+        assertEquals(List.of(start1, start2), delivered);
+    }
+
+    @Test
+    public void testOverflowDropsWholeCompilation()
+    {
+        dispatcher.dispatch(compile(CompileEvent.EventType.COMPILE_START_EVENT, fileA));
+        for (int i = 0; i < 1000; i++)
+        {
+            dispatcher.dispatch(new ApplicationEvent(ApplicationEvent.EventType.APP_READY_EVENT));
+        }
+        // The start was dropped to make room, so the rest of the compilation is dropped too:
+        dispatcher.dispatch(compile(CompileEvent.EventType.COMPILE_WARNING_EVENT, fileA));
+        dispatcher.dispatch(compile(CompileEvent.EventType.COMPILE_DONE_EVENT, fileA));
+        // But a later compilation of the same files is delivered:
+        dispatcher.dispatch(compile(CompileEvent.EventType.COMPILE_START_EVENT, fileA));
+        dispatcher.dispatch(compile(CompileEvent.EventType.COMPILE_DONE_EVENT, fileA));
+
+        runScheduled();
+        assertEquals(List.of(CompileEvent.EventType.COMPILE_START_EVENT, CompileEvent.EventType.COMPILE_DONE_EVENT),
+                deliveredCompileTypes());
+        assertEquals(1000, delivered.size());
+    }
+
+    @Test
+    public void testOverflowKeepsEndOfDeliveredCompilation()
+    {
+        dispatcher.dispatch(compile(CompileEvent.EventType.COMPILE_START_EVENT, fileA));
+        runScheduled();
+
+        // The extension has seen the start, so it must see the end:
+        dispatcher.dispatch(compile(CompileEvent.EventType.COMPILE_DONE_EVENT, fileA));
+        for (int i = 0; i < 1000; i++)
+        {
+            dispatcher.dispatch(new ApplicationEvent(ApplicationEvent.EventType.APP_READY_EVENT));
+        }
+
+        runScheduled();
+        assertEquals(List.of(CompileEvent.EventType.COMPILE_START_EVENT, CompileEvent.EventType.COMPILE_DONE_EVENT),
+                deliveredCompileTypes());
+        assertEquals(1001, delivered.size());
+        assertEquals(1, dispatcher.getDroppedEventCount());
+    }
+
+    @Test
+    public void testSlowExtensionSuspended()
+    {
+        handlerDelayMillis = 600;
+        dispatcher.dispatch(new ApplicationEvent(ApplicationEvent.EventType.APP_READY_EVENT));
+        dispatcher.dispatch(new ApplicationEvent(ApplicationEvent.EventType.APP_READY_EVENT));
+        runScheduled();
+
+        // The first handler was too slow, so the second event is not delivered:
+        assertEquals(1, delivered.size());
+        assertTrue(dispatcher.isSuspended());
+        assertTrue(dispatcher.isSlow());
+        dispatcher.dispatch(new ApplicationEvent(ApplicationEvent.EventType.APP_READY_EVENT));
+        runScheduled();
+        assertEquals(1, delivered.size());
+        assertEquals(2, dispatcher.getDroppedEventCount());
+
+        handlerDelayMillis = 0;
+        dispatcher.resume();
+        assertFalse(dispatcher.isSuspended());
+        dispatcher.dispatch(new ApplicationEvent(ApplicationEvent.EventType.APP_READY_EVENT));
+        runScheduled();
+        assertEquals(2, delivered.size());
+        assertFalse(dispatcher.isSlow());
+    }
+}
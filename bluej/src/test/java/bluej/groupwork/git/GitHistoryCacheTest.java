@@ -0,0 +1,219 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.groupwork.git;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the persistent cache of the paths changed by each commit, and for the
+ * computation of those paths.
+ */
+public class GitHistoryCacheTest
+{
+    private File tempDir;
+    private File cacheDir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        tempDir = Files.createTempDirectory("githistorytest").toFile();
+        cacheDir = new File(tempDir, "cache");
+    }
+
+    @After
+    public void tearDown()
+    {
+        delete(tempDir);
+    }
+
+    private static void delete(File file)
+    {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private File cacheFile()
+    {
+        return new File(cacheDir, "test.cache");
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        GitHistoryCache cache = new GitHistoryCache(cacheFile());
+        cache.putChangedPaths("c1", new String[] {"A.java", "dir/B.java"});
+        cache.putChangedPaths("c2", new String[0]);
+        cache.save();
+
+        GitHistoryCache reloaded = new GitHistoryCache(cacheFile());
+        assertArrayEquals(new String[] {"A.java", "dir/B.java"}, reloaded.getChangedPaths("c1"));
+        assertArrayEquals(new String[0], reloaded.getChangedPaths("c2"));
+        assertNull(reloaded.getChangedPaths("c3"));
+    }
+
+    @Test
+    public void testAppend()
+    {
+        GitHistoryCache cache = new GitHistoryCache(cacheFile());
+        cache.putChangedPaths("c1", new String[] {"A.java"});
+        cache.save();
+        long firstLength = cacheFile().length();
+        cache.putChangedPaths("c2", new String[] {"B.java"});
+        // Already present, so not written again:
+        cache.putChangedPaths("c1", new String[] {"A.java"});
+        cache.save();
+        assertTrue(cacheFile().length() > firstLength);
+
+        GitHistoryCache reloaded = new GitHistoryCache(cacheFile());
+        assertArrayEquals(new String[] {"A.java"}, reloaded.getChangedPaths("c1"));
+        assertArrayEquals(new String[] {"B.java"}, reloaded.getChangedPaths("c2"));
+    }
+
+    @Test
+    public void testDamagedFile() throws IOException
+    {
+        GitHistoryCache cache = new GitHistoryCache(cacheFile());
+        cache.putChangedPaths("c1", new String[] {"A.java"});
+        cache.save();
+        cache.putChangedPaths("c2", new String[] {"B.java"});
+        cache.save();
+
+        // Cut off the end of the last entry, as an interrupted save would:
+        try (RandomAccessFile file = new RandomAccessFile(cacheFile(), "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        GitHistoryCache damaged = new GitHistoryCache(cacheFile());
+        assertArrayEquals(new String[] {"A.java"}, damaged.getChangedPaths("c1"));
+        assertNull(damaged.getChangedPaths("c2"));
+
+        // The file has been rewritten, so that appending to it works again:
+        damaged.putChangedPaths("c3", new String[] {"C.java"});
+        damaged.save();
+        GitHistoryCache reloaded = new GitHistoryCache(cacheFile());
+        assertArrayEquals(new String[] {"A.java"}, reloaded.getChangedPaths("c1"));
+        assertArrayEquals(new String[] {"C.java"}, reloaded.getChangedPaths("c3"));
+    }
+
+    @Test
+    public void testSeparateRepositories()
+    {
+        File gitDirA = new File(tempDir, "a/.git");
+        File gitDirB = new File(tempDir, "b/.git");
+        gitDirA.mkdirs();
+        gitDirB.mkdirs();
+
+        GitHistoryCache cacheA = GitHistoryCache.getCache(gitDirA, cacheDir);
+        GitHistoryCache cacheB = GitHistoryCache.getCache(gitDirB, cacheDir);
+        assertNotSame(cacheA, cacheB);
+        assertSame(cacheA, GitHistoryCache.getCache(new File(tempDir, "a/../a/.git"), cacheDir));
+
+        cacheA.putChangedPaths("c1", new String[] {"A.java"});
+        cacheA.save();
+        cacheB.save();
+        assertNull(cacheB.getChangedPaths("c1"));
+
+        // Kept in the cache directory, one file per repository, and not in the repository itself:
+        assertEquals(1, cacheDir.list().length);
+        assertEquals(0, gitDirA.list().length);
+    }
+
+    @Test
+    public void testChangedPaths() throws Exception
+    {
+        File workDir = new File(tempDir, "work");
+        try (Git git = Git.init().setDirectory(workDir).setInitialBranch("master").call();
+             DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE);
+             RevWalk revWalk = new RevWalk(git.getRepository())) {
+            diffFormatter.setRepository(git.getRepository());
+            diffFormatter.setDetectRenames(true);
+
+            write(workDir, "A.java", "class A { }\n");
+            write(workDir, "B.java", "class B { }\n");
+            RevCommit initial = commit(git, "Initial");
+            assertArrayEquals(new String[] {"A.java", "B.java"},
+                    GitHistoryCommand.getChangedPaths(diffFormatter, revWalk.parseCommit(initial)));
+
+            git.branchCreate().setName("side").call();
+            write(workDir, "A.java", "class A { int a; }\n");
+            commit(git, "Change A");
+
+            git.checkout().setName("side").call();
+            write(workDir, "B.java", "class B { int b; }\n");
+            commit(git, "Change B");
+
+            // A merge which only brings the two sides together changes nothing itself:
+            git.checkout().setName("master").call();
+            MergeResult result = git.merge().include(git.getRepository().resolve("side")).call();
+            ObjectId merge = result.getNewHead();
+            assertEquals(2, revWalk.parseCommit(merge).getParentCount());
+            assertArrayEquals(new String[0],
+                    GitHistoryCommand.getChangedPaths(diffFormatter, revWalk.parseCommit(merge)));
+
+            // A merge which also makes its own change reports that change:
+            git.checkout().setName("side").call();
+            write(workDir, "B.java", "class B { int b2; }\n");
+            commit(git, "Change B again");
+            git.checkout().setName("master").call();
+            git.merge().include(git.getRepository().resolve("side")).setCommit(false).call();
+            write(workDir, "C.java", "class C { }\n");
+            RevCommit mergeWithChange = commit(git, "Merge with change");
+            assertEquals(2, mergeWithChange.getParentCount());
+            assertArrayEquals(new String[] {"C.java"},
+                    GitHistoryCommand.getChangedPaths(diffFormatter, revWalk.parseCommit(mergeWithChange)));
+        }
+    }
+
+    private static void write(File dir, String path, String content) throws IOException
+    {
+        Files.write(new File(dir, path).toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static RevCommit commit(Git git, String message) throws Exception
+    {
+        git.add().addFilepattern(".").call();
+        return git.commit().setMessage(message).setAuthor("Test", "test@example.com")
+                .setCommitter("Test", "test@example.com").call();
+    }
+}
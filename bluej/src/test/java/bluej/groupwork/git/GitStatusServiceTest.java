@@ -0,0 +1,291 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.groupwork.git;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import bluej.groupwork.StatusHandle;
+import bluej.groupwork.StatusListener;
+import bluej.groupwork.TeamStatusInfo;
+import org.eclipse.jgit.api.Git;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the background Git status service, using a local working copy cloned from a
+ * local bare repository.
+ */
+public class GitStatusServiceTest
+{
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private File tempDir;
+    private File workDir;
+    private GitRepository repository;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        tempDir = Files.createTempDirectory("gitstatustest").toFile();
+        File remoteDir = new File(tempDir, "remote");
+        workDir = new File(tempDir, "work");
+        Git.init().setDirectory(remoteDir).setBare(true).setInitialBranch("master").call().close();
+        try (Git git = Git.cloneRepository().setURI(remoteDir.toURI().toString()).setDirectory(workDir).call())
+        {
+            write(".gitignore", "out/\n");
+            write("A.java", "class A { }\n");
+            write("out/Old.class", "old");
+            git.add().addFilepattern(".gitignore").addFilepattern("A.java").call();
+            git.commit().setMessage("Initial").setAuthor("Test", "test@example.com")
+                    .setCommitter("Test", "test@example.com").call();
+            git.push().call();
+        }
+        repository = new GitRepository(workDir, "file", remoteDir.toURI().toString(), null, null, null, null, null);
+    }
+
+    @After
+    public void tearDown()
+    {
+        GitStatusService.shutdown(workDir);
+        delete(tempDir);
+    }
+
+    private static void delete(File file)
+    {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private void write(String path, String content) throws IOException
+    {
+        File file = new File(workDir, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out waiting for status", System.currentTimeMillis() < end);
+            Thread.sleep(20);
+        }
+    }
+
+    private static GitStatusService.Snapshot snapshot(GitStatusService service)
+    {
+        try {
+            return service.getSnapshot();
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static class RecordingListener implements StatusListener
+    {
+        private final List<String> files = new ArrayList<>();
+        private int completed;
+
+        @Override
+        public synchronized void gotStatus(TeamStatusInfo info)
+        {
+            files.add(info.getFile().getName());
+        }
+
+        @Override
+        public synchronized void statusComplete(StatusHandle statusHandle)
+        {
+            completed++;
+        }
+
+        private synchronized List<String> getFiles()
+        {
+            return new ArrayList<>(files);
+        }
+
+        private synchronized int getCompleted()
+        {
+            return completed;
+        }
+    }
+
+    private static FileFilter filesEndingWith(String suffix)
+    {
+        return f -> f.isDirectory() ? !f.getName().equals(".git") : f.getName().endsWith(suffix);
+    }
+
+    @Test
+    public void testSnapshotFollowsEdits() throws Exception
+    {
+        GitStatusService service = GitStatusService.getService(workDir);
+        GitStatusService.Snapshot initial = service.getSnapshot();
+        assertTrue(initial.getUntracked().isEmpty());
+        assertTrue(initial.getUncommittedChanges().isEmpty());
+
+        write("B.java", "class B { }\n");
+        waitFor(() -> snapshot(service).getUntracked().contains("B.java"));
+
+        write("A.java", "class A { int x; }\n");
+        waitFor(() -> snapshot(service).getUncommittedChanges().contains("A.java"));
+
+        new File(workDir, "A.java").delete();
+        waitFor(() -> snapshot(service).getMissing().contains("A.java"));
+        new File(workDir, "B.java").delete();
+        waitFor(() -> snapshot(service).getUntracked().isEmpty());
+    }
+
+    @Test
+    public void testIgnoredAndOutputChangesAreDeferred() throws Exception
+    {
+        GitStatusService service = GitStatusService.getService(workDir);
+        service.getSnapshot();
+        int calls = service.getStatusCalls();
+
+        // Neither changes in an ignored folder, nor build outputs, nor the temporary files
+        // written while saving, cause status to be computed:
+        write("out/New.class", "new");
+        write("out/sub/Other.txt", "other");
+        write("A.class", "compiled");
+        write("A.ctxt", "context");
+        write(".A.java.saving", "class A { }\n");
+        new File(workDir, ".A.java.saving").delete();
+        Thread.sleep(1000);
+        assertEquals(calls, service.getStatusCalls());
+
+        // ...but build outputs are included when the status is next computed:
+        write("B.java", "class B { }\n");
+        waitFor(() -> service.getStatusCalls() > calls);
+        GitStatusService.Snapshot s = service.getSnapshot();
+        assertTrue(s.getUntracked().contains("B.java"));
+        assertTrue(s.getUntracked().contains("A.class"));
+        assertTrue(s.getUntracked().contains("A.ctxt"));
+        assertFalse(s.getUntracked().contains("out/New.class"));
+    }
+
+    @Test
+    public void testListenersShareStatus() throws Exception
+    {
+        GitStatusService service = GitStatusService.getService(workDir);
+        service.getSnapshot();
+        RecordingListener javaListener = new RecordingListener();
+        RecordingListener textListener = new RecordingListener();
+        service.addListener(javaListener, filesEndingWith(".java"), repository);
+        service.addListener(textListener, filesEndingWith(".txt"), repository);
+
+        write("C.java", "class C { }\n");
+        write("D.txt", "notes");
+        waitFor(() -> javaListener.getFiles().contains("C.java") && textListener.getFiles().contains("D.txt"));
+
+        // Each listener sees only the files its filter accepts, including up-to-date files:
+        assertTrue(javaListener.getFiles().contains("A.java"));
+        assertFalse(javaListener.getFiles().contains("D.txt"));
+        assertFalse(textListener.getFiles().contains("A.java"));
+        assertFalse(textListener.getFiles().contains("C.java"));
+
+        service.removeListener(textListener);
+        write("E.txt", "more notes");
+        write("F.java", "class F { }\n");
+        waitFor(() -> javaListener.getFiles().contains("F.java"));
+        assertFalse(textListener.getFiles().contains("E.txt"));
+    }
+
+    @Test
+    public void testShutdown() throws Exception
+    {
+        GitStatusService service = GitStatusService.getService(workDir);
+        service.getSnapshot();
+        GitStatusService.shutdown(workDir);
+        assertNull(GitStatusService.findService(workDir));
+        try {
+            service.getSnapshot();
+            fail("Snapshot available after shutdown");
+        }
+        catch (IOException e) {
+            // Expected
+        }
+        try {
+            service.withGit(git -> git.getRepository().getBranch());
+            fail("Repository available after shutdown");
+        }
+        catch (IOException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testSubscribingAndShutdownDoNotWait() throws Exception
+    {
+        GitStatusService service = GitStatusService.getService(workDir);
+        service.getSnapshot();
+
+        // Hold the repository, as a long status computation or command would:
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread command = new Thread(() -> {
+            try {
+                service.withGit(git -> {
+                    held.countDown();
+                    try {
+                        release.await();
+                    }
+                    catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                    return null;
+                });
+            }
+            catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        command.start();
+        held.await();
+
+        long start = System.currentTimeMillis();
+        RecordingListener listener = new RecordingListener();
+        service.addListener(listener, filesEndingWith(".java"), repository);
+        service.removeListener(listener);
+        GitStatusService.shutdown(workDir);
+        assertTrue("Waited for the repository", System.currentTimeMillis() - start < 1000);
+
+        release.countDown();
+        command.join(TIMEOUT_MILLIS);
+        assertFalse(command.isAlive());
+    }
+}
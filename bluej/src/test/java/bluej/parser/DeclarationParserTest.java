@@ -0,0 +1,86 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser;
+
+import bluej.parser.DeclarationParser.Declaration;
+import bluej.parser.DeclarationParser.Kind;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test the extraction of declarations used by "Find in Project".
+ */
+public class DeclarationParserTest
+{
+    private static List<Declaration> parse(String src)
+    {
+        return new DeclarationParser(new StringReader(src)).getDeclarations();
+    }
+
+    private static void assertDeclaration(Declaration d, Kind kind, String qualifiedName, int line, int column)
+    {
+        assertEquals(kind, d.kind());
+        assertEquals(qualifiedName, d.qualifiedName());
+        assertEquals(line, d.line());
+        assertEquals(column, d.column());
+    }
+
+    @Test
+    public void testDeclarations()
+    {
+        List<Declaration> decls = parse(
+                "class A\n" +                                      // 1
+                "{\n" +                                            // 2
+                "    private int x, y = 3;\n" +                    // 3
+                "    public A() { int local = 0; }\n" +            // 4
+                "    void m() { }\n" +                             // 5
+                "    class B { String s; void n() { } }\n" +       // 6
+                "}\n");
+        assertEquals(8, decls.size());
+        assertDeclaration(decls.get(0), Kind.TYPE, "A", 1, 7);
+        assertDeclaration(decls.get(1), Kind.FIELD, "A.x", 3, 17);
+        assertDeclaration(decls.get(2), Kind.FIELD, "A.y", 3, 20);
+        assertDeclaration(decls.get(3), Kind.CONSTRUCTOR, "A.A", 4, 12);
+        assertDeclaration(decls.get(4), Kind.METHOD, "A.m", 5, 10);
+        assertDeclaration(decls.get(5), Kind.TYPE, "A.B", 6, 11);
+        assertDeclaration(decls.get(6), Kind.FIELD, "A.B.s", 6, 22);
+        assertDeclaration(decls.get(7), Kind.METHOD, "A.B.n", 6, 30);
+    }
+
+    @Test
+    public void testRecovery()
+    {
+        // Declarations after an error are still found:
+        List<Declaration> decls = parse(
+                "class A\n" +
+                "{\n" +
+                "    void broken( { }\n" +
+                "    int after;\n" +
+                "}\n" +
+                "class C { }\n");
+        assertEquals("C", decls.get(decls.size() - 1).qualifiedName());
+    }
+}
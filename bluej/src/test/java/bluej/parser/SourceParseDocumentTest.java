@@ -0,0 +1,134 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.parser;
+
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import bluej.JavaFXThreadingRule;
+import bluej.debugger.gentype.ConstructorReflective;
+import bluej.debugger.gentype.MethodReflective;
+import bluej.parser.entity.ClassLoaderResolver;
+import bluej.parser.entity.EntityResolver;
+import bluej.parser.entity.PackageResolver;
+import bluej.parser.entity.ParsedReflective;
+import bluej.parser.nodes.ParsedTypeNode;
+import bluej.utility.JavaReflective;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SourceParseDocumentTest
+{
+    @Rule
+    public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    @BeforeClass
+    public static void initConfig()
+    {
+        InitConfig.init();
+    }
+
+    private EntityResolver resolver;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        resolver = new PackageResolver(new ClassLoaderResolver(this.getClass().getClassLoader()), "");
+    }
+
+    private ParsedReflective reflectiveFor(String source, String className)
+    {
+        SourceParseDocument document = new SourceParseDocument(source, resolver);
+        ParsedTypeNode typeNode = (ParsedTypeNode) document.getParser().getTypeNode(className);
+        assertNotNull(typeNode);
+        return new ParsedReflective(typeNode);
+    }
+
+    /**
+     * The whole source is parsed up front, including the members after long method bodies
+     * (which an editor would only parse incrementally).
+     */
+    @Test
+    public void testFullyParsed()
+    {
+        StringBuilder source = new StringBuilder("public class A {\n");
+        for (int i = 0; i < 200; i++)
+        {
+            source.append("    public int method").append(i).append("(String s) {\n");
+            source.append("        Runnable r = () -> { int x = s.length(); };\n");
+            source.append("        return s.length() + ").append(i).append(";\n");
+            source.append("    }\n");
+        }
+        source.append("    private String last;\n");
+        source.append("}\n");
+
+        ParsedReflective reflective = reflectiveFor(source.toString(), "A");
+        Map<String, Set<MethodReflective>> methods = reflective.getDeclaredMethods();
+        assertEquals(200, methods.size());
+        assertTrue(methods.containsKey("method199"));
+        assertTrue(reflective.getDeclaredFields().containsKey("last"));
+    }
+
+    @Test
+    public void testConstructors()
+    {
+        ParsedReflective withConstructors = reflectiveFor("public class A {\n"
+            + "    public A() { }\n"
+            + "    protected A(String s, int... values) { }\n"
+            + "    public void A(int notAConstructor) { }\n"
+            + "}\n", "A");
+        List<ConstructorReflective> constructors = withConstructors.getDeclaredConstructors();
+        assertEquals(2, constructors.size());
+        ConstructorReflective varargs = constructors.stream().filter(c -> c.getParamTypes().size() == 2).findFirst().get();
+        assertTrue(varargs.isVarArgs());
+        assertEquals(Modifier.PROTECTED, varargs.getModifiers() & Modifier.PROTECTED);
+        assertEquals("java.lang.String", varargs.getParamTypes().get(0).toString());
+
+        // A class without a constructor gets a default one:
+        List<ConstructorReflective> defaultConstructor = reflectiveFor("public class B { }", "B").getDeclaredConstructors();
+        assertEquals(1, defaultConstructor.size());
+        assertEquals(0, defaultConstructor.get(0).getParamTypes().size());
+        assertTrue(Modifier.isPublic(defaultConstructor.get(0).getModifiers()));
+
+        // But an interface does not:
+        assertEquals(0, reflectiveFor("interface C { }", "C").getDeclaredConstructors().size());
+    }
+
+    @Test
+    public void testAssignableFromLibraryType()
+    {
+        ParsedReflective list = reflectiveFor("import java.util.*;\n"
+            + "class MyList extends ArrayList<String> implements Comparable<MyList> {\n"
+            + "    public int compareTo(MyList other) { return 0; }\n"
+            + "}\n", "MyList");
+        assertTrue(new JavaReflective(List.class).isAssignableFrom(list));
+        assertTrue(new JavaReflective(Comparable.class).isAssignableFrom(list));
+        assertTrue(new JavaReflective(Object.class).isAssignableFrom(list));
+        assertFalse(new JavaReflective(Map.class).isAssignableFrom(list));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the choice of classes recompiled after a class's ABI changes.
+ */
+public class PackageAbiTest
+{
+    private final Map<String, List<String>> subtypes = new HashMap<>();
+    private final Map<String, List<String>> dependents = new HashMap<>();
+
+    private void addSubtype(String type, String subtype)
+    {
+        subtypes.computeIfAbsent(type, k -> new ArrayList<>()).add(subtype);
+        // A subtype is also a dependent of its supertype
+        addDependent(type, subtype);
+    }
+
+    private void addDependent(String type, String dependent)
+    {
+        dependents.computeIfAbsent(type, k -> new ArrayList<>()).add(dependent);
+    }
+
+    private Set<String> affected(String... changed)
+    {
+        return Package.findAbiAffected(Arrays.asList(changed),
+                t -> subtypes.getOrDefault(t, Collections.emptyList()),
+                t -> dependents.getOrDefault(t, Collections.emptyList()));
+    }
+
+    private static Set<String> setOf(String... names)
+    {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    @Test
+    public void testDirectDependentsOnly()
+    {
+        addDependent("A", "B");
+        addDependent("B", "C");
+        assertEquals(setOf("A", "B"), affected("A"));
+    }
+
+    @Test
+    public void testInterfaceChangeReachesIndirectSubclass()
+    {
+        // Interface I gains a method; B implements I; C extends B; D uses C.
+        addSubtype("I", "B");
+        addSubtype("B", "C");
+        addDependent("C", "D");
+        addDependent("D", "E");
+
+        Set<String> result = affected("I");
+        // C inherits the new method, so both it and its users must be recompiled:
+        assertEquals(setOf("I", "B", "C", "D"), result);
+        assertFalse(result.contains("E"));
+    }
+
+    @Test
+    public void testDependentsOfIntermediateSubtypes()
+    {
+        addSubtype("A", "B");
+        addSubtype("B", "C");
+        addDependent("B", "UsesB");
+        addDependent("A", "UsesA");
+        assertEquals(setOf("A", "B", "C", "UsesA", "UsesB"), affected("A"));
+    }
+
+    @Test
+    public void testCyclicDependencies()
+    {
+        addSubtype("A", "B");
+        addDependent("B", "A");
+        assertEquals(setOf("A", "B"), affected("A"));
+    }
+
+    @Test
+    public void testNothingChanged()
+    {
+        addSubtype("A", "B");
+        assertTrue(affected().isEmpty());
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import bluej.utility.SortedProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ProjectModelFileTest
+{
+    private File projectDir;
+    private File modelFile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        projectDir = Files.createTempDirectory("modeltest").toFile();
+        modelFile = new File(projectDir, ProjectModelFile.FILE_NAME);
+    }
+
+    @After
+    public void tearDown()
+    {
+        for (File f : projectDir.listFiles())
+        {
+            f.delete();
+        }
+        projectDir.delete();
+    }
+
+    private static Properties makeProperties(int numTargets, int x)
+    {
+        Properties props = new SortedProperties();
+        props.setProperty("package.numTargets", String.valueOf(numTargets));
+        for (int i = 1; i <= numTargets; i++)
+        {
+            props.setProperty("target" + i + ".name", "Class" + i);
+            props.setProperty("target" + i + ".x", String.valueOf(i == 1 ? x : i * 10));
+            props.setProperty("target" + i + ".y", "20");
+        }
+        return props;
+    }
+
+    private PackageFile packageFile(ProjectModelFile model)
+    {
+        return model.getPackageFile("", new BlueJPackageFile(projectDir));
+    }
+
+    private static Properties load(PackageFile file) throws IOException
+    {
+        Properties props = new SortedProperties();
+        file.load(props);
+        return props;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        Properties props = makeProperties(5, 100);
+        packageFile(new ProjectModelFile(modelFile)).save(props);
+        assertTrue(modelFile.exists());
+        assertTrue(new File(projectDir, "package.bluej").exists());
+
+        // A fresh instance, as when the project is reopened:
+        ProjectModelFile model = new ProjectModelFile(modelFile);
+        Properties loaded = new Properties();
+        assertTrue(model.load("", new File(projectDir, "package.bluej"), loaded));
+        assertEquals(props, loaded);
+        assertEquals(props, load(packageFile(model)));
+    }
+
+    @Test
+    public void testOnlyChangedRecordsWritten() throws IOException
+    {
+        ProjectModelFile model = new ProjectModelFile(modelFile);
+        PackageFile file = packageFile(model);
+        file.save(makeProperties(50, 100));
+        long fullSize = modelFile.length();
+
+        // Moving one target appends only its record (and a new index):
+        file.save(makeProperties(50, 200));
+        long growth = modelFile.length() - fullSize;
+        assertTrue(growth > 0 && growth < fullSize / 2);
+
+        // Saving the same properties again writes nothing:
+        long textModified = new File(projectDir, "package.bluej").lastModified();
+        long size = modelFile.length();
+        file.save(makeProperties(50, 200));
+        assertEquals(size, modelFile.length());
+        assertEquals(textModified, new File(projectDir, "package.bluej").lastModified());
+
+        assertEquals(makeProperties(50, 200), load(packageFile(new ProjectModelFile(modelFile))));
+    }
+
+    @Test
+    public void testCompaction() throws IOException
+    {
+        ProjectModelFile model = new ProjectModelFile(modelFile);
+        PackageFile file = packageFile(model);
+        for (int x = 0; x < 300; x++)
+        {
+            file.save(makeProperties(20, x));
+        }
+        // Without compaction, every save would have added a record and an index:
+        assertTrue(modelFile.length() < 100 * 1024);
+        assertEquals(makeProperties(20, 299), load(packageFile(new ProjectModelFile(modelFile))));
+    }
+
+    @Test
+    public void testExternalChange() throws IOException
+    {
+        packageFile(new ProjectModelFile(modelFile)).save(makeProperties(3, 100));
+
+        // Change package.bluej behind the model's back, as a version control update might:
+        Properties changed = makeProperties(4, 300);
+        new BlueJPackageFile(projectDir).save(changed);
+        new File(projectDir, "package.bluej").setLastModified(System.currentTimeMillis() + 5000);
+
+        ProjectModelFile model = new ProjectModelFile(modelFile);
+        assertEquals(changed, load(packageFile(model)));
+        // The model has been brought up to date by the load:
+        Properties loaded = new Properties();
+        assertTrue(model.load("", new File(projectDir, "package.bluej"), loaded));
+        assertEquals(changed, loaded);
+    }
+
+    @Test
+    public void testDamagedFile() throws IOException
+    {
+        Properties props = makeProperties(3, 100);
+        packageFile(new ProjectModelFile(modelFile)).save(props);
+        try (RandomAccessFile raf = new RandomAccessFile(modelFile, "rw"))
+        {
+            raf.setLength(raf.length() - 3);
+        }
+
+        // Falls back to package.bluej, and rebuilds the model:
+        ProjectModelFile model = new ProjectModelFile(modelFile);
+        assertEquals(props, load(packageFile(model)));
+        assertTrue(new ProjectModelFile(modelFile).load("", new File(projectDir, "package.bluej"), new Properties()));
+    }
+
+    private Properties loadText() throws IOException
+    {
+        Properties props = new SortedProperties();
+        new BlueJPackageFile(projectDir).load(props);
+        return props;
+    }
+
+    @Test
+    public void testExportDeferred() throws IOException
+    {
+        ProjectModelFile model = new ProjectModelFile(modelFile);
+        PackageFile file = packageFile(model);
+        // package.bluej is written straight away when it does not exist:
+        file.save(makeProperties(3, 100));
+        assertEquals(makeProperties(3, 100), loadText());
+
+        // But after that, only when exported:
+        file.save(makeProperties(3, 200));
+        assertEquals(makeProperties(3, 100), loadText());
+        assertEquals(makeProperties(3, 200), load(packageFile(model)));
+
+        model.exportAll();
+        assertEquals(makeProperties(3, 200), loadText());
+        // The model is still up to date with package.bluej:
+        assertTrue(model.load("", new File(projectDir, "package.bluej"), new Properties()));
+    }
+
+    @Test
+    public void testExportAfterReopen() throws IOException
+    {
+        PackageFile file = packageFile(new ProjectModelFile(modelFile));
+        file.save(makeProperties(3, 100));
+        file.save(makeProperties(3, 200));
+
+        // As if BlueJ exited before exporting; the changes are loaded from the model:
+        ProjectModelFile model = new ProjectModelFile(modelFile);
+        assertEquals(makeProperties(3, 200), load(packageFile(model)));
+        assertEquals(makeProperties(3, 100), loadText());
+
+        // And exported:
+        model.exportAll();
+        assertEquals(makeProperties(3, 200), loadText());
+    }
+
+    @Test
+    public void testExternalChangeReplacesUnexported() throws IOException
+    {
+        ProjectModelFile model = new ProjectModelFile(modelFile);
+        PackageFile file = packageFile(model);
+        file.save(makeProperties(3, 100));
+        file.save(makeProperties(3, 200));
+
+        Properties changed = makeProperties(4, 300);
+        new BlueJPackageFile(projectDir).save(changed);
+        new File(projectDir, "package.bluej").setLastModified(System.currentTimeMillis() + 5000);
+
+        assertEquals(changed, load(file));
+        // The unexported changes are not written over the external change:
+        model.exportAll();
+        assertEquals(changed, loadText());
+    }
+}
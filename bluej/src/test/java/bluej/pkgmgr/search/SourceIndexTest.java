@@ -0,0 +1,193 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.pkgmgr.search;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import bluej.pkgmgr.search.SourceIndex.Match;
+import bluej.pkgmgr.search.SourceIndex.QueryType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the "Find in Project" index.
+ */
+public class SourceIndexTest
+{
+    private File projectDir;
+    private SourceIndex index;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        projectDir = Files.createTempDirectory("indextest").toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        if (index != null) {
+            index.shutdown();
+        }
+        for (File f : projectDir.listFiles()) {
+            f.delete();
+        }
+        projectDir.delete();
+    }
+
+    private File writeSource(String name, String content) throws IOException
+    {
+        File file = new File(projectDir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file.getAbsoluteFile();
+    }
+
+    private List<String> fileNames(List<Match> matches)
+    {
+        List<String> names = new ArrayList<>();
+        for (Match match : matches) {
+            names.add(match.file().getName());
+        }
+        return names;
+    }
+
+    @Test
+    public void testTrigrams()
+    {
+        assertEquals(0, SourceIndex.trigramsOf("ab").length);
+        // "aaaa" has two trigrams, both "aaa":
+        assertEquals(1, SourceIndex.trigramsOf("aaaa").length);
+        long[] trigrams = SourceIndex.trigramsOf("cbabc");
+        assertEquals(3, trigrams.length);
+        long[] sorted = trigrams.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(sorted, trigrams);
+    }
+
+    @Test
+    public void testRequiredLiterals()
+    {
+        assertEquals(Arrays.asList("foo", "barbaz"), SourceIndex.requiredLiterals("foo.*BarBaz"));
+        // The optional 'u' splits the literal:
+        assertEquals(Arrays.asList("colo"), SourceIndex.requiredLiterals("colou?r"));
+        assertEquals(Arrays.asList("a.bcd"), SourceIndex.requiredLiterals("a\\.bcd"));
+        // Character classes and groups are not literal:
+        assertEquals(Arrays.asList("def"), SourceIndex.requiredLiterals("[abc]def"));
+        assertEquals(Arrays.asList("def"), SourceIndex.requiredLiterals("(abc)def"));
+        assertEquals(Arrays.asList("xyz"), SourceIndex.requiredLiterals("\\d+xyz\\s"));
+        // Alternation could make anything optional:
+        assertTrue(SourceIndex.requiredLiterals("abc|def").isEmpty());
+        assertTrue(SourceIndex.requiredLiterals("(?i)abcdef").isEmpty());
+    }
+
+    @Test
+    public void testLiteralSearch() throws Exception
+    {
+        writeSource("A.java", "class Alpha\n{\n    int counter;\n}\n");
+        writeSource("B.java", "class Beta\n{\n    String Counter;\n}\n");
+        index = new SourceIndex(projectDir);
+
+        assertEquals(Arrays.asList("A.java", "B.java"),
+                fileNames(index.find(QueryType.LITERAL, "counter", false, 100)));
+        List<Match> matches = index.find(QueryType.LITERAL, "counter", true, 100);
+        assertEquals(Arrays.asList("A.java"), fileNames(matches));
+        assertEquals(3, matches.get(0).line());
+        assertEquals(9, matches.get(0).column());
+        assertEquals("    int counter;", matches.get(0).lineText());
+
+        // Only files containing all the query's trigrams are candidates:
+        assertEquals(1, index.getCandidates(Arrays.asList("alpha")).size());
+        assertEquals(0, index.getCandidates(Arrays.asList("zzz")).size());
+        assertEquals(2, index.getCandidates(Arrays.asList("class")).size());
+    }
+
+    @Test
+    public void testRegexSearch() throws Exception
+    {
+        writeSource("A.java", "class A\n{\n    int count1;\n    int count22;\n}\n");
+        index = new SourceIndex(projectDir);
+
+        List<Match> matches = index.find(QueryType.REGEX, "count\\d\\d", true, 100);
+        assertEquals(1, matches.size());
+        assertEquals(4, matches.get(0).line());
+    }
+
+    @Test
+    public void testSymbolRanking() throws Exception
+    {
+        writeSource("A.java", "class A\n{\n    int recount;\n    int counter;\n    int Count;\n    int count;\n}\n");
+        index = new SourceIndex(projectDir);
+
+        List<Match> matches = index.find(QueryType.SYMBOL, "count", false, 100);
+        List<String> names = new ArrayList<>();
+        for (Match match : matches) {
+            names.add(match.declaration().name());
+        }
+        // Exact, then exact ignoring case, then prefix, then contains:
+        assertEquals(Arrays.asList("count", "Count", "counter", "recount"), names);
+
+        assertEquals(1, index.find(QueryType.SYMBOL, "A.counter", false, 100).size());
+    }
+
+    @Test
+    public void testCancelledSearch() throws Exception
+    {
+        writeSource("A.java", "class A { }\n");
+        index = new SourceIndex(projectDir);
+        try {
+            index.find(QueryType.LITERAL, "class", false, 100, () -> true);
+            fail("Cancelled search should not complete");
+        }
+        catch (InterruptedException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testEditedSourceSurvivesRefresh() throws Exception
+    {
+        index = new SourceIndex(projectDir);
+        assertEquals(0, index.find(QueryType.LITERAL, "class", false, 100).size());
+
+        // A file which was not indexed is edited before it is next checked on disk:
+        File file = writeSource("A.java", "class Original { }\n");
+        index.sourceEdited(file, "class Edited { }\n");
+        long timeout = System.currentTimeMillis() + 10000;
+        while (index.getIndexedFileCount() == 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(20);
+        }
+
+        // The file has not changed on disk since it was edited, so it is not re-read:
+        index.refresh();
+        assertEquals(1, index.find(QueryType.LITERAL, "Edited", true, 100).size());
+        assertEquals(0, index.find(QueryType.LITERAL, "Original", true, 100).size());
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.stride.generic;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import bluej.stride.framedjava.ast.JavaSource;
+import bluej.stride.framedjava.ast.SlotFragment;
+import bluej.stride.framedjava.elements.CodeElement;
+import bluej.stride.framedjava.elements.LocatableElement;
+import bluej.stride.generic.Frame.ShowReason;
+import nu.xom.Attribute;
+import nu.xom.Comment;
+import nu.xom.Element;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ElementSnapshotTest
+{
+    /**
+     * A code element with a name and child elements, which counts its conversions to XML.
+     */
+    private static class TestElement extends CodeElement
+    {
+        private final String name;
+        private final List<TestElement> children;
+        private int xmlCount;
+
+        private TestElement(String name, TestElement... children)
+        {
+            this.name = name;
+            this.children = Arrays.asList(children);
+        }
+
+        @Override
+        public LocatableElement toXML()
+        {
+            xmlCount += 1;
+            LocatableElement el = new LocatableElement(this, "test");
+            el.addAttribute(new Attribute("name", name));
+            children.forEach(c -> el.appendChild(childToXML(c)));
+            return el;
+        }
+
+        @Override
+        protected Stream<SlotFragment> getDirectSlotFragments()
+        {
+            return Stream.empty();
+        }
+
+        @Override
+        public JavaSource toJavaSource()
+        {
+            return null;
+        }
+
+        @Override
+        public Frame createFrame(InteractionManager editor)
+        {
+            return null;
+        }
+
+        @Override
+        public void show(ShowReason reason)
+        {
+        }
+    }
+
+    private static Element method(String name, int statements)
+    {
+        Element method = new Element("method");
+        method.addAttribute(new Attribute("name", name));
+        method.addAttribute(new Attribute("access", "public"));
+        Element body = new Element("body");
+        for (int i = 0; i < statements; i++)
+        {
+            Element call = new Element("call");
+            call.addAttribute(new Attribute("expression", "System.out.println(\"" + name + " " + i + " <&>\")"));
+            body.appendChild(call);
+        }
+        method.appendChild(body);
+        Element javadoc = new Element("javadoc");
+        javadoc.appendChild("Javadoc for " + name);
+        method.appendChild(javadoc);
+        return method;
+    }
+
+    private static Element classWithMethods(int count, String changedName)
+    {
+        Element cls = new Element("class");
+        cls.addAttribute(new Attribute("name", "Big"));
+        Element methods = new Element("methods");
+        for (int i = 0; i < count; i++)
+        {
+            methods.appendChild(method(i == count / 2 ? changedName : "method" + i, 5));
+        }
+        cls.appendChild(methods);
+        return cls;
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        Element original = classWithMethods(10, "middle");
+        Element restored = ElementSnapshot.of(original).toElement();
+        Assert.assertEquals(original.toXML(), restored.toXML());
+    }
+
+    @Test
+    public void testInterning()
+    {
+        Element a = classWithMethods(50, "middle");
+        Element b = classWithMethods(50, "middle");
+        Element changed = classWithMethods(50, "changed");
+
+        ElementSnapshot snapshotA = ElementSnapshot.of(a);
+        // Equal trees give the same snapshot, and different trees different ones:
+        Assert.assertSame(snapshotA, ElementSnapshot.of(b));
+        Assert.assertNotSame(snapshotA, ElementSnapshot.of(changed));
+        Assert.assertNotEquals(snapshotA, ElementSnapshot.of(changed));
+
+        // Each unchanged subtree is shared:
+        Assert.assertSame(ElementSnapshot.of(method("method3", 5)), ElementSnapshot.of(method("method3", 5)));
+        Assert.assertNotSame(ElementSnapshot.of(method("method3", 5)), ElementSnapshot.of(method("method3", 6)));
+
+        // Attribute values and text are part of the state:
+        Element renamed = classWithMethods(50, "middle");
+        renamed.addAttribute(new Attribute("name", "Renamed"));
+        Assert.assertNotSame(snapshotA, ElementSnapshot.of(renamed));
+        Element text = method("method3", 5);
+        text.getFirstChildElement("javadoc").appendChild(" more");
+        Assert.assertNotSame(ElementSnapshot.of(method("method3", 5)), ElementSnapshot.of(text));
+    }
+
+    @Test
+    public void testKnownSnapshotsNotConverted()
+    {
+        TestElement leaf1 = new TestElement("leaf1");
+        TestElement leaf2 = new TestElement("leaf2");
+        TestElement inner = new TestElement("inner", leaf1, leaf2);
+        TestElement other = new TestElement("other", new TestElement("leaf3"));
+        TestElement root = new TestElement("root", inner, other);
+
+        Map<CodeElement, ElementSnapshot> produced = new IdentityHashMap<>();
+        ElementSnapshot full = ElementSnapshot.of(root::toXML, new IdentityHashMap<>(), produced);
+        Assert.assertSame(ElementSnapshot.of(root.toXML()), full);
+        Assert.assertSame(full, produced.get(root));
+        Assert.assertSame(ElementSnapshot.of(leaf2.toXML()), produced.get(leaf2));
+
+        // Change leaf1: only it and its ancestors need converting, given the other snapshots:
+        TestElement changedLeaf = new TestElement("changed");
+        TestElement changedInner = new TestElement("inner", changedLeaf, leaf2);
+        TestElement changedRoot = new TestElement("root", changedInner, other);
+        Map<CodeElement, ElementSnapshot> known = new IdentityHashMap<>();
+        known.put(leaf2, produced.get(leaf2));
+        known.put(other, produced.get(other));
+        int leaf2Count = leaf2.xmlCount;
+        int otherCount = other.xmlCount;
+        Map<CodeElement, ElementSnapshot> producedAgain = new IdentityHashMap<>();
+        ElementSnapshot changed = ElementSnapshot.of(changedRoot::toXML, known, producedAgain);
+
+        Assert.assertEquals(leaf2Count, leaf2.xmlCount);
+        Assert.assertEquals(otherCount, other.xmlCount);
+        Assert.assertEquals(3, producedAgain.size());
+        Assert.assertTrue(producedAgain.keySet().containsAll(Arrays.asList(changedRoot, changedInner, changedLeaf)));
+        Assert.assertSame(ElementSnapshot.of(changedRoot.toXML()), changed);
+        Assert.assertEquals(changedRoot.toXML().toXML(), changed.toElement().toXML());
+
+        // Outside of taking a snapshot, children are converted as usual:
+        Assert.assertEquals(root.toXML().toXML(), full.toElement().toXML());
+    }
+
+    @Test
+    public void testOtherNodes()
+    {
+        Element a = method("method1", 2);
+        a.appendChild(new Comment("a comment"));
+        Element b = method("method1", 2);
+        b.appendChild(new Comment("a comment"));
+        Element c = method("method1", 2);
+        c.appendChild(new Comment("another comment"));
+
+        Assert.assertSame(ElementSnapshot.of(a), ElementSnapshot.of(b));
+        Assert.assertNotSame(ElementSnapshot.of(a), ElementSnapshot.of(c));
+        Assert.assertEquals(a.toXML(), ElementSnapshot.of(a).toElement().toXML());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.terminal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import bluej.editor.base.TextLine.StyledSegment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TerminalBufferTest
+{
+    private static final List<String> STYLE = List.of("terminal-output");
+    private static final List<String> LINK = List.of("terminal-error", "terminal-stack-link");
+
+    private TerminalBuffer buffer;
+
+    @Before
+    public void setUp()
+    {
+        // Keep only a few lines in memory, so that most lines are paged out:
+        buffer = new TerminalBuffer(10);
+    }
+
+    @After
+    public void tearDown()
+    {
+        buffer.clear();
+    }
+
+    private void appendLines(int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            buffer.appendToLastLine(new StyledSegment(STYLE, "Line "));
+            buffer.appendToLastLine(new StyledSegment(STYLE, Integer.toString(i)));
+            buffer.newLine();
+        }
+    }
+
+    private static List<StyledSegment> segments(ContentLine line)
+    {
+        List<StyledSegment> segments = new ArrayList<>();
+        line.forEach(segments::add);
+        return segments;
+    }
+
+    @Test
+    public void testPagedLines()
+    {
+        appendLines(1000);
+        assertEquals(1001, buffer.getLineCount());
+        long position = 0;
+        for (int i = 0; i < 1000; i++)
+        {
+            String expected = "Line " + i;
+            assertEquals(expected, buffer.getLineText(i));
+            assertEquals(expected.length(), buffer.getLineLength(i));
+            assertEquals(position, buffer.getLineStartPosition(i));
+            position += expected.length();
+        }
+        assertEquals("", buffer.getLineText(1000));
+        assertEquals(position, buffer.getLineStartPosition(1000));
+        assertEquals("Line 100", buffer.getLongestLine());
+
+        List<StyledSegment> line = segments(buffer.getLine(5));
+        assertEquals(1, line.size());
+        assertEquals(STYLE, line.get(0).getStyleClasses());
+    }
+
+    @Test
+    public void testRestylePagedLine()
+    {
+        appendLines(100);
+        Object location = new Object();
+        buffer.setLine(3, List.of(new StyledSegment(STYLE, "Line"), new StyledSegment(LINK, " 3", location)));
+        buffer.setLine(95, List.of(new StyledSegment(LINK, "Line 95", location)));
+
+        List<StyledSegment> line = segments(buffer.getLine(3));
+        assertEquals(2, line.size());
+        assertEquals(LINK, line.get(1).getStyleClasses());
+        assertSame(location, line.get(1).getCustomData());
+        assertSame(location, buffer.getLine(3).getCustomStyleDataAtColumn(5));
+        assertNull(buffer.getLine(3).getCustomStyleDataAtColumn(1));
+        assertSame(location, buffer.getLine(95).getCustomStyleDataAtColumn(0));
+        // Neighbours are unaffected:
+        assertEquals("Line 2", buffer.getLineText(2));
+        assertEquals("Line 4", buffer.getLineText(4));
+    }
+
+    @Test
+    public void testUnicodeAndEmptyLines()
+    {
+        buffer.appendToLastLine(new StyledSegment(STYLE, "héllo 世界 😀"));
+        buffer.newLine();
+        for (int i = 0; i < 30; i++)
+        {
+            buffer.newLine();
+        }
+        assertEquals("héllo 世界 😀", buffer.getLineText(0));
+        assertEquals("", buffer.getLineText(1));
+        assertEquals(1, segments(buffer.getLine(1)).size());
+        assertEquals(11, buffer.getLineStartPosition(20));
+    }
+
+    @Test
+    public void testTrim()
+    {
+        appendLines(100);
+        buffer.trimToMostRecent(50);
+        assertEquals(50, buffer.getLineCount());
+        assertEquals("Line 51", buffer.getLineText(0));
+        assertEquals(0, buffer.getLineStartPosition(0));
+        assertEquals("Line 51", buffer.getLongestLine());
+
+        buffer.trimToMostRecent(3);
+        assertEquals(3, buffer.getLineCount());
+        assertEquals("Line 98", buffer.getLineText(0));
+
+        // Still usable after trimming:
+        appendLines(40);
+        assertEquals("Line 0", buffer.getLineText(2));
+        assertEquals("Line 39", buffer.getLineText(41));
+    }
+
+    @Test
+    public void testClear()
+    {
+        appendLines(100);
+        buffer.clear();
+        assertEquals(1, buffer.getLineCount());
+        assertEquals("", buffer.getLineText(0));
+        assertEquals("", buffer.getLongestLine());
+        assertEquals(Collections.emptyList(), segments(buffer.getLine(0)).get(0).getStyleClasses());
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.testmgr;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import bluej.debugger.DebuggerTestResult;
+import bluej.debugger.SourceLocation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the cache of passing test results used to skip unchanged test classes.
+ */
+public class TestResultCacheTest
+{
+    private File dir;
+    private File classFile;
+    private File library;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("testcache").toFile();
+        classFile = new File(dir, "FooTest.class");
+        Files.write(classFile.toPath(), new byte[] {1, 2, 3});
+        library = new File(dir, "lib.jar");
+        Files.write(library.toPath(), new byte[] {4, 5, 6});
+    }
+
+    @After
+    public void tearDown()
+    {
+        for (File f : dir.listFiles())
+        {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    private String fingerprint() throws IOException
+    {
+        return TestResultCache.fingerprint(Collections.singletonList(classFile),
+                Collections.singletonList(library.toURI().toURL()));
+    }
+
+    @Test
+    public void testFingerprintIgnoresRecompileWithSameContent() throws IOException
+    {
+        String before = fingerprint();
+        assertNotNull(before);
+        Files.write(classFile.toPath(), new byte[] {1, 2, 3});
+        classFile.setLastModified(classFile.lastModified() + 5000);
+        assertEquals(before, fingerprint());
+    }
+
+    @Test
+    public void testFingerprintChangesWithClassFile() throws IOException
+    {
+        String before = fingerprint();
+        Files.write(classFile.toPath(), new byte[] {1, 2, 4});
+        assertNotEquals(before, fingerprint());
+    }
+
+    @Test
+    public void testFingerprintChangesWithLibrary() throws IOException
+    {
+        String before = fingerprint();
+        library.setLastModified(library.lastModified() + 5000);
+        assertNotEquals(before, fingerprint());
+
+        String withLibrary = fingerprint();
+        assertNotEquals(withLibrary, TestResultCache.fingerprint(Collections.singletonList(classFile),
+                Collections.<URL>emptyList()));
+    }
+
+    @Test
+    public void testFingerprintOfMissingClassFile() throws IOException
+    {
+        classFile.delete();
+        assertNull(fingerprint());
+    }
+
+    @Test
+    public void testOnlyGreenRunsAreCached() throws IOException
+    {
+        TestResultCache cache = new TestResultCache();
+        String fingerprint = fingerprint();
+
+        cache.recordRun("FooTest", fingerprint, Arrays.asList(new Result("a", true), new Result("b", false)));
+        assertNull(cache.getGreenResults("FooTest", fingerprint));
+
+        cache.recordRun("FooTest", fingerprint, Collections.emptyList());
+        assertNull(cache.getGreenResults("FooTest", fingerprint));
+
+        cache.recordRun("FooTest", fingerprint, Arrays.asList(new Result("a", true), new Result("b", true)));
+        List<DebuggerTestResult> results = cache.getGreenResults("FooTest", fingerprint);
+        assertEquals(2, results.size());
+        assertEquals("b", results.get(1).getMethodName());
+        // Results from the cache are marked as such:
+        assertTrue(results.get(0).isFromPreviousRun());
+        assertTrue(results.get(0).isSuccess());
+
+        assertNull(cache.getGreenResults("FooTest", "different"));
+        assertNull(cache.getGreenResults("FooTest", null));
+        assertNull(cache.getGreenResults("BarTest", fingerprint));
+
+        // A later failure forgets the green run:
+        cache.recordRun("FooTest", fingerprint, Collections.singletonList(new Result("a", false)));
+        assertNull(cache.getGreenResults("FooTest", fingerprint));
+    }
+
+    private static class Result extends DebuggerTestResult
+    {
+        private final String methodName;
+        private final boolean success;
+
+        private Result(String methodName, boolean success)
+        {
+            this.methodName = methodName;
+            this.success = success;
+        }
+
+        @Override
+        public String getMethodName()
+        {
+            return methodName;
+        }
+
+        @Override
+        public String getQualifiedClassName()
+        {
+            return "FooTest";
+        }
+
+        @Override
+        public String getDisplayName()
+        {
+            return methodName;
+        }
+
+        @Override
+        public int getRunTimeMs()
+        {
+            return 1;
+        }
+
+        @Override
+        public boolean isSuccess()
+        {
+            return success;
+        }
+
+        @Override
+        public boolean isFailure()
+        {
+            return !success;
+        }
+
+        @Override
+        public boolean isError()
+        {
+            return false;
+        }
+
+        @Override
+        public String getTrace()
+        {
+            return null;
+        }
+
+        @Override
+        public String getExceptionMessage()
+        {
+            return null;
+        }
+
+        @Override
+        public SourceLocation getExceptionLocation()
+        {
+            return null;
+        }
+    }
+}
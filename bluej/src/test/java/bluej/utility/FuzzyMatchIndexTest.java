@@ -0,0 +1,76 @@
+package bluej.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class FuzzyMatchIndexTest extends TestCase
+{
+    public void testSearch()
+    {
+        FuzzyMatchIndex index = new FuzzyMatchIndex(Arrays.asList("String", "Stirng", "Strings", "Integer", "Sting", "ArrayList"));
+        List<FuzzyMatchIndex.Match> matches = index.search("strng", 1);
+        assertEquals(3, matches.size());
+        assertEquals(0, matches.get(0).index());
+        assertEquals(1, matches.get(0).distance());
+        assertEquals(1, matches.get(1).index());
+        assertEquals(4, matches.get(2).index());
+    }
+
+    public void testSameAsBruteForce()
+    {
+        Random random = new Random(1);
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 500; i++)
+        {
+            keys.add(randomWord(random));
+        }
+        FuzzyMatchIndex index = FuzzyMatchIndex.forKeys(keys);
+        assertSame(index, FuzzyMatchIndex.forKeys(new ArrayList<>(keys)));
+
+        for (int q = 0; q < 200; q++)
+        {
+            String query = randomWord(random);
+            for (int max = 0; max <= 2; max++)
+            {
+                List<String> expected = new ArrayList<>();
+                for (int i = 0; i < keys.size(); i++)
+                {
+                    int distance = Utility.editDistance(query.toLowerCase(), keys.get(i).toLowerCase());
+                    if (distance <= max)
+                    {
+                        expected.add(i + ":" + distance);
+                    }
+                }
+                List<String> actual = new ArrayList<>();
+                for (FuzzyMatchIndex.Match m : index.search(query, max))
+                {
+                    actual.add(m.index() + ":" + m.distance());
+                }
+                assertEquals(query, expected, actual);
+            }
+        }
+    }
+
+    public void testDistanceAtMost()
+    {
+        assertEquals(1, FuzzyMatchIndex.distanceAtMost("geto", "gteo", 2));
+        assertTrue(FuzzyMatchIndex.distanceAtMost("edge", "gteo", 2) > 2);
+        assertTrue(FuzzyMatchIndex.distanceAtMost("edge", "gteo", 2) <= 4);
+    }
+
+    private static String randomWord(Random random)
+    {
+        String letters = "abcdeABCDE";
+        StringBuilder word = new StringBuilder();
+        int length = 1 + random.nextInt(6);
+        for (int i = 0; i < length; i++)
+        {
+            word.append(letters.charAt(random.nextInt(letters.length())));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SavePipelineTest
+{
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        dir = Files.createTempDirectory("savetest").toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        for (File f : dir.listFiles())
+        {
+            f.delete();
+        }
+        dir.delete();
+    }
+
+    private static void save(File file, String content) throws Exception
+    {
+        SavePipeline.getInstance().write(file, content.getBytes(StandardCharsets.UTF_8)).get();
+    }
+
+    private static String read(Path path) throws IOException
+    {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testKeepsPermissions() throws Exception
+    {
+        Path path = new File(dir, "A.java").toPath();
+        if (Files.getFileAttributeView(dir.toPath(), PosixFileAttributeView.class) == null)
+        {
+            // Not supported on this file system
+            return;
+        }
+        Files.write(path, "class A { }".getBytes(StandardCharsets.UTF_8));
+        Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rwxr-x---");
+        Files.setPosixFilePermissions(path, permissions);
+
+        save(path.toFile(), "class A { int x; }");
+        assertEquals("class A { int x; }", read(path));
+        assertEquals(permissions, Files.getPosixFilePermissions(path));
+    }
+
+    @Test
+    public void testKeepsHardLinks() throws Exception
+    {
+        Path path = new File(dir, "A.java").toPath();
+        Path link = new File(dir, "Link.java").toPath();
+        Files.write(path, "class A { }".getBytes(StandardCharsets.UTF_8));
+        try
+        {
+            Files.createLink(link, path);
+        }
+        catch (UnsupportedOperationException | IOException e)
+        {
+            // Not supported on this file system
+            return;
+        }
+
+        save(path.toFile(), "class A { int x; }");
+        assertEquals("class A { int x; }", read(path));
+        assertEquals("class A { int x; }", read(link));
+    }
+
+    @Test
+    public void testTemporaryFiles() throws Exception
+    {
+        File file = new File(dir, "A.java");
+        save(file, "class A { }");
+        assertArrayEquals(new String[] {"A.java"}, dir.list());
+        assertTrue(SavePipeline.isTemporaryFile(".A.java.saving"));
+        assertFalse(SavePipeline.isTemporaryFile("A.java"));
+    }
+}
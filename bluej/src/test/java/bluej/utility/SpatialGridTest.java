@@ -0,0 +1,119 @@
+/*
+ This file is part of the BlueJ program.
+ Copyright (C) 2026  Michael Kolling and John Rosenberg
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package bluej.utility;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests for SpatialGrid, including a stress test shaped like the arrows of a
+ * class diagram with 1,000 classes.
+ */
+public class SpatialGridTest
+{
+    private static final int CLASS_WIDTH = 120;
+    private static final int CLASS_HEIGHT = 70;
+    private static final int COLUMNS = 40;
+
+    @Test
+    public void testSmall()
+    {
+        SpatialGrid<String> grid = new SpatialGrid<>(100);
+        grid.add("a", 0, 0, 50, 50);
+        grid.add("b", 40, 40, 250, 60);
+        grid.add("c", -300, -300, -250, -250);
+        Assert.assertEquals(List.of("a", "b"), grid.query(45, 45, 46, 46));
+        Assert.assertEquals(List.of("b"), grid.query(200, 0, 210, 100));
+        Assert.assertEquals(List.of("c"), grid.query(-260, -260, -200, -200));
+        Assert.assertEquals(List.of(), grid.query(300, 300, 400, 400));
+        // Touching counts as overlapping:
+        Assert.assertEquals(List.of("a", "b"), grid.query(50, 50, 60, 60));
+        grid.clear();
+        Assert.assertEquals(0, grid.size());
+        Assert.assertEquals(List.of(), grid.query(0, 0, 1000, 1000));
+    }
+
+    /**
+     * Lays out 1,000 classes in a grid, with three arrows from each to random other classes,
+     * then checks that querying the area around a class (as when a class is dragged) finds exactly
+     * the arrows a full scan would, while only finding a small fraction of all the arrows.
+     */
+    @Test
+    public void testLargeDiagram()
+    {
+        Random random = new Random(38);
+        int classes = 1000;
+        List<double[]> arrows = new ArrayList<>();
+        SpatialGrid<Integer> grid = new SpatialGrid<>(200);
+        for (int from = 0; from < classes; from++)
+        {
+            for (int i = 0; i < 3; i++)
+            {
+                // Mostly arrows to nearby classes, as in real diagrams, with some long ones:
+                int to = random.nextInt(10) == 0 ? random.nextInt(classes)
+                    : Math.floorMod(from + random.nextInt(2 * COLUMNS + 1) - COLUMNS, classes);
+                double[] b = arrowBounds(from, to);
+                grid.add(arrows.size(), b[0], b[1], b[2], b[3]);
+                arrows.add(b);
+            }
+        }
+        Assert.assertEquals(arrows.size(), grid.size());
+
+        long found = 0;
+        int queries = 2000;
+        for (int q = 0; q < queries; q++)
+        {
+            int moved = random.nextInt(classes);
+            double x = (moved % COLUMNS) * CLASS_WIDTH * 2;
+            double y = (moved / COLUMNS) * CLASS_HEIGHT * 2;
+            double[] area = {x - 20, y - 20, x + CLASS_WIDTH + 20, y + CLASS_HEIGHT + 20};
+
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < arrows.size(); i++)
+            {
+                double[] b = arrows.get(i);
+                if (b[0] <= area[2] && b[2] >= area[0] && b[1] <= area[3] && b[3] >= area[1])
+                    expected.add(i);
+            }
+            List<Integer> actual = grid.query(area[0], area[1], area[2], area[3]);
+            Assert.assertEquals(expected, actual);
+            found += actual.size();
+        }
+        // The point of the index: a local change only touches a few percent of the arrows.
+        Assert.assertTrue("Average query size too large: " + (found / queries),
+            found / queries < arrows.size() / 20);
+    }
+
+    private static double[] arrowBounds(int from, int to)
+    {
+        double fromX = (from % COLUMNS) * CLASS_WIDTH * 2 + CLASS_WIDTH / 2;
+        double fromY = (from / COLUMNS) * CLASS_HEIGHT * 2 + CLASS_HEIGHT / 2;
+        double toX = (to % COLUMNS) * CLASS_WIDTH * 2 + CLASS_WIDTH / 2;
+        double toY = (to / COLUMNS) * CLASS_HEIGHT * 2 + CLASS_HEIGHT / 2;
+        return new double[] {Math.min(fromX, toX) - 18, Math.min(fromY, toY) - 18,
+            Math.max(fromX, toX) + 18, Math.max(fromY, toY) + 18};
+    }
+}
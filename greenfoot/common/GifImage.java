@@ -1,15 +1,26 @@
 import greenfoot.*;  // (World, Actor, GreenfootImage, Greenfoot and MouseInfo)
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.SoftReference;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Map;
 
 /**
  * This class can be used to read animated gif image files and extract the individual
  * images of the animation sequence.
  * 
+ * <p>The frames of a GIF file are decoded lazily, when they are first displayed, and
+ * the decoded data is shared between all GifImage objects which were loaded from the same
+ * file. Each GifImage has its own copy of each frame, however (made cheaply, since the
+ * image data is only copied if it is modified), so drawing on or scaling the frames of one
+ * GifImage does not affect any other.
+ * 
  * @author Michael Berry
  * @author Neil Brown
  * 
@@ -17,7 +28,12 @@ import java.util.ArrayList;
  */
 public class GifImage
 {
-    /** The images used in the animation. */
+    /** Decoders for GIF files which have already been loaded, keyed by file name. */
+    private static final Map<String, SoftReference<GifDecoder>> decoders = new HashMap<String, SoftReference<GifDecoder>>();
+
+    /** The decoder holding the (shared) decoded frames of the animation, or null if not a GIF. */
+    private GifDecoder decoder;
+    /** This object's copies of the images used in the animation; null for frames not yet needed. */
     private GreenfootImage[] images;
     /** The delay between each frame. */
     private int[] delay;
@@ -59,18 +75,24 @@ public class GifImage
     public GifImage(GifImage copyFrom)
     {
         pause = copyFrom.pause;
+        decoder = copyFrom.decoder;
+        // The images are documented as being shared, so make sure they all exist first:
+        copyFrom.getAllImages();
         images = copyFrom.images.clone();
-        delay = copyFrom.delay.clone();
+        delay = copyFrom.delay;
         currentIndex = copyFrom.currentIndex;
         time = copyFrom.time;
     }
 
     /**
-     * Get all the images used in the animation
+     * Get all the images used in the animation. This decodes any frames which have
+     * not yet been displayed.
+     * 
      * @return a list of GreenfootImages, corresponding to each frame.
      */
     public List<GreenfootImage> getImages()
     {
+        getAllImages();
         ArrayList<GreenfootImage> images = new ArrayList<GreenfootImage>(this.images.length);
         for(GreenfootImage image : this.images) {
             images.add(image);
@@ -111,35 +133,76 @@ public class GifImage
         while (delta >= delay[currentIndex] && !pause) {
             delta -= delay[currentIndex];
             time += delay[currentIndex];
-            currentIndex = (currentIndex+1) % images.length;
+            currentIndex = (currentIndex+1) % delay.length;
+        }
+        return getImage(currentIndex);
+    }
+
+    /**
+     * Get this object's copy of the given frame, making it if necessary.
+     */
+    private GreenfootImage getImage(int index)
+    {
+        if (images[index] == null) {
+            images[index] = new GreenfootImage(decoder.getFrame(index));
         }
-        return images[currentIndex];
+        return images[index];
     }
 
     /**
-     * Load the images
+     * Make sure that this object has its copy of every frame.
+     */
+    private void getAllImages()
+    {
+        for (int i = 0; i < images.length; i++) {
+            getImage(i);
+        }
+    }
+
+    /**
+     * Load the images. Only the structure of the file is read here; the frames
+     * themselves are decoded when they are first needed.
      */
     private void loadImages(String file)
     {
-        GifDecoder decode = new GifDecoder();
-        decode.read(file);
-        int numFrames = decode.getFrameCount();
+        decoder = getDecoder(file);
+        int numFrames = decoder.getFrameCount();
         if(numFrames>0) {
             images = new GreenfootImage[numFrames];
-            delay = new int[numFrames];
+            delay = decoder.getDelays();
         }
         else {
+            decoder = null;
             images = new GreenfootImage[1];
             images[0] = new GreenfootImage(1, 1);
+            delay = new int[] {1000};
         }
+        time = System.currentTimeMillis();
+    }
 
-        for (int i=0 ; i<numFrames ; i++) {
-            GreenfootImage image = new GreenfootImage(decode.getFrame(i).getWidth(), decode.getFrame(i).getHeight());
-            image.drawImage(decode.getFrame(i), 0, 0);
-            delay[i] = decode.getDelay(i);
-            images[i] = image;
+    /**
+     * Get the decoder for the given file, reading the file only if no other
+     * GifImage has already loaded it.
+     */
+    private static GifDecoder getDecoder(String file)
+    {
+        synchronized (decoders) {
+            // Forget about any files whose decoders have been discarded:
+            Iterator<SoftReference<GifDecoder>> it = decoders.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().get() == null) {
+                    it.remove();
+                }
+            }
+            SoftReference<GifDecoder> ref = decoders.get(file);
+            GifDecoder decoder = ref == null ? null : ref.get();
+            if (decoder == null) {
+                decoder = new GifDecoder();
+                decoder.read(file);
+                decoders.put(file, new SoftReference<GifDecoder>(decoder));
+            }
+            return decoder;
         }
-        time = System.currentTimeMillis();
     }
 
     /**
@@ -188,8 +251,10 @@ public class GifImage
      *         ImageMagick.
      * @version 1.03 November 2003
      * 
+     * <p>This version first indexes the frames in the file, and then decodes each frame
+     * on demand, keeping decoded frames only for as long as memory permits.
      */
-    private class GifDecoder
+    private static class GifDecoder
     {
         /**
          * File read status: No errors.
@@ -206,7 +271,9 @@ public class GifImage
          */
         public static final int STATUS_OPEN_ERROR = 2;
 
-        private BufferedInputStream in;
+        private byte[] data; // the complete (compressed) contents of the file
+
+        private InputStream in;
 
         private int status;
 
@@ -282,17 +349,39 @@ public class GifImage
         private int frameCount;
 
         /**
-         * A single frame
+         * A single frame: where to find it in the file, the control values in effect
+         * for it, and its decoded image (if it has been decoded and not discarded).
          */
         private class GifFrame {
-            public GifFrame(GreenfootImage im, int del) {
-                image = im;
-                delay = del;
+            public GifFrame(int offset, Rectangle rect) {
+                this.offset = offset;
+                this.rect = rect;
+                delay = GifDecoder.this.delay;
+                dispose = GifDecoder.this.dispose;
+                transparency = GifDecoder.this.transparency;
+                transIndex = GifDecoder.this.transIndex;
+                bgColor = GifDecoder.this.bgColor;
             }
 
-            private GreenfootImage image;
+            private final int offset; // position of the image descriptor in the data
+
+            private final Rectangle rect;
+
+            private final int delay;
 
-            private int delay;
+            private final int dispose;
+
+            private final boolean transparency;
+
+            private final int transIndex;
+
+            private final Color bgColor;
+
+            private SoftReference<GreenfootImage> image;
+
+            private GreenfootImage getImage() {
+                return image == null ? null : image.get();
+            }
         }
 
         /**
@@ -322,6 +411,19 @@ public class GifImage
             return delay;
         }
 
+        /**
+         * Gets the display durations of all frames.
+         * 
+         * @return delays in milliseconds
+         */
+        public int[] getDelays() {
+            int[] delays = new int[frameCount];
+            for (int i = 0; i < frameCount; i++) {
+                delays[i] = frames.get(i).delay;
+            }
+            return delays;
+        }
+
         /**
          * Gets the number of frames read from file.
          * 
@@ -357,16 +459,6 @@ public class GifImage
         protected void setPixels() {
             // fill in starting image contents based on last image's dispose code
             if (lastDispose > 0) {
-                if (lastDispose == 3) {
-                    // use image before last
-                    int n = frameCount - 2;
-                    if (n > 0) {
-                        lastImage = getFrame(n - 1);
-                    } else {
-                        lastImage = null;
-                    }
-                }
-
                 if (lastImage != null) {
                     image.clear();
                     image.drawImage(lastImage, 0, 0);
@@ -435,14 +527,45 @@ public class GifImage
         }
 
         /**
-         * Gets the image contents of frame n.
+         * Gets the image contents of frame n, decoding it (and any preceding frames
+         * it is drawn over which are not already decoded) if necessary.
          * 
          * @return BufferedImage representation of frame, or null if n is invalid.
          */
-        public GreenfootImage getFrame(int n) {
-            GreenfootImage im = null;
-            if ((n >= 0) && (n < frameCount)) {
-                im = ((GifFrame) frames.get(n)).image;
+        public synchronized GreenfootImage getFrame(int n) {
+            if ((n < 0) || (n >= frameCount)) {
+                return null;
+            }
+            GreenfootImage im = frames.get(n).getImage();
+            if (im != null) {
+                return im;
+            }
+
+            // Each frame is drawn over the previous frame (or, if that is to be
+            // restored to the previous one, the frame before that), so go back
+            // to the last frame from which we can resume decoding:
+            int start = n;
+            GreenfootImage prev = null;
+            GreenfootImage prevPrev = null;
+            while (start > 0) {
+                prev = frames.get(start - 1).getImage();
+                prevPrev = start >= 2 ? frames.get(start - 2).getImage() : null;
+                boolean needPrevPrev = start >= 2 && frames.get(start - 1).dispose == 3;
+                if (prev != null && (prevPrev != null || !needPrevPrev)) {
+                    break;
+                }
+                start--;
+            }
+            if (start == 0) {
+                prev = null;
+                prevPrev = null;
+            }
+
+            for (int i = start; i <= n; i++) {
+                im = decodeFrame(i, prev, prevPrev);
+                frames.get(i).image = new SoftReference<GreenfootImage>(im);
+                prevPrev = prev;
+                prev = im;
             }
             return im;
         }
@@ -457,35 +580,8 @@ public class GifImage
         }
 
         /**
-         * Reads GIF image from stream
-         * 
-         * @param BufferedInputStream
-         *          containing GIF file.
-         * @return read status code (0 = no errors)
-         */
-        public int read(BufferedInputStream is) {
-            init();
-            if (is != null) {
-                in = is;
-                readHeader();
-                if (!err()) {
-                    readContents();
-                    if (frameCount < 0) {
-                        status = STATUS_FORMAT_ERROR;
-                    }
-                }
-            } else {
-                status = STATUS_OPEN_ERROR;
-            }
-            try {
-                is.close();
-            } catch (IOException e) {
-            }
-            return status;
-        }
-
-        /**
-         * Reads GIF image from stream
+         * Reads GIF image from stream. The contents of the stream are kept (in their
+         * compressed form), and the frames are indexed but not yet decoded.
          * 
          * @param InputStream
          *          containing GIF file.
@@ -494,23 +590,35 @@ public class GifImage
         public int read(InputStream is) {
             init();
             if (is != null) {
-                if (!(is instanceof BufferedInputStream))
-                    is = new BufferedInputStream(is);
-                in = (BufferedInputStream) is;
-                readHeader();
+                try {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    byte[] buf = new byte[8192];
+                    int count;
+                    while ((count = is.read(buf)) != -1) {
+                        bytes.write(buf, 0, count);
+                    }
+                    data = bytes.toByteArray();
+                } catch (IOException e) {
+                    data = new byte[0];
+                    status = STATUS_OPEN_ERROR;
+                }
+                in = new ByteArrayInputStream(data);
+                if (!err()) {
+                    readHeader();
+                }
                 if (!err()) {
                     readContents();
                     if (frameCount < 0) {
                         status = STATUS_FORMAT_ERROR;
                     }
                 }
+                try {
+                    is.close();
+                } catch (IOException e) {
+                }
             } else {
                 status = STATUS_OPEN_ERROR;
             }
-            try {
-                is.close();
-            } catch (IOException e) {
-            }
             return status;
         }
 
@@ -532,8 +640,7 @@ public class GifImage
                     throw new RuntimeException("The gif file \"" + name + "\" doesn't exist.");
                 }
             }
-            in = new BufferedInputStream(resource);
-            status = read(in);
+            status = read(resource);
 
             return status;
         }
@@ -834,9 +941,47 @@ public class GifImage
         }
 
         /**
-         * Reads next frame image
+         * Reads the position of the next frame image, and skips over its data.
          */
         protected void readImage() {
+            int offset;
+            try {
+                offset = data.length - in.available();
+            } catch (IOException e) {
+                status = STATUS_FORMAT_ERROR;
+                return;
+            }
+            readImageDescriptor();
+
+            if (lctFlag) {
+                readColorTable(lctSize); // read again when the frame is decoded
+            } else {
+                if (gct == null)
+                    status = STATUS_FORMAT_ERROR; // no color table defined
+                if (bgIndex == transIndex)
+                    bgColor = colorFromInt(0);
+            }
+
+            if (err())
+                return;
+
+            read(); // LZW minimum code size
+            skip(); // image data
+
+            if (err())
+                return;
+
+            frameCount++;
+
+            frames.add(new GifFrame(offset, new Rectangle(ix, iy, iw, ih))); // add frame to frame list
+
+            resetFrame();
+        }
+
+        /**
+         * Reads the image descriptor (position, size and flags) of a frame.
+         */
+        protected void readImageDescriptor() {
             ix = readShort(); // (sub)image position & size
             iy = readShort();
             iw = readShort();
@@ -848,14 +993,39 @@ public class GifImage
             // 3 - sort flag
             // 4-5 - reserved
             lctSize = 2 << (packed & 7); // 6-8 - local color table size
+        }
 
+        /**
+         * Decodes the image of frame n.
+         * 
+         * @param previous the image of frame n-1 (null if n is 0)
+         * @param beforePrevious the image of frame n-2 (null if n &lt; 2)
+         * @return the new image for frame n
+         */
+        protected GreenfootImage decodeFrame(int n, GreenfootImage previous, GreenfootImage beforePrevious) {
+            GifFrame frame = frames.get(n);
+            in = new ByteArrayInputStream(data, frame.offset, data.length - frame.offset);
+            status = STATUS_OK;
+            transparency = frame.transparency;
+            transIndex = frame.transIndex;
+            if (n > 0) {
+                GifFrame last = frames.get(n - 1);
+                lastDispose = last.dispose;
+                lastRect = last.rect;
+                lastBgColor = last.bgColor;
+                // for "restore to previous", use image before last
+                lastImage = lastDispose == 3 ? beforePrevious : previous;
+            } else {
+                lastDispose = 0;
+                lastImage = null;
+            }
+
+            readImageDescriptor();
             if (lctFlag) {
                 lct = readColorTable(lctSize); // read table
                 act = lct; // make local table active
             } else {
                 act = gct; // make global table active
-                if (bgIndex == transIndex)
-                    bgColor = colorFromInt(0);
             }
             int save = 0;
             if (transparency) {
@@ -863,33 +1033,20 @@ public class GifImage
                 act[transIndex] = 0; // set transparent color if specified
             }
 
-            if (act == null) {
-                status = STATUS_FORMAT_ERROR; // no color table defined
-            }
-
-            if (err())
-                return;
-
-            decodeImageData(); // decode pixel data
-            skip();
-
-            if (err())
-                return;
-
-            frameCount++;
-
             // create new image to receive frame data
             image = new GreenfootImage(width, height);
 
-            setPixels(); // transfer pixel data to image
-
-            frames.add(new GifFrame(image, delay)); // add image to frame list
+            if (!err()) {
+                decodeImageData(); // decode pixel data
+                setPixels(); // transfer pixel data to image
+            }
 
             if (transparency) {
                 act[transIndex] = save;
             }
-            resetFrame();
-
+            lct = null;
+            lastImage = null;
+            return image;
         }
 
         /**
@@ -939,10 +1096,6 @@ public class GifImage
          * Resets frame state for reading next image.
          */
         protected void resetFrame() {
-            lastDispose = dispose;
-            lastRect = new Rectangle(ix, iy, iw, ih);
-            lastImage = image;
-            lastBgColor = bgColor;
             int dispose = 0;
             boolean transparency = false;
             int delay = 0;
@@ -21,6 +21,8 @@
  */
 package greenfoot;
 
+import greenfoot.collision.PixelMask;
+import greenfoot.collision.RotatedBounds;
 import greenfoot.collision.ibsp.Rect;
 import greenfoot.platforms.ActorDelegate;
 import greenfoot.util.GreenfootUtil;
@@ -301,12 +303,10 @@ public abstract class Actor
      */
     public void move(int distance)
     {
-        double radians = Math.toRadians(rotation);
-
         // We round to the nearest integer, to allow moving one unit at an angle
         // to actually move.
-        int dx = (int) Math.round(Math.cos(radians) * distance);
-        int dy = (int) Math.round(Math.sin(radians) * distance);
+        int dx = (int) Math.round(RotatedBounds.cos(rotation) * distance);
+        int dy = (int) Math.round(RotatedBounds.sin(rotation) * distance);
         setLocation(x + dx, y + dy);
     }
     
@@ -760,74 +760,27 @@ public abstract class Actor
      */
     private void getRotatedCorners(int [] xs, int [] ys, int cellSize)
     {
-        int width = image.getWidth();
-        int height = image.getHeight();
-        
-        xs[0] = -width / 2;
-        xs[1] = xs[0] + width - 1;
-        xs[2] = xs[1];
-        xs[3] = xs[0];
-        
-        ys[0] = -height / 2;
-        ys[1] = ys[0];
-        ys[2] = ys[1] + height - 1;
-        ys[3] = ys[2];
-        
-        double rotR = Math.toRadians(rotation);
-        double sinR = Math.sin(rotR);
-        double cosR = Math.cos(rotR);
+        double[] offsets = RotatedBounds.getCornerOffsets(image.getWidth(), image.getHeight(), rotation);
         
         double xc = cellSize * x + cellSize / 2.;
         double yc = cellSize * y + cellSize / 2.;
         
-        // Do the actual rotation
-        for (int i = 0; i < 4; i++) {
-            int nx = (int)(xs[i] * cosR - ys[i] * sinR + xc);
-            int ny = (int)(ys[i] * cosR + xs[i] * sinR + yc);
-            xs[i] = nx;
-            ys[i] = ny;
-        }
+        RotatedBounds.getCorners(offsets, xc, yc, xs, ys, 0);
     }
 
     /**
-     * Check whether all of the vertexes in the "other" rotated rectangle are on the
-     * outside of any one of the edges in "my" rotated rectangle.
-     *  
-     * @param myX   The x-coordinates of the corners of "my" rotated rectangle
-     * @param myY    The y-coordinates of the corners "my" rotated rectangle
-     * @param otherX  The x-coordinates of the corners of the "other" rotated rectangle
-     * @param otherY  The y-coordinates of the corners of the "other" rotated rectangle
+     * Copy the co-ordinates of the corners of the rotated bounding rectangle, in
+     * pixels, into the given arrays. The bounds must be up-to-date (i.e.
+     * getBoundingRect() must have been called).
      * 
-     * @return  true if all corners of the "other" rectangle are on the outside of any of
-     *          the edges of "my" rectangle.
+     * @param xs  The array to receive the four X coordinates
+     * @param ys  The array to receive the four Y coordinates
+     * @param off  The index at which to store the first corner
      */
-    private static boolean checkOutside(int [] myX, int [] myY, int [] otherX, int [] otherY)
+    void getBoundingCorners(int [] xs, int [] ys, int off)
     {
-        vloop:
-        for (int v = 0; v < 4; v++) {
-            int v1 = (v + 1) & 3; // wrap at 4 back to 0
-            int edgeX = myX[v] - myX[v1];
-            int edgeY = myY[v] - myY[v1];
-            int reX = -edgeY;
-            int reY = edgeX;
-            
-            if (reX == 0 && reY == 0) {
-                continue vloop;
-            }
-
-            for (int e = 0; e < 4; e++) {
-                int scalar = reX * (otherX[e] - myX[v1]) + reY * (otherY[e] - myY[v1]);
-                if (scalar <= 0) {
-                    continue vloop;
-                }
-            }
-
-            // If we got here, we have an edge with all vertexes from the other rect
-            // on the outside:
-            return true;
-        }
-
-        return false;
+        System.arraycopy(boundingXs, 0, xs, off, 4);
+        System.arraycopy(boundingYs, 0, ys, off, 4);
     }
     
     // ============================
@@ -839,10 +792,24 @@ public abstract class Actor
     /**
      * Check whether this object intersects with another given object.
      * 
+     * <p>Normally, objects intersect if their (rotated) images' bounding rectangles
+     * overlap. If pixel-perfect collisions are enabled in the world for either object,
+     * the non-transparent pixels of the images must overlap.
+     * 
      * @param other  The second object to detect the existing of intersection with it.
      * @return True if the object's intersect, false otherwise.
+     * @see World#setPixelPerfectCollisions(boolean)
      */
     protected boolean intersects(Actor other)
+    {
+        return boundsIntersect(other) && pixelsIntersect(other);
+    }
+    
+    /**
+     * Check whether the (rotated) bounding rectangles of this object and another
+     * object intersect.
+     */
+    private boolean boundsIntersect(Actor other)
     {
         if (image == null) {
             if (other.image == null) {
@@ -873,21 +840,32 @@ public abstract class Actor
                     return false;
                 }
                 
-                int [] myX = boundingXs;
-                int [] myY = boundingYs;
-                int [] otherX = other.boundingXs;
-                int [] otherY = other.boundingYs;
-                
-                if (checkOutside(myX, myY, otherX, otherY)) {
-                    return false;
-                }
-                if (checkOutside(otherX, otherY, myX, myY)) {
-                    return false;
-                }
+                return RotatedBounds.intersects(boundingXs, boundingYs, 0, other.boundingXs, other.boundingYs, 0);
             }
         }
+    }
+    
+    /**
+     * Check, if pixel-perfect collision checking applies to this object and the
+     * other object, whether their images have overlapping non-transparent pixels.
+     * The bounding rectangles should already have been found to intersect.
+     * 
+     * @return false if pixel-perfect collision checking applies and no pixels
+     *         overlap; true otherwise.
+     */
+    boolean pixelsIntersect(Actor other)
+    {
+        if (image == null || other.image == null || world == null
+                || ! world.isPixelPerfectCollision(this, other)) {
+            return true;
+        }
         
-        return true;
+        int cellSize = world.getCellSize();
+        boolean halfPixel = (cellSize & 1) == 1;
+        PixelMask myMask = image.getCollisionMask(rotation, halfPixel);
+        PixelMask otherMask = other.image.getCollisionMask(other.rotation, halfPixel);
+        return PixelMask.overlaps(myMask, x * cellSize + cellSize / 2, y * cellSize + cellSize / 2,
+                otherMask, other.x * cellSize + cellSize / 2, other.y * cellSize + cellSize / 2);
     }
 
     /**
@@ -92,6 +92,15 @@ public class ActorVisitor
         return actor.intersects(other);
     }
     
+    /**
+     * Check whether two actors, whose bounds intersect, also have overlapping
+     * pixels (if pixel-perfect collision checking applies to them).
+     */
+    public static boolean pixelsIntersect(Actor actor, Actor other)
+    {
+        return actor.pixelsIntersect(other);
+    }
+    
     public static int toPixel(Actor actor, int x) 
     {
         return actor.toPixel(x);
@@ -102,6 +111,15 @@ public class ActorVisitor
         return actor.getBoundingRect();
     }
     
+    /**
+     * Copy the corners of an actor's rotated bounding rectangle (in pixels) into
+     * the given arrays. getBoundingRect() must have been called first.
+     */
+    public static void getBoundingCorners(Actor actor, int[] xs, int[] ys, int off)
+    {
+        actor.getBoundingCorners(xs, ys, off);
+    }
+    
     public static void setData(Actor actor, Object n)
     {
         actor.setData(n);
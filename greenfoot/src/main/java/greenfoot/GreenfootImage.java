@@ -21,6 +21,7 @@
  */
 package greenfoot;
 
+import greenfoot.collision.PixelMask;
 import greenfoot.util.GraphicsUtilities;
 import greenfoot.util.GreenfootUtil;
 
@@ -43,6 +44,8 @@ import java.awt.image.VolatileImage;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
 
 
 /**
@@ -78,6 +81,21 @@ public class GreenfootImage
      */
     private boolean copyOnWrite = false;
     
+    /**
+     * Whether the backing image has been handed out via getAwtImage(). If so, it
+     * may be modified without our knowledge, and so it must not be shared with
+     * a copy of this image.
+     */
+    private boolean awtImageExposed = false;
+    
+    /**
+     * Collision masks for the current (unshared) image data, keyed by rotation
+     * (plus 360 for masks sampled at half-pixel offsets). Cleared whenever the
+     * image may be modified. Masks for shared image data are kept in the image
+     * cache instead.
+     */
+    private Map<Integer,PixelMask> collisionMasks;
+    
     /**
      * Value from 0 to 255, with 0 being completely transparent and 255 being opaque.
      */
@@ -138,7 +156,7 @@ public class GreenfootImage
     public GreenfootImage(GreenfootImage image)
         throws IllegalArgumentException
     {
-        if (! image.copyOnWrite) {
+        if (! image.copyOnWrite && image.awtImageExposed) {
             setImage(GraphicsUtilities.createCompatibleTranslucentImage(image.getWidth(), image.getHeight()));
             Graphics2D g = getGraphics();
             g.setComposite(AlphaComposite.Src);
@@ -146,8 +164,9 @@ public class GreenfootImage
             g.dispose();
         }
         else {
-            // If the source image is a copy-on-write image, we can easily
-            // make this a copy-on-write image as well.
+            // Share the image data. Both images become copy-on-write, so that
+            // whichever is modified first takes its own copy of the data.
+            image.copyOnWrite = true;
             this.image = image.image;
             copyOnWrite = true;
         }
@@ -315,6 +334,8 @@ public class GreenfootImage
         }
         this.image = getBufferedImage(image);
         copyOnWrite = false;
+        awtImageExposed = false;
+        collisionMasks = null;
     }
 
 
@@ -328,6 +349,7 @@ public class GreenfootImage
     public BufferedImage getAwtImage()
     {
         ensureWritableImage();
+        awtImageExposed = true;
         return image;
     }
     
@@ -339,6 +361,7 @@ public class GreenfootImage
         if (copyOnWrite) {
         ensureWritableImage();
         }
+        collisionMasks = null;
         Graphics2D graphics = image.createGraphics();
         initGraphics(graphics);
         return graphics;
@@ -387,10 +410,16 @@ public class GreenfootImage
      */
     public void rotate(int degrees)
     {
+        BufferedImage cached = getCachedTransform(degrees, getWidth(), getHeight());
+        if (cached != null) {
+            image = cached;
+            return;
+        }
+        
         AffineTransform tx = AffineTransform.getRotateInstance(Math.toRadians(degrees), getWidth()/2., getHeight()/2.);
         AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_NEAREST_NEIGHBOR);
         BufferedImage newImage = GraphicsUtilities.createCompatibleTranslucentImage(getWidth(), getHeight());
-        setImage(op.filter(image, newImage));
+        setTransformedImage(op.filter(image, newImage), degrees);
     }
 
     /**
@@ -404,6 +433,12 @@ public class GreenfootImage
         if (width == image.getWidth() && height == image.getHeight())
             return;
         
+        BufferedImage cached = getCachedTransform(0, width, height);
+        if (cached != null) {
+            image = cached;
+            return;
+        }
+        
         // getScaledInstance is too slow, see: http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6196792
         // This is adapted from: http://java.sun.com/products/java-media/2D/reference/faqs/index.html#Q_How_do_I_create_a_resized_copy
         BufferedImage scaled = GraphicsUtilities.createCompatibleTranslucentImage(width, height);
@@ -412,7 +447,38 @@ public class GreenfootImage
         g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
         g.drawImage(image, 0, 0, width, height, null);
         g.dispose();
-        setImage(scaled);
+        setTransformedImage(scaled, 0);
+    }
+    
+    /**
+     * Get the cached result of rotating and/or scaling the current image data,
+     * if there is one. Only shared (copy-on-write) image data, which will not
+     * change, can have cached transformations.
+     * 
+     * @return The transformed image data (which must not be modified), or null.
+     */
+    private BufferedImage getCachedTransform(int degrees, int width, int height)
+    {
+        if (copyOnWrite) {
+            return GreenfootUtil.getCachedTransformedImage(image, degrees, width, height);
+        }
+        return null;
+    }
+    
+    /**
+     * Replace the image data by the result of rotating and/or scaling it. If the
+     * original data was shared, the result may be cached so that other images sharing
+     * the same data can use it when applying the same transformation; if so, this
+     * image remains copy-on-write.
+     */
+    private void setTransformedImage(BufferedImage transformed, int degrees)
+    {
+        if (copyOnWrite && GreenfootUtil.addCachedTransformedImage(image, degrees, transformed.getWidth(), transformed.getHeight(), transformed)) {
+            image = transformed;
+        }
+        else {
+            setImage(transformed);
+        }
     }
 
     /**
@@ -627,6 +693,7 @@ public class GreenfootImage
         }
 
         ensureWritableImage();
+        collisionMasks = null;
         image.setRGB(x,y,rgb);
     }
  
@@ -835,6 +902,35 @@ public class GreenfootImage
         }
     }
     
+    /**
+     * Get the collision mask for this image, drawn at the given rotation.
+     * 
+     * @param rotation  The rotation, in degrees (0-359)
+     * @param halfPixel  Whether the mask should be sampled at half-pixel offsets
+     *                   (i.e. the world's cell size is odd)
+     */
+    PixelMask getCollisionMask(int rotation, boolean halfPixel)
+    {
+        if (copyOnWrite) {
+            // Shared image data will not change, so neither will its masks:
+            PixelMask mask = GreenfootUtil.getCachedCollisionMask(image, rotation, halfPixel);
+            if (mask == null) {
+                mask = PixelMask.build(image, rotation, halfPixel);
+                GreenfootUtil.addCachedCollisionMask(image, rotation, halfPixel, mask);
+            }
+            return mask;
+        }
+        if (awtImageExposed) {
+            // The image may be modified at any time without our knowledge
+            return PixelMask.build(image, rotation, halfPixel);
+        }
+        if (collisionMasks == null) {
+            collisionMasks = new HashMap<Integer,PixelMask>();
+        }
+        return collisionMasks.computeIfAbsent(halfPixel ? rotation + 360 : rotation,
+                k -> PixelMask.build(image, rotation, halfPixel));
+    }
+    
     static boolean equal(GreenfootImage image1, GreenfootImage image2)
     {
         if (image1 == null || image2 == null) {
@@ -859,6 +955,7 @@ public class GreenfootImage
             graphics.drawImage(image, 0, 0, null);
             image = bImage;
             copyOnWrite = false;
+            awtImageExposed = false;
             graphics.dispose();
         }
     }
@@ -25,6 +25,7 @@ package greenfoot;
 import greenfoot.collision.ColManager;
 import greenfoot.collision.CollisionChecker;
 import greenfoot.collision.ibsp.Rect;
+import greenfoot.core.SimulationMetrics;
 import greenfoot.core.TextLabel;
 import greenfoot.core.WorldHandler;
 import threadchecker.OnThread;
@@ -95,6 +96,12 @@ public abstract class World
     
     /** Whether actors are bound to stay inside the world */
     private boolean isBounded;
+    
+    /** Whether collision checks between all actors are pixel-perfect */
+    private boolean pixelPerfectCollisions;
+    
+    /** Classes of actors for which collision checks are pixel-perfect */
+    private Class<?>[] pixelPerfectClasses = new Class<?>[0];
 
     /**
      * Construct a new world. The size of the world (in number of cells) and the
@@ -411,6 +418,40 @@ public abstract class World
         objectsInActOrder.setClassOrder(false, classes);
     }
     
+    /**
+     * Set whether collision checks between actors in this world are pixel-perfect.
+     * Normally, two actors are considered to intersect (for methods such as
+     * isTouching and getIntersectingObjects) when the bounding rectangles of their
+     * rotated images overlap. With pixel-perfect collisions, they intersect only
+     * if some non-transparent pixel of one image overlaps a non-transparent pixel
+     * of the other.
+     * 
+     * <p>Pixel-perfect collision checks are slower than the normal checks, although
+     * they are only done for actors whose bounding rectangles overlap.
+     * 
+     * @param enabled  Whether to use pixel-perfect collision checks for all actors
+     * @see #setPixelPerfectCollisionClasses(Class...)
+     * @since Greenfoot 3.9.1
+     */
+    public void setPixelPerfectCollisions(boolean enabled)
+    {
+        pixelPerfectCollisions = enabled;
+    }
+    
+    /**
+     * Set the classes of actors for which collision checks are pixel-perfect (see
+     * {@link #setPixelPerfectCollisions(boolean)}). A check between two actors is
+     * pixel-perfect if either of them is an instance of (or of a subclass of) one
+     * of the given classes. Passing no classes turns this off.
+     * 
+     * @param classes  The classes of actors for which to use pixel-perfect checks
+     * @since Greenfoot 3.9.1
+     */
+    public void setPixelPerfectCollisionClasses(Class<?> ... classes)
+    {
+        pixelPerfectClasses = classes == null ? new Class<?>[0] : classes.clone();
+    }
+    
     /**
      * Add an Actor to the world.
      * 
@@ -588,7 +629,15 @@ public abstract class World
      */
     public <A> List<A> getObjectsAt(int x, int y, Class<A> cls)
     {
-        return collisionChecker.getObjectsAt(x, y, (Class)cls);
+        long start = SimulationMetrics.getInstance().startTiming();
+        try
+        {
+            return collisionChecker.getObjectsAt(x, y, (Class)cls);
+        }
+        finally
+        {
+            SimulationMetrics.getInstance().collisionFinished(start);
+        }
     }
 
     /**
@@ -643,6 +692,23 @@ public abstract class World
     {
         return isBounded;
     }
+    
+    /**
+     * Check whether collision checks between the two given actors should be
+     * pixel-perfect.
+     */
+    boolean isPixelPerfectCollision(Actor a, Actor b)
+    {
+        if (pixelPerfectCollisions) {
+            return true;
+        }
+        for (Class<?> cls : pixelPerfectClasses) {
+            if (cls.isInstance(a) || cls.isInstance(b)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     /**
      * Return all the objects that intersect the given object. This takes the
@@ -654,7 +720,15 @@ public abstract class World
      */
     <A> List<A> getIntersectingObjects(Actor actor, Class<A> cls)
     {
-        return collisionChecker.getIntersectingObjects(actor, (Class)cls);
+        long start = SimulationMetrics.getInstance().startTiming();
+        try
+        {
+            return collisionChecker.getIntersectingObjects(actor, (Class)cls);
+        }
+        finally
+        {
+            SimulationMetrics.getInstance().collisionFinished(start);
+        }
     }
 
     /**
@@ -670,7 +744,15 @@ public abstract class World
      */
     <A> List<A> getObjectsInRange(int x, int y, int r, Class<A> cls)
     {
-        return collisionChecker.getObjectsInRange(x, y, r, (Class)cls);
+        long start = SimulationMetrics.getInstance().startTiming();
+        try
+        {
+            return collisionChecker.getObjectsInRange(x, y, r, (Class)cls);
+        }
+        finally
+        {
+            SimulationMetrics.getInstance().collisionFinished(start);
+        }
     }
 
     /**
@@ -690,7 +772,15 @@ public abstract class World
         if(distance < 0) {
             throw new IllegalArgumentException("Distance must not be less than 0. It was: " + distance);
         }
-        return collisionChecker.getNeighbours(actor, distance, diag, (Class)cls);
+        long start = SimulationMetrics.getInstance().startTiming();
+        try
+        {
+            return collisionChecker.getNeighbours(actor, distance, diag, (Class)cls);
+        }
+        finally
+        {
+            SimulationMetrics.getInstance().collisionFinished(start);
+        }
     }
 
     /**
@@ -707,7 +797,15 @@ public abstract class World
      */
     <A> List<A> getObjectsInDirection(int x0, int y0, int angle, int length, Class<A> cls)
     {
-        return collisionChecker.getObjectsInDirection(x0, y0, angle, length, (Class)cls);
+        long start = SimulationMetrics.getInstance().startTiming();
+        try
+        {
+            return collisionChecker.getObjectsInDirection(x0, y0, angle, length, (Class)cls);
+        }
+        finally
+        {
+            SimulationMetrics.getInstance().collisionFinished(start);
+        }
     }
 
     /**
@@ -801,12 +899,28 @@ public abstract class World
 
     Actor getOneObjectAt(Actor object, int dx, int dy, Class<?> cls)
     {
-        return collisionChecker.getOneObjectAt(object, dx, dy, (Class)cls);
+        long start = SimulationMetrics.getInstance().startTiming();
+        try
+        {
+            return collisionChecker.getOneObjectAt(object, dx, dy, (Class)cls);
+        }
+        finally
+        {
+            SimulationMetrics.getInstance().collisionFinished(start);
+        }
     }
 
     Actor getOneIntersectingObject(Actor object, Class<?> cls)
     {
-        return collisionChecker.getOneIntersectingObject(object, (Class) cls);
+        long start = SimulationMetrics.getInstance().startTiming();
+        try
+        {
+            return collisionChecker.getOneIntersectingObject(object, (Class) cls);
+        }
+        finally
+        {
+            SimulationMetrics.getInstance().collisionFinished(start);
+        }
     }
     
     /**
@@ -33,4 +33,23 @@ public interface CollisionQuery {
       * Does the Actor collide with this collision checker?
       */
      public boolean checkCollision(Actor actor);
+
+     /**
+      * Check a number of actors against this query. The actors which collide are
+      * moved to the start of the array (in their original order).
+      * 
+      * @param actors  The actors to check
+      * @param count   The number of actors (from the start of the array) to check
+      * @return  The number of actors which collide
+      */
+     public default int filterCollisions(Actor[] actors, int count)
+     {
+         int n = 0;
+         for (int i = 0; i < count; i++) {
+             if (checkCollision(actors[i])) {
+                 actors[n++] = actors[i];
+             }
+         }
+         return n;
+     }
 }
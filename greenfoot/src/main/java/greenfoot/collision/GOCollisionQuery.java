@@ -23,6 +23,7 @@ package greenfoot.collision;
 
 import greenfoot.Actor;
 import greenfoot.ActorVisitor;
+import greenfoot.collision.ibsp.Rect;
 
 /**
  * Checks collisions between GreenfooObjects.
@@ -32,8 +33,44 @@ import greenfoot.ActorVisitor;
  */
 public class GOCollisionQuery implements CollisionQuery
 {
+    /**
+     * Whether each actor class overrides Actor.intersects(Actor). If it does not,
+     * we can use our own (batched) intersection test in place of calling it.
+     */
+    private static final ClassValue<Boolean> overridesIntersects = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type)
+        {
+            for (Class<?> c = type; c != null && c != Actor.class; c = c.getSuperclass()) {
+                try {
+                    c.getDeclaredMethod("intersects", Actor.class);
+                    return true;
+                }
+                catch (NoSuchMethodException e) {
+                    // Not declared in this class; check the superclass
+                }
+                catch (LinkageError | SecurityException e) {
+                    // Can't tell; assume it is overridden
+                    return true;
+                }
+            }
+            return false;
+        }
+    };
+    
     private Class<?> cls;
     private Actor compareObject;
+    
+    // Working storage for filterCollisions: whether each actor collides, the
+    // indexes of the candidates needing the rotated rectangle test, and their
+    // corners (four per candidate).
+    private int[] myXs = new int[4];
+    private int[] myYs = new int[4];
+    private boolean[] collides = new boolean[16];
+    private int[] candidateIndexes = new int[16];
+    private int[] candidateXs = new int[64];
+    private int[] candidateYs = new int[64];
+    private boolean[] results = new boolean[16];
 
     /**
      * Initialise.
@@ -64,5 +101,72 @@ public class GOCollisionQuery implements CollisionQuery
             return true;
         } 
         return false;
-    }     
-}
\ No newline at end of file
+    }
+    
+    /**
+     * Check a number of actors against this query. The rotated-rectangle tests,
+     * where needed, are done together in a single pass over packed arrays.
+     */
+    @Override
+    public int filterCollisions(Actor[] actors, int count)
+    {
+        if (compareObject == null || ActorVisitor.getDisplayImage(compareObject) == null
+                || overridesIntersects.get(compareObject.getClass())) {
+            return CollisionQuery.super.filterCollisions(actors, count);
+        }
+        
+        Rect myBounds = ActorVisitor.getBoundingRect(compareObject);
+        ActorVisitor.getBoundingCorners(compareObject, myXs, myYs, 0);
+        boolean iAmRotated = ActorVisitor.getRotation(compareObject) != 0;
+        ensureCapacity(count);
+        
+        int pending = 0;
+        for (int i = 0; i < count; i++) {
+            Actor other = actors[i];
+            collides[i] = false;
+            if (cls != null && !cls.isInstance(other)) {
+                continue;
+            }
+            if (ActorVisitor.getDisplayImage(other) == null
+                    || (!iAmRotated && ActorVisitor.getRotation(other) == 0)) {
+                // No rotated rectangle test needed:
+                collides[i] = ActorVisitor.intersects(compareObject, other);
+            }
+            else if (myBounds.intersects(ActorVisitor.getBoundingRect(other))) {
+                candidateIndexes[pending] = i;
+                ActorVisitor.getBoundingCorners(other, candidateXs, candidateYs, pending * 4);
+                pending++;
+            }
+        }
+        
+        RotatedBounds.intersectsAll(myXs, myYs, 0, candidateXs, candidateYs, pending, results);
+        for (int i = 0; i < pending; i++) {
+            int index = candidateIndexes[i];
+            collides[index] = results[i] && ActorVisitor.pixelsIntersect(compareObject, actors[index]);
+        }
+        
+        // Move the colliding actors to the start, keeping their order:
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (collides[i]) {
+                actors[n++] = actors[i];
+            }
+        }
+        return n;
+    }
+    
+    /**
+     * Make sure the working storage can hold the given number of candidates.
+     */
+    private void ensureCapacity(int count)
+    {
+        if (collides.length < count) {
+            int size = Math.max(count, collides.length * 2);
+            collides = new boolean[size];
+            candidateIndexes = new int[size];
+            candidateXs = new int[size * 4];
+            candidateYs = new int[size * 4];
+            results = new boolean[size];
+        }
+    }
+}
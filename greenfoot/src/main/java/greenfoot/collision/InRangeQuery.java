@@ -66,4 +66,28 @@ public class InRangeQuery
         return (dist) <= r;
     }
 
+    /**
+     * Check a number of actors, as per checkCollision. Since the (truncated) distance
+     * is at most r exactly when the squared distance is less than (r+1) squared,
+     * the square root is avoided.
+     */
+    @Override
+    public int filterCollisions(Actor[] actors, int count)
+    {
+        if (r < 0) {
+            return 0;
+        }
+        long limit = (long) (r + 1) * (r + 1);
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            Actor actor = actors[i];
+            long dx = ActorVisitor.toPixel(actor, ActorVisitor.getX(actor)) - x;
+            long dy = ActorVisitor.toPixel(actor, ActorVisitor.getY(actor)) - y;
+            if (dx * dx + dy * dy < limit) {
+                actors[n++] = actor;
+            }
+        }
+        return n;
+    }
+
 }
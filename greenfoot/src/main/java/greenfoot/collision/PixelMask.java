@@ -0,0 +1,153 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.collision;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * A collision mask for an image at a particular rotation: one bit per world pixel
+ * covered by the rotated image, set if the image is not fully transparent at that
+ * pixel. Rows are packed into longs, so that two masks can be compared 64 pixels
+ * at a time.
+ * 
+ * <p>The mask is positioned relative to the pixel at the centre of the cell in which
+ * an actor is located. Pixels are sampled at their centres, so the mask depends on
+ * whether the cell centre falls on a pixel boundary (even cell size) or in the
+ * middle of a pixel (odd cell size).
+ */
+public final class PixelMask
+{
+    /** Offset of the mask's left column from the centre pixel */
+    private final int minX;
+    /** Offset of the mask's top row from the centre pixel */
+    private final int minY;
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] bits;
+    
+    private PixelMask(int minX, int minY, int width, int height)
+    {
+        this.minX = minX;
+        this.minY = minY;
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >> 6;
+        this.bits = new long[wordsPerRow * height];
+    }
+    
+    /**
+     * Build the mask for an image drawn at the given rotation.
+     * 
+     * @param image  The image
+     * @param rotation  The rotation, in degrees (0-359)
+     * @param halfPixel  Whether the cell centre is in the middle of a pixel (i.e.
+     *                   the cell size is odd)
+     */
+    public static PixelMask build(BufferedImage image, int rotation, boolean halfPixel)
+    {
+        int w = image.getWidth();
+        int h = image.getHeight();
+        int[] argb = image.getRGB(0, 0, w, h, null, 0, w);
+        
+        double sinR = RotatedBounds.sin(rotation);
+        double cosR = RotatedBounds.cos(rotation);
+        int halfExtentX = (int) Math.ceil((Math.abs(w * cosR) + Math.abs(h * sinR)) / 2) + 1;
+        int halfExtentY = (int) Math.ceil((Math.abs(w * sinR) + Math.abs(h * cosR)) / 2) + 1;
+        
+        PixelMask mask = new PixelMask(-halfExtentX, -halfExtentY, halfExtentX * 2 + 1, halfExtentY * 2 + 1);
+        // Offset from the cell centre to the centre of the mask pixels:
+        double centreOffset = halfPixel ? 0 : 0.5;
+        // The image is painted at a whole pixel position, rounded down from the
+        // position that would centre it exactly; account for the difference:
+        double imageX = w / 2. + ((halfPixel ? 0.5 : 0) + (w % 2) * 0.5) % 1.0;
+        double imageY = h / 2. + ((halfPixel ? 0.5 : 0) + (h % 2) * 0.5) % 1.0;
+        for (int my = 0; my < mask.height; my++) {
+            double v = my + mask.minY + centreOffset;
+            for (int mx = 0; mx < mask.width; mx++) {
+                double u = mx + mask.minX + centreOffset;
+                // Rotate back into image co-ordinates:
+                int sx = (int) Math.floor(u * cosR + v * sinR + imageX);
+                int sy = (int) Math.floor(v * cosR - u * sinR + imageY);
+                if (sx >= 0 && sx < w && sy >= 0 && sy < h && (argb[sy * w + sx] >>> 24) != 0) {
+                    mask.bits[my * mask.wordsPerRow + (mx >> 6)] |= 1L << (mx & 63);
+                }
+            }
+        }
+        return mask;
+    }
+    
+    /**
+     * Get 64 bits from the given row, starting at the given column. Bits beyond
+     * the width of the mask are zero.
+     */
+    private long getBits(int row, int col)
+    {
+        int word = col >> 6;
+        int shift = col & 63;
+        int rowStart = row * wordsPerRow;
+        long result = bits[rowStart + word] >>> shift;
+        if (shift != 0 && word + 1 < wordsPerRow) {
+            result |= bits[rowStart + word + 1] << (64 - shift);
+        }
+        return result;
+    }
+    
+    /**
+     * Check whether two masks overlap, given the positions of their centre pixels
+     * in the world.
+     * 
+     * @param a  The first mask
+     * @param ax  The x-coordinate of the first mask's centre pixel
+     * @param ay  The y-coordinate of the first mask's centre pixel
+     * @param b  The second mask
+     * @param bx  The x-coordinate of the second mask's centre pixel
+     * @param by  The y-coordinate of the second mask's centre pixel
+     * @return  true if some pixel is set in both masks
+     */
+    public static boolean overlaps(PixelMask a, int ax, int ay, PixelMask b, int bx, int by)
+    {
+        int aLeft = ax + a.minX;
+        int aTop = ay + a.minY;
+        int bLeft = bx + b.minX;
+        int bTop = by + b.minY;
+        
+        int left = Math.max(aLeft, bLeft);
+        int right = Math.min(aLeft + a.width, bLeft + b.width);
+        int top = Math.max(aTop, bTop);
+        int bottom = Math.min(aTop + a.height, bTop + b.height);
+        
+        for (int y = top; y < bottom; y++) {
+            for (int x = left; x < right; x += 64) {
+                long overlap = a.getBits(y - aTop, x - aLeft) & b.getBits(y - bTop, x - bLeft);
+                int remaining = right - x;
+                if (remaining < 64) {
+                    overlap &= (1L << remaining) - 1;
+                }
+                if (overlap != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.collision;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+
+/**
+ * Geometry for the rotated bounding rectangles of actors: precomputed sine and
+ * cosine for whole-degree rotations, cached corner offsets for each combination
+ * of image size and rotation, and allocation-free intersection tests.
+ * 
+ * <p>A rotated rectangle is represented by the coordinates of its four corners,
+ * stored at four consecutive indexes of a pair of int arrays. The batched tests
+ * take many rectangles packed one after another in the same pair of arrays.
+ */
+public final class RotatedBounds
+{
+    private static final double[] SIN = new double[360];
+    private static final double[] COS = new double[360];
+    
+    static {
+        for (int i = 0; i < 360; i++) {
+            double rotR = Math.toRadians(i);
+            SIN[i] = Math.sin(rotR);
+            COS[i] = Math.cos(rotR);
+        }
+    }
+    
+    /** The number of corner offset sets we keep before starting again. */
+    private static final int MAX_CACHED_OFFSETS = 4096;
+    
+    /** Corner offsets keyed by (width, height, rotation) */
+    private static final Map<Long,double[]> cornerOffsets = new ConcurrentHashMap<Long,double[]>();
+    
+    private RotatedBounds()
+    {
+    }
+    
+    /**
+     * Get the sine of a rotation in degrees, which must be in the range 0-359.
+     */
+    public static double sin(int rotation)
+    {
+        return SIN[rotation];
+    }
+    
+    /**
+     * Get the cosine of a rotation in degrees, which must be in the range 0-359.
+     */
+    public static double cos(int rotation)
+    {
+        return COS[rotation];
+    }
+    
+    /**
+     * Get the offsets of the corners of a rotated image from the centre of the cell
+     * in which the image is located. The returned array holds the x offset of each
+     * corner at index 0-3, and the y offset at index 4-7; it must not be modified.
+     * 
+     * @param width  The image width
+     * @param height The image height
+     * @param rotation  The rotation in degrees, 0-359
+     */
+    public static double[] getCornerOffsets(int width, int height, int rotation)
+    {
+        Long key = ((long) width << 40) | ((long) height << 16) | rotation;
+        double[] offsets = cornerOffsets.get(key);
+        if (offsets == null) {
+            offsets = calcCornerOffsets(width, height, rotation);
+            if (cornerOffsets.size() >= MAX_CACHED_OFFSETS) {
+                cornerOffsets.clear();
+            }
+            cornerOffsets.put(key, offsets);
+        }
+        return offsets;
+    }
+    
+    private static double[] calcCornerOffsets(int width, int height, int rotation)
+    {
+        int x0 = -width / 2;
+        int x1 = x0 + width - 1;
+        int y0 = -height / 2;
+        int y2 = y0 + height - 1;
+        int [] xs = {x0, x1, x1, x0};
+        int [] ys = {y0, y0, y2, y2};
+        
+        double sinR = SIN[rotation];
+        double cosR = COS[rotation];
+        
+        double [] offsets = new double[8];
+        for (int i = 0; i < 4; i++) {
+            offsets[i] = xs[i] * cosR - ys[i] * sinR;
+            offsets[i + 4] = ys[i] * cosR + xs[i] * sinR;
+        }
+        return offsets;
+    }
+    
+    /**
+     * Calculate the corners of a rotated rectangle, given its corner offsets (as
+     * returned by getCornerOffsets) and the position of its centre, in pixels.
+     * 
+     * @param offsets  The corner offsets
+     * @param xc  The x-coordinate of the centre
+     * @param yc  The y-coordinate of the centre
+     * @param xs  The array to receive the x-coordinates of the corners
+     * @param ys  The array to receive the y-coordinates of the corners
+     * @param off  The index in xs and ys at which to store the first corner
+     */
+    public static void getCorners(double[] offsets, double xc, double yc, int[] xs, int[] ys, int off)
+    {
+        for (int i = 0; i < 4; i++) {
+            xs[off + i] = (int)(offsets[i] + xc);
+            ys[off + i] = (int)(offsets[i + 4] + yc);
+        }
+    }
+    
+    /**
+     * Check whether two rotated rectangles intersect. The axis-aligned bounding boxes
+     * should already have been checked.
+     * 
+     * @param myX  The x-coordinates of the corners of the first rectangle
+     * @param myY  The y-coordinates of the corners of the first rectangle
+     * @param myOff  The index of the first corner of the first rectangle
+     * @param otherX  The x-coordinates of the corners of the second rectangle
+     * @param otherY  The y-coordinates of the corners of the second rectangle
+     * @param otherOff  The index of the first corner of the second rectangle
+     */
+    public static boolean intersects(int[] myX, int[] myY, int myOff, int[] otherX, int[] otherY, int otherOff)
+    {
+        return ! checkOutside(myX, myY, myOff, otherX, otherY, otherOff)
+                && ! checkOutside(otherX, otherY, otherOff, myX, myY, myOff);
+    }
+    
+    /**
+     * Check a single rotated rectangle against a number of others, packed into a
+     * pair of arrays (the corners of rectangle n starting at index n * 4).
+     * 
+     * @param myX  The x-coordinates of the corners of the rectangle to check against
+     * @param myY  The y-coordinates of the corners of the rectangle to check against
+     * @param myOff  The index of the first corner of the rectangle to check against
+     * @param xs  The x-coordinates of the other rectangles' corners
+     * @param ys  The y-coordinates of the other rectangles' corners
+     * @param count  The number of other rectangles
+     * @param results  Array to receive, for each other rectangle, whether it intersects
+     */
+    public static void intersectsAll(int[] myX, int[] myY, int myOff, int[] xs, int[] ys, int count, boolean[] results)
+    {
+        for (int n = 0; n < count; n++) {
+            results[n] = intersects(myX, myY, myOff, xs, ys, n * 4);
+        }
+    }
+    
+    /**
+     * Check whether all of the vertexes in the "other" rotated rectangle are on the
+     * outside of any one of the edges in "my" rotated rectangle.
+     *  
+     * @param myX   The x-coordinates of the corners of "my" rotated rectangle
+     * @param myY    The y-coordinates of the corners "my" rotated rectangle
+     * @param myOff  The index of the first corner of "my" rectangle
+     * @param otherX  The x-coordinates of the corners of the "other" rotated rectangle
+     * @param otherY  The y-coordinates of the corners of the "other" rotated rectangle
+     * @param otherOff  The index of the first corner of the "other" rectangle
+     * 
+     * @return  true if all corners of the "other" rectangle are on the outside of any of
+     *          the edges of "my" rectangle.
+     */
+    private static boolean checkOutside(int [] myX, int [] myY, int myOff, int [] otherX, int [] otherY, int otherOff)
+    {
+        vloop:
+        for (int v = 0; v < 4; v++) {
+            int v1 = (v + 1) & 3; // wrap at 4 back to 0
+            int edgeX = myX[myOff + v] - myX[myOff + v1];
+            int edgeY = myY[myOff + v] - myY[myOff + v1];
+            int reX = -edgeY;
+            int reY = edgeX;
+            
+            if (reX == 0 && reY == 0) {
+                continue vloop;
+            }
+            
+            int baseX = myX[myOff + v1];
+            int baseY = myY[myOff + v1];
+            for (int e = otherOff; e < otherOff + 4; e++) {
+                int scalar = reX * (otherX[e] - baseX) + reY * (otherY[e] - baseY);
+                if (scalar <= 0) {
+                    continue vloop;
+                }
+            }
+
+            // If we got here, we have an edge with all vertexes from the other rect
+            // on the outside:
+            return true;
+        }
+
+        return false;
+    }
+}
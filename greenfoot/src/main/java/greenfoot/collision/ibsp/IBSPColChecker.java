@@ -58,6 +58,13 @@ public class IBSPColChecker implements CollisionChecker
     
     private BSPNode bspTree;
     
+    // Working storage for collecting candidates from the tree, kept between queries
+    // so that a query does not allocate. Protected by candidatesLock.
+    private final Object candidatesLock = new Object();
+    private Actor[] candidates = new Actor[64];
+    private Actor[] spanningCandidates = new Actor[16];
+    private BSPNode[] nodeStack = new BSPNode[32];
+    
     public static boolean debugging = false;
     
     /* (non-Javadoc)
@@ -539,43 +546,87 @@ public class IBSPColChecker implements CollisionChecker
 
     private List<Actor> getIntersectingObjects(Rect r, CollisionQuery query)
     {
-        Set<Actor> set = new HashSet<Actor>();
-        getIntersectingObjects(r, query, set, bspTree);
-        List<Actor> l = new ArrayList<Actor>(set);
-        return l;
+        synchronized (candidatesLock) {
+            int found = collectCandidates(r, bspTree);
+            int count = query.filterCollisions(candidates, found);
+            List<Actor> l = new ArrayList<Actor>(count);
+            for (int i = 0; i < count; i++) {
+                l.add(candidates[i]);
+            }
+            // Don't keep the actors alive:
+            Arrays.fill(candidates, 0, found, null);
+            return l;
+        }
     }
     
-    private void getIntersectingObjects(Rect r, CollisionQuery query, Set<Actor> resultSet, BSPNode startNode)
+    /**
+     * Collect the actors in all nodes (from the given node down) whose area intersects
+     * the given rectangle into the candidates array, so that they can be checked against
+     * a query all at once. Each actor is collected once, even if it is in several nodes.
+     * Must be called with the candidatesLock held.
+     * 
+     * @return  The number of actors collected
+     */
+    private int collectCandidates(Rect r, BSPNode startNode)
     {
-        LinkedList<BSPNode> nodeStack = new LinkedList<BSPNode>();
-        
+        int stackSize = 0;
         if (startNode != null) {
-            nodeStack.add(startNode);
+            nodeStack[stackSize++] = startNode;
         }
         
-        while (! nodeStack.isEmpty()) {
-            BSPNode node = nodeStack.removeLast();
+        int count = 0;
+        int spanningCount = 0;
+        while (stackSize != 0) {
+            BSPNode node = nodeStack[--stackSize];
+            nodeStack[stackSize] = null;
             if (node.getArea().intersects(r)) {
                 Iterator<Actor> i = node.getActorsIterator();
                 while (i.hasNext()) {
                     Actor actor = i.next();
-                    if (query.checkCollision(actor)) {
-                        if (! resultSet.contains(actor)) {
-                            resultSet.add(actor);
+                    ActorNode actorNode = getNodeForActor(actor);
+                    if (actorNode != null && actorNode.getNext() != null) {
+                        // The actor is in more than one node; we may have seen it already.
+                        // There are few such actors, so a linear search is fine:
+                        if (contains(spanningCandidates, spanningCount, actor)) {
+                            continue;
+                        }
+                        if (spanningCount == spanningCandidates.length) {
+                            spanningCandidates = Arrays.copyOf(spanningCandidates, spanningCount * 2);
                         }
+                        spanningCandidates[spanningCount++] = actor;
+                    }
+                    if (count == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, count * 2);
                     }
+                    candidates[count++] = actor;
                 }
                 
+                if (stackSize + 2 > nodeStack.length) {
+                    nodeStack = Arrays.copyOf(nodeStack, nodeStack.length * 2);
+                }
                 BSPNode left = node.getLeft();
                 BSPNode right = node.getRight();
                 if (left != null) {
-                    nodeStack.add(left);
+                    nodeStack[stackSize++] = left;
                 }
                 if (right != null) {
-                    nodeStack.add(right);
+                    nodeStack[stackSize++] = right;
                 }
             }
         }
+        
+        Arrays.fill(spanningCandidates, 0, spanningCount, null);
+        return count;
+    }
+    
+    private static boolean contains(Actor[] actors, int count, Actor actor)
+    {
+        for (int i = 0; i < count; i++) {
+            if (actors[i] == actor) {
+                return true;
+            }
+        }
+        return false;
     }
     
     /**
@@ -730,23 +781,20 @@ public class IBSPColChecker implements CollisionChecker
                 size,
                 size);
         
-        List<T> result;
+        List<Actor> inRect;
         synchronized (actorQuery) {
             actorQuery.init(cls, null);
-            result = (List<T>) getIntersectingObjects(rect, actorQuery);
+            inRect = getIntersectingObjects(rect, actorQuery);
         }
         
-        Iterator<T> i = result.iterator();
+        Actor[] found = inRect.toArray(new Actor[inRect.size()]);
+        int count;
         synchronized (inRangeQuery) {
             inRangeQuery.init(x * cellSize + halfCell , y * cellSize + halfCell, r * cellSize);
-            while (i.hasNext()) {
-                if (! inRangeQuery.checkCollision(i.next())) {
-                    i.remove();
-                }
-            }
+            count = inRangeQuery.filterCollisions(found, found.length);
         }
         
-        return result;
+        return (List<T>) new ArrayList<Actor>(Arrays.asList(found).subList(0, count));
     }
 
     @SuppressWarnings("unchecked")
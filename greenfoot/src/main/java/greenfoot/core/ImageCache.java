@@ -22,12 +22,20 @@
 package greenfoot.core;
 
 import greenfoot.GreenfootImage;
+import greenfoot.collision.PixelMask;
 
+import java.awt.image.BufferedImage;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * An image cache, which uses soft references to avoid holding images when heap space becomes exhausted.
@@ -50,9 +58,122 @@ public class ImageCache
         }
     }
     
+    /**
+     * The key for a rotated or scaled version of an image: the source image
+     * (compared by identity), the rotation in degrees and the resulting size.
+     */
+    private static class TransformKey
+    {
+        private final BufferedImage source;
+        private final int rotation;
+        private final int width;
+        private final int height;
+        
+        public TransformKey(BufferedImage source, int rotation, int width, int height)
+        {
+            this.source = source;
+            this.rotation = rotation;
+            this.width = width;
+            this.height = height;
+        }
+        
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof TransformKey)) {
+                return false;
+            }
+            TransformKey other = (TransformKey) o;
+            return source == other.source && rotation == other.rotation
+                    && width == other.width && height == other.height;
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            return ((System.identityHashCode(source) * 31 + rotation) * 31 + width) * 31 + height;
+        }
+    }
+    
+    /**
+     * The key for a collision mask: the source image (compared by identity), the
+     * rotation in degrees and whether pixels are sampled at half-pixel offsets.
+     */
+    private static class MaskKey
+    {
+        private final BufferedImage source;
+        private final int rotation;
+        private final boolean halfPixel;
+        
+        public MaskKey(BufferedImage source, int rotation, boolean halfPixel)
+        {
+            this.source = source;
+            this.rotation = rotation;
+            this.halfPixel = halfPixel;
+        }
+        
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof MaskKey)) {
+                return false;
+            }
+            MaskKey other = (MaskKey) o;
+            return source == other.source && rotation == other.rotation && halfPixel == other.halfPixel;
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            return (System.identityHashCode(source) * 31 + rotation) * 2 + (halfPixel ? 1 : 0);
+        }
+    }
+    
+    /**
+     * The maximum number of bytes of pixel data held by the rotated/scaled images which are
+     * kept. Each entry is counted as the size of both its source and its result, since the
+     * cache keeps both alive.
+     */
+    private static final long MAX_TRANSFORMED_BYTES = 32L * 1024 * 1024;
+    
+    /** The number of transformations which are remembered as having been done once. */
+    private static final int MAX_TRANSFORMS_SEEN = 256;
+    
+    /** The maximum number of collision masks which are kept. */
+    private static final int MAX_COLLISION_MASKS = 1024;
+    
     private Map<String,CachedImageRef> imageCache = new HashMap<String,CachedImageRef>();
     private ReferenceQueue<GreenfootImage> imgCacheRefQueue = new ReferenceQueue<GreenfootImage>();
     
+    /** Rotated and scaled images, in least-recently-used order. */
+    private Map<TransformKey,BufferedImage> transformCache = new LinkedHashMap<TransformKey,BufferedImage>(16, 0.75f, true);
+    /** The number of bytes of pixel data counted for the entries of transformCache. */
+    private long transformCacheBytes;
+    
+    /**
+     * Transformations which have been done once but not cached, identified by the identity
+     * hash code of the source rather than the source itself so that it is not kept alive.
+     * A transformation is only cached when it is done a second time, so that (for instance)
+     * scaling an image to a slightly different size every frame does not fill the cache.
+     * Guarded by the lock on transformCache.
+     */
+    private Set<List<Integer>> transformsSeen = Collections.newSetFromMap(new LinkedHashMap<List<Integer>,Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Integer>,Boolean> eldest)
+        {
+            return size() > MAX_TRANSFORMS_SEEN;
+        }
+    });
+    
+    /** Collision masks for shared images, in least-recently-used order. */
+    private Map<MaskKey,PixelMask> maskCache = new LinkedHashMap<MaskKey,PixelMask>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<MaskKey,PixelMask> eldest)
+        {
+            return size() > MAX_COLLISION_MASKS;
+        }
+    };
+    
     /**
      * Retrieve the image cache instance.
      */
@@ -125,6 +246,90 @@ public class ImageCache
         }
     }
 
+    /**
+     * Requests that a rotated and/or scaled version of an image be added into the
+     * cache. Neither the source nor the transformed image may be modified afterwards.
+     * The image is only cached if the same transformation has been requested before;
+     * least recently used images are removed to keep the total size of the cached
+     * images within a limit. Thread-safe.
+     * 
+     * @param source  the (unmodifiable) image which was transformed
+     * @param rotation  the rotation which was applied, in degrees
+     * @param width   the width of the transformed image
+     * @param height  the height of the transformed image
+     * @param transformed  the transformed image
+     * @return  whether the image was cached.
+     */
+    public boolean addTransformedImage(BufferedImage source, int rotation, int width, int height, BufferedImage transformed)
+    {
+        List<Integer> seenKey = Arrays.asList(System.identityHashCode(source), rotation, width, height);
+        long bytes = imageBytes(source) + imageBytes(transformed);
+        synchronized (transformCache) {
+            if (transformsSeen.add(seenKey) || bytes > MAX_TRANSFORMED_BYTES) {
+                return false;
+            }
+            transformsSeen.remove(seenKey);
+            BufferedImage old = transformCache.put(new TransformKey(source, rotation, width, height), transformed);
+            if (old != null) {
+                transformCacheBytes -= imageBytes(source) + imageBytes(old);
+            }
+            transformCacheBytes += bytes;
+            Iterator<Map.Entry<TransformKey,BufferedImage>> i = transformCache.entrySet().iterator();
+            while (transformCacheBytes > MAX_TRANSFORMED_BYTES) {
+                Map.Entry<TransformKey,BufferedImage> eldest = i.next();
+                transformCacheBytes -= imageBytes(eldest.getKey().source) + imageBytes(eldest.getValue());
+                i.remove();
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Get the number of bytes of pixel data counted for an image in the cache: four per pixel,
+     * whatever the image's actual format.
+     */
+    private static long imageBytes(BufferedImage image)
+    {
+        return 4L * image.getWidth() * image.getHeight();
+    }
+
+    /**
+     * Gets a cached rotated and/or scaled version of an image. Thread-safe.
+     * 
+     * @return The transformed image (should not be modified), or null if
+     *         it is not cached.
+     */
+    public BufferedImage getTransformedImage(BufferedImage source, int rotation, int width, int height)
+    {
+        synchronized (transformCache) {
+            return transformCache.get(new TransformKey(source, rotation, width, height));
+        }
+    }
+
+    /**
+     * Requests that the collision mask for an image at a particular rotation be added
+     * into the cache. The source image must not be modified afterwards. Thread-safe.
+     */
+    public void addCollisionMask(BufferedImage source, int rotation, boolean halfPixel, PixelMask mask)
+    {
+        synchronized (maskCache) {
+            maskCache.put(new MaskKey(source, rotation, halfPixel), mask);
+        }
+    }
+
+    /**
+     * Gets the cached collision mask for an image at a particular rotation.
+     * Thread-safe.
+     * 
+     * @return The mask, or null if it is not cached.
+     */
+    public PixelMask getCollisionMask(BufferedImage source, int rotation, boolean halfPixel)
+    {
+        synchronized (maskCache) {
+            return maskCache.get(new MaskKey(source, rotation, halfPixel));
+        }
+    }
+
     /**
      * Clear the image cache.
      */
@@ -134,6 +339,14 @@ public class ImageCache
             imageCache.clear();
             imgCacheRefQueue = new ReferenceQueue<GreenfootImage>();
         }
+        synchronized (transformCache) {
+            transformCache.clear();
+            transformCacheBytes = 0;
+            transformsSeen.clear();
+        }
+        synchronized (maskCache) {
+            maskCache.clear();
+        }
     }
 
     /**
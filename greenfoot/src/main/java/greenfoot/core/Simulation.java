@@ -61,11 +61,14 @@ public class Simulation extends Thread
     // should not be held while executing user code (though the world lock should be held).
     
     // The following two constants control repainting of the world while the simulation is
-    // running. We skip repaints if the simulation is running faster than the MAX_FRAME_RATE.
+    // running. We skip repaints if the simulation is running faster than MAX_FRAME_RATE.
     // This makes the high speeds run faster, since we avoid repaints that can't be seen
-    // anyway. Once requested, the repaint may take some time to occur; if the effective
-    // repaint rate falls below MIN_FRAME_RATE, then we temporarily suspend the simulation
-    // and wait for the repaint to occur.
+    // anyway. If the simulation is falling behind the speed requested by the user (the
+    // act rounds take longer than the delay), we paint no more often than BEHIND_FRAME_RATE
+    // so that more of the time is left for the act rounds themselves. The paints are
+    // skipped by the world handler delegate (see getPaintInterval()).
+    private static final long MAX_FRAME_RATE = 120;
+    private static final long BEHIND_FRAME_RATE = 20;
     
     @OnThread(Tag.Any)
     private WorldHandler worldHandler;
@@ -99,6 +102,12 @@ public class Simulation extends Thread
     private long lastDelayTime;
     private long delay; // the speed translated into delay (nanoseconds)
 
+    /** Whether the last act round took longer than the delay, i.e. the simulation is behind schedule */
+    private boolean behindSchedule;
+
+    @OnThread(Tag.Any)
+    private final SimulationMetrics metrics = SimulationMetrics.getInstance();
+
     /**
      * Lock to synchronize access to the two fields: delaying and interruptDelay
      */
@@ -132,6 +141,7 @@ public class Simulation extends Thread
         speed = 50;
         delay = calculateDelay(speed);
         HDTimer.init();
+        metrics.setSimulationThread(this);
     }
     
     /**
@@ -267,6 +277,9 @@ public class Simulation extends Thread
      */
     private void simulationWait() throws InterruptedException
     {
+        if (worldHandler != null) {
+            worldHandler.simulationPaused();
+        }
         paintRemote(true);
         this.wait();
     }
@@ -394,8 +407,11 @@ public class Simulation extends Thread
      */
     private void resumeRunning() throws InterruptedException
     {
+        worldHandler.simulationStartedRunning();
         isRunning = true;
         lastDelayTime = System.nanoTime();
+        behindSchedule = false;
+        metrics.resetWindow();
         fireSimulationEventSync(SyncEvent.STARTED);
         World world = worldHandler.getWorld();
         if (world != null) {
@@ -502,7 +518,15 @@ public class Simulation extends Thread
 
         try
         {
-            actWorld(world);
+            long actStart = metrics.actStarting();
+            try
+            {
+                actWorld(world);
+            }
+            finally
+            {
+                metrics.worldActed(actStart);
+            }
             if (world != worldHandler.getWorld())
             {
                 paintRemote(false);
@@ -537,7 +561,15 @@ public class Simulation extends Thread
             {
                 try
                 {
-                    actActor(actor);
+                    long actStart = metrics.actStarting();
+                    try
+                    {
+                        actActor(actor);
+                    }
+                    finally
+                    {
+                        metrics.actorActed(actor, actStart);
+                    }
                     if (world != worldHandler.getWorld())
                     {
                         return; // New world was set
@@ -560,9 +592,8 @@ public class Simulation extends Thread
             throw interruptedException;
         }
         
-        // printUpdateRate(System.nanoTime());
-
         repaintIfNeeded();
+        metrics.actRoundCompleted();
 
         fireSimulationEventSync(SyncEvent.END_ACT_ROUND);
     }
@@ -591,34 +622,30 @@ public class Simulation extends Thread
     }
     
     /**
-     * Repaints the world if needed to obtain the desired frame rate.
+     * Repaints the world if needed to obtain the desired frame rate.  The paint is skipped if
+     * the last one was less than getPaintInterval() ago.
      */
     private void repaintIfNeeded()
     {
         paintRemote(false);
     }
-    
-    protected void paintRemote(boolean forcePaint)
-    {
-        WorldHandler.getInstance().paint(forcePaint);
-    }
 
     /**
-     * Debug output to print the rate at which updates are performed
-     * (acts/second).
+     * Get the minimum time between (unforced) paints of the world, in nanoseconds.  The
+     * simulation rate is decoupled from the paint rate: when act rounds run faster than
+     * MAX_FRAME_RATE, or the simulation is behind schedule, some act rounds complete
+     * without a paint.
      */
-    /*
-    private void printUpdateRate(long currentTime)
+    @OnThread(Tag.Simulation)
+    public long getPaintInterval()
     {
-        //updates++;
-
-        long timeSinceUpdate = currentTime - lastUpdate;
-        if (timeSinceUpdate > 3000000000L) {
-            lastUpdate = currentTime;
-            //updates = 0;
-        }
+        return 1_000_000_000L / (behindSchedule ? BEHIND_FRAME_RATE : MAX_FRAME_RATE);
+    }
+    
+    protected void paintRemote(boolean forcePaint)
+    {
+        WorldHandler.getInstance().paint(forcePaint);
     }
-    */
 
     // Public methods etc.
 
@@ -956,6 +983,8 @@ public class Simulation extends Thread
         long currentTime = System.nanoTime();
         long timeElapsed = currentTime - lastDelayTime;
         long actualDelay = Math.max(delay - timeElapsed, 0L);
+        // At maximum speed there is no schedule to fall behind:
+        behindSchedule = delay > 0 && timeElapsed > delay;
         
         synchronized (this)
         {
@@ -0,0 +1,355 @@
+/*
+ This file is part of the Greenfoot program.
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.core;
+
+import greenfoot.Actor;
+import greenfoot.vmcomm.MetricsReport;
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects performance metrics for the running simulation: act rounds per second, time spent
+ * in world act, actor act, collision checking, rendering and transferring the world image,
+ * act time per actor class, and the allocation rate of the simulation thread.
+ *
+ * <p>Collection is off by default, and is switched on by the server VM when the user asks
+ * to see the performance overlay.  While off, the timing hooks cost a single volatile read.
+ * Measurements are summarised into a {@link MetricsReport} roughly once a second.
+ */
+public class SimulationMetrics
+{
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+    private static final int MAX_REPORTED_CLASSES = 5;
+
+    private static final SimulationMetrics instance = new SimulationMetrics();
+
+    @OnThread(Tag.Any)
+    private volatile boolean enabled;
+    @OnThread(Tag.Any)
+    private volatile Thread simulationThread;
+    @OnThread(Tag.Any)
+    private volatile MetricsReport latestReport;
+    @OnThread(Tag.Any)
+    private final AtomicLong transferNanos = new AtomicLong();
+    @OnThread(Tag.Any)
+    private final AtomicInteger paints = new AtomicInteger();
+    /** Set when the current measurement window should be abandoned (e.g. after a pause) */
+    @OnThread(Tag.Any)
+    private volatile boolean windowResetRequested;
+
+    // The remaining fields are only accessed from the simulation thread:
+    private final long[] categoryNanos = new long[MetricsReport.CATEGORY_COUNT];
+    private final Map<Class<?>, long[]> classNanos = new HashMap<>();
+    private long collisionNanosAtActStart;
+    private int actRounds;
+    private int skippedPaints;
+    private long windowStart;
+    private long windowStartAllocated;
+    private int reportSequence;
+
+    @OnThread(Tag.Any)
+    private final ThreadMXBean threadBean;
+
+    @OnThread(Tag.Any)
+    private SimulationMetrics()
+    {
+        ThreadMXBean bean = null;
+        try
+        {
+            if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean)
+            {
+                bean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+                if (! bean.isThreadAllocatedMemorySupported() || ! bean.isThreadAllocatedMemoryEnabled())
+                {
+                    bean = null;
+                }
+            }
+        }
+        catch (LinkageError | UnsupportedOperationException e)
+        {
+            // Allocation rate is simply not reported.
+        }
+        threadBean = bean;
+    }
+
+    /**
+     * Get the metrics instance.
+     */
+    @OnThread(Tag.Any)
+    public static SimulationMetrics getInstance()
+    {
+        return instance;
+    }
+
+    /**
+     * Set the thread whose activity is measured.  Timing calls from other threads are ignored.
+     */
+    @OnThread(Tag.Any)
+    void setSimulationThread(Thread thread)
+    {
+        simulationThread = thread;
+    }
+
+    /**
+     * Turn metrics collection on or off.  Turning it off discards the latest report.
+     */
+    @OnThread(Tag.Any)
+    public void setEnabled(boolean enabled)
+    {
+        if (! enabled)
+        {
+            latestReport = null;
+        }
+        windowResetRequested = true;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Abandon the current measurement window, so that time when the simulation was
+     * not running is not included in the next report.
+     */
+    @OnThread(Tag.Any)
+    public void resetWindow()
+    {
+        windowResetRequested = true;
+    }
+
+    /**
+     * Get the most recently completed report, or null if none is available.
+     */
+    @OnThread(Tag.Any)
+    public MetricsReport getLatestReport()
+    {
+        return latestReport;
+    }
+
+    @OnThread(Tag.Any)
+    private boolean isCollecting()
+    {
+        return enabled && Thread.currentThread() == simulationThread;
+    }
+
+    /**
+     * Called before a world or actor act() call.
+     *
+     * @return  A start time to pass to {@link #worldActed(long)} or {@link #actorActed(Actor, long)},
+     *          or 0 if metrics are not being collected.
+     */
+    @OnThread(Tag.Any)
+    public long actStarting()
+    {
+        if (! isCollecting())
+        {
+            return 0L;
+        }
+        collisionNanosAtActStart = categoryNanos[MetricsReport.COLLISION];
+        return System.nanoTime();
+    }
+
+    /**
+     * Called after the world's act() method has returned.
+     */
+    @OnThread(Tag.Any)
+    public void worldActed(long start)
+    {
+        if (start != 0L)
+        {
+            categoryNanos[MetricsReport.WORLD_ACT] += actTimeExcludingCollisions(start);
+        }
+    }
+
+    /**
+     * Called after an actor's act() method has returned.
+     */
+    @OnThread(Tag.Any)
+    public void actorActed(Actor actor, long start)
+    {
+        if (start != 0L)
+        {
+            long elapsed = actTimeExcludingCollisions(start);
+            categoryNanos[MetricsReport.ACTOR_ACT] += elapsed;
+            classNanos.computeIfAbsent(actor.getClass(), c -> new long[1])[0] += elapsed;
+        }
+    }
+
+    private long actTimeExcludingCollisions(long start)
+    {
+        long collisionNanos = categoryNanos[MetricsReport.COLLISION] - collisionNanosAtActStart;
+        return Math.max(0L, System.nanoTime() - start - collisionNanos);
+    }
+
+    /**
+     * Called before a collision query or other timed operation.
+     *
+     * @return  A start time to pass to {@link #collisionFinished(long)} or
+     *          {@link #renderFinished(long)}, or 0 if metrics are not being collected.
+     */
+    @OnThread(Tag.Any)
+    public long startTiming()
+    {
+        return isCollecting() ? System.nanoTime() : 0L;
+    }
+
+    @OnThread(Tag.Any)
+    public void collisionFinished(long start)
+    {
+        if (start != 0L)
+        {
+            categoryNanos[MetricsReport.COLLISION] += System.nanoTime() - start;
+        }
+    }
+
+    @OnThread(Tag.Any)
+    public void renderFinished(long start)
+    {
+        if (start != 0L)
+        {
+            categoryNanos[MetricsReport.RENDER] += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Record that a frame (an image of the world) has been written for the server VM to show,
+     * and the time spent transferring it.  May be called from any thread.
+     */
+    @OnThread(Tag.Any)
+    public void framePublished(long transferNanos)
+    {
+        if (enabled)
+        {
+            paints.incrementAndGet();
+            this.transferNanos.addAndGet(transferNanos);
+        }
+    }
+
+    /**
+     * Record that a paint was skipped, either because it came too soon after the last one,
+     * or because the image was replaced by a newer one before it could be sent.
+     */
+    @OnThread(Tag.Any)
+    public void paintSkipped()
+    {
+        if (isCollecting())
+        {
+            skippedPaints++;
+        }
+    }
+
+    /**
+     * Called at the end of each act round.  Publishes a new report if the current measurement
+     * window has finished.
+     */
+    @OnThread(Tag.Any)
+    public void actRoundCompleted()
+    {
+        if (! isCollecting())
+        {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (windowResetRequested)
+        {
+            windowResetRequested = false;
+            startWindow(now);
+            return;
+        }
+
+        actRounds++;
+        long windowLength = now - windowStart;
+        if (windowLength >= WINDOW_NANOS)
+        {
+            publish(windowLength);
+            startWindow(now);
+        }
+    }
+
+    private void startWindow(long now)
+    {
+        windowStart = now;
+        windowStartAllocated = getAllocatedBytes();
+        actRounds = 0;
+        paints.set(0);
+        skippedPaints = 0;
+        transferNanos.set(0L);
+        classNanos.clear();
+        for (int i = 0; i < categoryNanos.length; i++)
+        {
+            categoryNanos[i] = 0L;
+        }
+    }
+
+    private void publish(long windowLength)
+    {
+        double scale = (double) WINDOW_NANOS / windowLength;
+        categoryNanos[MetricsReport.TRANSFER] = transferNanos.get();
+        int[] categoryMicros = new int[categoryNanos.length];
+        for (int i = 0; i < categoryNanos.length; i++)
+        {
+            categoryMicros[i] = (int) (categoryNanos[i] * scale / 1000);
+        }
+
+        int allocatedKB = -1;
+        long allocated = getAllocatedBytes();
+        if (allocated != -1L && windowStartAllocated != -1L)
+        {
+            allocatedKB = (int) Math.min(Integer.MAX_VALUE, (allocated - windowStartAllocated) * scale / 1024);
+        }
+
+        List<Map.Entry<Class<?>, long[]>> classes = new ArrayList<>(classNanos.entrySet());
+        classes.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        int classCount = Math.min(classes.size(), MAX_REPORTED_CLASSES);
+        String[] classNames = new String[classCount];
+        int[] classMicros = new int[classCount];
+        for (int i = 0; i < classCount; i++)
+        {
+            classNames[i] = classes.get(i).getKey().getName();
+            classMicros[i] = (int) (classes.get(i).getValue()[0] * scale / 1000);
+        }
+
+        latestReport = new MetricsReport(++reportSequence, (int) (actRounds * scale * 100),
+                (int) (paints.get() * scale * 100), (int) (skippedPaints * scale * 100),
+                categoryMicros, allocatedKB, classNames, classMicros);
+    }
+
+    /**
+     * Get the total number of bytes allocated by the simulation thread, or -1 if unknown.
+     */
+    private long getAllocatedBytes()
+    {
+        if (threadBean == null)
+        {
+            return -1L;
+        }
+        return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -432,14 +432,29 @@ public class WorldHandler
     }
 
     /**
-     * This is a special method which will have a breakpoint set by the GreenfootDebugHandler
-     * class.  Do not remove or rename without also changing that class.
-     * It is called where there is an error instantiated the world class
+     * Called where there is an error instantiating the world class
      * (as a result of a user interactive creation, not user code)
      */
     @OnThread(Tag.Any)
     private void worldInstantiationError()
     {
+        handlerDelegate.worldInstantiationError();
+    }
+
+    /**
+     * Notify that the simulation has started running.
+     */
+    public void simulationStartedRunning()
+    {
+        handlerDelegate.simulationStartedRunning();
+    }
+
+    /**
+     * Notify that the simulation is pausing.
+     */
+    public void simulationPaused()
+    {
+        handlerDelegate.simulationPaused();
     }
 
     /**
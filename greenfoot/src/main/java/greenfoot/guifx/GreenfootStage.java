@@ -89,6 +89,7 @@ import greenfoot.sound.SoundPreferencePanel;
 import greenfoot.util.GreenfootUtil;
 import greenfoot.vmcomm.GreenfootDebugHandler;
 import greenfoot.vmcomm.GreenfootDebugHandler.SimulationStateListener;
+import greenfoot.vmcomm.MetricsReport;
 import greenfoot.vmcomm.VMCommsMain;
 import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
@@ -190,6 +191,9 @@ public class GreenfootStage extends Stage implements FXCompileObserver,
     // a background message set in backgroundMessage)
     private final BooleanProperty worldVisible = new SimpleBooleanProperty(false);
     private boolean worldInstantiationError = false;
+    // The performance overlay shown on top of the world, and whether it is showing:
+    private final Label metricsOverlay;
+    private final SimpleBooleanProperty showingMetrics = new SimpleBooleanProperty(false);
 
     // The last speed value set by the user altering it in interface (rather than programmatically):
     private int lastUserSetSpeed;
@@ -397,7 +401,19 @@ public class GreenfootStage extends Stage implements FXCompileObserver,
         worldViewScroll.getStyleClass().add("world-display-scroll");
         JavaFXUtil.expandScrollPaneContent(worldViewScroll);
         worldViewScroll.visibleProperty().bind(worldVisible);
-        StackPane worldPane = new StackPane(backgroundMessage, worldViewScroll, hungMessage);
+        metricsOverlay = new Label();
+        metricsOverlay.getStyleClass().add("metrics-overlay");
+        metricsOverlay.setMouseTransparent(true);
+        metricsOverlay.visibleProperty().bind(showingMetrics.and(worldVisible));
+        StackPane.setAlignment(metricsOverlay, Pos.TOP_LEFT);
+        JavaFXUtil.addChangeListenerPlatform(showingMetrics, showing -> {
+            metricsOverlay.setText("");
+            if (debugHandler != null)
+            {
+                debugHandler.getVmComms().setMetricsEnabled(showing);
+            }
+        });
+        StackPane worldPane = new StackPane(backgroundMessage, worldViewScroll, hungMessage, metricsOverlay);
         ImageView shareIcon = new ImageView(new Image(
                 getClass().getClassLoader().getResourceAsStream("export-publish.png")));
         shareIcon.setPreserveRatio(true);
@@ -753,6 +769,12 @@ public class GreenfootStage extends Stage implements FXCompileObserver,
         }
         controlPanel.setSpeed(lastUserSetSpeed);
         debugHandler.getVmComms().setSimulationSpeed(lastUserSetSpeed);
+
+        // A new debug VM starts without collecting metrics:
+        if (showingMetrics.get())
+        {
+            debugHandler.getVmComms().setMetricsEnabled(true);
+        }
     }
 
     /**
@@ -1201,6 +1223,8 @@ public class GreenfootStage extends Stage implements FXCompileObserver,
                 JavaFXUtil.makeCheckMenuItem(Config.getString("menu.debugger"),
                         showingDebugger,
                         new KeyCodeCombination(KeyCode.B, KeyCombination.SHORTCUT_DOWN)),
+                JavaFXUtil.makeCheckMenuItem(Config.getString("menu.metricsOverlay"),
+                        showingMetrics, null),
                 JavaFXUtil.makeMenuItem("set.player",
                         Config.GREENFOOT_SET_PLAYER_NAME_SHORTCUT,
                         this::setPlayer, hasNoProject)
@@ -2612,6 +2636,41 @@ public class GreenfootStage extends Stage implements FXCompileObserver,
         return null;
     }
 
+    /**
+     * Simulation metrics have been received from the debug VM; show them in the overlay.
+     */
+    public void receivedMetrics(MetricsReport report)
+    {
+        if (! showingMetrics.get())
+        {
+            return;
+        }
+
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%s: %.1f/s   %s: %.1f/s (%.1f/s %s)%n",
+                Config.getString("metrics.actRounds"), report.getActRoundsPerSecond(),
+                Config.getString("metrics.paints"), report.getPaintsPerSecond(),
+                report.getSkippedPaintsPerSecond(), Config.getString("metrics.skipped")));
+        text.append(String.format("%s: %.1f%%   %s: %.1f%%   %s: %.1f%%%n",
+                Config.getString("metrics.worldAct"), 100 * report.getTimeFraction(MetricsReport.WORLD_ACT),
+                Config.getString("metrics.actorAct"), 100 * report.getTimeFraction(MetricsReport.ACTOR_ACT),
+                Config.getString("metrics.collision"), 100 * report.getTimeFraction(MetricsReport.COLLISION)));
+        text.append(String.format("%s: %.1f%%   %s: %.1f%%",
+                Config.getString("metrics.render"), 100 * report.getTimeFraction(MetricsReport.RENDER),
+                Config.getString("metrics.transfer"), 100 * report.getTimeFraction(MetricsReport.TRANSFER)));
+        if (report.getAllocatedKBPerSecond() >= 0)
+        {
+            text.append(String.format("   %s: %.1f MB/s", Config.getString("metrics.allocation"),
+                    report.getAllocatedKBPerSecond() / 1024.0));
+        }
+        for (int i = 0; i < report.getClassCount(); i++)
+        {
+            text.append(String.format("%n  %s: %.1f%%", report.getClassName(i),
+                    100 * report.getClassTimeFraction(i)));
+        }
+        metricsOverlay.setText(text.toString());
+    }
+
     /**
      * Shows the terminal for this project, and brings it to the front.
      */
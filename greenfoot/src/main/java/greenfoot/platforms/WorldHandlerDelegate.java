@@ -93,4 +93,21 @@ public interface WorldHandlerDelegate
      * The world construction has completed.
      */
     default void finishedInitialisingWorld() {};
+
+    /**
+     * There was an error instantiating the world class (as a result of an
+     * interactive creation, not user code).
+     */
+    @OnThread(Tag.Any)
+    default void worldInstantiationError() {};
+
+    /**
+     * The simulation has started running.
+     */
+    default void simulationStartedRunning() {};
+
+    /**
+     * The simulation is pausing (or waiting to be enabled).
+     */
+    default void simulationPaused() {};
 }
@@ -27,6 +27,7 @@ import greenfoot.World;
 import greenfoot.core.ImageCache;
 import greenfoot.core.Simulation;
 import greenfoot.core.WorldHandler;
+import greenfoot.vmcomm.VMCommsMain;
 import greenfoot.vmcomm.VMCommsSimulation;
 import greenfoot.vmcomm.VMCommsSimulation.PaintWhen;
 import greenfoot.platforms.WorldHandlerDelegate;
@@ -110,6 +111,25 @@ public class WorldHandlerDelegateIDE
         vmCommsSimulation.notifyStoppedWithError();
     }
 
+    @Override
+    @OnThread(Tag.Any)
+    public void worldInstantiationError()
+    {
+        vmCommsSimulation.postEvent(VMCommsMain.EVENT_WORLD_INSTANTIATION_ERROR);
+    }
+
+    @Override
+    public void simulationStartedRunning()
+    {
+        vmCommsSimulation.postEvent(VMCommsMain.EVENT_SIMULATION_STARTED_RUNNING);
+    }
+
+    @Override
+    public void simulationPaused()
+    {
+        vmCommsSimulation.postEvent(VMCommsMain.EVENT_SIMULATION_PAUSED);
+    }
+
     @Override
     public void instantiateNewWorld(String className, Runnable runIfError)
     {
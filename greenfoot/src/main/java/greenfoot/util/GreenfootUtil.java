@@ -25,9 +25,11 @@ import bluej.Boot;
 import bluej.Config;
 import greenfoot.GreenfootImage;
 import greenfoot.UserInfo;
+import greenfoot.collision.PixelMask;
 import greenfoot.core.ImageCache;
 import greenfoot.platforms.GreenfootUtilDelegate;
 
+import java.awt.image.BufferedImage;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
@@ -366,6 +368,56 @@ public class GreenfootUtil
         return imageCache.getCachedImage(name);
     }
     
+    /**
+     * Requests that a rotated and/or scaled version of an image be added into the cache. Thread-safe.
+     * 
+     * @param source  the source image, which must not be modified afterwards
+     * @param rotation  the rotation applied, in degrees
+     * @param width   the width of the transformed image
+     * @param height  the height of the transformed image
+     * @param transformed  the transformed image, which must not be modified afterwards
+     *                     if it was cached
+     * @return  whether the image was cached.
+     */
+    public static boolean addCachedTransformedImage(BufferedImage source, int rotation, int width, int height, BufferedImage transformed)
+    {
+        return imageCache.addTransformedImage(source, rotation, width, height, transformed);
+    }
+    
+    /**
+     * Gets the cached rotated and/or scaled version (if any) of an image. Thread-safe.
+     * 
+     * @return The transformed image (should not be modified), or null if
+     *         it is not cached.
+     */
+    public static BufferedImage getCachedTransformedImage(BufferedImage source, int rotation, int width, int height)
+    {
+        return imageCache.getTransformedImage(source, rotation, width, height);
+    }
+    
+    /**
+     * Adds the collision mask for an image at a particular rotation into the cache.
+     * Thread-safe.
+     * 
+     * @param source  the source image, which must not be modified afterwards
+     * @param rotation  the rotation, in degrees
+     * @param halfPixel  whether the mask is sampled at half-pixel offsets
+     * @param mask  the collision mask
+     */
+    public static void addCachedCollisionMask(BufferedImage source, int rotation, boolean halfPixel, PixelMask mask)
+    {
+        imageCache.addCollisionMask(source, rotation, halfPixel, mask);
+    }
+    
+    /**
+     * Gets the cached collision mask (if any) for an image at a particular rotation.
+     * Thread-safe.
+     */
+    public static PixelMask getCachedCollisionMask(BufferedImage source, int rotation, boolean halfPixel)
+    {
+        return imageCache.getCollisionMask(source, rotation, halfPixel);
+    }
+    
     /**
      * Returns whether the cached image is null
      */
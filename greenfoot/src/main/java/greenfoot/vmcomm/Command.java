@@ -73,6 +73,8 @@ public class Command
     public static final int COMMAND_DISCARD_WORLD = 29;
     public static final int COMMAND_SET_SPEED = 30;
 
+    // Followed by 1 if simulation metrics should be collected, 0 if not:
+    public static final int COMMAND_SET_METRICS_ENABLED = 31;
     public static final int COMMAND_WORLD_FOCUS_GAINED = 40;
     public static final int COMMAND_WORLD_FOCUS_LOST = 41;
     
@@ -84,14 +84,12 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
     
     private static final String PAUSED_METHOD = Simulation.PAUSED;
     private static final String SIMULATION_THREAD_PAUSED_KEY = "SIMULATION_THREAD_PAUSED";
-    private static final String SIMULATION_THREAD_RESUMED_KEY = "SIMULATION_THREAD_RESUMED";
         
     private static final String SIMULATION_THREAD_RUN_KEY = "SIMULATION_THREAD_RUN";
     
     private static final String WORLD_HANDLER_CLASS = WorldHandler.class.getName();
     private static final String WORLD_CHANGED_KEY = "WORLD_CHANGED";
     private static final String WORLD_INITIALISING_KEY = "WORLD_INITIALISING";
-    private static final String WORLD_INSTANTIATION_ERROR_KEY = "WORLD_INSTANTIATION_ERROR";
 
     private static final String NAME_ACTOR_CLASS = WorldHandlerDelegateIDE.class.getName();
     private static final String NAME_ACTOR_KEY = "NAME_ACTOR";
@@ -120,7 +118,7 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
     {
         this.project = project;
         greenfootRecorder = new GreenfootRecorder();
-        vmComms = new VMCommsMain(project);
+        vmComms = new VMCommsMain(project, this::simulationEvent);
     }
         
     /**
@@ -152,6 +150,13 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
         this.pickListener = pickListener;
     }
 
+    /**
+     * Set the breakpoints we always need on the debug VM.  These are only for events which need
+     * references to objects in the debug VM (or the simulation thread itself), which cannot be
+     * sent via the shared memory channel, and the start of world initialisation, which must be
+     * seen before the actors created by the world are named.  Other changes in the simulation's state arrive as
+     * events from VMCommsMain, without suspending the simulation thread.
+     */
     @OnThread(Tag.FXPlatform)
     private void addRunResetBreakpoints(Debugger debugger)
     {
@@ -161,12 +166,8 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
             simulationClass = debugger.getClass(SIMULATION_CLASS, true).get();
 
             setBreakpoint(debugger, SIMULATION_CLASS, "run", SIMULATION_THREAD_RUN_KEY);
-            setBreakpoint(debugger, SIMULATION_CLASS, PAUSED_METHOD, SIMULATION_THREAD_PAUSED_KEY);
-
-            setBreakpoint(debugger, SIMULATION_CLASS, "resumeRunning", SIMULATION_THREAD_RESUMED_KEY);
             setBreakpoint(debugger, WORLD_HANDLER_CLASS, "setInitialisingWorld", WORLD_INITIALISING_KEY);
             setBreakpoint(debugger, WORLD_HANDLER_CLASS, "worldChanged", WORLD_CHANGED_KEY);
-            setBreakpoint(debugger, WORLD_HANDLER_CLASS, "worldInstantiationError", WORLD_INSTANTIATION_ERROR_KEY);
             setBreakpoint(debugger, NAME_ACTOR_CLASS, "nameActors", NAME_ACTOR_KEY);
             setBreakpoint(debugger, PICK_HELPER_CLASS, "picked", PICK_HELPER_KEY);
         }
@@ -261,15 +262,6 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
             e.getThread().cont();
             return true;
         }
-        else if (atBreakpoint && e.getBreakpointProperties().get(SIMULATION_THREAD_RESUMED_KEY) != null)
-        {
-            if (simulationListener != null)
-            {
-                simulationListener.simulationStartedRunning();
-            }
-            e.getThread().cont();
-            return true;
-        }
         else if (atBreakpoint && e.getBreakpointProperties().get(NAME_ACTOR_KEY) != null)
         {
             DebuggerObject actorArray = e.getThread().getStackObjectUntyped(0, 0);
@@ -283,12 +275,6 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
             e.getThread().cont();
             return true;
         }
-        else if (atBreakpoint && e.getBreakpointProperties().get(WORLD_INSTANTIATION_ERROR_KEY) != null)
-        {
-            simulationListener.worldInstantiationError();
-            e.getThread().cont();
-            return true;
-        }
         else if (atBreakpoint && e.getBreakpointProperties().get(WORLD_CHANGED_KEY) != null)
         {
             List<DebuggerField> fields = e.getThread().getCurrentObject(0).getFields();
@@ -334,12 +320,9 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
             if (atBreakpoint && e.getBreakpointProperties().get(SIMULATION_THREAD_PAUSED_KEY) != null)
             {
                 // They are going to pause; remove all special breakpoints and set them going
-                // (so that they actually hit the pause):
+                // (so that they actually hit the pause).  The listener is told about the pause
+                // via the simulation event channel:
                 removeSpecialBreakpoints(debugger);
-                if (simulationListener != null)
-                {
-                    simulationListener.simulationPaused();
-                }
                 e.getThread().cont();
                 return true;
             }
@@ -375,6 +358,37 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
         return false;
     }
 
+    /**
+     * Handle a lifecycle event sent by the debug VM via the shared memory channel.
+     *
+     * @param event  One of the VMCommsMain.EVENT_ constants
+     */
+    @OnThread(Tag.Worker)
+    private void simulationEvent(int event)
+    {
+        switch (event)
+        {
+            case VMCommsMain.EVENT_SIMULATION_STARTED_RUNNING:
+                if (simulationListener != null)
+                {
+                    simulationListener.simulationStartedRunning();
+                }
+                break;
+            case VMCommsMain.EVENT_SIMULATION_PAUSED:
+                if (simulationListener != null)
+                {
+                    simulationListener.simulationPaused();
+                }
+                break;
+            case VMCommsMain.EVENT_WORLD_INSTANTIATION_ERROR:
+                if (simulationListener != null)
+                {
+                    simulationListener.worldInstantiationError();
+                }
+                break;
+        }
+    }
+
     /**
      * Fetches all the objects in a debug VM array into
      * a server VM list of debug objects (the array elements).
@@ -546,6 +560,7 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
                 Debug.reportError("Problem setting special Greenfoot breakpoint");
             }
         }
+        debugger.toggleBreakpoint(simulationClass, PAUSED_METHOD, true, Collections.singletonMap(SIMULATION_THREAD_PAUSED_KEY, "yes"));
     }
 
     /**
@@ -557,6 +572,7 @@ public class GreenfootDebugHandler implements DebuggerListener, ObjectBenchInter
         {
             debugger.toggleBreakpoint(simulationClass, method, false, Collections.singletonMap(SIMULATION_INVOKE_KEY, "yes"));
         }
+        debugger.toggleBreakpoint(simulationClass, PAUSED_METHOD, false, Collections.singletonMap(SIMULATION_THREAD_PAUSED_KEY, "yes"));
     }
 
     public void setSimulationListener(SimulationStateListener simulationListener)
@@ -0,0 +1,240 @@
+/*
+ This file is part of the Greenfoot program.
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.vmcomm;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+import java.nio.IntBuffer;
+
+/**
+ * A summary of simulation performance over one measurement window, as sent from the
+ * debug VM to the server VM in the shared memory status area.  All rates are normalised
+ * to "per second" so that the window length does not matter to the receiver.
+ *
+ * <p>Shared memory format (all integers):
+ * <pre>
+ * Pos 0: Length (L) of the rest of the report, or 0 if no report is available.
+ * Pos 1: Report sequence number (increments with each new measurement window)
+ * Pos 2: Act rounds per second, times 100
+ * Pos 3: Frames sent to the server VM per second, times 100
+ * Pos 4: Paints skipped (not sent) per second, times 100
+ * Pos 5 to 5+CATEGORY_COUNT excl: microseconds per second spent in each timing category
+ * Pos 5+CATEGORY_COUNT: allocation rate in kilobytes per second, or -1 if not available
+ * Pos 6+CATEGORY_COUNT: Count of class entries (N), followed by N entries, each of which is
+ *                       microseconds per second spent in act() for that class, then the
+ *                       length of the class name in codepoints (C), then C codepoints.
+ * </pre>
+ */
+@OnThread(Tag.Any)
+public class MetricsReport
+{
+    /** Time spent in the world's act() method (excluding collision checks) */
+    public static final int WORLD_ACT = 0;
+    /** Time spent in actors' act() methods (excluding collision checks) */
+    public static final int ACTOR_ACT = 1;
+    /** Time spent in collision checks */
+    public static final int COLLISION = 2;
+    /** Time spent rendering the world into an image */
+    public static final int RENDER = 3;
+    /** Time spent transferring world images to the server VM */
+    public static final int TRANSFER = 4;
+    public static final int CATEGORY_COUNT = 5;
+
+    private final int sequence;
+    private final int actRoundsPerSecond100;
+    private final int paintsPerSecond100;
+    private final int skippedPaintsPerSecond100;
+    private final int[] categoryMicros;
+    private final int allocatedKBPerSecond;
+    private final String[] classNames;
+    private final int[] classMicros;
+
+    /**
+     * Construct a metrics report.
+     *
+     * @param sequence                   The sequence number of the report
+     * @param actRoundsPerSecond100      Act rounds per second, times 100
+     * @param paintsPerSecond100         Paints per second, times 100
+     * @param skippedPaintsPerSecond100  Skipped paints per second, times 100
+     * @param categoryMicros             Microseconds per second for each category (length CATEGORY_COUNT)
+     * @param allocatedKBPerSecond       Allocation rate in KB/s, or -1 if unavailable
+     * @param classNames                 Names of the classes with the most act() time
+     * @param classMicros                Microseconds per second spent in act() for each class
+     */
+    public MetricsReport(int sequence, int actRoundsPerSecond100, int paintsPerSecond100,
+            int skippedPaintsPerSecond100, int[] categoryMicros, int allocatedKBPerSecond,
+            String[] classNames, int[] classMicros)
+    {
+        this.sequence = sequence;
+        this.actRoundsPerSecond100 = actRoundsPerSecond100;
+        this.paintsPerSecond100 = paintsPerSecond100;
+        this.skippedPaintsPerSecond100 = skippedPaintsPerSecond100;
+        this.categoryMicros = categoryMicros;
+        this.allocatedKBPerSecond = allocatedKBPerSecond;
+        this.classNames = classNames;
+        this.classMicros = classMicros;
+    }
+
+    /**
+     * Write a report into the shared memory buffer at its current position.
+     *
+     * @param buffer  The buffer to write to
+     * @param report  The report to write, or null if there is no report available
+     */
+    public static void write(IntBuffer buffer, MetricsReport report)
+    {
+        if (report == null)
+        {
+            buffer.put(0);
+            return;
+        }
+
+        int[][] nameCodepoints = new int[report.classNames.length][];
+        int length = 6 + CATEGORY_COUNT;
+        for (int i = 0; i < nameCodepoints.length; i++)
+        {
+            nameCodepoints[i] = report.classNames[i].codePoints().toArray();
+            length += 2 + nameCodepoints[i].length;
+        }
+
+        buffer.put(length);
+        buffer.put(report.sequence);
+        buffer.put(report.actRoundsPerSecond100);
+        buffer.put(report.paintsPerSecond100);
+        buffer.put(report.skippedPaintsPerSecond100);
+        buffer.put(report.categoryMicros);
+        buffer.put(report.allocatedKBPerSecond);
+        buffer.put(nameCodepoints.length);
+        for (int i = 0; i < nameCodepoints.length; i++)
+        {
+            buffer.put(report.classMicros[i]);
+            buffer.put(nameCodepoints[i].length);
+            buffer.put(nameCodepoints[i]);
+        }
+    }
+
+    /**
+     * Read a report from the shared memory buffer at its current position.  The buffer
+     * position is left after the end of the report.
+     *
+     * @param buffer  The buffer to read from
+     * @return  The report, or null if no report was available.
+     */
+    public static MetricsReport read(IntBuffer buffer)
+    {
+        int length = buffer.get();
+        if (length == 0)
+        {
+            return null;
+        }
+
+        int sequence = buffer.get();
+        int actRounds = buffer.get();
+        int paints = buffer.get();
+        int skippedPaints = buffer.get();
+        int[] categoryMicros = new int[CATEGORY_COUNT];
+        buffer.get(categoryMicros);
+        int allocated = buffer.get();
+        int classCount = buffer.get();
+        String[] classNames = new String[classCount];
+        int[] classMicros = new int[classCount];
+        for (int i = 0; i < classCount; i++)
+        {
+            classMicros[i] = buffer.get();
+            int[] codepoints = new int[buffer.get()];
+            buffer.get(codepoints);
+            classNames[i] = new String(codepoints, 0, codepoints.length);
+        }
+        return new MetricsReport(sequence, actRounds, paints, skippedPaints, categoryMicros,
+                allocated, classNames, classMicros);
+    }
+
+    public int getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * Get the number of act rounds per second.
+     */
+    public double getActRoundsPerSecond()
+    {
+        return actRoundsPerSecond100 / 100.0;
+    }
+
+    /**
+     * Get the number of world images painted per second.
+     */
+    public double getPaintsPerSecond()
+    {
+        return paintsPerSecond100 / 100.0;
+    }
+
+    /**
+     * Get the number of paints per second that were skipped by the frame scheduler.
+     */
+    public double getSkippedPaintsPerSecond()
+    {
+        return skippedPaintsPerSecond100 / 100.0;
+    }
+
+    /**
+     * Get the fraction of wall-clock time (0 to 1) spent in the given category.
+     *
+     * @param category  One of the category constants, e.g. {@link #ACTOR_ACT}
+     */
+    public double getTimeFraction(int category)
+    {
+        return categoryMicros[category] / 1_000_000.0;
+    }
+
+    /**
+     * Get the allocation rate of the simulation thread, in kilobytes per second,
+     * or -1 if not available.
+     */
+    public int getAllocatedKBPerSecond()
+    {
+        return allocatedKBPerSecond;
+    }
+
+    /**
+     * Get the number of per-class act() timing entries.
+     */
+    public int getClassCount()
+    {
+        return classNames.length;
+    }
+
+    public String getClassName(int index)
+    {
+        return classNames[index];
+    }
+
+    /**
+     * Get the fraction of wall-clock time (0 to 1) spent in act() for the given class entry.
+     */
+    public double getClassTimeFraction(int index)
+    {
+        return classMicros[index] / 1_000_000.0;
+    }
+}
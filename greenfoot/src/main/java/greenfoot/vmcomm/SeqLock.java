@@ -0,0 +1,154 @@
+/*
+ This file is part of the Greenfoot program.
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.vmcomm;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import threadchecker.OnThread;
+import threadchecker.Tag;
+
+/**
+ * A sequence lock ("seqlock") protecting a record in a shared memory buffer, which has a
+ * single writer (in one VM) and a single reader (in the other VM).
+ *
+ * <p>The lock is an int in the buffer.  The writer makes it odd while it writes the record,
+ * and even again when it has finished, so that the value changes with every publication.  The
+ * reader copies the record, and then checks that the value was even and has not changed
+ * while it was copying; if not, the copy may be torn and must be discarded.  Neither side
+ * ever waits for the other, so a VM which dies mid-exchange cannot block the other.
+ *
+ * <p>The value also serves as a doorbell: {@link #await} waits for the other side to publish.
+ */
+@OnThread(Tag.Any)
+public class SeqLock
+{
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    // While waiting, we spin briefly and then park, backing off up to MAX_PARK_NANOS.  The other
+    // VM cannot unpark us, so MAX_PARK_NANOS bounds how late we notice its publication once it
+    // has been quiet for a while; while it publishes frequently, each wait ends long before
+    // the backoff gets that far.  Local wakeups (see await) are immediate:
+    private static final int SPIN_LIMIT = 100;
+    private static final long MIN_PARK_NANOS = 20_000L;
+    private static final long MAX_PARK_NANOS = 10_000_000L;
+
+    private final ByteBuffer buffer;
+    private final int offsetBytes;
+
+    /**
+     * Construct a SeqLock.
+     *
+     * @param buffer   The (direct, big-endian) shared memory buffer
+     * @param offset   The position of the lock in the buffer, as an int index
+     */
+    public SeqLock(ByteBuffer buffer, int offset)
+    {
+        this.buffer = buffer;
+        this.offsetBytes = offset * 4;
+    }
+
+    /**
+     * Get the current value of the lock.  This is odd while a write is in progress.
+     */
+    public int getSequence()
+    {
+        return (int) INTS.getAcquire(buffer, offsetBytes);
+    }
+
+    /**
+     * Begin writing the record.  Must be followed by {@link #endWrite()} once the record is
+     * written.  Only the writer may call this.
+     */
+    public void beginWrite()
+    {
+        int seq = (int) INTS.getOpaque(buffer, offsetBytes);
+        INTS.setOpaque(buffer, offsetBytes, seq + 1);
+        // The record must not be written before the lock is seen to be odd:
+        VarHandle.releaseFence();
+    }
+
+    /**
+     * Finish writing the record, and publish it to the reader.
+     */
+    public void endWrite()
+    {
+        int seq = (int) INTS.getOpaque(buffer, offsetBytes);
+        INTS.setRelease(buffer, offsetBytes, seq + 1);
+    }
+
+    /**
+     * Begin reading the record.
+     *
+     * @return  The sequence to pass to {@link #validate}, or -1 if a write is in progress
+     *          (in which case the record should not be read now).
+     */
+    public int beginRead()
+    {
+        int seq = getSequence();
+        return (seq & 1) == 0 ? seq : -1;
+    }
+
+    /**
+     * Check that the record copied since {@link #beginRead()} was not modified while it was
+     * being copied.  If this returns false, the copy must be discarded.
+     */
+    public boolean validate(int seq)
+    {
+        // The copy must be complete before we re-check the lock:
+        VarHandle.acquireFence();
+        return seq != -1 && (int) INTS.getOpaque(buffer, offsetBytes) == seq;
+    }
+
+    /**
+     * Wait until the lock value differs from the given value (i.e. the other side has published
+     * a record since we saw that value), or the timeout expires, or a local wakeup is signalled
+     * via the given flag.  A thread signalling a wakeup should set the flag and then unpark the
+     * waiting thread, which clears it.
+     */
+    public void await(int seen, long timeoutNanos, AtomicBoolean wakeup)
+    {
+        long deadline = System.nanoTime() + timeoutNanos;
+        long park = MIN_PARK_NANOS;
+        for (int spins = 0; getSequence() == seen && !wakeup.getAndSet(false); spins++)
+        {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+            {
+                return;
+            }
+            if (spins < SPIN_LIMIT)
+            {
+                Thread.onSpinWait();
+            }
+            else
+            {
+                LockSupport.parkNanos(Math.min(park, remaining));
+                park = Math.min(park * 2, MAX_PARK_NANOS);
+            }
+        }
+    }
+}
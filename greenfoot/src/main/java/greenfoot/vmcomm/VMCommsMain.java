@@ -28,12 +28,13 @@ import java.io.RandomAccessFile;
 import java.nio.IntBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
 import java.nio.channels.FileChannel.MapMode;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import bluej.pkgmgr.Project;
 import bluej.utility.Debug;
@@ -52,57 +53,97 @@ import static greenfoot.vmcomm.Command.*;
  */
 public class VMCommsMain implements Closeable
 {
-    // The server-debug VM protocol relies on locking three distinct areas of the file:
-    //  A - the server VM "put" area
-    //  B - the debug VM "put" area
-    //  C - a small region not used for data but to ensure synchronisation
+    // The server VM and the debug VM each publish a record to the other through the shared
+    // memory, and each record is protected by a sequence lock (see SeqLock) at its start:
+    //  - the server area holds the pending commands, and is written only by the server VM;
+    //  - the status area holds everything else the debug VM sends, apart from world images,
+    //    and is written only by the debug VM.
+    // Neither side ever waits for the other: a reader copies the record and discards the
+    // copy if the record was being written meanwhile (it will get the next one instead).
+    // The sequence locks also act as doorbells, so each side's communication thread sleeps
+    // until the other side publishes (or a local change needs to be sent).
     //
-    //    Server                          Debug
-    //   (holds A, C)                     (holds B)
-    // [command issued/want update]
-    //                                       [updates data while B is held]
-    //     -> release A
-    //                                    -> acquire A   (commands are available...)
-    //                                    -> release B   (ensures server can get data)
-    //     -> acquire B
-    //        (read image)
-    //                                       (read commands)
-    //     -> release C
-    //                                    -> acquire C   (Server has acquired B)
-    //                                    -> release A
-    //     -> acquire A
-    //     -> release B
-    //                                    -> acquire B (Server has A and C)
-    //                                    -> release C
-    //     -> acquire C
+    // World images are not copied as part of the status record, but are written into one of
+    // two image slots, and the status record says which slot holds the latest image.  The debug
+    // VM only writes into a slot once the server has consumed the image that was last in it
+    // (as reported in the server area), and never into the slot of the latest image, so the
+    // server can read an image straight from the shared memory without it being torn.
     //
-    // The acquisition order is B-->A, A-->C, and C-->B. This ensures that there can never
-    // be deadlock. No process holds all three locks at once and each process always holds at
-    // least one lock.
+    // The formats of the areas are described in VMCommsSimulation.
 
     public static final int DEFAULT_MAPPED_SIZE = 20_000_000;
     public static final int USER_AREA_OFFSET = 0x1000; // offset in 4-byte chunks; 16KB worth.
-    public static final int USER_AREA_OFFSET_BYTES = USER_AREA_OFFSET * 4;
+    /** The size of the status area at the start of the debug VM area, in 4-byte chunks; 256KB worth */
+    public static final int STATUS_AREA_SIZE = 0x10000;
+    /** The offset of the image slots, in 4-byte chunks */
+    public static final int IMAGE_AREA_OFFSET = USER_AREA_OFFSET + STATUS_AREA_SIZE;
 
-    public static final int SERVER_AREA_OFFSET_BYTES = 4;
-    public static final int SERVER_AREA_SIZE_BYTES = USER_AREA_OFFSET_BYTES - SERVER_AREA_OFFSET_BYTES;
-    
-    public static final int SYNC_AREA_OFFSET_BYTES = 0;
-    public static final int SYNC_AREA_SIZE_BYTES = 4;
+    /** How long the communication thread waits for the debug VM if nothing happens */
+    private static final long IDLE_WAIT_NANOS = 100_000_000L;
+
+    /**
+     * The number of slots in the lifecycle event ring in the debug VM area (see the shared memory
+     * documentation in VMCommsSimulation).  This is also the most events that the debug VM
+     * will have in the ring which we have not yet acknowledged.
+     */
+    public static final int EVENT_RING_SIZE = 64;
+
+    // Lifecycle events sent from the debug VM through the event ring:
+    /** The simulation has started running */
+    public static final int EVENT_SIMULATION_STARTED_RUNNING = 1;
+    /** The simulation has paused (user hit pause, or called Greenfoot.stop) */
+    public static final int EVENT_SIMULATION_PAUSED = 2;
+    /** There was an error instantiating the world (as a result of an interactive creation) */
+    public static final int EVENT_WORLD_INSTANTIATION_ERROR = 3;
+
+    /**
+     * A listener for lifecycle events sent by the debug VM.
+     */
+    public static interface SimulationEventListener
+    {
+        /**
+         * Called (on the communications thread, in the order the events were sent) for each
+         * event received from the debug VM.
+         *
+         * <p>Events are not ordered with respect to debugger events from breakpoints in the
+         * debug VM (such as a world change), which arrive by a different route on a different
+         * thread: an event may be received before a debugger event from something which
+         * happened earlier in the debug VM, or after one from something which happened later.
+         * Listeners should treat an event as news of the simulation's current state, rather
+         * than rely on its order relative to debugger events.
+         *
+         * @param event  One of the EVENT_ constants
+         */
+        @OnThread(Tag.Worker)
+        public void simulationEvent(int event);
+    }
     
     private final int fileSize;
     private File shmFile;
     private FileChannel fc;
     private MappedByteBuffer sharedMemoryByte;
     private IntBuffer sharedMemory;
-    private FileLock putLock;
-    private FileLock syncLock;
+    private final SeqLock commandLock;
+    private final SeqLock statusLock;
+    // The status lock value when we last read the status record:
+    private int lastStatusLockSeq = 0;
+    // A copy of the status record, to read from once it is known not to be torn:
+    private final int[] statusCopy = new int[STATUS_AREA_SIZE];
+    // Whether the server area needs to be written again:
+    private boolean serverAreaChanged = true;
+    // Set (followed by unparking the IO thread) to wake the IO thread:
+    private final AtomicBoolean wakeup = new AtomicBoolean();
+    private final SimulationEventListener eventListener;
 
     // Needs to be AtomicInteger because it's modified from multiple threads:
     private final AtomicInteger lastSeq = new AtomicInteger(0);
     private final List<Command> pendingCommands = new ArrayList<>();
     private int setSpeedCommandCount = 0;
     private int lastPaintSeq = -1;
+    // The image slot holding the image painted at lastPaintSeq, and its size:
+    private int lastPaintSlot;
+    private int lastPaintWidth;
+    private int lastPaintHeight;
     private int lastConsumedImg = -1;
     
     private boolean checkingIO = false;
@@ -114,6 +155,11 @@ public class VMCommsMain implements Closeable
     private boolean worldChanged = false;
     private boolean worldPresentAfterChange = false;
     private int[] promptCodepoints = null;
+    // The most recent simulation metrics, and the sequence of the last one passed to the stage:
+    private MetricsReport metricsReport = null;
+    private int lastMetricsSequence = 0;
+    // The count of events received from the debug VM's event ring:
+    private int lastEventCount = 0;
 
     /**
      * Because the ask request is sent as a continuous status rather than
@@ -135,27 +181,40 @@ public class VMCommsMain implements Closeable
     private boolean delayLoop;
     private boolean vmReadyForInvocations = false;
     private int askId = -1;
-    private boolean workerWaiting = false;
 
     /**
      * Constructor for VMCommsMain. Creates a temporary file and maps it into memory.
      * 
+     * @param project  The project whose simulation we communicate with
+     * @param eventListener  The listener for lifecycle events sent by the debug VM
+     * @throws IOException  if the file could not be created or mapped.
+     */
+    public VMCommsMain(Project project, SimulationEventListener eventListener) throws IOException
+    {
+        this(Integer.parseInt(project.getUnnamedPackage().getLastSavedProperties().getProperty("shm.size", Integer.toString(DEFAULT_MAPPED_SIZE))),
+            eventListener);
+    }
+
+    /**
+     * Constructor for VMCommsMain, with a shared memory file of the given size.
+     * 
+     * @param fileSize  The size of the shared memory file, in bytes
+     * @param eventListener  The listener for lifecycle events sent by the debug VM
      * @throws IOException  if the file could not be created or mapped.
      */
     @SuppressWarnings("resource")
-    public VMCommsMain(Project project) throws IOException
+    VMCommsMain(int fileSize, SimulationEventListener eventListener) throws IOException
     {
-        fileSize = Integer.parseInt(project.getUnnamedPackage().getLastSavedProperties().getProperty("shm.size", Integer.toString(DEFAULT_MAPPED_SIZE)));
+        this.eventListener = eventListener;
+        this.fileSize = fileSize;
         
         shmFile = File.createTempFile("greenfoot", "shm");
         shmFile.deleteOnExit();
         fc = new RandomAccessFile(shmFile, "rw").getChannel();
         sharedMemoryByte = fc.map(MapMode.READ_WRITE, 0, fileSize);
         sharedMemory = sharedMemoryByte.asIntBuffer();
-        
-        // Obtain the put-area lock right from the start:
-        putLock = fc.lock(SERVER_AREA_OFFSET_BYTES, SERVER_AREA_SIZE_BYTES, false);
-        syncLock = fc.lock(SYNC_AREA_OFFSET_BYTES, SYNC_AREA_SIZE_BYTES, false);
+        commandLock = new SeqLock(sharedMemoryByte, 0);
+        statusLock = new SeqLock(sharedMemoryByte, USER_AREA_OFFSET);
         
         ioThread = new Thread("VMCommsMain") {
             @OnThread(Tag.Worker)
@@ -175,7 +234,7 @@ public class VMCommsMain implements Closeable
      */
     @Override
     @OnThread(value = Tag.FXPlatform, ignoreParent = true)
-    public void close()
+    public synchronized void close()
     {
         try
         {
@@ -191,6 +250,26 @@ public class VMCommsMain implements Closeable
         fc = null;
         sharedMemoryByte = null;
         sharedMemory = null;
+        wakeIOThread();
+    }
+
+    /**
+     * Get the position (as an int index) of the given image slot (0 or 1) in a shared memory
+     * file of the given size.
+     */
+    @OnThread(Tag.Any)
+    public static int getImageSlotOffset(int fileSize, int slot)
+    {
+        return IMAGE_AREA_OFFSET + slot * getImageSlotSize(fileSize);
+    }
+
+    /**
+     * Get the size (in ints, i.e. pixels) of each image slot in a shared memory file of the given size.
+     */
+    @OnThread(Tag.Any)
+    public static int getImageSlotSize(int fileSize)
+    {
+        return (fileSize / 4 - IMAGE_AREA_OFFSET) / 2;
     }
     
     /**
@@ -225,6 +304,28 @@ public class VMCommsMain implements Closeable
         return fileSize;
     }
 
+    /**
+     * Publish the server area: the last consumed image, the count of events received, and
+     * the pending commands.
+     */
+    @OnThread(Tag.Worker)
+    private synchronized void writeServerArea()
+    {
+        commandLock.beginWrite();
+        try
+        {
+            sharedMemory.position(1);
+            sharedMemory.put(lastConsumedImg);
+            sharedMemory.put(lastEventCount);
+            writeCommands(pendingCommands);
+        }
+        finally
+        {
+            commandLock.endWrite();
+        }
+        serverAreaChanged = false;
+    }
+
     /**
      * Write commands into the shared memory buffer.
      */
@@ -297,14 +398,14 @@ public class VMCommsMain implements Closeable
         
         if (haveUpdatedImage && shouldDraw)
         {
-            // skip: sequence number, last paint sequence, then:
+            // The debug VM will not overwrite this slot until we say we have consumed it:
             IntBuffer copy = sharedMemory.asReadOnlyBuffer();
-            copy.position(USER_AREA_OFFSET + 2);
-            int width = copy.get();
-            int height = copy.get();
-            stage.receivedWorldImage(width, height, copy);
+            copy.position(getImageSlotOffset(fileSize, lastPaintSlot));
+            stage.receivedWorldImage(lastPaintWidth, lastPaintHeight, copy);
             haveUpdatedImage = false;
             lastConsumedImg = lastPaintSeq;
+            serverAreaChanged = true;
+            wakeIOThread();
         }
         
         if (haveUpdatedErrorCount)
@@ -330,167 +431,239 @@ public class VMCommsMain implements Closeable
         }
 
         stage.setLastUserExecutionStartTime(lastExecStartTime, delayLoop);
+
+        if (metricsReport != null && metricsReport.getSequence() != lastMetricsSequence)
+        {
+            lastMetricsSequence = metricsReport.getSequence();
+            stage.receivedMetrics(metricsReport);
+        }
             
         checkingIO = false;
         
-        notifyAll(); // wake IO thread
         return vmReadyForInvocations;
     }
 
     /**
-     * Check for input / send output
+     * Check for input / send output, then wait until the debug VM publishes a new status or
+     * there is something new to send.
+     * 
      * @return true If we should continue processing, false if not.
      */
     @OnThread(Tag.Worker)
     private boolean checkIO()
     {
-        FileChannel sharedMemoryLock = this.fc;
+        int[] events = null;
+        int observedStatusSeq;
+        boolean mustWrite;
+        
+        synchronized (this)
+        {
+            if (shmFile == null)
+            {
+                return false;
+            }
+            
+            if (serverAreaChanged)
+            {
+                writeServerArea();
+            }
 
-        // We are holding the lock for the main put area:
-        sharedMemory.position(1);
-        sharedMemory.put(-lastSeq.get());
-        sharedMemory.put(lastConsumedImg);
-        writeCommands(pendingCommands);
+            observedStatusSeq = statusLock.getSequence();
+            if (observedStatusSeq != lastStatusLockSeq)
+            {
+                events = readStatus();
+            }
+            // Acknowledgements of commands and events must be sent without waiting for the
+            // debug VM, which may have nothing new to publish until it sees them:
+            mustWrite = serverAreaChanged;
+        }
+
+        // Dispatch outside the synchronized block, so that listeners cannot deadlock with checkIO(GreenfootStage):
+        if (events != null)
+        {
+            for (int event : events)
+            {
+                eventListener.simulationEvent(event);
+            }
+        }
         
-        FileLock fileLock = null;
+        if (!mustWrite)
+        {
+            // If a status was being written as we looked, this waits until it has been written:
+            statusLock.await(observedStatusSeq, IDLE_WAIT_NANOS, wakeup);
+        }
+        return true;
+    }
+
+    /**
+     * Read the status record published by the debug VM, if it is not currently being written.
+     * 
+     * @return  The new events in the record, or null if there are none.
+     */
+    @OnThread(Tag.Worker)
+    private synchronized int[] readStatus()
+    {
+        int statusSeq = statusLock.beginRead();
+        if (statusSeq == -1)
+        {
+            return null;
+        }
+        int length = Math.max(0, Math.min(sharedMemory.get(USER_AREA_OFFSET + 1), STATUS_AREA_SIZE - 2));
+        sharedMemory.get(USER_AREA_OFFSET + 2, statusCopy, 0, length);
+        if (!statusLock.validate(statusSeq))
+        {
+            // Torn; we'll read the next one:
+            return null;
+        }
+        lastStatusLockSeq = statusSeq;
+        IntBuffer status = IntBuffer.wrap(statusCopy, 0, length);
         
+        int[] events = null;
         try
         {
-            putLock.release();
-            fileLock = sharedMemoryLock.lock(USER_AREA_OFFSET_BYTES, fileSize - USER_AREA_OFFSET_BYTES, false);
-            syncLock.release();
+            int seq = status.get();
+            if (seq <= lastSeq.get())
+            {
+                return null;
+            }
+            // The client VM has sent a new frame for us:
+            lastSeq.set(seq);
 
-            int seq = sharedMemory.get(USER_AREA_OFFSET);
-            if (seq > lastSeq.get())
+            int paintSeq = status.get();
+            int slot = status.get();
+            int width = status.get();
+            int height = status.get();
+            if (width != 0 && height != 0 && paintSeq != lastPaintSeq)
             {
-                // The client VM has painted a new frame for us:
-                lastSeq.set(seq);
+                lastPaintSeq = paintSeq;
+                lastPaintSlot = slot;
+                lastPaintWidth = width;
+                lastPaintHeight = height;
+                haveUpdatedImage = true;
+            }
 
-                synchronized (this)
+            // Get rid of all commands that the client has confirmed it has seen:
+            int lastAckCommand = status.get();
+            if (lastAckCommand != -1)
+            {
+                for (Iterator<Command> iterator = pendingCommands.iterator(); iterator.hasNext(); )
                 {
-                    sharedMemory.position(USER_AREA_OFFSET + 1);
-                    int paintSeq = sharedMemory.get();
-                    int width = sharedMemory.get();
-                    int height = sharedMemory.get();
-                    if (width != 0 && height != 0 && paintSeq != lastPaintSeq)
-                    {
-                        lastPaintSeq = paintSeq;
-                        haveUpdatedImage = true;
-                    }
-                    sharedMemory.position(sharedMemory.position() + width * height);
-    
-                    // Get rid of all commands that the client has confirmed it has seen:
-                    int lastAckCommand = sharedMemory.get();
-                    if (lastAckCommand != -1)
+                    Command pendingCommand = iterator.next();
+                    if (pendingCommand.commandSequence <= lastAckCommand)
                     {
-                        for (Iterator<Command> iterator = pendingCommands.iterator(); iterator.hasNext(); )
+                        if(pendingCommand.commandType == COMMAND_SET_SPEED)
                         {
-                            Command pendingCommand = iterator.next();
-                            if (pendingCommand.commandSequence <= lastAckCommand)
-                            {
-                                if(pendingCommand.commandType == COMMAND_SET_SPEED)
-                                {
-                                    setSpeedCommandCount = setSpeedCommandCount - 1;
-                                }
-                                iterator.remove();
-                            }
+                            setSpeedCommandCount = setSpeedCommandCount - 1;
                         }
+                        iterator.remove();
+                        serverAreaChanged = true;
                     }
-                    
-                    // If there's a new error, show the terminal at the front so that the user sees it: 
-                    int latestStoppedWithErrorCount = sharedMemory.get();
-                    if (latestStoppedWithErrorCount != previousStoppedWithErrorCount)
-                    {
-                        //stage.bringTerminalToFront();
-                        previousStoppedWithErrorCount = latestStoppedWithErrorCount;
-                        haveUpdatedErrorCount = true;
-                    }
-                    
-                    int highTime = sharedMemory.get();
-                    int lowTime = sharedMemory.get();
-                    lastExecStartTime = (((long)highTime) << 32) | ((long)lowTime & 0xFFFFFFFFL);
-    
-                    int simSpeed = sharedMemory.get();
-                    // Only send the new speed value if the pendingCommands does not include setSpeed commands
-                    if (setSpeedCommandCount == 0)
-                    {
-                        updatedSimulationSpeed = simSpeed;
-                    }
-    
-                    int worldCounter = sharedMemory.get();
-                    // If the new counter is different (zero/non-zero change, or incremented),
-                    // store that into our fields:
-                    if (worldCounter != prevWorldCounter)
-                    {
-                        worldChanged = true;
-                        worldPresentAfterChange = worldCounter != 0;
-                        prevWorldCounter = worldCounter;
-                    }
-                    
-                    worldCellSize = sharedMemory.get();
-                    
-                    int askId = sharedMemory.get();
-                    if (askId > 0)
-                    {
-                        if (askId > lastAnswer)
-                            this.askId = askId;
-                        // Length followed by codepoints for the prompt string:
-                        int askLength = sharedMemory.get();
-                        promptCodepoints = new int[askLength];
-                        sharedMemory.get(promptCodepoints);
-                    }
-
-                    int delayLoopStatus = sharedMemory.get();
-                    delayLoop = delayLoopStatus == 1;
-                    int vmReadyStatus = sharedMemory.get();
-                    vmReadyForInvocations = vmReadyStatus == 1;
                 }
             }
-        }
-        catch (IOException ex)
-        {
-            Debug.reportError(ex);
-        }
-        catch (IllegalArgumentException ex)
-        {
-            // Happens when world size is too large: swallow quietly, as will happen repeatedly.
-            // The exception will be reported to the user from the debug VM side.
-        }
-        finally
-        {
-            // Re-acquire the put-area lock (A), and then release the get-area lock (B)
-            // before re-acquiring the sync lock (C):
-            try
+            
+            // If there's a new error, show the terminal at the front so that the user sees it: 
+            int latestStoppedWithErrorCount = status.get();
+            if (latestStoppedWithErrorCount != previousStoppedWithErrorCount)
             {
-                putLock = fc.lock(SERVER_AREA_OFFSET_BYTES, SERVER_AREA_SIZE_BYTES, false);
-                if (fileLock != null)
-                {
-                    fileLock.release();
-                }
-                syncLock = fc.lock(SYNC_AREA_OFFSET_BYTES, SYNC_AREA_SIZE_BYTES, false);
+                previousStoppedWithErrorCount = latestStoppedWithErrorCount;
+                haveUpdatedErrorCount = true;
             }
-            catch (IOException ex)
+            
+            int highTime = status.get();
+            int lowTime = status.get();
+            lastExecStartTime = (((long)highTime) << 32) | ((long)lowTime & 0xFFFFFFFFL);
+
+            int simSpeed = status.get();
+            // Only send the new speed value if the pendingCommands does not include setSpeed commands
+            if (setSpeedCommandCount == 0)
             {
-                Debug.reportError(ex);
+                updatedSimulationSpeed = simSpeed;
             }
-        }
-        
-        
-        // To avoid consuming close to 100% CPU, we wait on the animation timer:
-        synchronized (this)
-        {
-            try
+
+            int worldCounter = status.get();
+            // If the new counter is different (zero/non-zero change, or incremented),
+            // store that into our fields:
+            if (worldCounter != prevWorldCounter)
+            {
+                worldChanged = true;
+                worldPresentAfterChange = worldCounter != 0;
+                prevWorldCounter = worldCounter;
+            }
+            
+            worldCellSize = status.get();
+            
+            int askId = status.get();
+            if (askId > 0)
+            {
+                if (askId > lastAnswer)
+                    this.askId = askId;
+                // Length followed by codepoints for the prompt string:
+                int askLength = status.get();
+                promptCodepoints = new int[askLength];
+                status.get(promptCodepoints);
+            }
+
+            int delayLoopStatus = status.get();
+            delayLoop = delayLoopStatus == 1;
+            int vmReadyStatus = status.get();
+            vmReadyForInvocations = vmReadyStatus == 1;
+
+            // The event ring: the count of events ever sent, followed by the ring slots.
+            // We may not see every frame, but the debug VM does not overwrite an event until
+            // we have acknowledged it (via the server area), so the ring holds every event
+            // after the count we last saw:
+            int eventCount = status.get();
+            int ringStart = status.position();
+            // (Subtraction copes with the counts overflowing)
+            int newEventCount = eventCount - lastEventCount;
+            if (newEventCount < 0 || newEventCount > EVENT_RING_SIZE)
             {
-                workerWaiting = true;
-                wait();
-                workerWaiting = false;
+                // Should not happen, unless the record is corrupt.  We can't tell which events
+                // are valid, so start again from the current count:
+                Debug.message("Simulation event count out of step (had " + lastEventCount
+                    + ", received " + eventCount + "); skipping events");
+                lastEventCount = eventCount;
+                serverAreaChanged = true;
             }
-            catch (InterruptedException ie)
+            else if (newEventCount != 0)
             {
-                // Nothing needs to be done.
+                events = new int[newEventCount];
+                for (int i = 0; i < events.length; i++)
+                {
+                    events[i] = status.get(ringStart + Math.floorMod(lastEventCount + i, EVENT_RING_SIZE));
+                }
+                lastEventCount = eventCount;
+                serverAreaChanged = true;
             }
-            return shmFile != null;
+            status.position(ringStart + EVENT_RING_SIZE);
+            metricsReport = MetricsReport.read(status);
+        }
+        catch (RuntimeException ex)
+        {
+            // Can only happen if the debug VM wrote a bad record (e.g. it was terminated
+            // while writing).  Ignore it; the next one should be fine.
         }
+        return events;
+    }
+
+    /**
+     * Wake the IO thread so that it sends a changed server area.
+     */
+    @OnThread(Tag.Any)
+    private void wakeIOThread()
+    {
+        wakeup.set(true);
+        LockSupport.unpark(ioThread);
+    }
+
+    /**
+     * Add a command to be sent to the debug VM.
+     */
+    private synchronized void addCommand(Command command)
+    {
+        pendingCommands.add(command);
+        serverAreaChanged = true;
+        wakeIOThread();
     }
     
     /**
@@ -498,7 +671,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void instantiateWorld(String className)
     {
-        pendingCommands.add(new Command(COMMAND_INSTANTIATE_WORLD, className.codePoints().toArray()));
+        addCommand(new Command(COMMAND_INSTANTIATE_WORLD, className.codePoints().toArray()));
     }
     
     /**
@@ -506,7 +679,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void discardWorld()
     {
-        pendingCommands.add(new Command(COMMAND_DISCARD_WORLD));
+        addCommand(new Command(COMMAND_DISCARD_WORLD));
     }
     
     /**
@@ -515,7 +688,7 @@ public class VMCommsMain implements Closeable
     public synchronized void sendAnswer(int askIdBeingAnswered, String answer)
     {
         Command answerCommand = new Command(COMMAND_ANSWERED, answer.codePoints().toArray());
-        pendingCommands.add(answerCommand);
+        addCommand(answerCommand);
         // Remember that we've now answered:
         lastAnswer = askIdBeingAnswered;
     }
@@ -534,7 +707,7 @@ public class VMCommsMain implements Closeable
         System.arraycopy(keyCodepoints, 0, combined, 1, keyCodepoints.length);
         combined[1 + keyCodepoints.length] = value == null ? -1 : valueCodepoints.length;
         System.arraycopy(valueCodepoints, 0, combined, 2 + keyCodepoints.length, valueCodepoints.length);
-        pendingCommands.add(new Command(COMMAND_PROPERTY_CHANGED, combined));
+        addCommand(new Command(COMMAND_PROPERTY_CHANGED, combined));
     }
     
     /**
@@ -542,7 +715,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void act()
     {
-        pendingCommands.add(new Command(COMMAND_ACT));
+        addCommand(new Command(COMMAND_ACT));
     }
     
     /**
@@ -550,7 +723,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void runSimulation()
     {
-        pendingCommands.add(new Command(COMMAND_RUN));
+        addCommand(new Command(COMMAND_RUN));
     }
 
     /**
@@ -558,7 +731,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void pauseSimulation()
     {
-        pendingCommands.add(new Command(COMMAND_PAUSE));
+        addCommand(new Command(COMMAND_PAUSE));
     }
     
     /**
@@ -569,7 +742,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void continueDrag(int dragId, int x, int y)
     {
-        pendingCommands.add(new Command(COMMAND_CONTINUE_DRAG, dragId, x, y));
+        addCommand(new Command(COMMAND_CONTINUE_DRAG, dragId, x, y));
     }
     
     /**
@@ -577,7 +750,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void endDrag(int dragId, int cellX, int cellY)
     {
-        pendingCommands.add(new Command(COMMAND_END_DRAG, dragId, cellX, cellY));
+        addCommand(new Command(COMMAND_END_DRAG, dragId, cellX, cellY));
     }
     
     /**
@@ -596,7 +769,7 @@ public class VMCommsMain implements Closeable
         data[0] = keyCode.ordinal();
         System.arraycopy(textCodePoints, 0, data, 1, textCodePoints.length);
         
-        pendingCommands.add(new Command(eventType, data));
+        addCommand(new Command(eventType, data));
     }
     
     /**
@@ -610,7 +783,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void sendMouseEvent(int eventType, int x, int y, int button, int clickCount)
     {
-        pendingCommands.add(new Command(eventType, x, y, button, clickCount));
+        addCommand(new Command(eventType, x, y, button, clickCount));
     }
 
     /**
@@ -620,7 +793,7 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void setSimulationSpeed(int speed)
     {
-        pendingCommands.add(new Command(COMMAND_SET_SPEED, speed));
+        addCommand(new Command(COMMAND_SET_SPEED, speed));
         // Keeps track of how many setSpeed commands exist in the pendingCommand list.
         // This is useful to avoid speedSlider jittering movement.
         setSpeedCommandCount = setSpeedCommandCount + 1;
@@ -633,17 +806,6 @@ public class VMCommsMain implements Closeable
     @OnThread(Tag.VMEventHandler)
     public synchronized void vmTerminated()
     {
-        // We should only interfere with the worker thread's state if it's currently in its waiting phase:
-        while (!workerWaiting)
-        {
-            try
-            {
-                wait();
-            }
-            catch (InterruptedException e)
-            {
-            }
-        }
         lastSeq.addAndGet(1000);
         pendingCommands.clear();        
         setSpeedCommandCount = 0;
@@ -655,6 +817,13 @@ public class VMCommsMain implements Closeable
         sharedMemoryByte.position(0);
         sharedMemoryByte.put(new byte[fileSize], 0, fileSize);
         vmReadyForInvocations = false;
+        metricsReport = null;
+        lastMetricsSequence = 0;
+        lastEventCount = 0;
+        // The zeroed buffer has both locks at zero; the new debug VM needs the server area:
+        lastStatusLockSeq = 0;
+        serverAreaChanged = true;
+        wakeIOThread();
     }
 
     /**
@@ -663,7 +832,15 @@ public class VMCommsMain implements Closeable
      */
     public synchronized void worldFocusChanged(boolean focused)
     {
-        pendingCommands.add(new Command(focused ? COMMAND_WORLD_FOCUS_GAINED : COMMAND_WORLD_FOCUS_LOST));
+        addCommand(new Command(focused ? COMMAND_WORLD_FOCUS_GAINED : COMMAND_WORLD_FOCUS_LOST));
+    }
+
+    /**
+     * Turn collection of simulation metrics on or off in the debug VM.
+     */
+    public synchronized void setMetricsEnabled(boolean enabled)
+    {
+        addCommand(new Command(COMMAND_SET_METRICS_ENABLED, enabled ? 1 : 0));
     }
 
     /**
@@ -26,6 +26,7 @@ import greenfoot.World;
 import greenfoot.WorldVisitor;
 import greenfoot.core.ShadowProjectProperties;
 import greenfoot.core.Simulation;
+import greenfoot.core.SimulationMetrics;
 import greenfoot.core.WorldHandler;
 import greenfoot.gui.WorldRenderer;
 import greenfoot.gui.input.KeyboardManager;
@@ -39,15 +40,16 @@ import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.nio.BufferOverflowException;
 import java.nio.IntBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
-import java.nio.channels.FileLock;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Lives on the Simulation VM (aka debug VM), and handles communications with the server
@@ -77,27 +79,31 @@ public class VMCommsSimulation
     private boolean delayLoopEntered;
 
     private final ShadowProjectProperties projectProperties;
+
+    /**
+     * How often we check for changes to send, if nothing prompts a frame sooner.  A frame is
+     * only published if something in it has changed; while nothing changes, the interval
+     * doubles up to IDLE_FRAME_INTERVAL_NANOS, so that an idle debug VM rarely wakes.
+     */
+    private static final long FRAME_INTERVAL_NANOS = 16_000_000L;
+    private static final long IDLE_FRAME_INTERVAL_NANOS = 128_000_000L;
     
     /**
      * Shared memory documentation (this comment may get moved to somewhere more appropriate later).
      *
      * The shared memory consists of two successive lumps of memory. One is used by the server VM to
-     * transmit data, and the other is used by the debug VM for the same purpose. File locks protect
-     * both regions to prevent (in cases where it matters) either side from reading a potentially
-     * incomplete data frame while the other side is still writing it. The locking protocol is
-     * described in VMCommsMain.
+     * transmit data, and the other is used by the debug VM for the same purpose. Each begins with
+     * a sequence lock (see {@link SeqLock}) which lets the reader detect a record that was modified
+     * while it was being read; the protocol is described in VMCommsMain.
      * 
      * Its format is as follows, where each position is an integer position (i.e. bytes times four):
      * 
      * Server area (16kb):
-     * Pos 0: Reserved. Currently this region is locked independently; the "real" server area starts
-     *        following this position.
-     * Pos 1: When the number is negative, it indicates that the server VM has sent back
-     *        information to the debug VM to read.  This includes keyboard and mouse events,
-     *        as shown below.
-     * Pos 2: The last consumed image frame received from the debug VM. Note that the debug VM
-     *        should not update the image in the buffer until the current image is consumed
+     * Pos 0: Sequence lock for the server area.
+     * Pos 1: The last consumed image frame received from the debug VM. Note that the debug VM
+     *        must not write into the image slot which held that image until it is consumed
      *        (otherwise there may be paint artifacts such as tearing). 
+     * Pos 2: Count of lifecycle events received from the debug VM's event ring.
      * Pos 3: Count of commands (C), can be zero
      * Pos 4 onwards:
      *        Commands.  Each command begins with an integer sequence ID, then has
@@ -105,38 +111,75 @@ public class VMCommsSimulation
      *        The first integer of the L integers is always the
      *        command type, and the amount of other integers depend on the command.  For example,
      *        GreenfootStage.COMMAND_RUN just has the command type integer and no more, whereas
-     *        mouse events have four integers.
+     *        mouse events have four integers.  Commands stay in the area until the debug VM
+     *        acknowledges them, so the debug VM ignores those it has already processed.
      *
-     * Debug VM area (10M - 16kb): [Positions relative to beginning]
+     * Debug VM area, status record (256kb): [Positions relative to beginning]
      * 
-     * Pos 0: Sequence index when the current (included) image was painted (the image is included
+     * Pos 0: Sequence lock for the status record.
+     * Pos 1: Length of the rest of the record (R).
+     * Pos 2: Sequence index of this frame.
+     * Pos 3: Sequence index when the current image was painted (the image is referred to
      *        unchanged in subsequent frames).
-     * Pos 1: Width of world image in pixels (W)
-     * Pos 2: Height of world image in pixels (H)
-     * Pos 3 incl to 3+(W*H) excl, if W and H are both greater than zero:
+     * Pos 4: The image slot (0 or 1) holding the current image.
+     * Pos 5: Width of world image in pixels (W)
+     * Pos 6: Height of world image in pixels (H)
+     * Pos 7: Sequence ID of most recently processed command, or -1 if N/A.
+     * Pos 8: Stopped-with-error count.  (If this goes up, server VM will bring terminal to front)
+     * Pos 9 and 10: Two ints (highest bits first) with value of System.currentTimeMillis()
+     *               at the point when some execution that may contain user code last started on
+     *               the simulation thread, or 0L if user code is not currently running.
+     * Pos 11: The current simulation speed (1 to 100)
+     * Pos 12: world counter if a world is currently installed, or 0 if there is no world.
+     * Pos 13: The world cell size in pixels
+     * Pos 14: -1 if not currently awaiting a Greenfoot.ask() answer.
+     *         If awaiting, it is the ask ID, followed by the count (P) of following
+     *         codepoints which make up the prompt, and the codepoints.
+     * Pos 15+P: 1 if the the delay loop is currently running, or 0 otherwise.
+     * Pos 16+P: 1 if the debug VM is ready for invocations, or 0 otherwise.
+     * Pos 17+P: Count (E) of lifecycle events sent since the debug VM started.
+     * Pos 18+P to 18+P+N excl, where N is VMCommsMain.EVENT_RING_SIZE:
+     *           The event ring.  Event number M (counting from zero) is in slot M % N, and is
+     *           one of the VMCommsMain.EVENT_ constants.  The server VM remembers the count
+     *           it last saw and reads the events after it, then acknowledges them in the server
+     *           area.  The debug VM never has more than N unacknowledged events in the ring, so
+     *           an event is not overwritten before the server VM has read it, even if the server
+     *           VM does not read every frame.
+     * Pos 18+P+N onwards: Simulation metrics, in the format described in {@link MetricsReport}.
+     *
+     * Debug VM area, image slots (the rest of the file, split in two):
      *        W * H pixels one row at a time with no gaps, each pixel is one
      *        integer, in BGRA form, i.e. blue is highest 8 bits, alpha is lowest.
-     * Pos 3+(W*H): Sequence ID of most recently processed command, or -1 if N/A.
-     * Pos 4+(W*H): Stopped-with-error count.  (If this goes up, server VM will bring terminal to front)
-     * Pos 5+(W*H) and 6+(W*H): Two ints (highest bits first) with value of System.currentTimeMillis()
-     *                          at the point when some execution that may contain user code last started on
-     *                          the simulation thread, or 0L if user code is not currently running.
-     * Pos 7+(W*H): The current simulation speed (1 to 100)
-     * Pos 8+(W*H): world counter if a world is currently installed, or 0 if there is no world.
-     * Pos 9+(W*H): The world cell size in pixels
-     * Pos 10+(W*H): -1 if not currently awaiting a Greenfoot.ask() answer.
-     *              If awaiting, it is count (P) of following codepoints which make up prompt.
-     * Pos 11+(W*H) to 11+(W*H)+P excl: codepoints making up ask prompt.
-     * Pos 11+(W*H)+P: 1 if the the delay loop is currently running, or 0 otherwise.
      */
     private final IntBuffer sharedMemory;
     private int seq = 1;
-    private final FileChannel shmFileChannel;
-    private FileLock putLock;
+    private final SeqLock commandLock;
+    private final SeqLock statusLock;
+    // The server area lock value when we last read the server area:
+    private int lastCommandLockSeq = 0;
+    // Copies of the server area and our status record, to read from and write to in one go:
+    private final int[] serverAreaCopy = new int[VMCommsMain.USER_AREA_OFFSET - 1];
+    private final IntBuffer status = IntBuffer.allocate(VMCommsMain.STATUS_AREA_SIZE - 2);
+    // The status record as last published (with its length), to tell whether it has changed:
+    private final int[] publishedStatus = new int[VMCommsMain.STATUS_AREA_SIZE - 2];
+    private int publishedStatusLength = -1;
+    // The current interval between checks for changes to send:
+    private long frameInterval = FRAME_INTERVAL_NANOS;
+    // Set (followed by unparking the communications thread) to send a frame promptly:
+    private final AtomicBoolean wakeup = new AtomicBoolean();
+    private final Thread commsThread;
     private long lastPaintNanos = System.nanoTime();
     private int lastAckCommand = -1;
     private int lastPaintSeq = -1; // last paint sequence
-    private int lastPaintSize; // number of ints last transmitted as image
+    private int lastPaintSlot = 1; // the slot holding the last painted image
+    private int lastPaintWidth;
+    private int lastPaintHeight;
+    // The paint sequence of the image in each slot (-1 if none):
+    private final int[] slotPaintSeq = new int[] {-1, -1};
+    // The last consumed image frame, as reported by the server VM:
+    private int lastConsumedImg = -1;
+    // The count of lifecycle events the server VM has received, as reported by it:
+    private int serverEventCount = 0;
     
     // How many times have we stopped with an error?  We continuously send the count to the
     // server VM, so that the server VM can observe changes in the count (only ever increases).
@@ -149,6 +192,14 @@ public class VMCommsSimulation
     // Size of the shared memory file
     private final int fileSize;
     private final AtomicBoolean userVMReadyForInvocations = new AtomicBoolean(false);
+    /** Lifecycle events which have not yet been put in the event ring */
+    @OnThread(value = Tag.Any, requireSynchronized = true)
+    private final ArrayDeque<Integer> pendingEvents = new ArrayDeque<>();
+    /** The event ring, as last sent, and the count of events put in it so far */
+    @OnThread(value = Tag.Any, requireSynchronized = true)
+    private final int[] eventRing = new int[VMCommsMain.EVENT_RING_SIZE];
+    @OnThread(value = Tag.Any, requireSynchronized = true)
+    private int eventCount = 0;
 
     /**
      * Construct a VMCommsSimulation.
@@ -163,16 +214,16 @@ public class VMCommsSimulation
         this.projectProperties = projectProperties;
         this.seq = seqStart;
         worldRenderer = new WorldRenderer();
-        try
+        try (FileChannel shmFileChannel = new RandomAccessFile(shmFilePath, "rw").getChannel())
         {
-            shmFileChannel = new RandomAccessFile(shmFilePath, "rw").getChannel();
             this.fileSize = fileSize;
+            // The mapping stays valid after the channel is closed:
             MappedByteBuffer mbb = shmFileChannel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
             sharedMemory = mbb.asIntBuffer();
-            putLock = shmFileChannel.lock(VMCommsMain.USER_AREA_OFFSET_BYTES,
-                    fileSize - VMCommsMain.USER_AREA_OFFSET_BYTES, false);
+            commandLock = new SeqLock(mbb, 0);
+            statusLock = new SeqLock(mbb, VMCommsMain.USER_AREA_OFFSET);
             
-            new Thread("VMCommsSimulation") {
+            commsThread = new Thread("VMCommsSimulation") {
                 @OnThread(value = Tag.Worker,ignoreParent = true)
                 public void run()
                 {
@@ -181,7 +232,8 @@ public class VMCommsSimulation
                         doInterVMComms();
                     }
                 }
-            }.start();
+            };
+            commsThread.start();
         }
         catch (IOException e)
         {
@@ -203,6 +255,31 @@ public class VMCommsSimulation
         }
     }
 
+    /**
+     * Send a lifecycle event to the server VM.  This does not block: the event is sent with
+     * the next frame, or a later one if the event ring is full of events which the server VM
+     * has not yet received.
+     *
+     * @param event  One of the VMCommsMain.EVENT_ constants
+     */
+    @OnThread(Tag.Any)
+    public synchronized void postEvent(int event)
+    {
+        pendingEvents.add(event);
+        wakeCommsThread();
+    }
+
+    /**
+     * Wake the communications thread, so that it sends a frame now rather than at the
+     * next regular interval.
+     */
+    @OnThread(Tag.Any)
+    private void wakeCommsThread()
+    {
+        wakeup.set(true);
+        LockSupport.unpark(commsThread);
+    }
+
     public void markVMReady()
     {
         userVMReadyForInvocations.set(true);
@@ -222,10 +299,14 @@ public class VMCommsSimulation
     public void paintRemote(PaintWhen paintWhen)
     {
         long now = System.nanoTime();
-        if (paintWhen == PaintWhen.IF_DUE && now - lastPaintNanos <= 8_333_333L)
+        Simulation simulation = Simulation.getInstance();
+        long paintInterval = simulation == null ? 8_333_333L : simulation.getPaintInterval();
+        if (paintWhen == PaintWhen.IF_DUE && now - lastPaintNanos <= paintInterval)
         {
-            return; // No need to draw frame if less than 1/120th of sec between them,
-                         // but we must schedule a paint for the next sequence we send.
+            // No need to draw frame if less than 1/120th of sec between them (or more, if
+            // the simulation is behind schedule):
+            SimulationMetrics.getInstance().paintSkipped();
+            return;
         }
 
         if (world != null)
@@ -242,15 +323,21 @@ public class VMCommsSimulation
                 worldImage = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
             }
             
+            SimulationMetrics metrics = SimulationMetrics.getInstance();
+            long renderStart = metrics.startTiming();
             worldRenderer.renderWorld(world, worldImage);
+            metrics.renderFinished(renderStart);
             
             BufferedImage oldImage = worldImageForSending.getAndSet(worldImage);
             // If there was an old image waiting which we've overwritten, put it back in our queue of old images:
             if (oldImage != null)
             {
+                // That frame was never sent:
+                metrics.paintSkipped();
                 worldImagesForPainting.offer(oldImage);
                 // If it doesn't fit because the queue is full, just let it get GCed.
             }
+            wakeCommsThread();
         }
     }
 
@@ -260,6 +347,7 @@ public class VMCommsSimulation
         pAskPrompt = askPrompt;
         pAskId = askId;
         askAnswer = null;
+        wakeCommsThread();
         
         try
         {
@@ -278,7 +366,9 @@ public class VMCommsSimulation
     }
     
     /**
-     * Perform communications exchange with the other VM.
+     * Perform communications exchange with the other VM: read any new commands, publish a
+     * frame if anything has changed, then wait until the server VM publishes or there is
+     * something new to send.
      */
     @OnThread(Tag.Worker)
     private void doInterVMComms()
@@ -286,158 +376,184 @@ public class VMCommsSimulation
         // One element array to allow a reference to be set by readCommands:
         String[] answer = new String[] {null};
         
-        FileLock fileLock = null;
-        FileLock syncLock = null;
-        
-        try
+        int observedCommandSeq = commandLock.getSequence();
+        if (observedCommandSeq != lastCommandLockSeq && Simulation.getInstance() != null)
         {
-            // Get lock for our read area:
-            fileLock = shmFileChannel.lock(VMCommsMain.SERVER_AREA_OFFSET_BYTES,
-                    VMCommsMain.SERVER_AREA_SIZE_BYTES, false);
-
-            boolean doUpdateImage;
-            World curWorld;
-            int curWorldCounter;
-            synchronized (this)
-            {
-                // Don't send double-buffered image if world has since disappeared:
-                doUpdateImage = world != null;
-                curWorld = this.world;
-                curWorldCounter = this.worldCounter;
-            }
-            
-            sharedMemory.position(1);
-            int recvSeq = sharedMemory.get();
-            if (recvSeq < 0 && Simulation.getInstance() != null)
-            {
-                int lastConsumedImg = sharedMemory.get();
-                // Only update the image if the previous one was consumed:
-                doUpdateImage &= (lastConsumedImg >= lastPaintSeq);
-                int latest = readCommands(answer);
-                if (latest != -1)
-                {
-                    lastAckCommand = latest;
-                }
-            }
-            
-            BufferedImage img = doUpdateImage ? worldImageForSending.getAndSet(null) : null;
-            int [] raw = (img == null) ? null : ((DataBufferInt) img.getData().getDataBuffer()).getData();
+            readServerArea(answer);
+        }
 
-            int imageWidth = 0;
-            int imageHeight = 0;
-            if (img != null)
-            {
-                imageWidth = img.getWidth();
-                imageHeight = img.getHeight();
-            }
+        boolean published = writeFrame(answer[0] != null);
             
-            sharedMemory.position(VMCommsMain.USER_AREA_OFFSET);
-            sharedMemory.put(this.seq++);
-            if (img == null)
-            {
-                sharedMemory.put(lastPaintSeq);
-                sharedMemory.get(); // skip width
-                sharedMemory.get(); // skip height
-                sharedMemory.position(sharedMemory.position() + lastPaintSize);
-            }
-            else
-            {
-                lastPaintSeq = (seq - 1);
-                sharedMemory.put(lastPaintSeq);
-                sharedMemory.put(imageWidth);
-                sharedMemory.put(imageHeight);
-                for (int i = 0; i < raw.length; i++)
-                {
-                    sharedMemory.put(raw[i]);
-                }
-                lastPaintSize = raw.length;
-                
-                // Now that we've rendered from it, put it back into the old images for re-use:
-                worldImagesForPainting.offer(img);
-                // If it doesn't fit, just let it get GCed.
-            }
-            sharedMemory.put(lastAckCommand);
-            sharedMemory.put(stoppedWithErrorCount);
-            sharedMemory.put((int)(startOfCurExecution >> 32));
-            sharedMemory.put((int)(startOfCurExecution & 0xFFFFFFFFL));
-            if (Simulation.getInstance() != null)
-            {
-                sharedMemory.put(Simulation.getInstance().getSpeed());
-            }
-            else
-            {
-                sharedMemory.put(0);
-            }
-            sharedMemory.put(curWorld == null ? 0 : curWorldCounter);
-            sharedMemory.put(curWorld == null ? 0 : WorldVisitor.getCellSize(curWorld));
-            
-            // If not asking, put -1
-            synchronized (this)
-            {
-                if (pAskPrompt == null || answer[0] != null)
-                {
-                    sharedMemory.put(-1);
-                }
-                else
-                {
-                    // Asking, so put the ask ID, and the prompt string:
-                    int[] codepoints = pAskPrompt.codePoints().toArray();
-                    sharedMemory.put(pAskId);
-                    sharedMemory.put(codepoints.length);
-                    sharedMemory.put(codepoints);
-                }
-
-                // Write the status of the delay loop
-                sharedMemory.put(delayLoopEntered ? 1 : 0);
-                sharedMemory.put(userVMReadyForInvocations.get() ? 1 : 0);
-            }
+        if (answer[0] != null)
+        {
+            gotAskAnswer(answer[0]);
+        }
 
-            putLock.release();
+        // Check again soon after a change, but back off while nothing changes:
+        frameInterval = published ? FRAME_INTERVAL_NANOS : Math.min(frameInterval * 2, IDLE_FRAME_INTERVAL_NANOS);
+        // If the server was writing as we looked, this waits until it has finished:
+        commandLock.await(observedCommandSeq, frameInterval, wakeup);
+    }
 
-            // Lock the synchronisation area (C) to make sure that the server has acquired our put area:
-            syncLock = shmFileChannel.lock(VMCommsMain.SYNC_AREA_OFFSET_BYTES,
-                    VMCommsMain.SYNC_AREA_SIZE_BYTES, false);
-            
-            fileLock.release();
-            putLock = shmFileChannel.lock(VMCommsMain.USER_AREA_OFFSET_BYTES,
-                    fileSize - VMCommsMain.USER_AREA_OFFSET_BYTES, false);
-            syncLock.release();
+    /**
+     * Read the server area, if it is not currently being written, and process any new commands.
+     * 
+     * @param answer A one-element array in which to store an ask-answer, if received
+     */
+    @OnThread(Tag.Worker)
+    private void readServerArea(String[] answer)
+    {
+        int commandSeq = commandLock.beginRead();
+        if (commandSeq == -1)
+        {
+            return;
         }
-        catch (IOException ex)
+        sharedMemory.get(1, serverAreaCopy);
+        if (!commandLock.validate(commandSeq))
         {
-            try
-            {
-                putLock.release();
-            }
-            catch (Exception e) {}
-            Debug.reportError(ex);
+            // Torn; we'll read the next one:
+            return;
         }
-        catch (BufferOverflowException ex)
+        lastCommandLockSeq = commandSeq;
+        
+        IntBuffer serverArea = IntBuffer.wrap(serverAreaCopy);
+        lastConsumedImg = serverArea.get();
+        serverEventCount = serverArea.get();
+        int latest = readCommands(serverArea, answer);
+        if (latest != -1)
+        {
+            lastAckCommand = latest;
+        }
+    }
+
+    /**
+     * Write a new world image if there is one (and a free image slot for it), followed by the
+     * status record.  The status record is only published if it differs from the last one
+     * published (apart from its frame sequence).
+     * 
+     * @param answered  Whether an answer to the current ask request has just been received
+     * @return  Whether a frame was published
+     */
+    @OnThread(Tag.Worker)
+    private boolean writeFrame(boolean answered)
+    {
+        boolean doUpdateImage;
+        World curWorld;
+        int curWorldCounter;
+        synchronized (this)
+        {
+            // Don't send double-buffered image if world has since disappeared:
+            doUpdateImage = world != null;
+            curWorld = this.world;
+            curWorldCounter = this.worldCounter;
+        }
+        
+        // We can only use the slot which does not hold the current image, and only
+        // once the server has consumed the image which was last written into it:
+        int slot = 1 - lastPaintSlot;
+        doUpdateImage &= lastConsumedImg >= slotPaintSeq[slot];
+        BufferedImage img = doUpdateImage ? worldImageForSending.getAndSet(null) : null;
+        int [] raw = (img == null) ? null : ((DataBufferInt) img.getData().getDataBuffer()).getData();
+        if (raw != null && raw.length > VMCommsMain.getImageSlotSize(fileSize))
         {
-            try
-            {
-                putLock.release();
-                if (fileLock != null)
-                {
-                    fileLock.release();
-                }
-                if (syncLock != null)
-                {
-                    syncLock.release();
-                }
-            }
-            catch (Exception e) {}
             // Note: the user will see this message in the terminal, so it should be helpful:
             Debug.message("World size is too large.  If your world contains more than around 2.5 million pixels you will need to do the following.\n"
                 + "Close your project, then edit project.greenfoot in a text editor to add the following line:\n"
                 + "shm.size=40000000\n"
                 + "(The default is 20000000, keep increasing if needed.)  Save the file and re-open the project in Greenfoot.");
+            img = null;
         }
+        // Only used up if the frame is published:
+        int frameSeq = this.seq;
+        if (img != null)
+        {
+            long transferStart = System.nanoTime();
+            sharedMemory.put(VMCommsMain.getImageSlotOffset(fileSize, slot), raw);
+            SimulationMetrics.getInstance().framePublished(System.nanoTime() - transferStart);
+            lastPaintSeq = frameSeq;
+            lastPaintSlot = slot;
+            lastPaintWidth = img.getWidth();
+            lastPaintHeight = img.getHeight();
+            slotPaintSeq[slot] = frameSeq;
             
-        if (answer[0] != null)
+            // Now that we've rendered from it, put it back into the old images for re-use:
+            worldImagesForPainting.offer(img);
+            // If it doesn't fit, just let it get GCed.
+        }
+        
+        status.clear();
+        status.put(frameSeq);
+        status.put(lastPaintSeq);
+        status.put(lastPaintSlot);
+        status.put(lastPaintWidth);
+        status.put(lastPaintHeight);
+        status.put(lastAckCommand);
+        status.put(stoppedWithErrorCount);
+        status.put((int)(startOfCurExecution >> 32));
+        status.put((int)(startOfCurExecution & 0xFFFFFFFFL));
+        if (Simulation.getInstance() != null)
         {
-            gotAskAnswer(answer[0]);
+            status.put(Simulation.getInstance().getSpeed());
+        }
+        else
+        {
+            status.put(0);
+        }
+        status.put(curWorld == null ? 0 : curWorldCounter);
+        status.put(curWorld == null ? 0 : WorldVisitor.getCellSize(curWorld));
+        
+        // If not asking, put -1
+        synchronized (this)
+        {
+            if (pAskPrompt == null || answered)
+            {
+                status.put(-1);
+            }
+            else
+            {
+                // Asking, so put the ask ID, and the prompt string (as much as fits in the area):
+                int[] codepoints = pAskPrompt.codePoints().toArray();
+                int length = Math.min(codepoints.length, status.capacity() / 2);
+                status.put(pAskId);
+                status.put(length);
+                status.put(codepoints, 0, length);
+            }
+
+            // Write the status of the delay loop
+            status.put(delayLoopEntered ? 1 : 0);
+            status.put(userVMReadyForInvocations.get() ? 1 : 0);
+
+            // The whole ring is written every frame, as its position depends on the prompt size.
+            // Events which the server has not yet received must not be overwritten, so any
+            // more than the ring holds wait until the server acknowledges the earlier ones:
+            while (!pendingEvents.isEmpty() && eventCount - serverEventCount < eventRing.length)
+            {
+                eventRing[Math.floorMod(eventCount, eventRing.length)] = pendingEvents.poll();
+                eventCount += 1;
+            }
+            status.put(eventCount);
+            status.put(eventRing);
         }
+        MetricsReport.write(status, SimulationMetrics.getInstance().getLatestReport());
+
+        int length = status.position();
+        if (img == null && length == publishedStatusLength
+                && Arrays.equals(status.array(), 1, length, publishedStatus, 1, length))
+        {
+            // Nothing has changed, so the server has nothing to read:
+            return false;
+        }
+        System.arraycopy(status.array(), 0, publishedStatus, 0, length);
+        publishedStatusLength = length;
+        this.seq++;
+
+        // Publish the record.  The image (if any) was written before this, so the server
+        // will see it complete:
+        statusLock.beginWrite();
+        sharedMemory.put(VMCommsMain.USER_AREA_OFFSET + 1, length);
+        sharedMemory.put(VMCommsMain.USER_AREA_OFFSET + 2, status.array(), 0, length);
+        statusLock.endWrite();
+        return true;
     }
     
     /**
@@ -454,19 +570,25 @@ public class VMCommsSimulation
      * Read commands from the server VM.  Eventually, at the end of the Greenfoot
      * rewrite, this should live elsewhere (probably in WorldHandler or similar).
      *
+     * @param serverArea The server area, positioned at the command count
      * @param answer A one-element array in which to store an ask-answer, if received
      * @return The command acknowledge to write back to the buffer
      */
-    private int readCommands(String[] answer)
+    private int readCommands(IntBuffer serverArea, String[] answer)
     {
         int lastSeqID = -1;
-        int commandCount = sharedMemory.get();
+        int commandCount = serverArea.get();
         for (int i = 0; i < commandCount; i++)
         {
-            lastSeqID = sharedMemory.get();
-            int commandLength = sharedMemory.get();
+            lastSeqID = serverArea.get();
+            int commandLength = serverArea.get();
             int data[] = new int[commandLength];
-            sharedMemory.get(data);
+            serverArea.get(data);
+            if (lastSeqID <= lastAckCommand)
+            {
+                // Already processed, but the server hadn't seen our acknowledgement yet:
+                continue;
+            }
             if (Command.isKeyEvent(data[0]))
             {
                 KeyboardManager keyboardManager = WorldHandler.getInstance().getKeyboardManager();
@@ -563,6 +685,9 @@ public class VMCommsSimulation
                     case Command.COMMAND_WORLD_FOCUS_LOST:
                         WorldHandler.getInstance().worldFocusChanged(false);
                         break;
+                    case Command.COMMAND_SET_METRICS_ENABLED:
+                        SimulationMetrics.getInstance().setEnabled(data[1] != 0);
+                        break;
                 }
             }
         }
@@ -586,6 +711,7 @@ public class VMCommsSimulation
     {
         stoppedWithErrorCount += 1;
         paintRemote(PaintWhen.FORCE);
+        wakeCommsThread();
     }
 
     /**
@@ -21,6 +21,7 @@
  */
 package greenfoot.collision;
 
+import greenfoot.Actor;
 import greenfoot.TestUtilDelegate;
 import greenfoot.World;
 import greenfoot.TestObject;
@@ -208,4 +209,37 @@ public class IntersectionTest extends TestCase
         o2.setLocation(100, 100);
         assertNull(o2.getOneIntersectingObjectP(TestObject.class));
     }
+    
+    /**
+     * Checks that filtering a number of actors against an actor keeps the colliding
+     * actors in their original order, whether or not they needed the rotated test.
+     */
+    public void testFilterCollisionsKeepsOrder()
+    {
+        world = WorldCreator.createWorld(200, 200, 1);
+        TestObject o1 = new TestObject(20,20);
+        world.addObject(o1, 100, 100);
+        
+        TestObject rotated1 = new TestObject(20,20);
+        rotated1.setRotation(45);
+        world.addObject(rotated1, 115, 100);
+        TestObject plain = new TestObject(20,20);
+        world.addObject(plain, 100, 115);
+        TestObject far = new TestObject(20,20);
+        far.setRotation(30);
+        world.addObject(far, 10, 10);
+        TestObject rotated2 = new TestObject(20,20);
+        rotated2.setRotation(10);
+        world.addObject(rotated2, 85, 85);
+        
+        Actor[] actors = {rotated1, plain, far, rotated2};
+        GOCollisionQuery query = new GOCollisionQuery();
+        query.init(TestObject.class, o1);
+        int count = query.filterCollisions(actors, actors.length);
+        
+        assertEquals(3, count);
+        assertSame(rotated1, actors[0]);
+        assertSame(plain, actors[1]);
+        assertSame(rotated2, actors[2]);
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.collision;
+
+import greenfoot.TestObject;
+import greenfoot.TestUtilDelegate;
+import greenfoot.World;
+import greenfoot.WorldCreator;
+import greenfoot.core.Simulation;
+import greenfoot.util.GreenfootUtil;
+
+import junit.framework.TestCase;
+
+/**
+ * Test for pixel-perfect collisions between Actors
+ */
+public class PixelPerfectTest extends TestCase
+{
+    private World world;
+
+    @Override
+    protected void setUp()
+        throws Exception
+    {
+        GreenfootUtil.initialise(new TestUtilDelegate());
+        Simulation.initialize();
+    }
+    
+    public void testTransparentAreasDoNotCollide()
+    {
+        world = WorldCreator.createWorld(100, 100, 1);
+        // Only the top-left 5x5 pixels are opaque:
+        TestObject o1 = new TestObject(20, 20);
+        o1.getImage().fillRect(0, 0, 5, 5);
+        world.addObject(o1, 50, 50);
+        
+        TestObject o2 = new TestObject(20, 20);
+        o2.getImage().fill();
+        world.addObject(o2, 60, 60);
+        
+        // The bounding rectangles overlap:
+        assertTrue(o1.intersectsP(o2));
+        assertTrue(o1.isTouchingP(TestObject.class));
+        
+        world.setPixelPerfectCollisions(true);
+        assertFalse(o1.intersectsP(o2));
+        assertFalse(o2.intersectsP(o1));
+        assertFalse(o1.isTouchingP(TestObject.class));
+        
+        // Move over the opaque corner:
+        o2.setLocation(45, 45);
+        assertTrue(o1.intersectsP(o2));
+        assertTrue(o2.intersectsP(o1));
+        assertTrue(o1.getIntersectingObjectsP(TestObject.class).contains(o2));
+        
+        // Rotating o1 by 180 degrees moves the opaque corner to the bottom-right:
+        o1.setRotation(180);
+        assertFalse(o1.intersectsP(o2));
+        o2.setLocation(60, 60);
+        assertTrue(o1.intersectsP(o2));
+    }
+    
+    public void testPixelPerfectClasses()
+    {
+        world = WorldCreator.createWorld(100, 100, 1);
+        // Entirely transparent images:
+        TestObject o1 = new TestObject(20, 20);
+        world.addObject(o1, 50, 50);
+        TestObject o2 = new TestObject(20, 20);
+        world.addObject(o2, 55, 55);
+        
+        assertTrue(o1.intersectsP(o2));
+        world.setPixelPerfectCollisionClasses(TestObject.class);
+        assertFalse(o1.intersectsP(o2));
+        world.setPixelPerfectCollisionClasses();
+        assertTrue(o1.intersectsP(o2));
+    }
+}
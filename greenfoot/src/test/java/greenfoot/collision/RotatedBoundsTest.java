@@ -0,0 +1,150 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.collision;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the rotated bounding rectangle geometry.
+ */
+public class RotatedBoundsTest extends TestCase
+{
+    private int[] xs = new int[8];
+    private int[] ys = new int[8];
+    
+    /**
+     * Store the corners of a rectangle of the given size and rotation, centred at the
+     * given position, as rectangle number n in xs and ys.
+     */
+    private void setRect(int n, int width, int height, int rotation, int xc, int yc)
+    {
+        double[] offsets = RotatedBounds.getCornerOffsets(width, height, rotation);
+        RotatedBounds.getCorners(offsets, xc, yc, xs, ys, n * 4);
+    }
+    
+    private boolean intersects()
+    {
+        boolean result = RotatedBounds.intersects(xs, ys, 0, xs, ys, 4);
+        // The test is symmetric:
+        assertEquals(result, RotatedBounds.intersects(xs, ys, 4, xs, ys, 0));
+        return result;
+    }
+    
+    public void testTables()
+    {
+        assertEquals(0.0, RotatedBounds.sin(0), 1e-12);
+        assertEquals(1.0, RotatedBounds.sin(90), 1e-12);
+        assertEquals(-1.0, RotatedBounds.cos(180), 1e-12);
+        assertEquals(Math.cos(Math.toRadians(37)), RotatedBounds.cos(37), 1e-12);
+        
+        // Offsets are cached:
+        assertSame(RotatedBounds.getCornerOffsets(10, 20, 30), RotatedBounds.getCornerOffsets(10, 20, 30));
+    }
+    
+    public void testNotRotated()
+    {
+        // A 10x10 rectangle centred at x covers x-5 to x+4 inclusive.
+        setRect(0, 10, 10, 0, 0, 0);
+        setRect(1, 10, 10, 0, 9, 0);
+        assertTrue(intersects()); // sharing the column at x=4
+        
+        setRect(1, 10, 10, 0, 10, 0);
+        assertFalse(intersects());
+        
+        setRect(1, 10, 10, 0, 0, 9);
+        assertTrue(intersects());
+        
+        setRect(1, 10, 10, 0, 0, 10);
+        assertFalse(intersects());
+        
+        // Contained entirely:
+        setRect(1, 4, 4, 0, 1, 1);
+        assertTrue(intersects());
+    }
+    
+    public void testRotatedAgainstNotRotated()
+    {
+        // A 10x10 square at 45 degrees is a diamond with corners at (0,-7), (6,0), (0,5)
+        // and (-6,0), after rounding towards zero.
+        setRect(0, 10, 10, 45, 0, 0);
+        
+        // Square covering x 6 to 15: touches the right point of the diamond
+        setRect(1, 10, 10, 0, 11, 0);
+        assertTrue(intersects());
+        
+        // Square covering x 7 to 16: clear of the diamond
+        setRect(1, 10, 10, 0, 12, 0);
+        assertFalse(intersects());
+        
+        // Diagonally, the bounding boxes overlap but the shapes only do when close enough:
+        setRect(1, 10, 10, 0, 7, 7);
+        assertTrue(intersects());
+        
+        setRect(1, 10, 10, 0, 8, 8);
+        assertFalse(intersects());
+    }
+    
+    public void testBothRotated()
+    {
+        setRect(0, 10, 10, 45, 0, 0);
+        
+        // Diamonds meeting point to point:
+        setRect(1, 10, 10, 45, 13, 0);
+        assertTrue(intersects());
+        
+        setRect(1, 10, 10, 45, 14, 0);
+        assertFalse(intersects());
+        
+        // Diamonds side by side along a diagonal edge:
+        setRect(1, 10, 10, 45, 6, 6);
+        assertTrue(intersects());
+        
+        setRect(1, 10, 10, 45, 7, 7);
+        assertFalse(intersects());
+        
+        // A long thin rectangle crossing the diamond, with no corner inside it:
+        setRect(1, 40, 2, 90, 0, 0);
+        assertTrue(intersects());
+    }
+    
+    public void testIntersectsAll()
+    {
+        int[] myXs = new int[4];
+        int[] myYs = new int[4];
+        RotatedBounds.getCorners(RotatedBounds.getCornerOffsets(10, 10, 45), 0, 0, myXs, myYs, 0);
+        
+        int[] otherXs = new int[12];
+        int[] otherYs = new int[12];
+        RotatedBounds.getCorners(RotatedBounds.getCornerOffsets(10, 10, 0), 11, 0, otherXs, otherYs, 0);
+        RotatedBounds.getCorners(RotatedBounds.getCornerOffsets(10, 10, 0), 8, 8, otherXs, otherYs, 4);
+        RotatedBounds.getCorners(RotatedBounds.getCornerOffsets(10, 10, 45), 13, 0, otherXs, otherYs, 8);
+        
+        boolean[] results = new boolean[3];
+        RotatedBounds.intersectsAll(myXs, myYs, 0, otherXs, otherYs, 3, results);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(RotatedBounds.intersects(myXs, myYs, 0, otherXs, otherYs, i * 4), results[i]);
+        }
+        assertTrue(results[0]);
+        assertFalse(results[1]);
+        assertTrue(results[2]);
+    }
+}
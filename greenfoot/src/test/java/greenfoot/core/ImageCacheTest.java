@@ -0,0 +1,74 @@
+/*
+ This file is part of the Greenfoot program. 
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling 
+ 
+ This program is free software; you can redistribute it and/or 
+ modify it under the terms of the GNU General Public License 
+ as published by the Free Software Foundation; either version 2 
+ of the License, or (at your option) any later version. 
+ 
+ This program is distributed in the hope that it will be useful, 
+ but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the 
+ GNU General Public License for more details. 
+ 
+ You should have received a copy of the GNU General Public License 
+ along with this program; if not, write to the Free Software 
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA. 
+ 
+ This file is subject to the Classpath exception as provided in the  
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.core;
+
+import java.awt.image.BufferedImage;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the cache of rotated and scaled images.
+ */
+public class ImageCacheTest extends TestCase
+{
+    private static BufferedImage image(int width, int height)
+    {
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+    
+    public void testCachedOnSecondRequest()
+    {
+        ImageCache cache = new ImageCache();
+        BufferedImage source = image(10, 10);
+        
+        // A transformation done only once (e.g. a different size every frame) is not cached:
+        assertFalse(cache.addTransformedImage(source, 0, 20, 20, image(20, 20)));
+        assertNull(cache.getTransformedImage(source, 0, 20, 20));
+        
+        BufferedImage scaled = image(20, 20);
+        assertTrue(cache.addTransformedImage(source, 0, 20, 20, scaled));
+        assertSame(scaled, cache.getTransformedImage(source, 0, 20, 20));
+        assertNull(cache.getTransformedImage(source, 90, 20, 20));
+    }
+    
+    public void testBoundedBySize()
+    {
+        ImageCache cache = new ImageCache();
+        // Each entry counts 8MB (4MB each for source and result), so only four fit:
+        BufferedImage[] sources = new BufferedImage[5];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = image(1024, 1024);
+            cache.addTransformedImage(sources[i], 90, 1024, 1024, sources[i]);
+            assertTrue(cache.addTransformedImage(sources[i], 90, 1024, 1024, sources[i]));
+        }
+        assertNull(cache.getTransformedImage(sources[0], 90, 1024, 1024));
+        for (int i = 1; i < sources.length; i++) {
+            assertSame(sources[i], cache.getTransformedImage(sources[i], 90, 1024, 1024));
+        }
+        
+        // An image too large for the cache is never cached:
+        BufferedImage huge = image(4096, 4096);
+        cache.addTransformedImage(huge, 0, 4096, 2048, image(1, 1));
+        assertFalse(cache.addTransformedImage(huge, 0, 4096, 2048, image(1, 1)));
+        assertSame(sources[4], cache.getTransformedImage(sources[4], 90, 1024, 1024));
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ This file is part of the Greenfoot program.
+ Copyright (C) 2026  Poul Henriksen and Michael Kolling
+
+ This program is free software; you can redistribute it and/or
+ modify it under the terms of the GNU General Public License
+ as published by the Free Software Foundation; either version 2
+ of the License, or (at your option) any later version.
+
+ This program is distributed in the hope that it will be useful,
+ but WITHOUT ANY WARRANTY; without even the implied warranty of
+ MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ GNU General Public License for more details.
+
+ You should have received a copy of the GNU General Public License
+ along with this program; if not, write to the Free Software
+ Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+
+ This file is subject to the Classpath exception as provided in the
+ LICENSE.txt file that accompanied this code.
+ */
+package greenfoot.vmcomm;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import greenfoot.core.ShadowProjectProperties;
+import greenfoot.core.Simulation;
+
+import junit.framework.TestCase;
+
+/**
+ * Stress tests of the shared memory protocol used between the server VM and the debug VM
+ * (see VMCommsMain), with each end in a separate JVM.
+ *
+ * <p>testTwoVMs follows the protocol with SeqLock directly, so that it can check images: the
+ * "server" (this test) sends numbered commands and consumes images; the "debug VM" (the main
+ * method, in a child process) publishes status records and images as fast as it can.  Each
+ * status record and image is filled with a single value, so that a torn read shows up as a mix
+ * of values.
+ *
+ * <p>testCommsClasses runs the real VMCommsMain here and the real VMCommsSimulation in the
+ * child process, and checks that commands and lifecycle events all arrive, in order.
+ */
+public class SeqLockStressTest extends TestCase
+{
+    private static final int FILE_SIZE = 1 << 20;
+    // Server area: lock, last consumed image, command count, commands:
+    private static final int COMMAND_LOCK = 0;
+    private static final int COMMAND_AREA_SIZE = 1024;
+    // Status record: lock, frame number, last acknowledged command, image slot,
+    // image paint sequence, then payload:
+    private static final int STATUS_LOCK = COMMAND_AREA_SIZE;
+    private static final int STATUS_PAYLOAD = 2000;
+    private static final int IMAGE_AREA = 4096;
+    private static final int SLOT_SIZE = 50_000;
+
+    private static final int TOTAL_COMMANDS = 20_000;
+    private static final int MAX_PENDING_COMMANDS = 100;
+    private static final int MIN_FRAMES = 5_000;
+
+    private static final int COMMS_FILE_SIZE = 4 * VMCommsMain.IMAGE_AREA_OFFSET + (1 << 20);
+    private static final int COMMS_COMMANDS = 5_000;
+    // Events are posted in bursts of at least EVENT_BURST, which is more than the event ring holds:
+    private static final int COMMS_EVENTS = 3_000;
+    private static final int EVENT_BURST = 150;
+    private static final int[] EVENT_CYCLE = {VMCommsMain.EVENT_SIMULATION_STARTED_RUNNING,
+            VMCommsMain.EVENT_SIMULATION_PAUSED, VMCommsMain.EVENT_WORLD_INSTANTIATION_ERROR};
+
+    private static int slotOffset(int slot)
+    {
+        return IMAGE_AREA + slot * SLOT_SIZE;
+    }
+
+    private static MappedByteBuffer map(File file) throws IOException
+    {
+        try (FileChannel channel = new RandomAccessFile(file, "rw").getChannel())
+        {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+        }
+    }
+
+    /**
+     * Start the main method of this class in a child process, with the given arguments.
+     */
+    private static Process startChild(String... args) throws IOException
+    {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = new ArrayList<>(Arrays.asList(java, "-cp", System.getProperty("java.class.path"),
+                SeqLockStressTest.class.getName()));
+        command.addAll(Arrays.asList(args));
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    public void testTwoVMs() throws Exception
+    {
+        File file = File.createTempFile("greenfoot", "shmtest");
+        file.deleteOnExit();
+        MappedByteBuffer buffer = map(file);
+        IntBuffer shm = buffer.asIntBuffer();
+        SeqLock commandLock = new SeqLock(buffer, COMMAND_LOCK);
+        SeqLock statusLock = new SeqLock(buffer, STATUS_LOCK);
+
+        Process child = startChild(file.getAbsolutePath());
+
+        AtomicBoolean wakeup = new AtomicBoolean();
+        Random random = new Random();
+        int[] status = new int[4 + STATUS_PAYLOAD];
+        int nextCommand = 1;
+        int lastAck = 0;
+        int lastConsumedImg = -1;
+        int lastFrame = 0;
+        int framesRead = 0;
+        int imagesChecked = 0;
+        int lastStatusSeq = 0;
+        boolean changed = true;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        // (The child may exit as soon as it has sent its final status record)
+        while (lastAck < TOTAL_COMMANDS && (child.isAlive() || statusLock.getSequence() != lastStatusSeq))
+        {
+            assertTrue("Timed out", System.nanoTime() < deadline);
+            // Keep a window of unacknowledged commands pending, as VMCommsMain does:
+            while (nextCommand <= TOTAL_COMMANDS && nextCommand - lastAck <= MAX_PENDING_COMMANDS)
+            {
+                nextCommand += 1;
+                changed = true;
+            }
+            if (changed)
+            {
+                commandLock.beginWrite();
+                shm.put(1, lastConsumedImg);
+                shm.put(2, nextCommand - 1 - lastAck);
+                for (int command = lastAck + 1; command < nextCommand; command++)
+                {
+                    shm.put(3 + command - lastAck - 1, command);
+                }
+                commandLock.endWrite();
+                changed = false;
+            }
+
+            int observed = statusLock.getSequence();
+            int seq = statusLock.beginRead();
+            if (seq != -1 && seq != lastStatusSeq)
+            {
+                // Vary the timing of the copy relative to the writer:
+                for (int spin = random.nextInt(2000); spin > 0; spin--)
+                {
+                    Thread.onSpinWait();
+                }
+                shm.get(STATUS_LOCK + 1, status);
+                if (statusLock.validate(seq))
+                {
+                    lastStatusSeq = seq;
+                    framesRead += 1;
+                    int frame = status[0];
+                    assertTrue("Frames out of order", frame > lastFrame);
+                    lastFrame = frame;
+                    for (int i = 4; i < status.length; i++)
+                    {
+                        assertEquals("Torn status record", frame, status[i]);
+                    }
+                    int ack = status[1];
+                    assertTrue("Acknowledgement went backwards", ack >= lastAck);
+                    if (ack != lastAck)
+                    {
+                        lastAck = ack;
+                        changed = true;
+                    }
+                    int paintSeq = status[3];
+                    if (paintSeq > lastConsumedImg)
+                    {
+                        // The child won't overwrite this slot until we say we've consumed it:
+                        int[] pixels = new int[SLOT_SIZE];
+                        shm.get(slotOffset(status[2]), pixels);
+                        for (int pixel : pixels)
+                        {
+                            assertEquals("Torn image", paintSeq, pixel);
+                        }
+                        imagesChecked += 1;
+                        lastConsumedImg = paintSeq;
+                        changed = true;
+                    }
+                }
+            }
+            if (!changed)
+            {
+                statusLock.await(observed, TimeUnit.MILLISECONDS.toNanos(100), wakeup);
+            }
+        }
+
+        assertTrue("Child did not finish", child.waitFor(60, TimeUnit.SECONDS));
+        assertEquals("Child reported an error", 0, child.exitValue());
+        assertEquals(TOTAL_COMMANDS, lastAck);
+        assertTrue(framesRead > 0);
+        assertTrue(imagesChecked > 0);
+    }
+
+    public void testCommsClasses() throws Exception
+    {
+        List<Integer> events = Collections.synchronizedList(new ArrayList<>());
+        VMCommsMain comms = new VMCommsMain(COMMS_FILE_SIZE, events::add);
+        Process child = startChild(comms.getSharedFile().getAbsolutePath(), "comms");
+        try
+        {
+            // Send numbered commands, at an uneven pace, as the user would:
+            Random random = new Random();
+            for (int i = 1; i <= COMMS_COMMANDS; i++)
+            {
+                comms.sendProperty("n", Integer.toString(i));
+                if (random.nextInt(50) == 0)
+                {
+                    Thread.sleep(random.nextInt(20));
+                }
+            }
+
+            // The child sends the last burst of events once it has seen the last command:
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (events.size() < COMMS_EVENTS && child.isAlive())
+            {
+                assertTrue("Timed out", System.nanoTime() < deadline);
+                Thread.sleep(10);
+            }
+            assertTrue("Child reported an error", child.isAlive());
+            assertEquals(COMMS_EVENTS, events.size());
+            for (int i = 0; i < COMMS_EVENTS; i++)
+            {
+                assertEquals("Event lost or out of order", EVENT_CYCLE[i % EVENT_CYCLE.length], (int) events.get(i));
+            }
+            assertTrue(comms.getLastSeq() > 0);
+        }
+        finally
+        {
+            child.destroy();
+            comms.close();
+        }
+    }
+
+    /**
+     * The debug VM end of testCommsClasses: runs a VMCommsSimulation, which treats each
+     * property change as a numbered command, and posts events as the commands arrive.
+     * Exits with a non-zero code if a command is lost or seen out of order.
+     */
+    private static void commsChild(String shmFilePath) throws InterruptedException
+    {
+        Simulation.initialize();
+        AtomicInteger received = new AtomicInteger();
+        ShadowProjectProperties properties = new ShadowProjectProperties() {
+            @Override
+            public void propertyChangedOnServerVM(String key, String value)
+            {
+                int command = Integer.parseInt(value);
+                if (command != received.get() + 1)
+                {
+                    System.err.println("Lost command: expected " + (received.get() + 1) + " but got " + command);
+                    System.exit(2);
+                }
+                received.set(command);
+            }
+        };
+        VMCommsSimulation comms = new VMCommsSimulation(properties, shmFilePath, COMMS_FILE_SIZE, 1);
+
+        Random random = new Random();
+        int posted = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (posted < COMMS_EVENTS)
+        {
+            if (System.nanoTime() > deadline)
+            {
+                System.exit(3);
+            }
+            // Keep pace with the commands, in whole bursts:
+            int due = (int) ((long) COMMS_EVENTS * received.get() / COMMS_COMMANDS) / EVENT_BURST * EVENT_BURST;
+            for (; posted < due; posted++)
+            {
+                comms.postEvent(EVENT_CYCLE[posted % EVENT_CYCLE.length]);
+            }
+            Thread.sleep(random.nextInt(3));
+        }
+        // Wait for the server to destroy us (the communications thread never finishes):
+        Thread.sleep(TimeUnit.SECONDS.toMillis(60));
+        System.exit(4);
+    }
+
+    /**
+     * The debug VM end of the tests.  For testTwoVMs, publishes status records and images, and
+     * processes commands, exiting with a non-zero code if a command is lost or seen out of order.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        if (args.length > 1 && args[1].equals("comms"))
+        {
+            commsChild(args[0]);
+            return;
+        }
+
+        MappedByteBuffer buffer = map(new File(args[0]));
+        IntBuffer shm = buffer.asIntBuffer();
+        SeqLock commandLock = new SeqLock(buffer, COMMAND_LOCK);
+        SeqLock statusLock = new SeqLock(buffer, STATUS_LOCK);
+
+        int[] serverArea = new int[COMMAND_AREA_SIZE - 1];
+        int[] payload = new int[STATUS_PAYLOAD];
+        int[] pixels = new int[SLOT_SIZE];
+        int[] slotPaintSeq = {-1, -1};
+        int lastPaintSlot = 1;
+        int lastPaintSeq = -1;
+        int lastConsumedImg = -1;
+        int lastAck = 0;
+        int lastCommandSeq = 0;
+        int frame = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (lastAck < TOTAL_COMMANDS || frame < MIN_FRAMES)
+        {
+            if (System.nanoTime() > deadline)
+            {
+                System.exit(3);
+            }
+            int seq = commandLock.beginRead();
+            if (seq != -1 && seq != lastCommandSeq)
+            {
+                shm.get(1, serverArea);
+                if (commandLock.validate(seq))
+                {
+                    lastCommandSeq = seq;
+                    lastConsumedImg = serverArea[0];
+                    int count = serverArea[1];
+                    for (int i = 0; i < count; i++)
+                    {
+                        int command = serverArea[2 + i];
+                        if (command <= lastAck)
+                        {
+                            continue; // already processed
+                        }
+                        if (command != lastAck + 1)
+                        {
+                            System.err.println("Lost command: expected " + (lastAck + 1) + " but got " + command);
+                            System.exit(2);
+                        }
+                        lastAck = command;
+                    }
+                }
+            }
+
+            frame += 1;
+            int slot = 1 - lastPaintSlot;
+            if (lastConsumedImg >= slotPaintSeq[slot])
+            {
+                Arrays.fill(pixels, frame);
+                shm.put(slotOffset(slot), pixels);
+                slotPaintSeq[slot] = frame;
+                lastPaintSlot = slot;
+                lastPaintSeq = frame;
+            }
+
+            Arrays.fill(payload, frame);
+            statusLock.beginWrite();
+            shm.put(STATUS_LOCK + 1, frame);
+            shm.put(STATUS_LOCK + 2, lastAck);
+            shm.put(STATUS_LOCK + 3, lastPaintSlot);
+            shm.put(STATUS_LOCK + 4, lastPaintSeq);
+            shm.put(STATUS_LOCK + 5, payload);
+            statusLock.endWrite();
+        }
+        System.exit(0);
+    }
+}